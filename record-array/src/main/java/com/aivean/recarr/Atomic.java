@@ -0,0 +1,43 @@
+package com.aivean.recarr;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Enables the atomic operations over the `int`, `long`, `float` or `double` field, so that the records
+ * can be updated concurrently without locks (e.g. counters and accumulators updated by the parallel workers).
+ * <p>
+ * The annotation is placed on the getter of the field, and the record interface declares the operations it needs,
+ * named after the field:
+ * <pre>{@code
+ * @Record
+ * interface Stats {
+ *     @Atomic
+ *     long getHits();
+ *     void setHits(long hits);
+ *
+ *     long getAndAddHits(long delta);
+ *     long getAndSetHits(long value);
+ *     boolean compareAndSetHits(long expected, long value);
+ *     long getHitsVolatile();
+ *     void setHitsVolatile(long value);
+ *     long getHitsAcquire();
+ *     void setHitsRelease(long value);
+ * }
+ * }</pre>
+ * The operations have the semantics of the same access modes of {@link java.lang.invoke.VarHandle}
+ * (e.g. `compareAndSet` of the `float` and `double` fields compares the bits of the values),
+ * and are implemented with the array element handles over the columns. The plain getter and setter
+ * stay plain reads and writes.
+ * <p>
+ * Atomic fields can't be narrowed ({@link Range}, {@link Unsigned}), may belong to a {@link Group}
+ * and are supported by all storages. The pages of the {@link Record.Storage#PAGED} columns are allocated
+ * by any atomic operation, including the reads. The {@link Record.Storage#OFF_HEAP} columns must be aligned
+ * to the element size (always true for the buffers allocated by the array).
+ * Frozen arrays support the atomic reads only; the detached copies synchronize on the copy.
+ */
+@Target(ElementType.METHOD) @Retention(RetentionPolicy.CLASS)
+public @interface Atomic {
+}
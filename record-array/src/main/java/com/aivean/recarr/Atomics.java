@@ -0,0 +1,53 @@
+package com.aivean.recarr;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * {@link VarHandle}s of the columns of the {@link Atomic} fields, used by the generated records,
+ * e.g. `(int) Atomics.INT_ARRAY.getAndAdd(Hits, __index, delta)`.
+ * The handles are constants, so the access is compiled to the single atomic instruction.
+ */
+final class Atomics {
+
+    static final VarHandle INT_ARRAY = MethodHandles.arrayElementVarHandle(int[].class);
+    static final VarHandle LONG_ARRAY = MethodHandles.arrayElementVarHandle(long[].class);
+    static final VarHandle FLOAT_ARRAY = MethodHandles.arrayElementVarHandle(float[].class);
+    static final VarHandle DOUBLE_ARRAY = MethodHandles.arrayElementVarHandle(double[].class);
+
+    // byte offsets of the elements in the off-heap columns, which are little-endian, see OffHeapMemory
+    static final VarHandle INT_BUFFER = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+    static final VarHandle LONG_BUFFER =
+            MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    static final VarHandle FLOAT_BUFFER =
+            MethodHandles.byteBufferViewVarHandle(float[].class, ByteOrder.LITTLE_ENDIAN);
+    static final VarHandle DOUBLE_BUFFER =
+            MethodHandles.byteBufferViewVarHandle(double[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private Atomics() {
+    }
+
+    /**
+     * `getAndAdd` of the off-heap `float` column (not supported by the buffer view handles).
+     */
+    static float getAndAdd(ByteBuffer buffer, int offset, float delta) {
+        float v;
+        do {
+            v = (float) FLOAT_BUFFER.getVolatile(buffer, offset);
+        } while (!FLOAT_BUFFER.weakCompareAndSet(buffer, offset, v, v + delta));
+        return v;
+    }
+
+    /**
+     * `getAndAdd` of the off-heap `double` column (not supported by the buffer view handles).
+     */
+    static double getAndAdd(ByteBuffer buffer, int offset, double delta) {
+        double v;
+        do {
+            v = (double) DOUBLE_BUFFER.getVolatile(buffer, offset);
+        } while (!DOUBLE_BUFFER.weakCompareAndSet(buffer, offset, v, v + delta));
+        return v;
+    }
+}
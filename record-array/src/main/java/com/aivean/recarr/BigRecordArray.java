@@ -0,0 +1,113 @@
+package com.aivean.recarr;
+
+import java.util.function.Consumer;
+
+/**
+ * One-dimensional array of records with `long` indices, for more than 2^31 records.
+ * <p>
+ * The array consists of the pages: regular {@link RecordArray}s of `2^pageShift` records each
+ * (the last page may be smaller), so each column is stored as the chunked pages of primitive arrays,
+ * or the off-heap buffers for {@link Record.Storage#OFF_HEAP} records.
+ * The record `i` is the record `i & (2^pageShift - 1)` of the page `i >>> pageShift`.
+ * <p>
+ * Pages are the views of the same storage, and provide the bulk operations
+ * (e.g. {@link RecordArray#sortBy(String...)} within the page, column views, serialization).
+ * <pre>{@code
+ * BigRecordArray<Tick> ticks = BigRecordArray.create(Tick.class, 3_000_000_000L);
+ * ticks.get(2_500_000_000L).setPrice(1.5);
+ * }</pre>
+ */
+public interface BigRecordArray<T> extends AutoCloseable {
+
+    /**
+     * Default number of records in the page, 2^20.
+     */
+    int DEFAULT_PAGE_SHIFT = 20;
+
+    /**
+     * Return the "proxy" to the record at the given index.
+     *
+     * @throws IndexOutOfBoundsException if the index is out of [0, size)
+     */
+    T get(long index);
+
+    /**
+     * Set the fields of the record at the given index to the values of the given record.
+     *
+     * @throws IndexOutOfBoundsException if the index is out of [0, size)
+     */
+    void set(long index, T value);
+
+    long size();
+
+    /**
+     * Returns log2 of the number of records in the page.
+     */
+    int pageShift();
+
+    int pageCount();
+
+    /**
+     * Returns the page, see {@link BigRecordArray}. Changes of the page are visible in this array and vice versa.
+     */
+    RecordArray<T> page(int page);
+
+    /**
+     * Sets the fields of the records [from, to) to the values of the prototype, see {@link RecordArray#fill}.
+     *
+     * @throws IndexOutOfBoundsException if the range is not within [0, size)
+     */
+    void fill(long from, long to, T prototype);
+
+    /**
+     * Resets the fields of the records [from, to) to the default values, see {@link RecordArray#clear}.
+     *
+     * @throws IndexOutOfBoundsException if the range is not within [0, size)
+     */
+    void clear(long from, long to);
+
+    /**
+     * Performs the action for each record "proxy" in the index order.
+     */
+    default void forEach(Consumer<? super T> action) {
+        for (int p = 0; p < pageCount(); p++) {
+            page(p).forEach(action);
+        }
+    }
+
+    /**
+     * Performs the action for each record "proxy" in parallel, page by page,
+     * see {@link RecordArray#parallelForEach(Consumer)}.
+     */
+    default void parallelForEach(Consumer<? super T> action) {
+        for (int p = 0; p < pageCount(); p++) {
+            page(p).parallelForEach(action);
+        }
+    }
+
+    /**
+     * Releases the off-heap memory of the pages, see {@link RecordArray#close()}.
+     */
+    @Override
+    void close();
+
+    /**
+     * Creates the array of the given size, with the pages of {@link #DEFAULT_PAGE_SHIFT}.
+     *
+     * @param recordClass Class of the records. Must be an interface marked with @Record.
+     *                    If not, an IllegalArgumentException exception is thrown.
+     */
+    static <T> BigRecordArray<T> create(Class<T> recordClass, long size) {
+        return create(recordClass, size, DEFAULT_PAGE_SHIFT);
+    }
+
+    /**
+     * Creates the array of the given size, with the pages of `2^pageShift` records (pageShift in 6..30).
+     * All pages are allocated upfront.
+     *
+     * @throws IllegalArgumentException if the size is negative or the page shift is invalid
+     */
+    static <T> BigRecordArray<T> create(Class<T> recordClass, long size, int pageShift) {
+        return new PagedRecordArray<>(RecordArray.factory(recordClass), size, pageShift);
+    }
+}
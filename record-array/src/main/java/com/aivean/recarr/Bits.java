@@ -0,0 +1,157 @@
+package com.aivean.recarr;
+
+import java.util.Arrays;
+
+/**
+ * Operations over the boolean columns of the heap arrays, packed into `long[]` bitsets
+ * (the record `i` is the bit `i & 63` of the word `i >>> 6`). Bits beyond the size of the array are always zero.
+ * <p>
+ * Writing the bit rewrites the whole word, so the records that share the word (aligned groups of 64 records)
+ * must not be modified concurrently. Parallel iteration of {@link RecordArray} splits the ranges
+ * at the multiples of 64 records for this reason.
+ */
+final class Bits {
+
+    private Bits() {
+    }
+
+    static int words(int size) {
+        return (size + 63) >>> 6;
+    }
+
+    /**
+     * Returns the bit of the record, checking the index against the size of the array,
+     * as the bits of the last word beyond the size are still in the bitset.
+     *
+     * @throws IndexOutOfBoundsException if the index is out of [0, size)
+     */
+    static boolean get(long[] words, int index, int size) {
+        checkIndex(index, size);
+        return (words[index >>> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * Sets the bit of the record to the value, see {@link #get(long[], int, int)}.
+     *
+     * @throws IndexOutOfBoundsException if the index is out of [0, size)
+     */
+    static void set(long[] words, int index, int size, boolean value) {
+        checkIndex(index, size);
+        // without branches on the value
+        words[index >>> 6] ^= (-(value ? 1L : 0L) ^ words[index >>> 6]) & (1L << index);
+    }
+
+    static void checkIndex(int index, int size) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    /**
+     * Reads `n` (1..64) bits starting at the bit position.
+     */
+    static long read(long[] words, int bitPos, int n) {
+        int w = bitPos >>> 6;
+        int off = bitPos & 63;
+        long v = words[w] >>> off;
+        if (off + n > 64) {
+            v |= words[w + 1] << (64 - off);
+        }
+        return n == 64 ? v : v & ((1L << n) - 1);
+    }
+
+    /**
+     * Writes the lower `n` (1..64) bits of `value` starting at the bit position.
+     */
+    static void write(long[] words, int bitPos, long value, int n) {
+        long mask = n == 64 ? -1L : (1L << n) - 1;
+        value &= mask;
+        int w = bitPos >>> 6;
+        int off = bitPos & 63;
+        words[w] = (words[w] & ~(mask << off)) | (value << off);
+        if (off + n > 64) {
+            long highMask = (1L << (off + n - 64)) - 1;
+            words[w + 1] = (words[w + 1] & ~highMask) | (value >>> (64 - off));
+        }
+    }
+
+    /**
+     * Copies `length` bits, 64 bits at a time. Overlapping ranges of the same bitset are copied correctly.
+     */
+    static void copy(long[] src, int srcPos, long[] dst, int dstPos, int length) {
+        if (src == dst && srcPos < dstPos && dstPos < srcPos + length) {
+            // backwards, as memmove
+            for (int end = length; end > 0; end -= 64) {
+                int n = Math.min(64, end);
+                write(dst, dstPos + end - n, read(src, srcPos + end - n, n), n);
+            }
+        } else {
+            for (int off = 0; off < length; off += 64) {
+                int n = Math.min(64, length - off);
+                write(dst, dstPos + off, read(src, srcPos + off, n), n);
+            }
+        }
+    }
+
+    /**
+     * Sets the bits [from, to) to the value.
+     */
+    static void fill(long[] words, int from, int to, boolean value) {
+        if (from >= to) {
+            return;
+        }
+        int first = from >>> 6;
+        int last = (to - 1) >>> 6;
+        long firstMask = -1L << from;
+        long lastMask = -1L >>> -to;
+        if (first == last) {
+            long mask = firstMask & lastMask;
+            words[first] = value ? words[first] | mask : words[first] & ~mask;
+            return;
+        }
+        words[first] = value ? words[first] | firstMask : words[first] & ~firstMask;
+        Arrays.fill(words, first + 1, last, value ? -1L : 0L);
+        words[last] = value ? words[last] | lastMask : words[last] & ~lastMask;
+    }
+
+    static int cardinality(long[] words) {
+        int c = 0;
+        for (long w : words) {
+            c += Long.bitCount(w);
+        }
+        return c;
+    }
+
+    /**
+     * Returns the index of the first set bit at or after `from`, or -1 if there is no such bit.
+     */
+    static int nextSetBit(long[] words, int from) {
+        if (from < 0) {
+            throw new IndexOutOfBoundsException("from < 0: " + from);
+        }
+        int w = from >>> 6;
+        if (w >= words.length) {
+            return -1;
+        }
+        long word = words[w] & (-1L << from);
+        while (true) {
+            if (word != 0) {
+                return (w << 6) + Long.numberOfTrailingZeros(word);
+            }
+            if (++w == words.length) {
+                return -1;
+            }
+            word = words[w];
+        }
+    }
+
+    /**
+     * Unpacks `length` bits to the boolean array.
+     */
+    static void unpack(long[] src, int srcPos, boolean[] dst, int dstPos, int length) {
+        for (int i = 0; i < length; i++) {
+            int b = srcPos + i;
+            dst[dstPos + i] = (src[b >>> 6] & (1L << b)) != 0;
+        }
+    }
+}
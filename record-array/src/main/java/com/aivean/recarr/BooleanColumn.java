@@ -0,0 +1,60 @@
+package com.aivean.recarr;
+
+/**
+ * View of the `boolean` column (field) of the {@link RecordArray}, see {@link RecordArray#booleanColumn(String)}.
+ * <p>
+ * Accesses the column directly, without creating the record "proxy" for each index.
+ * The view is backed by the array, changes are visible in both directions.
+ * <p>
+ * Boolean columns of the heap arrays are bitsets (64 records per `long`), so the bulk operations
+ * process 64 records per instruction.
+ */
+public interface BooleanColumn {
+
+    /**
+     * Returns the number of elements in the column (same as {@link RecordArray#size()}).
+     */
+    int size();
+
+    boolean get(int index);
+
+    void set(int index, boolean value);
+
+    /**
+     * Returns the number of `true` elements.
+     */
+    int cardinality();
+
+    /**
+     * Returns the index of the first `true` element at or after `fromIndex`, or -1 if there is no such element.
+     * <p>
+     * To iterate over the `true` elements:
+     * <pre>{@code
+     * for (int i = column.nextSetBit(0); i >= 0; i = column.nextSetBit(i + 1)) {
+     *     ...
+     * }
+     * }</pre>
+     */
+    int nextSetBit(int fromIndex);
+
+    /**
+     * Sets each element to `this[i] && other[i]`.
+     *
+     * @throws IllegalArgumentException if the columns have different sizes
+     */
+    void and(BooleanColumn other);
+
+    /**
+     * Sets each element to `this[i] || other[i]`.
+     *
+     * @throws IllegalArgumentException if the columns have different sizes
+     */
+    void or(BooleanColumn other);
+
+    /**
+     * Sets each element to `this[i] && !other[i]`.
+     *
+     * @throws IllegalArgumentException if the columns have different sizes
+     */
+    void andNot(BooleanColumn other);
+}
@@ -0,0 +1,349 @@
+package com.aivean.recarr;
+
+/**
+ * Bulk arithmetic operations over the whole columns of the {@link RecordArray}
+ * (see {@link RecordArray#floatColumn(String)}).
+ * <p>
+ * For the heap columns, the operations are simple counted loops over the backing arrays,
+ * which HotSpot C2 compiles to SIMD instructions (auto-vectorization).
+ * Off-heap columns are processed element by element.
+ * <p>
+ * Binary operations require the columns of the same size, otherwise IllegalArgumentException is thrown.
+ */
+public final class ColumnKernels {
+
+    private ColumnKernels() {
+    }
+
+    private static void checkSize(int a, int b) {
+        if (a != b) {
+            throw new IllegalArgumentException("Column sizes differ: " + a + " != " + b);
+        }
+    }
+
+    // ---- float columns ----
+
+    /**
+     * dst[i] += src[i]
+     */
+    public static void add(FloatColumn dst, FloatColumn src) {
+        checkSize(dst.size(), src.size());
+        if (dst.hasArray() && src.hasArray()) {
+            float[] d = dst.array();
+            float[] s = src.array();
+            for (int i = 0; i < d.length; i++) {
+                d[i] += s[i];
+            }
+        } else {
+            for (int i = 0, n = dst.size(); i < n; i++) {
+                dst.set(i, dst.get(i) + src.get(i));
+            }
+        }
+    }
+
+    /**
+     * dst[i] += src[i] * factor (e.g. `x += vx * dt`).
+     * The multiplication and addition are not fused, so that the loop is vectorized on any hardware.
+     */
+    public static void addScaled(FloatColumn dst, FloatColumn src, float factor) {
+        checkSize(dst.size(), src.size());
+        if (dst.hasArray() && src.hasArray()) {
+            float[] d = dst.array();
+            float[] s = src.array();
+            for (int i = 0; i < d.length; i++) {
+                d[i] += s[i] * factor;
+            }
+        } else {
+            for (int i = 0, n = dst.size(); i < n; i++) {
+                dst.set(i, dst.get(i) + src.get(i) * factor);
+            }
+        }
+    }
+
+    /**
+     * col[i] *= factor
+     */
+    public static void scale(FloatColumn col, float factor) {
+        if (col.hasArray()) {
+            float[] c = col.array();
+            for (int i = 0; i < c.length; i++) {
+                c[i] *= factor;
+            }
+        } else {
+            for (int i = 0, n = col.size(); i < n; i++) {
+                col.set(i, col.get(i) * factor);
+            }
+        }
+    }
+
+    /**
+     * col[i] = min(max(col[i], min), max)
+     */
+    public static void clamp(FloatColumn col, float min, float max) {
+        if (min > max) {
+            throw new IllegalArgumentException("min > max: " + min + " > " + max);
+        }
+        if (col.hasArray()) {
+            float[] c = col.array();
+            for (int i = 0; i < c.length; i++) {
+                c[i] = Math.min(Math.max(c[i], min), max);
+            }
+        } else {
+            for (int i = 0, n = col.size(); i < n; i++) {
+                col.set(i, Math.min(Math.max(col.get(i), min), max));
+            }
+        }
+    }
+
+    /**
+     * Returns the sum of the elements, accumulated in double precision.
+     * The order of additions differs from the sequential loop, so the result may differ in the last bits.
+     */
+    public static double sum(FloatColumn col) {
+        double s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int n = col.size();
+        int i = 0;
+        if (col.hasArray()) {
+            float[] c = col.array();
+            for (; i + 3 < n; i += 4) {
+                s0 += c[i];
+                s1 += c[i + 1];
+                s2 += c[i + 2];
+                s3 += c[i + 3];
+            }
+            for (; i < n; i++) {
+                s0 += c[i];
+            }
+        } else {
+            for (; i < n; i++) {
+                s0 += col.get(i);
+            }
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /**
+     * Returns the sum of a[i] * b[i], accumulated in double precision, see {@link #sum(FloatColumn)}.
+     */
+    public static double dot(FloatColumn a, FloatColumn b) {
+        checkSize(a.size(), b.size());
+        double s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int n = a.size();
+        int i = 0;
+        if (a.hasArray() && b.hasArray()) {
+            float[] x = a.array();
+            float[] y = b.array();
+            for (; i + 3 < n; i += 4) {
+                s0 += (double) x[i] * y[i];
+                s1 += (double) x[i + 1] * y[i + 1];
+                s2 += (double) x[i + 2] * y[i + 2];
+                s3 += (double) x[i + 3] * y[i + 3];
+            }
+            for (; i < n; i++) {
+                s0 += (double) x[i] * y[i];
+            }
+        } else {
+            for (; i < n; i++) {
+                s0 += (double) a.get(i) * b.get(i);
+            }
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /**
+     * Returns the minimum element (NaN if any element is NaN), or +Infinity for an empty column.
+     */
+    public static float min(FloatColumn col) {
+        float m = Float.POSITIVE_INFINITY;
+        if (col.hasArray()) {
+            for (float v : col.array()) {
+                m = Math.min(m, v);
+            }
+        } else {
+            for (int i = 0, n = col.size(); i < n; i++) {
+                m = Math.min(m, col.get(i));
+            }
+        }
+        return m;
+    }
+
+    /**
+     * Returns the maximum element (NaN if any element is NaN), or -Infinity for an empty column.
+     */
+    public static float max(FloatColumn col) {
+        float m = Float.NEGATIVE_INFINITY;
+        if (col.hasArray()) {
+            for (float v : col.array()) {
+                m = Math.max(m, v);
+            }
+        } else {
+            for (int i = 0, n = col.size(); i < n; i++) {
+                m = Math.max(m, col.get(i));
+            }
+        }
+        return m;
+    }
+
+    // ---- double columns ----
+
+    /**
+     * dst[i] += src[i]
+     */
+    public static void add(DoubleColumn dst, DoubleColumn src) {
+        checkSize(dst.size(), src.size());
+        if (dst.hasArray() && src.hasArray()) {
+            double[] d = dst.array();
+            double[] s = src.array();
+            for (int i = 0; i < d.length; i++) {
+                d[i] += s[i];
+            }
+        } else {
+            for (int i = 0, n = dst.size(); i < n; i++) {
+                dst.set(i, dst.get(i) + src.get(i));
+            }
+        }
+    }
+
+    /**
+     * dst[i] += src[i] * factor (e.g. `x += vx * dt`).
+     * The multiplication and addition are not fused, so that the loop is vectorized on any hardware.
+     */
+    public static void addScaled(DoubleColumn dst, DoubleColumn src, double factor) {
+        checkSize(dst.size(), src.size());
+        if (dst.hasArray() && src.hasArray()) {
+            double[] d = dst.array();
+            double[] s = src.array();
+            for (int i = 0; i < d.length; i++) {
+                d[i] += s[i] * factor;
+            }
+        } else {
+            for (int i = 0, n = dst.size(); i < n; i++) {
+                dst.set(i, dst.get(i) + src.get(i) * factor);
+            }
+        }
+    }
+
+    /**
+     * col[i] *= factor
+     */
+    public static void scale(DoubleColumn col, double factor) {
+        if (col.hasArray()) {
+            double[] c = col.array();
+            for (int i = 0; i < c.length; i++) {
+                c[i] *= factor;
+            }
+        } else {
+            for (int i = 0, n = col.size(); i < n; i++) {
+                col.set(i, col.get(i) * factor);
+            }
+        }
+    }
+
+    /**
+     * col[i] = min(max(col[i], min), max)
+     */
+    public static void clamp(DoubleColumn col, double min, double max) {
+        if (min > max) {
+            throw new IllegalArgumentException("min > max: " + min + " > " + max);
+        }
+        if (col.hasArray()) {
+            double[] c = col.array();
+            for (int i = 0; i < c.length; i++) {
+                c[i] = Math.min(Math.max(c[i], min), max);
+            }
+        } else {
+            for (int i = 0, n = col.size(); i < n; i++) {
+                col.set(i, Math.min(Math.max(col.get(i), min), max));
+            }
+        }
+    }
+
+    /**
+     * Returns the sum of the elements, accumulated in double precision.
+     * The order of additions differs from the sequential loop, so the result may differ in the last bits.
+     */
+    public static double sum(DoubleColumn col) {
+        double s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int n = col.size();
+        int i = 0;
+        if (col.hasArray()) {
+            double[] c = col.array();
+            for (; i + 3 < n; i += 4) {
+                s0 += c[i];
+                s1 += c[i + 1];
+                s2 += c[i + 2];
+                s3 += c[i + 3];
+            }
+            for (; i < n; i++) {
+                s0 += c[i];
+            }
+        } else {
+            for (; i < n; i++) {
+                s0 += col.get(i);
+            }
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /**
+     * Returns the sum of a[i] * b[i], accumulated in double precision, see {@link #sum(DoubleColumn)}.
+     */
+    public static double dot(DoubleColumn a, DoubleColumn b) {
+        checkSize(a.size(), b.size());
+        double s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int n = a.size();
+        int i = 0;
+        if (a.hasArray() && b.hasArray()) {
+            double[] x = a.array();
+            double[] y = b.array();
+            for (; i + 3 < n; i += 4) {
+                s0 += x[i] * y[i];
+                s1 += x[i + 1] * y[i + 1];
+                s2 += x[i + 2] * y[i + 2];
+                s3 += x[i + 3] * y[i + 3];
+            }
+            for (; i < n; i++) {
+                s0 += x[i] * y[i];
+            }
+        } else {
+            for (; i < n; i++) {
+                s0 += a.get(i) * b.get(i);
+            }
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /**
+     * Returns the minimum element (NaN if any element is NaN), or +Infinity for an empty column.
+     */
+    public static double min(DoubleColumn col) {
+        double m = Double.POSITIVE_INFINITY;
+        if (col.hasArray()) {
+            for (double v : col.array()) {
+                m = Math.min(m, v);
+            }
+        } else {
+            for (int i = 0, n = col.size(); i < n; i++) {
+                m = Math.min(m, col.get(i));
+            }
+        }
+        return m;
+    }
+
+    /**
+     * Returns the maximum element (NaN if any element is NaN), or -Infinity for an empty column.
+     */
+    public static double max(DoubleColumn col) {
+        double m = Double.NEGATIVE_INFINITY;
+        if (col.hasArray()) {
+            for (double v : col.array()) {
+                m = Math.max(m, v);
+            }
+        } else {
+            for (int i = 0, n = col.size(); i < n; i++) {
+                m = Math.max(m, col.get(i));
+            }
+        }
+        return m;
+    }
+}
@@ -0,0 +1,1294 @@
+package com.aivean.recarr;
+
+import java.nio.ByteBuffer;
+import java.util.function.IntUnaryOperator;
+import java.util.function.Supplier;
+
+/**
+ * Implementations of the column views, returned by the generated RecordArray implementations.
+ * <p>
+ * The views of the off-heap columns read the buffer field of the array on each access,
+ * so that the access after {@link RecordArray#close()} throws NullPointerException,
+ * instead of accessing the released memory.
+ */
+final class ColumnViews {
+
+    private ColumnViews() {
+    }
+
+    static final class IntArray implements IntColumn {
+        private final int[] array;
+
+        IntArray(int[] array) {
+            this.array = array;
+        }
+
+        public int size() {
+            return array.length;
+        }
+
+        public int get(int index) {
+            return array[index];
+        }
+
+        public void set(int index, int value) {
+            array[index] = value;
+        }
+
+        public boolean hasArray() {
+            return true;
+        }
+
+        public int[] array() {
+            return array;
+        }
+    }
+
+    static final class IntBuffer implements IntColumn {
+        private final Supplier<ByteBuffer> buffer;
+        private final int size;
+
+        IntBuffer(Supplier<ByteBuffer> buffer, int size) {
+            this.buffer = buffer;
+            this.size = size;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public int get(int index) {
+            return buffer.get().getInt(index << 2);
+        }
+
+        public void set(int index, int value) {
+            buffer.get().putInt(index << 2, value);
+        }
+
+        public boolean hasArray() {
+            return false;
+        }
+
+        public int[] array() {
+            throw new UnsupportedOperationException("Off-heap column is not backed by an array");
+        }
+    }
+
+    static final class LongArray implements LongColumn {
+        private final long[] array;
+
+        LongArray(long[] array) {
+            this.array = array;
+        }
+
+        public int size() {
+            return array.length;
+        }
+
+        public long get(int index) {
+            return array[index];
+        }
+
+        public void set(int index, long value) {
+            array[index] = value;
+        }
+
+        public boolean hasArray() {
+            return true;
+        }
+
+        public long[] array() {
+            return array;
+        }
+    }
+
+    static final class LongBuffer implements LongColumn {
+        private final Supplier<ByteBuffer> buffer;
+        private final int size;
+
+        LongBuffer(Supplier<ByteBuffer> buffer, int size) {
+            this.buffer = buffer;
+            this.size = size;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public long get(int index) {
+            return buffer.get().getLong(index << 3);
+        }
+
+        public void set(int index, long value) {
+            buffer.get().putLong(index << 3, value);
+        }
+
+        public boolean hasArray() {
+            return false;
+        }
+
+        public long[] array() {
+            throw new UnsupportedOperationException("Off-heap column is not backed by an array");
+        }
+    }
+
+    static final class FloatArray implements FloatColumn {
+        private final float[] array;
+
+        FloatArray(float[] array) {
+            this.array = array;
+        }
+
+        public int size() {
+            return array.length;
+        }
+
+        public float get(int index) {
+            return array[index];
+        }
+
+        public void set(int index, float value) {
+            array[index] = value;
+        }
+
+        public boolean hasArray() {
+            return true;
+        }
+
+        public float[] array() {
+            return array;
+        }
+    }
+
+    static final class FloatBuffer implements FloatColumn {
+        private final Supplier<ByteBuffer> buffer;
+        private final int size;
+
+        FloatBuffer(Supplier<ByteBuffer> buffer, int size) {
+            this.buffer = buffer;
+            this.size = size;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public float get(int index) {
+            return buffer.get().getFloat(index << 2);
+        }
+
+        public void set(int index, float value) {
+            buffer.get().putFloat(index << 2, value);
+        }
+
+        public boolean hasArray() {
+            return false;
+        }
+
+        public float[] array() {
+            throw new UnsupportedOperationException("Off-heap column is not backed by an array");
+        }
+    }
+
+    static final class DoubleArray implements DoubleColumn {
+        private final double[] array;
+
+        DoubleArray(double[] array) {
+            this.array = array;
+        }
+
+        public int size() {
+            return array.length;
+        }
+
+        public double get(int index) {
+            return array[index];
+        }
+
+        public void set(int index, double value) {
+            array[index] = value;
+        }
+
+        public boolean hasArray() {
+            return true;
+        }
+
+        public double[] array() {
+            return array;
+        }
+    }
+
+    static final class DoubleBuffer implements DoubleColumn {
+        private final Supplier<ByteBuffer> buffer;
+        private final int size;
+
+        DoubleBuffer(Supplier<ByteBuffer> buffer, int size) {
+            this.buffer = buffer;
+            this.size = size;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public double get(int index) {
+            return buffer.get().getDouble(index << 3);
+        }
+
+        public void set(int index, double value) {
+            buffer.get().putDouble(index << 3, value);
+        }
+
+        public boolean hasArray() {
+            return false;
+        }
+
+        public double[] array() {
+            throw new UnsupportedOperationException("Off-heap column is not backed by an array");
+        }
+    }
+
+    static final class IntCompressed implements IntColumn {
+        private final CompressedColumn column;
+
+        IntCompressed(CompressedColumn column) {
+            this.column = column;
+        }
+
+        public int size() {
+            return column.size;
+        }
+
+        public int get(int index) {
+            return (int) column.get(index);
+        }
+
+        public void set(int index, int value) {
+            throw new UnsupportedOperationException("The column of the frozen array is read-only");
+        }
+
+        public boolean hasArray() {
+            return false;
+        }
+
+        public int[] array() {
+            throw new UnsupportedOperationException("Compressed column is not backed by an array");
+        }
+    }
+
+    static final class LongCompressed implements LongColumn {
+        private final CompressedColumn column;
+
+        LongCompressed(CompressedColumn column) {
+            this.column = column;
+        }
+
+        public int size() {
+            return column.size;
+        }
+
+        public long get(int index) {
+            return column.get(index);
+        }
+
+        public void set(int index, long value) {
+            throw new UnsupportedOperationException("The column of the frozen array is read-only");
+        }
+
+        public boolean hasArray() {
+            return false;
+        }
+
+        public long[] array() {
+            throw new UnsupportedOperationException("Compressed column is not backed by an array");
+        }
+    }
+
+    static final class FloatCompressed implements FloatColumn {
+        private final CompressedColumn column;
+
+        FloatCompressed(CompressedColumn column) {
+            this.column = column;
+        }
+
+        public int size() {
+            return column.size;
+        }
+
+        public float get(int index) {
+            return Float.intBitsToFloat((int) column.get(index));
+        }
+
+        public void set(int index, float value) {
+            throw new UnsupportedOperationException("The column of the frozen array is read-only");
+        }
+
+        public boolean hasArray() {
+            return false;
+        }
+
+        public float[] array() {
+            throw new UnsupportedOperationException("Compressed column is not backed by an array");
+        }
+    }
+
+    static final class DoubleCompressed implements DoubleColumn {
+        private final CompressedColumn column;
+
+        DoubleCompressed(CompressedColumn column) {
+            this.column = column;
+        }
+
+        public int size() {
+            return column.size;
+        }
+
+        public double get(int index) {
+            return Double.longBitsToDouble(column.get(index));
+        }
+
+        public void set(int index, double value) {
+            throw new UnsupportedOperationException("The column of the frozen array is read-only");
+        }
+
+        public boolean hasArray() {
+            return false;
+        }
+
+        public double[] array() {
+            throw new UnsupportedOperationException("Compressed column is not backed by an array");
+        }
+    }
+
+    /**
+     * View of the grouped column of the heap array, see {@link Group}.
+     */
+    static final class IntGrouped implements IntColumn {
+        private final int[] array;
+        private final int size;
+        private final int shift;
+        private final int blockLength;
+        private final int offset;
+
+        IntGrouped(int[] array, int size, int fields, int field, int blockShift) {
+            this.array = array;
+            this.size = size;
+            this.shift = blockShift;
+            this.blockLength = fields << blockShift;
+            this.offset = field << blockShift;
+        }
+
+        private int index(int index) {
+            return (index >>> shift) * blockLength + offset + (index & ((1 << shift) - 1));
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public int get(int index) {
+            return array[index(index)];
+        }
+
+        public void set(int index, int value) {
+            array[index(index)] = value;
+        }
+
+        public boolean hasArray() {
+            return false;
+        }
+
+        public int[] array() {
+            throw new UnsupportedOperationException("Grouped column is not backed by its own array");
+        }
+    }
+
+    static final class LongGrouped implements LongColumn {
+        private final long[] array;
+        private final int size;
+        private final int shift;
+        private final int blockLength;
+        private final int offset;
+
+        LongGrouped(long[] array, int size, int fields, int field, int blockShift) {
+            this.array = array;
+            this.size = size;
+            this.shift = blockShift;
+            this.blockLength = fields << blockShift;
+            this.offset = field << blockShift;
+        }
+
+        private int index(int index) {
+            return (index >>> shift) * blockLength + offset + (index & ((1 << shift) - 1));
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public long get(int index) {
+            return array[index(index)];
+        }
+
+        public void set(int index, long value) {
+            array[index(index)] = value;
+        }
+
+        public boolean hasArray() {
+            return false;
+        }
+
+        public long[] array() {
+            throw new UnsupportedOperationException("Grouped column is not backed by its own array");
+        }
+    }
+
+    static final class FloatGrouped implements FloatColumn {
+        private final float[] array;
+        private final int size;
+        private final int shift;
+        private final int blockLength;
+        private final int offset;
+
+        FloatGrouped(float[] array, int size, int fields, int field, int blockShift) {
+            this.array = array;
+            this.size = size;
+            this.shift = blockShift;
+            this.blockLength = fields << blockShift;
+            this.offset = field << blockShift;
+        }
+
+        private int index(int index) {
+            return (index >>> shift) * blockLength + offset + (index & ((1 << shift) - 1));
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public float get(int index) {
+            return array[index(index)];
+        }
+
+        public void set(int index, float value) {
+            array[index(index)] = value;
+        }
+
+        public boolean hasArray() {
+            return false;
+        }
+
+        public float[] array() {
+            throw new UnsupportedOperationException("Grouped column is not backed by its own array");
+        }
+    }
+
+    static final class DoubleGrouped implements DoubleColumn {
+        private final double[] array;
+        private final int size;
+        private final int shift;
+        private final int blockLength;
+        private final int offset;
+
+        DoubleGrouped(double[] array, int size, int fields, int field, int blockShift) {
+            this.array = array;
+            this.size = size;
+            this.shift = blockShift;
+            this.blockLength = fields << blockShift;
+            this.offset = field << blockShift;
+        }
+
+        private int index(int index) {
+            return (index >>> shift) * blockLength + offset + (index & ((1 << shift) - 1));
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public double get(int index) {
+            return array[index(index)];
+        }
+
+        public void set(int index, double value) {
+            array[index(index)] = value;
+        }
+
+        public boolean hasArray() {
+            return false;
+        }
+
+        public double[] array() {
+            throw new UnsupportedOperationException("Grouped column is not backed by its own array");
+        }
+    }
+
+    /**
+     * View of the narrowed column of the heap array, see {@link PackedInts}.
+     */
+    static final class IntPacked implements IntColumn {
+        private final long[] words;
+        private final int size;
+        private final int width;
+        private final long min;
+        private final long range;
+        private final String field;
+
+        IntPacked(long[] words, int size, int width, long min, long range, String field) {
+            this.words = words;
+            this.size = size;
+            this.width = width;
+            this.min = min;
+            this.range = range;
+            this.field = field;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public int get(int index) {
+            return (int) (PackedInts.get(words, index, size, width) + min);
+        }
+
+        public void set(int index, int value) {
+            PackedInts.set(words, index, size, width, PackedInts.offset(value, min, range, field));
+        }
+
+        public boolean hasArray() {
+            return false;
+        }
+
+        public int[] array() {
+            throw new UnsupportedOperationException("Narrowed column is not backed by an array");
+        }
+    }
+
+    static final class LongPacked implements LongColumn {
+        private final long[] words;
+        private final int size;
+        private final int width;
+        private final long min;
+        private final long range;
+        private final String field;
+
+        LongPacked(long[] words, int size, int width, long min, long range, String field) {
+            this.words = words;
+            this.size = size;
+            this.width = width;
+            this.min = min;
+            this.range = range;
+            this.field = field;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public long get(int index) {
+            return PackedInts.get(words, index, size, width) + min;
+        }
+
+        public void set(int index, long value) {
+            PackedInts.set(words, index, size, width, PackedInts.offset(value, min, range, field));
+        }
+
+        public boolean hasArray() {
+            return false;
+        }
+
+        public long[] array() {
+            throw new UnsupportedOperationException("Narrowed column is not backed by an array");
+        }
+    }
+
+    /**
+     * Boolean column view with the bulk operations done element by element.
+     */
+    abstract static class BooleanView implements BooleanColumn {
+
+        void checkSize(BooleanColumn other) {
+            if (other.size() != size()) {
+                throw new IllegalArgumentException("Column sizes differ: " + size() + " != " + other.size());
+            }
+        }
+
+        public int cardinality() {
+            int c = 0;
+            for (int i = 0; i < size(); i++) {
+                if (get(i)) {
+                    c++;
+                }
+            }
+            return c;
+        }
+
+        public int nextSetBit(int fromIndex) {
+            if (fromIndex < 0) {
+                throw new IndexOutOfBoundsException("fromIndex < 0: " + fromIndex);
+            }
+            for (int i = fromIndex; i < size(); i++) {
+                if (get(i)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        public void and(BooleanColumn other) {
+            checkSize(other);
+            for (int i = 0; i < size(); i++) {
+                if (get(i) && !other.get(i)) {
+                    set(i, false);
+                }
+            }
+        }
+
+        public void or(BooleanColumn other) {
+            checkSize(other);
+            for (int i = 0; i < size(); i++) {
+                if (!get(i) && other.get(i)) {
+                    set(i, true);
+                }
+            }
+        }
+
+        public void andNot(BooleanColumn other) {
+            checkSize(other);
+            for (int i = 0; i < size(); i++) {
+                if (get(i) && other.get(i)) {
+                    set(i, false);
+                }
+            }
+        }
+    }
+
+    /**
+     * View of the bitset column of the heap array, see {@link Bits}.
+     */
+    static final class BooleanBits extends BooleanView {
+        private final long[] words;
+        private final int size;
+
+        BooleanBits(long[] words, int size) {
+            this.words = words;
+            this.size = size;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public boolean get(int index) {
+            return Bits.get(words, index, size);
+        }
+
+        public void set(int index, boolean value) {
+            Bits.set(words, index, size, value);
+        }
+
+        @Override
+        public int cardinality() {
+            return Bits.cardinality(words);
+        }
+
+        @Override
+        public int nextSetBit(int fromIndex) {
+            return Bits.nextSetBit(words, fromIndex);
+        }
+
+        @Override
+        public void and(BooleanColumn other) {
+            if (!(other instanceof BooleanBits)) {
+                super.and(other);
+                return;
+            }
+            checkSize(other);
+            long[] o = ((BooleanBits) other).words;
+            for (int i = 0; i < words.length; i++) {
+                words[i] &= o[i];
+            }
+        }
+
+        @Override
+        public void or(BooleanColumn other) {
+            if (!(other instanceof BooleanBits)) {
+                super.or(other);
+                return;
+            }
+            checkSize(other);
+            long[] o = ((BooleanBits) other).words;
+            for (int i = 0; i < words.length; i++) {
+                words[i] |= o[i];
+            }
+        }
+
+        @Override
+        public void andNot(BooleanColumn other) {
+            if (!(other instanceof BooleanBits)) {
+                super.andNot(other);
+                return;
+            }
+            checkSize(other);
+            long[] o = ((BooleanBits) other).words;
+            for (int i = 0; i < words.length; i++) {
+                words[i] &= ~o[i];
+            }
+        }
+    }
+
+    static final class BooleanBuffer extends BooleanView {
+        private final Supplier<ByteBuffer> buffer;
+        private final int size;
+
+        BooleanBuffer(Supplier<ByteBuffer> buffer, int size) {
+            this.buffer = buffer;
+            this.size = size;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public boolean get(int index) {
+            return buffer.get().get(index) != 0;
+        }
+
+        public void set(int index, boolean value) {
+            buffer.get().put(index, (byte) (value ? 1 : 0));
+        }
+    }
+
+    static final class BooleanCompressed extends BooleanView {
+        private final CompressedColumn column;
+
+        BooleanCompressed(CompressedColumn column) {
+            this.column = column;
+        }
+
+        public int size() {
+            return column.size;
+        }
+
+        public boolean get(int index) {
+            return column.get(index) != 0;
+        }
+
+        public void set(int index, boolean value) {
+            throw new UnsupportedOperationException("The column of the frozen array is read-only");
+        }
+
+        @Override
+        void checkSize(BooleanColumn other) {
+            throw new UnsupportedOperationException("The column of the frozen array is read-only");
+        }
+    }
+
+    static final class IntPaged implements IntColumn {
+        private final int[][] pages;
+        private final int size;
+
+        IntPaged(int[][] pages, int size) {
+            this.pages = pages;
+            this.size = size;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public int get(int index) {
+            return pages[index >>> Pages.SHIFT][index & Pages.MASK];
+        }
+
+        public void set(int index, int value) {
+            ((int[]) Pages.writable(pages, index))[index & Pages.MASK] = value;
+        }
+
+        public boolean hasArray() {
+            return false;
+        }
+
+        public int[] array() {
+            throw new UnsupportedOperationException("Paged column is not backed by an array");
+        }
+    }
+
+    static final class LongPaged implements LongColumn {
+        private final long[][] pages;
+        private final int size;
+
+        LongPaged(long[][] pages, int size) {
+            this.pages = pages;
+            this.size = size;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public long get(int index) {
+            return pages[index >>> Pages.SHIFT][index & Pages.MASK];
+        }
+
+        public void set(int index, long value) {
+            ((long[]) Pages.writable(pages, index))[index & Pages.MASK] = value;
+        }
+
+        public boolean hasArray() {
+            return false;
+        }
+
+        public long[] array() {
+            throw new UnsupportedOperationException("Paged column is not backed by an array");
+        }
+    }
+
+    static final class FloatPaged implements FloatColumn {
+        private final float[][] pages;
+        private final int size;
+
+        FloatPaged(float[][] pages, int size) {
+            this.pages = pages;
+            this.size = size;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public float get(int index) {
+            return pages[index >>> Pages.SHIFT][index & Pages.MASK];
+        }
+
+        public void set(int index, float value) {
+            ((float[]) Pages.writable(pages, index))[index & Pages.MASK] = value;
+        }
+
+        public boolean hasArray() {
+            return false;
+        }
+
+        public float[] array() {
+            throw new UnsupportedOperationException("Paged column is not backed by an array");
+        }
+    }
+
+    static final class DoublePaged implements DoubleColumn {
+        private final double[][] pages;
+        private final int size;
+
+        DoublePaged(double[][] pages, int size) {
+            this.pages = pages;
+            this.size = size;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public double get(int index) {
+            return pages[index >>> Pages.SHIFT][index & Pages.MASK];
+        }
+
+        public void set(int index, double value) {
+            ((double[]) Pages.writable(pages, index))[index & Pages.MASK] = value;
+        }
+
+        public boolean hasArray() {
+            return false;
+        }
+
+        public double[] array() {
+            throw new UnsupportedOperationException("Paged column is not backed by an array");
+        }
+    }
+
+    /**
+     * View of the column of the {@link RecordArrayView}, the index is mapped to the index of the base array.
+     */
+    static final class BooleanMapped extends BooleanView {
+        private final BooleanColumn column;
+        private final IntUnaryOperator index;
+        private final int size;
+
+        BooleanMapped(BooleanColumn column, IntUnaryOperator index, int size) {
+            this.column = column;
+            this.index = index;
+            this.size = size;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public boolean get(int index) {
+            return column.get(this.index.applyAsInt(index));
+        }
+
+        public void set(int index, boolean value) {
+            column.set(this.index.applyAsInt(index), value);
+        }
+    }
+
+    static final class IntMapped implements IntColumn {
+        private final IntColumn column;
+        private final IntUnaryOperator index;
+        private final int size;
+
+        IntMapped(IntColumn column, IntUnaryOperator index, int size) {
+            this.column = column;
+            this.index = index;
+            this.size = size;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public int get(int index) {
+            return column.get(this.index.applyAsInt(index));
+        }
+
+        public void set(int index, int value) {
+            column.set(this.index.applyAsInt(index), value);
+        }
+
+        public boolean hasArray() {
+            return false;
+        }
+
+        public int[] array() {
+            throw new UnsupportedOperationException("Column of the view is not backed by an array");
+        }
+    }
+
+    static final class LongMapped implements LongColumn {
+        private final LongColumn column;
+        private final IntUnaryOperator index;
+        private final int size;
+
+        LongMapped(LongColumn column, IntUnaryOperator index, int size) {
+            this.column = column;
+            this.index = index;
+            this.size = size;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public long get(int index) {
+            return column.get(this.index.applyAsInt(index));
+        }
+
+        public void set(int index, long value) {
+            column.set(this.index.applyAsInt(index), value);
+        }
+
+        public boolean hasArray() {
+            return false;
+        }
+
+        public long[] array() {
+            throw new UnsupportedOperationException("Column of the view is not backed by an array");
+        }
+    }
+
+    static final class FloatMapped implements FloatColumn {
+        private final FloatColumn column;
+        private final IntUnaryOperator index;
+        private final int size;
+
+        FloatMapped(FloatColumn column, IntUnaryOperator index, int size) {
+            this.column = column;
+            this.index = index;
+            this.size = size;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public float get(int index) {
+            return column.get(this.index.applyAsInt(index));
+        }
+
+        public void set(int index, float value) {
+            column.set(this.index.applyAsInt(index), value);
+        }
+
+        public boolean hasArray() {
+            return false;
+        }
+
+        public float[] array() {
+            throw new UnsupportedOperationException("Column of the view is not backed by an array");
+        }
+    }
+
+    static final class DoubleMapped implements DoubleColumn {
+        private final DoubleColumn column;
+        private final IntUnaryOperator index;
+        private final int size;
+
+        DoubleMapped(DoubleColumn column, IntUnaryOperator index, int size) {
+            this.column = column;
+            this.index = index;
+            this.size = size;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public double get(int index) {
+            return column.get(this.index.applyAsInt(index));
+        }
+
+        public void set(int index, double value) {
+            column.set(this.index.applyAsInt(index), value);
+        }
+
+        public boolean hasArray() {
+            return false;
+        }
+
+        public double[] array() {
+            throw new UnsupportedOperationException("Column of the view is not backed by an array");
+        }
+    }
+
+    /**
+     * View of the {@link Indexed} field, that updates the index on each write. The backing array
+     * is not exposed, as its writes would bypass the index.
+     */
+    static final class IntIndexed implements IntColumn {
+        private final IntColumn column;
+        private final HashIndex index;
+
+        IntIndexed(IntColumn column, HashIndex index) {
+            this.column = column;
+            this.index = index;
+        }
+
+        public int size() {
+            return column.size();
+        }
+
+        public int get(int index) {
+            return column.get(index);
+        }
+
+        public void set(int index, int value) {
+            int key = column.get(index);
+            column.set(index, value);
+            this.index.update(index, key, value);
+        }
+
+        public boolean hasArray() {
+            return false;
+        }
+
+        public int[] array() {
+            throw new UnsupportedOperationException("Indexed column doesn't expose the backing array");
+        }
+    }
+
+    static final class LongIndexed implements LongColumn {
+        private final LongColumn column;
+        private final HashIndex index;
+
+        LongIndexed(LongColumn column, HashIndex index) {
+            this.column = column;
+            this.index = index;
+        }
+
+        public int size() {
+            return column.size();
+        }
+
+        public long get(int index) {
+            return column.get(index);
+        }
+
+        public void set(int index, long value) {
+            long key = column.get(index);
+            column.set(index, value);
+            this.index.update(index, key, value);
+        }
+
+        public boolean hasArray() {
+            return false;
+        }
+
+        public long[] array() {
+            throw new UnsupportedOperationException("Indexed column doesn't expose the backing array");
+        }
+    }
+
+    /**
+     * View of the column of the array that tracks the changes, marks the records on each write,
+     * see {@link Record#trackChanges()}. The backing array is not exposed, as its writes wouldn't be marked.
+     */
+    static final class IntTracked implements IntColumn {
+        private final IntColumn column;
+        private final DirtyRows dirty;
+
+        IntTracked(IntColumn column, DirtyRows dirty) {
+            this.column = column;
+            this.dirty = dirty;
+        }
+
+        public int size() {
+            return column.size();
+        }
+
+        public int get(int index) {
+            return column.get(index);
+        }
+
+        public void set(int index, int value) {
+            column.set(index, value);
+            dirty.mark(index);
+        }
+
+        public boolean hasArray() {
+            return false;
+        }
+
+        public int[] array() {
+            throw new UnsupportedOperationException("Tracked column doesn't expose the backing array");
+        }
+    }
+
+    static final class LongTracked implements LongColumn {
+        private final LongColumn column;
+        private final DirtyRows dirty;
+
+        LongTracked(LongColumn column, DirtyRows dirty) {
+            this.column = column;
+            this.dirty = dirty;
+        }
+
+        public int size() {
+            return column.size();
+        }
+
+        public long get(int index) {
+            return column.get(index);
+        }
+
+        public void set(int index, long value) {
+            column.set(index, value);
+            dirty.mark(index);
+        }
+
+        public boolean hasArray() {
+            return false;
+        }
+
+        public long[] array() {
+            throw new UnsupportedOperationException("Tracked column doesn't expose the backing array");
+        }
+    }
+
+    static final class FloatTracked implements FloatColumn {
+        private final FloatColumn column;
+        private final DirtyRows dirty;
+
+        FloatTracked(FloatColumn column, DirtyRows dirty) {
+            this.column = column;
+            this.dirty = dirty;
+        }
+
+        public int size() {
+            return column.size();
+        }
+
+        public float get(int index) {
+            return column.get(index);
+        }
+
+        public void set(int index, float value) {
+            column.set(index, value);
+            dirty.mark(index);
+        }
+
+        public boolean hasArray() {
+            return false;
+        }
+
+        public float[] array() {
+            throw new UnsupportedOperationException("Tracked column doesn't expose the backing array");
+        }
+    }
+
+    static final class DoubleTracked implements DoubleColumn {
+        private final DoubleColumn column;
+        private final DirtyRows dirty;
+
+        DoubleTracked(DoubleColumn column, DirtyRows dirty) {
+            this.column = column;
+            this.dirty = dirty;
+        }
+
+        public int size() {
+            return column.size();
+        }
+
+        public double get(int index) {
+            return column.get(index);
+        }
+
+        public void set(int index, double value) {
+            column.set(index, value);
+            dirty.mark(index);
+        }
+
+        public boolean hasArray() {
+            return false;
+        }
+
+        public double[] array() {
+            throw new UnsupportedOperationException("Tracked column doesn't expose the backing array");
+        }
+    }
+
+    /**
+     * Boolean view of the tracked array, the bulk writes are done element by element, so that
+     * each changed record is marked.
+     */
+    static final class BooleanTracked extends BooleanView {
+        private final BooleanColumn column;
+        private final DirtyRows dirty;
+
+        BooleanTracked(BooleanColumn column, DirtyRows dirty) {
+            this.column = column;
+            this.dirty = dirty;
+        }
+
+        public int size() {
+            return column.size();
+        }
+
+        public boolean get(int index) {
+            return column.get(index);
+        }
+
+        public void set(int index, boolean value) {
+            column.set(index, value);
+            dirty.mark(index);
+        }
+
+        @Override
+        public int cardinality() {
+            return column.cardinality();
+        }
+
+        @Override
+        public int nextSetBit(int fromIndex) {
+            return column.nextSetBit(fromIndex);
+        }
+    }
+}
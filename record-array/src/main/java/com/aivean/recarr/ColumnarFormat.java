@@ -0,0 +1,454 @@
+package com.aivean.recarr;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Columnar binary format of the RecordArray (see {@link RecordArray#writeTo}).
+ * <p>
+ * Layout (little-endian):
+ * <pre>
+ *  0: long  magic ("RECARCOL")
+ *  8: int   format version
+ * 12: int   number of columns
+ * 16: long  schema hash (names and types of the fields)
+ * 24: int   dimension 0
+ * 28: int   dimension 1
+ * 32: int   dimension 2
+ * 36: int   reserved
+ * 40: columns, in the order of the fields:
+ *     primitive column - contiguous block of the elements (boolean as a byte)
+ *     String column    - for each element: int length of UTF-8 bytes (-1 for null), bytes
+ *     other columns    - long length, Java serialization of the column array
+ * </pre>
+ * Primitive columns are transferred with bulk puts through the staging direct buffer,
+ * off-heap columns are written to the channel directly (on little-endian platforms).
+ */
+final class ColumnarFormat {
+
+    static final long MAGIC = 0x4c4f435241434552L; // "RECARCOL" in little-endian
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 40;
+    static final int BUFFER_SIZE = 1 << 20;
+
+    private ColumnarFormat() {
+    }
+
+    /**
+     * Implemented by the generated arrays to fill the columns from the {@link Reader}.
+     */
+    interface Columns {
+        void readColumns(Reader reader) throws IOException;
+    }
+
+    /**
+     * Reads the array from the channel, see {@link RecordArray#readFrom}.
+     */
+    static <T> RecordArray<T> read(Class<T> recordClass, ReadableByteChannel channel) throws IOException {
+        Reader reader = new Reader(channel);
+        RecordArray<T> res = RecordArray.create(recordClass, reader.dimensions);
+        try {
+            ((Columns) res).readColumns(reader);
+        } catch (IOException | RuntimeException e) {
+            res.close();
+            throw e;
+        }
+        return res;
+    }
+
+    static final class Writer {
+        private final WritableByteChannel channel;
+        private final ByteBuffer buf = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+        Writer(WritableByteChannel channel, long schemaHash, int columns, int dim0, int dim1, int dim2)
+                throws IOException {
+            this.channel = channel;
+            buf.putLong(MAGIC).putInt(VERSION).putInt(columns).putLong(schemaHash)
+                    .putInt(dim0).putInt(dim1).putInt(dim2).putInt(0);
+        }
+
+        /**
+         * Returns the number of elements of size `1 << shift` that fit into the staging buffer,
+         * flushing it when it's full.
+         */
+        private int room(int shift) throws IOException {
+            if (buf.remaining() >> shift == 0) {
+                flush();
+            }
+            return buf.remaining() >> shift;
+        }
+
+        private void advance(int len, int shift) {
+            buf.position(buf.position() + (len << shift));
+        }
+
+        void write(boolean[] a) throws IOException {
+            for (int off = 0; off < a.length; ) {
+                int len = Math.min(a.length - off, room(0));
+                for (int i = off; i < off + len; i++) {
+                    buf.put((byte) (a[i] ? 1 : 0));
+                }
+                off += len;
+            }
+        }
+
+        /**
+         * Writes the bitset column of `size` elements (see {@link Bits}) in the same format as boolean[].
+         */
+        void writeBits(long[] words, int size) throws IOException {
+            for (int off = 0; off < size; ) {
+                int len = Math.min(size - off, room(0));
+                for (int i = off; i < off + len; i++) {
+                    buf.put((byte) ((words[i >>> 6] >>> i) & 1));
+                }
+                off += len;
+            }
+        }
+
+        void write(byte[] a) throws IOException {
+            for (int off = 0; off < a.length; ) {
+                int len = Math.min(a.length - off, room(0));
+                buf.put(a, off, len);
+                off += len;
+            }
+        }
+
+        void write(char[] a) throws IOException {
+            for (int off = 0; off < a.length; ) {
+                int len = Math.min(a.length - off, room(1));
+                buf.asCharBuffer().put(a, off, len);
+                advance(len, 1);
+                off += len;
+            }
+        }
+
+        void write(short[] a) throws IOException {
+            for (int off = 0; off < a.length; ) {
+                int len = Math.min(a.length - off, room(1));
+                buf.asShortBuffer().put(a, off, len);
+                advance(len, 1);
+                off += len;
+            }
+        }
+
+        void write(int[] a) throws IOException {
+            for (int off = 0; off < a.length; ) {
+                int len = Math.min(a.length - off, room(2));
+                buf.asIntBuffer().put(a, off, len);
+                advance(len, 2);
+                off += len;
+            }
+        }
+
+        void write(long[] a) throws IOException {
+            for (int off = 0; off < a.length; ) {
+                int len = Math.min(a.length - off, room(3));
+                buf.asLongBuffer().put(a, off, len);
+                advance(len, 3);
+                off += len;
+            }
+        }
+
+        void write(float[] a) throws IOException {
+            for (int off = 0; off < a.length; ) {
+                int len = Math.min(a.length - off, room(2));
+                buf.asFloatBuffer().put(a, off, len);
+                advance(len, 2);
+                off += len;
+            }
+        }
+
+        void write(double[] a) throws IOException {
+            for (int off = 0; off < a.length; ) {
+                int len = Math.min(a.length - off, room(3));
+                buf.asDoubleBuffer().put(a, off, len);
+                advance(len, 3);
+                off += len;
+            }
+        }
+
+        /**
+         * Writes the off-heap column of elements of size `1 << shift`.
+         */
+        void write(ByteBuffer column, int shift) throws IOException {
+            ByteBuffer src = column.duplicate().order(column.order());
+            src.clear();
+            if (shift == 0 || src.order() == ByteOrder.LITTLE_ENDIAN) {
+                flush();
+                writeFully(src);
+                return;
+            }
+            // swaps the bytes of the elements through the typed views
+            while (src.hasRemaining()) {
+                int len = Math.min(src.remaining() >> shift, room(shift));
+                ByteBuffer chunk = src.slice().order(src.order());
+                chunk.limit(len << shift);
+                if (shift == 1) {
+                    buf.asShortBuffer().put(chunk.asShortBuffer());
+                } else if (shift == 2) {
+                    buf.asIntBuffer().put(chunk.asIntBuffer());
+                } else {
+                    buf.asLongBuffer().put(chunk.asLongBuffer());
+                }
+                advance(len, shift);
+                src.position(src.position() + (len << shift));
+            }
+        }
+
+        void writeStrings(String[] a) throws IOException {
+            for (String s : a) {
+                if (s == null) {
+                    room(2);
+                    buf.putInt(-1);
+                    continue;
+                }
+                byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+                room(2);
+                buf.putInt(bytes.length);
+                write(bytes);
+            }
+        }
+
+        void writeObjects(Object[] a) throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+                out.writeObject(a);
+            }
+            room(3);
+            buf.putLong(bytes.size());
+            write(bytes.toByteArray());
+        }
+
+        void flush() throws IOException {
+            buf.flip();
+            writeFully(buf);
+            buf.clear();
+        }
+
+        private void writeFully(ByteBuffer src) throws IOException {
+            while (src.hasRemaining()) {
+                channel.write(src);
+            }
+        }
+    }
+
+    static final class Reader {
+        private final ReadableByteChannel channel;
+        private final ByteBuffer buf = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        private final int columns;
+        private final long schemaHash;
+        final int[] dimensions;
+
+        Reader(ReadableByteChannel channel) throws IOException {
+            this.channel = channel;
+            buf.limit(0);
+            require(HEADER_SIZE);
+            if (buf.getLong() != MAGIC) {
+                throw new IOException("Not a RecordArray stream");
+            }
+            int version = buf.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported RecordArray stream version " + version);
+            }
+            columns = buf.getInt();
+            schemaHash = buf.getLong();
+            dimensions = new int[]{buf.getInt(), buf.getInt(), buf.getInt()};
+            buf.getInt();
+        }
+
+        /**
+         * Validates that the stream was written for the record type with the given schema.
+         */
+        void checkSchema(long schemaHash, int columns) {
+            if (this.columns != columns || this.schemaHash != schemaHash) {
+                throw new IllegalArgumentException("The stream was written for a different record type");
+            }
+        }
+
+        /**
+         * Ensures that at least `n` bytes (not larger than the buffer) are available in the buffer.
+         */
+        private void require(int n) throws IOException {
+            if (buf.remaining() >= n) {
+                return;
+            }
+            buf.compact();
+            while (buf.position() < n) {
+                if (channel.read(buf) < 0) {
+                    throw new EOFException("Unexpected end of the RecordArray stream");
+                }
+            }
+            buf.flip();
+        }
+
+        /**
+         * Returns the number of elements of size `1 << shift` available in the buffer (at least one).
+         */
+        private int available(int shift) throws IOException {
+            require(1 << shift);
+            return buf.remaining() >> shift;
+        }
+
+        private void advance(int len, int shift) {
+            buf.position(buf.position() + (len << shift));
+        }
+
+        void read(boolean[] a) throws IOException {
+            for (int off = 0; off < a.length; ) {
+                int len = Math.min(a.length - off, available(0));
+                for (int i = off; i < off + len; i++) {
+                    a[i] = buf.get() != 0;
+                }
+                off += len;
+            }
+        }
+
+        /**
+         * Reads the bitset column of `size` elements (see {@link Bits}), the words must be zeroed.
+         */
+        void readBits(long[] words, int size) throws IOException {
+            for (int off = 0; off < size; ) {
+                int len = Math.min(size - off, available(0));
+                for (int i = off; i < off + len; i++) {
+                    if (buf.get() != 0) {
+                        words[i >>> 6] |= 1L << i;
+                    }
+                }
+                off += len;
+            }
+        }
+
+        void read(byte[] a) throws IOException {
+            for (int off = 0; off < a.length; ) {
+                int len = Math.min(a.length - off, available(0));
+                buf.get(a, off, len);
+                off += len;
+            }
+        }
+
+        void read(char[] a) throws IOException {
+            for (int off = 0; off < a.length; ) {
+                int len = Math.min(a.length - off, available(1));
+                buf.asCharBuffer().get(a, off, len);
+                advance(len, 1);
+                off += len;
+            }
+        }
+
+        void read(short[] a) throws IOException {
+            for (int off = 0; off < a.length; ) {
+                int len = Math.min(a.length - off, available(1));
+                buf.asShortBuffer().get(a, off, len);
+                advance(len, 1);
+                off += len;
+            }
+        }
+
+        void read(int[] a) throws IOException {
+            for (int off = 0; off < a.length; ) {
+                int len = Math.min(a.length - off, available(2));
+                buf.asIntBuffer().get(a, off, len);
+                advance(len, 2);
+                off += len;
+            }
+        }
+
+        void read(long[] a) throws IOException {
+            for (int off = 0; off < a.length; ) {
+                int len = Math.min(a.length - off, available(3));
+                buf.asLongBuffer().get(a, off, len);
+                advance(len, 3);
+                off += len;
+            }
+        }
+
+        void read(float[] a) throws IOException {
+            for (int off = 0; off < a.length; ) {
+                int len = Math.min(a.length - off, available(2));
+                buf.asFloatBuffer().get(a, off, len);
+                advance(len, 2);
+                off += len;
+            }
+        }
+
+        void read(double[] a) throws IOException {
+            for (int off = 0; off < a.length; ) {
+                int len = Math.min(a.length - off, available(3));
+                buf.asDoubleBuffer().get(a, off, len);
+                advance(len, 3);
+                off += len;
+            }
+        }
+
+        /**
+         * Reads the off-heap column of elements of size `1 << shift`.
+         */
+        void read(ByteBuffer column, int shift) throws IOException {
+            ByteBuffer dst = column.duplicate().order(column.order());
+            dst.clear();
+            while (dst.hasRemaining()) {
+                int len = Math.min(dst.remaining() >> shift, available(shift));
+                ByteBuffer chunk = buf.slice().order(ByteOrder.LITTLE_ENDIAN);
+                chunk.limit(len << shift);
+                if (shift == 0 || dst.order() == ByteOrder.LITTLE_ENDIAN) {
+                    dst.put(chunk);
+                } else {
+                    // swaps the bytes of the elements through the typed views
+                    ByteBuffer d = dst.slice().order(dst.order());
+                    if (shift == 1) {
+                        d.asShortBuffer().put(chunk.asShortBuffer());
+                    } else if (shift == 2) {
+                        d.asIntBuffer().put(chunk.asIntBuffer());
+                    } else {
+                        d.asLongBuffer().put(chunk.asLongBuffer());
+                    }
+                    dst.position(dst.position() + (len << shift));
+                }
+                advance(len, shift);
+            }
+        }
+
+        void readStrings(String[] a) throws IOException {
+            for (int i = 0; i < a.length; i++) {
+                require(4);
+                int len = buf.getInt();
+                if (len < 0) {
+                    a[i] = null;
+                } else {
+                    byte[] bytes = new byte[len];
+                    read(bytes);
+                    a[i] = new String(bytes, StandardCharsets.UTF_8);
+                }
+            }
+        }
+
+        void readObjects(Object[] a) throws IOException {
+            require(8);
+            long len = buf.getLong();
+            if (len < 0 || len > Integer.MAX_VALUE) {
+                throw new IOException("Invalid length of the object column: " + len);
+            }
+            byte[] bytes = new byte[(int) len];
+            read(bytes);
+            Object[] column;
+            try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+                column = (Object[]) in.readObject();
+            } catch (ClassNotFoundException | ClassCastException e) {
+                throw new IOException("Failed to read the object column", e);
+            }
+            if (column.length != a.length) {
+                throw new IOException("Invalid size of the object column: " + column.length + " != " + a.length);
+            }
+            System.arraycopy(column, 0, a, 0, a.length);
+        }
+    }
+}
@@ -0,0 +1,355 @@
+package com.aivean.recarr;
+
+import java.util.Arrays;
+
+/**
+ * Read-only compressed primitive column of the frozen RecordArray, see {@link RecordArray#freeze()}.
+ * Values of all primitive types are stored as longs (floating point values as raw bits).
+ * <p>
+ * The codec is chosen for each column by the estimated compressed size:
+ * <ul>
+ *     <li>{@link Packed} - frame of reference: blocks of 128 values, bit-packed relative to the block minimum;</li>
+ *     <li>{@link Dictionary} - sorted distinct values and bit-packed codes;</li>
+ *     <li>{@link RunLength} - runs of equal values;</li>
+ *     <li>{@link DeltaVarint} - zigzag varint deltas in blocks of 64 values.</li>
+ * </ul>
+ * All codecs support random access through the block offsets: Packed and Dictionary in O(1),
+ * RunLength with the binary search over the runs, DeltaVarint by decoding from the start of the block.
+ * As the latter is the slowest, it's chosen only when it's at least two times smaller than the others.
+ */
+abstract class CompressedColumn {
+
+    static final int PACKED_BLOCK_SHIFT = 7;
+    static final int DELTA_BLOCK_SHIFT = 6;
+    static final int MAX_DICTIONARY = 1 << 16;
+
+    final int size;
+
+    CompressedColumn(int size) {
+        this.size = size;
+    }
+
+    abstract long get(int index);
+
+    /**
+     * Returns the approximate size of the compressed data.
+     */
+    abstract long sizeInBytes();
+
+    /**
+     * Compresses the values with the smallest codec. The array is not retained.
+     */
+    static CompressedColumn compress(long[] values) {
+        long packed = Packed.estimate(values);
+        long dictionary = Dictionary.estimate(values);
+        long runLength = RunLength.estimate(values);
+        long delta = DeltaVarint.estimate(values);
+
+        if (delta < Long.MAX_VALUE / 2 && 2 * delta < Math.min(packed, Math.min(dictionary, runLength))) {
+            return new DeltaVarint(values);
+        }
+        if (runLength < packed && runLength < dictionary) {
+            return new RunLength(values);
+        }
+        if (dictionary < packed) {
+            return new Dictionary(values);
+        }
+        return new Packed(values);
+    }
+
+    /**
+     * Returns the number of bits of the unsigned value.
+     */
+    static int bits(long value) {
+        return 64 - Long.numberOfLeadingZeros(value);
+    }
+
+    /**
+     * Writes the lower `width` bits of `value` (other bits must be zero) at the bit position.
+     */
+    static void pack(long[] words, long bitPos, long value, int width) {
+        if (width == 0) {
+            return;
+        }
+        int w = (int) (bitPos >>> 6);
+        int off = (int) (bitPos & 63);
+        words[w] |= value << off;
+        if (off + width > 64) {
+            words[w + 1] |= value >>> (64 - off);
+        }
+    }
+
+    static long unpack(long[] words, long bitPos, int width) {
+        if (width == 0) {
+            return 0;
+        }
+        int w = (int) (bitPos >>> 6);
+        int off = (int) (bitPos & 63);
+        long v = words[w] >>> off;
+        if (off + width > 64) {
+            v |= words[w + 1] << (64 - off);
+        }
+        return width == 64 ? v : v & ((1L << width) - 1);
+    }
+
+    /**
+     * Frame of reference: each block stores its minimum and bit-packed offsets from it.
+     */
+    static final class Packed extends CompressedColumn {
+        private static final int BLOCK_OVERHEAD = 8 + 8 + 1;
+
+        private final long[] mins;
+        private final long[] offsets;
+        private final byte[] widths;
+        private final long[] words;
+
+        Packed(long[] values) {
+            super(values.length);
+            int blocks = (values.length + (1 << PACKED_BLOCK_SHIFT) - 1) >>> PACKED_BLOCK_SHIFT;
+            mins = new long[blocks];
+            offsets = new long[blocks];
+            widths = new byte[blocks];
+            long bitPos = 0;
+            for (int b = 0; b < blocks; b++) {
+                int from = b << PACKED_BLOCK_SHIFT;
+                int to = Math.min(from + (1 << PACKED_BLOCK_SHIFT), values.length);
+                long min = values[from];
+                long max = values[from];
+                for (int i = from + 1; i < to; i++) {
+                    min = Math.min(min, values[i]);
+                    max = Math.max(max, values[i]);
+                }
+                mins[b] = min;
+                offsets[b] = bitPos;
+                widths[b] = (byte) bits(max - min);
+                bitPos += (long) (to - from) * widths[b];
+            }
+            words = new long[(int) ((bitPos + 63) >>> 6)];
+            for (int i = 0; i < values.length; i++) {
+                int b = i >>> PACKED_BLOCK_SHIFT;
+                pack(words, offsets[b] + (long) (i & ((1 << PACKED_BLOCK_SHIFT) - 1)) * widths[b],
+                        values[i] - mins[b], widths[b]);
+            }
+        }
+
+        static long estimate(long[] values) {
+            long bits = 0;
+            long blocks = 0;
+            for (int from = 0; from < values.length; from += 1 << PACKED_BLOCK_SHIFT) {
+                int to = Math.min(from + (1 << PACKED_BLOCK_SHIFT), values.length);
+                long min = values[from];
+                long max = values[from];
+                for (int i = from + 1; i < to; i++) {
+                    min = Math.min(min, values[i]);
+                    max = Math.max(max, values[i]);
+                }
+                bits += (long) (to - from) * bits(max - min);
+                blocks++;
+            }
+            return (bits + 63) / 64 * 8 + blocks * BLOCK_OVERHEAD;
+        }
+
+        long get(int index) {
+            int b = index >>> PACKED_BLOCK_SHIFT;
+            int width = widths[b];
+            return mins[b] + unpack(words, offsets[b] + (long) (index & ((1 << PACKED_BLOCK_SHIFT) - 1)) * width,
+                    width);
+        }
+
+        long sizeInBytes() {
+            return words.length * 8L + mins.length * (long) BLOCK_OVERHEAD;
+        }
+    }
+
+    /**
+     * Sorted distinct values, and bit-packed indices into them.
+     */
+    static final class Dictionary extends CompressedColumn {
+        private final long[] dictionary;
+        private final int width;
+        private final long[] words;
+
+        Dictionary(long[] values) {
+            super(values.length);
+            dictionary = distinct(values);
+            width = bits(dictionary.length - 1);
+            words = new long[(int) (((long) values.length * width + 63) >>> 6)];
+            for (int i = 0; i < values.length; i++) {
+                pack(words, (long) i * width, Arrays.binarySearch(dictionary, values[i]), width);
+            }
+        }
+
+        /**
+         * Returns the sorted distinct values, or null if there are more than {@link #MAX_DICTIONARY} of them.
+         */
+        static long[] distinct(long[] values) {
+            // open addressing hash set, at least twice larger than the number of the distinct values
+            // (at most the number of values, or the maximal dictionary), so the short columns use small tables
+            int distinct = Math.min(values.length, MAX_DICTIONARY);
+            int capacity = Math.max(16, Integer.highestOneBit(2 * distinct - 1) << 1);
+            int shift = 64 - Integer.numberOfTrailingZeros(capacity);
+            long[] keys = new long[capacity];
+            boolean[] used = new boolean[capacity];
+            int count = 0;
+            for (long v : values) {
+                int h = (int) ((v * 0x9e3779b97f4a7c15L) >>> shift);
+                while (used[h] && keys[h] != v) {
+                    h = (h + 1) & (capacity - 1);
+                }
+                if (!used[h]) {
+                    if (++count > MAX_DICTIONARY) {
+                        return null;
+                    }
+                    used[h] = true;
+                    keys[h] = v;
+                }
+            }
+            long[] res = new long[count];
+            for (int h = 0, i = 0; h < keys.length; h++) {
+                if (used[h]) {
+                    res[i++] = keys[h];
+                }
+            }
+            Arrays.sort(res);
+            return res;
+        }
+
+        static long estimate(long[] values) {
+            long[] dictionary = distinct(values);
+            if (dictionary == null) {
+                return Long.MAX_VALUE;
+            }
+            return dictionary.length * 8L + ((long) values.length * bits(dictionary.length - 1) + 63) / 64 * 8;
+        }
+
+        long get(int index) {
+            return dictionary[(int) unpack(words, (long) index * width, width)];
+        }
+
+        long sizeInBytes() {
+            return dictionary.length * 8L + words.length * 8L;
+        }
+    }
+
+    /**
+     * Runs of equal values: the end (exclusive) and the value of each run.
+     */
+    static final class RunLength extends CompressedColumn {
+        private final int[] ends;
+        private final long[] values;
+
+        RunLength(long[] values) {
+            super(values.length);
+            int runs = runs(values);
+            ends = new int[runs];
+            this.values = new long[runs];
+            int r = 0;
+            for (int i = 1; i <= values.length; i++) {
+                if (i == values.length || values[i] != values[i - 1]) {
+                    ends[r] = i;
+                    this.values[r] = values[i - 1];
+                    r++;
+                }
+            }
+        }
+
+        private static int runs(long[] values) {
+            int runs = values.length == 0 ? 0 : 1;
+            for (int i = 1; i < values.length; i++) {
+                if (values[i] != values[i - 1]) {
+                    runs++;
+                }
+            }
+            return runs;
+        }
+
+        static long estimate(long[] values) {
+            return runs(values) * 12L;
+        }
+
+        long get(int index) {
+            int r = Arrays.binarySearch(ends, index);
+            return values[r >= 0 ? r + 1 : -r - 1];
+        }
+
+        long sizeInBytes() {
+            return ends.length * 12L;
+        }
+    }
+
+    /**
+     * Blocks of zigzag varint encoded deltas, each block starts with the full value.
+     */
+    static final class DeltaVarint extends CompressedColumn {
+        private static final int BLOCK_OVERHEAD = 8 + 4;
+
+        private final long[] bases;
+        private final int[] offsets;
+        private final byte[] data;
+
+        DeltaVarint(long[] values) {
+            super(values.length);
+            int blocks = (values.length + (1 << DELTA_BLOCK_SHIFT) - 1) >>> DELTA_BLOCK_SHIFT;
+            bases = new long[blocks];
+            offsets = new int[blocks];
+            data = new byte[(int) dataSize(values)];
+            int pos = 0;
+            for (int i = 0; i < values.length; i++) {
+                if ((i & ((1 << DELTA_BLOCK_SHIFT) - 1)) == 0) {
+                    bases[i >>> DELTA_BLOCK_SHIFT] = values[i];
+                    offsets[i >>> DELTA_BLOCK_SHIFT] = pos;
+                    continue;
+                }
+                long d = values[i] - values[i - 1];
+                long z = (d << 1) ^ (d >> 63);
+                while ((z & ~0x7fL) != 0) {
+                    data[pos++] = (byte) (z | 0x80);
+                    z >>>= 7;
+                }
+                data[pos++] = (byte) z;
+            }
+        }
+
+        private static long dataSize(long[] values) {
+            long size = 0;
+            for (int i = 0; i < values.length; i++) {
+                if ((i & ((1 << DELTA_BLOCK_SHIFT) - 1)) != 0) {
+                    long d = values[i] - values[i - 1];
+                    long z = (d << 1) ^ (d >> 63);
+                    size += z == 0 ? 1 : (bits(z) + 6) / 7;
+                }
+            }
+            return size;
+        }
+
+        static long estimate(long[] values) {
+            long size = dataSize(values);
+            if (size > Integer.MAX_VALUE - 8) {
+                return Long.MAX_VALUE;
+            }
+            return size + (((long) values.length >>> DELTA_BLOCK_SHIFT) + 1) * BLOCK_OVERHEAD;
+        }
+
+        long get(int index) {
+            int b = index >>> DELTA_BLOCK_SHIFT;
+            long v = bases[b];
+            int pos = offsets[b];
+            for (int k = index & ((1 << DELTA_BLOCK_SHIFT) - 1); k > 0; k--) {
+                long z = 0;
+                int shift = 0;
+                byte x;
+                do {
+                    x = data[pos++];
+                    z |= (long) (x & 0x7f) << shift;
+                    shift += 7;
+                } while (x < 0);
+                v += (z >>> 1) ^ -(z & 1);
+            }
+            return v;
+        }
+
+        long sizeInBytes() {
+            return data.length + bases.length * (long) BLOCK_OVERHEAD;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.aivean.recarr;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Read-only object column of the frozen RecordArray, see {@link RecordArray#freeze()}.
+ * <p>
+ * String columns with repeated values are dictionary encoded (distinct strings and bit-packed codes),
+ * other columns are stored as the copy of the array, as their values may be mutable.
+ */
+final class CompressedObjects<T> {
+
+    private final T[] values;
+    private final int width;
+    private final long[] codes;
+
+    private CompressedObjects(T[] values, int width, long[] codes) {
+        this.values = values;
+        this.width = width;
+        this.codes = codes;
+    }
+
+    static <T> CompressedObjects<T> compress(T[] values) {
+        if (values instanceof String[]) {
+            Map<T, Integer> dictionary = new HashMap<>();
+            for (T v : values) {
+                dictionary.putIfAbsent(v, dictionary.size());
+                if (dictionary.size() > values.length / 4 || dictionary.size() > CompressedColumn.MAX_DICTIONARY) {
+                    // not enough repetitions
+                    return new CompressedObjects<>(Arrays.copyOf(values, values.length), 0, null);
+                }
+            }
+            T[] distinct = Arrays.copyOf(values, dictionary.size());
+            dictionary.forEach((v, code) -> distinct[code] = v);
+            int width = CompressedColumn.bits(distinct.length - 1);
+            long[] codes = new long[(int) (((long) values.length * width + 63) >>> 6)];
+            for (int i = 0; i < values.length; i++) {
+                CompressedColumn.pack(codes, (long) i * width, dictionary.get(values[i]), width);
+            }
+            return new CompressedObjects<>(distinct, width, codes);
+        }
+        return new CompressedObjects<>(Arrays.copyOf(values, values.length), 0, null);
+    }
+
+    T get(int index) {
+        if (codes == null) {
+            return values[index];
+        }
+        return values[(int) CompressedColumn.unpack(codes, (long) index * width, width)];
+    }
+}
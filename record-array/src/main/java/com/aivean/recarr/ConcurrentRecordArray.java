@@ -0,0 +1,123 @@
+package com.aivean.recarr;
+
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * {@link RecordArray} with the consistent multi-field reads and writes of the records, for the readers
+ * that run concurrently with the writers (e.g. the snapshot readers of the market data, updated by a feed thread).
+ * <p>
+ * The records are split into the stripes of `2^stripeShift` consecutive records (by the 1d index),
+ * each stripe is guarded by the sequence lock: the writer makes the sequence odd for the duration of the write,
+ * the readers don't block the writers, but read the fields optimistically, and retry the read if the sequence
+ * of the stripe was changed meanwhile. Writers of the same stripe exclude each other (by spinning).
+ * <pre>{@code
+ * ConcurrentRecordArray<Quote> quotes = ConcurrentRecordArray.create(Quote.class, 10_000);
+ *
+ * // writer
+ * quotes.update(i, q -> {
+ *     q.setBid(bid);
+ *     q.setAsk(ask);
+ * });
+ *
+ * // readers
+ * Quote snapshot = RecordArray.create(Quote.class, 1).get(0);
+ * quotes.readConsistent(i, snapshot);
+ * double spread = quotes.readConsistent(i, q -> q.getAsk() - q.getBid());
+ * }</pre>
+ * Only the access through this class is synchronized, the accesses through {@link #array()} are not.
+ */
+public interface ConcurrentRecordArray<T> extends AutoCloseable {
+
+    /**
+     * Default number of records in the stripe, 2^6.
+     */
+    int DEFAULT_STRIPE_SHIFT = 6;
+
+    /**
+     * Returns the underlying array. Its accesses are not synchronized with the writes and the reads of this array,
+     * e.g. it can be read when there are no writers, or written by the single writer without the concurrent readers.
+     */
+    RecordArray<T> array();
+
+    int size();
+
+    /**
+     * Returns log2 of the number of records in the stripe.
+     */
+    int stripeShift();
+
+    /**
+     * Sets the fields of the record at the given index (1d) to the values of `value` (see {@link RecordArray#set}),
+     * so that the concurrent readers see either all or none of the new values.
+     *
+     * @throws IndexOutOfBoundsException if the index is out of [0, size)
+     */
+    void write(int index, T value);
+
+    /**
+     * Modifies the record at the given index (1d) in place with the update, so that the concurrent readers see
+     * either all or none of the changes. The update must not access the other records of this array through
+     * this class (the records of the same stripe would deadlock), and should be short, as it blocks the readers
+     * and the writers of the stripe.
+     *
+     * @throws IndexOutOfBoundsException if the index is out of [0, size)
+     */
+    void update(int index, Consumer<? super T> update);
+
+    /**
+     * Copies the fields of the record at the given index (1d) into `into` (see {@link RecordArray#read}),
+     * all of them written by the same {@link #write} or {@link #update}. Retries while the record is written.
+     *
+     * @throws IndexOutOfBoundsException if the index is out of [0, size)
+     */
+    void readConsistent(int index, T into);
+
+    /**
+     * Returns the result of the reader over the consistent state of the record at the given index (1d).
+     * The reader is called again if the record was written while it was reading, so it must not have side effects,
+     * and must tolerate the inconsistent values of the fields (its exceptions are ignored in this case).
+     *
+     * @throws IndexOutOfBoundsException if the index is out of [0, size)
+     */
+    <R> R readConsistent(int index, Function<? super T, ? extends R> reader);
+
+    /**
+     * Releases the off-heap memory of the underlying array, see {@link RecordArray#close()}.
+     */
+    @Override
+    void close();
+
+    /**
+     * Creates the array of the given size, with the stripes of {@link #DEFAULT_STRIPE_SHIFT}.
+     *
+     * @param recordClass Class of the records. Must be an interface marked with @Record.
+     *                    If not, an IllegalArgumentException exception is thrown.
+     */
+    static <T> ConcurrentRecordArray<T> create(Class<T> recordClass, int size) {
+        return wrap(RecordArray.create(recordClass, size));
+    }
+
+    /**
+     * Guards the records of the array (or the view) with the stripes of {@link #DEFAULT_STRIPE_SHIFT}.
+     */
+    static <T> ConcurrentRecordArray<T> wrap(RecordArray<T> array) {
+        return wrap(array, DEFAULT_STRIPE_SHIFT);
+    }
+
+    /**
+     * Guards the records of the array (or the view) with the stripes of `2^stripeShift` records (stripeShift
+     * in 6..30). Smaller stripes reduce the contention between the writers and the retries of the readers
+     * at the cost of the memory: the sequence of each stripe takes a cache line.
+     * <p>
+     * The stripes are at least 64 records, so that the writers of the different stripes don't modify
+     * the same words of the bitset (`boolean`) and packed columns. For the same reason, the view larger
+     * than the stripe must be the range of the row-major array, starting at the multiple of 64 records
+     * (e.g. `array.slice(128, 1024)`).
+     *
+     * @throws IllegalArgumentException if the stripe shift is invalid, or the view isn't aligned
+     */
+    static <T> ConcurrentRecordArray<T> wrap(RecordArray<T> array, int stripeShift) {
+        return new SeqLockRecordArray<>(array, stripeShift);
+    }
+}
@@ -0,0 +1,119 @@
+package com.aivean.recarr;
+
+import java.util.Arrays;
+
+/**
+ * Records of the array, changed since the last {@link #clear()}, see {@link Record#trackChanges()}.
+ * <p>
+ * The bitset of the records (see {@link Bits}) is summarized by the bitset of its non-zero words
+ * (a bit per 64 records), so that the iteration and the clearing skip the unchanged blocks of 4096 records
+ * by a single summary word, and cost proportionally to the number of the changed records.
+ * <p>
+ * The words of the bitsets are shared by the aligned groups of 64 records (and 4096 records for the summary),
+ * so the marks are set with the atomic OR, and the concurrent writers of the different records
+ * (e.g. the chunks of {@link RecordArray#parallelFor}, or the stripes of {@link ConcurrentRecordArray})
+ * don't lose each other's marks. Once the record is marked, marking it again doesn't write.
+ */
+final class DirtyRows {
+
+    private final int size;
+    private final long[] rows;
+    private final long[] summary;
+
+    DirtyRows(int size) {
+        this.size = size;
+        this.rows = new long[Bits.words(size)];
+        this.summary = new long[Bits.words(rows.length)];
+    }
+
+    void mark(int index) {
+        int w = index >>> 6;
+        long bit = 1L << index;
+        // the record is already marked, so is the summary
+        if ((rows[w] & bit) == 0) {
+            Atomics.LONG_ARRAY.getAndBitwiseOr(rows, w, bit);
+            if ((summary[w >>> 6] & (1L << w)) == 0) {
+                Atomics.LONG_ARRAY.getAndBitwiseOr(summary, w >>> 6, 1L << w);
+            }
+        }
+    }
+
+    /**
+     * Marks the records [from, to).
+     */
+    void mark(int from, int to) {
+        if (from < to) {
+            set(rows, from, to);
+            set(summary, from >>> 6, ((to - 1) >>> 6) + 1);
+        }
+    }
+
+    /**
+     * Marks the record, see {@link #mark(int)}. The volatile read of the word sees the marks
+     * of the concurrent {@link Atomic} operations.
+     */
+    void markAtomic(int index) {
+        int w = index >>> 6;
+        long bit = 1L << index;
+        if (((long) Atomics.LONG_ARRAY.getVolatile(rows, w) & bit) == 0) {
+            Atomics.LONG_ARRAY.getAndBitwiseOr(rows, w, bit);
+            Atomics.LONG_ARRAY.getAndBitwiseOr(summary, w >>> 6, 1L << w);
+        }
+    }
+
+    /**
+     * Sets the bits [from, to), see {@link Bits#fill}. The partial words at the ends of the range can be
+     * shared with the other writers, and are set atomically.
+     */
+    private static void set(long[] words, int from, int to) {
+        int first = from >>> 6;
+        int last = (to - 1) >>> 6;
+        long firstMask = -1L << from;
+        long lastMask = -1L >>> -to;
+        if (first == last) {
+            Atomics.LONG_ARRAY.getAndBitwiseOr(words, first, firstMask & lastMask);
+            return;
+        }
+        Atomics.LONG_ARRAY.getAndBitwiseOr(words, first, firstMask);
+        Arrays.fill(words, first + 1, last, -1L);
+        Atomics.LONG_ARRAY.getAndBitwiseOr(words, last, lastMask);
+    }
+
+    /**
+     * Returns the index of the first changed record at or after `from`, or -1 if there is no such record.
+     */
+    int next(int from) {
+        if (from < 0) {
+            throw new IndexOutOfBoundsException("from < 0: " + from);
+        }
+        if (from >= size) {
+            return -1;
+        }
+        int w = from >>> 6;
+        long word = rows[w] & (-1L << from);
+        if (word != 0) {
+            return (w << 6) + Long.numberOfTrailingZeros(word);
+        }
+        for (w = Bits.nextSetBit(summary, w + 1); w >= 0; w = Bits.nextSetBit(summary, w + 1)) {
+            if (rows[w] != 0) {
+                return (w << 6) + Long.numberOfTrailingZeros(rows[w]);
+            }
+        }
+        return -1;
+    }
+
+    int count() {
+        int c = 0;
+        for (int w = Bits.nextSetBit(summary, 0); w >= 0; w = Bits.nextSetBit(summary, w + 1)) {
+            c += Long.bitCount(rows[w]);
+        }
+        return c;
+    }
+
+    void clear() {
+        for (int w = Bits.nextSetBit(summary, 0); w >= 0; w = Bits.nextSetBit(summary, w + 1)) {
+            rows[w] = 0;
+        }
+        Arrays.fill(summary, 0L);
+    }
+}
@@ -0,0 +1,114 @@
+package com.aivean.recarr;
+
+/**
+ * Two generations of the records for the step-based simulations: the step reads the current generation
+ * ({@link #front()}) and writes the next one ({@link #back()}), then {@link #swap()} makes the next generation
+ * current by swapping the references of the arrays, without copying.
+ * <p>
+ * As the step never reads the records it writes, it doesn't depend on the order of the updates,
+ * and can run in parallel without locks, e.g. when the new state of the record depends on its neighbors:
+ * <pre>{@code
+ * DoubleBufferedRecordArray<Cell> cells = DoubleBufferedRecordArray.create(Cell.class, n);
+ * // ... initialize cells.front()
+ * cells.copyFrontToBack();
+ * for (int t = 0; t < steps; t++) {
+ *     cells.parallelStep((front, back, from, to) -> {
+ *         for (int i = from; i < to; i++) {
+ *             back.get(i).setHeat(average(front, i));
+ *         }
+ *     });
+ * }
+ * }</pre>
+ * The back array holds the generation before the current one, so the fields that the step doesn't write
+ * are stale. Either the step writes all fields, or the fields that are never written are copied once
+ * with {@link #copyFrontToBack()}.
+ * <p>
+ * The record "proxies", cursors and views are bound to the array they were obtained from,
+ * so they should be obtained from {@link #front()} and {@link #back()} after each swap.
+ * The swap itself is not synchronized, and shouldn't run concurrently with the step.
+ */
+public interface DoubleBufferedRecordArray<T> extends AutoCloseable {
+
+    /**
+     * Returns the current generation, that is read by the step.
+     */
+    RecordArray<T> front();
+
+    /**
+     * Returns the next generation, that is written by the step.
+     */
+    RecordArray<T> back();
+
+    /**
+     * Makes the next generation current, and the current generation the next one (to be overwritten).
+     */
+    void swap();
+
+    /**
+     * Returns the number of swaps.
+     */
+    long generation();
+
+    /**
+     * Copies all records of the current generation to the next one, see {@link RecordArray#copyRange}.
+     */
+    default void copyFrontToBack() {
+        front().copyRange(0, back(), 0, front().size());
+    }
+
+    /**
+     * Applies the kernel to all records (1d indices) sequentially, then swaps the generations.
+     */
+    default void step(StepKernel<T> kernel) {
+        RecordArray<T> front = front();
+        kernel.apply(front, back(), 0, front.size());
+        swap();
+    }
+
+    /**
+     * Applies the kernel to the chunks of the records (1d indices) in parallel, then swaps the generations,
+     * see {@link RecordArray#parallelFor(int, int, int, RecordArray.RangeKernel)}.
+     */
+    default void parallelStep(StepKernel<T> kernel) {
+        RecordArray<T> front = front();
+        RecordArray<T> back = back();
+        int n = front.size();
+        front.parallelFor(0, n, ParallelFor.defaultGrainSize(n), (from, to) -> kernel.apply(front, back, from, to));
+        swap();
+    }
+
+    /**
+     * Releases the off-heap memory of both generations, see {@link RecordArray#close()}.
+     */
+    @Override
+    void close();
+
+    /**
+     * Step of the simulation over the records [from, to).
+     */
+    @FunctionalInterface
+    interface StepKernel<T> {
+        /**
+         * Computes the records [from, to) of the next generation `back` from the current generation `front`.
+         */
+        void apply(RecordArray<T> front, RecordArray<T> back, int from, int to);
+    }
+
+    /**
+     * Creates both generations with the given dimensions, see {@link RecordArray#create(Class, int...)}.
+     *
+     * @param recordClass Class of the records. Must be an interface marked with @Record.
+     *                    If not, an IllegalArgumentException exception is thrown.
+     */
+    static <T> DoubleBufferedRecordArray<T> create(Class<T> recordClass, int... dimensions) {
+        RecordFactory<T> factory = RecordArray.factory(recordClass);
+        RecordArray<T> front = factory.create(dimensions);
+        try {
+            return new SwappedRecordArray<>(front, factory.create(dimensions));
+        } catch (RuntimeException | Error e) {
+            // releases the off-heap memory of the first generation
+            front.close();
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.aivean.recarr;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Repeatable;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Stores the fields of the heap {@link RecordArray}, that are usually accessed together,
+ * interleaved in a single primitive array, instead of the array per field.
+ * <p>
+ * By default, the fields of each record are adjacent (array of structures), e.g. `x0 y0 x1 y1 ...`,
+ * so a loop that reads all fields of the group touches one cache line per record instead of one per field.
+ * With the {@link #block()} size, the fields are interleaved by blocks of records (array of structures of arrays),
+ * e.g. for the block of 4: `x0 x1 x2 x3 y0 y1 y2 y3 x4 ...`, which keeps the locality, but also allows
+ * the vectorized processing of a single field within the block.
+ * <pre>{@code
+ * @Record
+ * @Group({"X", "Y", "Vx", "Vy"})
+ * interface Particle {
+ *     float getX();
+ *     ...
+ * }
+ * }</pre>
+ * Fields are named as in {@link RecordArray#sortBy(String...)}: the name of the getter without `get`/`is` prefix.
+ * The fields of the group must have the same primitive type (except `boolean`), each field may belong
+ * to a single group. Getters, setters and the other operations of the array don't change, but the column views
+ * of the grouped fields are not backed by arrays. {@link RecordList} doesn't group the fields,
+ * and groups are not supported by the {@link Record.Storage#OFF_HEAP} storage.
+ */
+@Target(ElementType.TYPE) @Retention(RetentionPolicy.CLASS) @Repeatable(Group.Groups.class)
+public @interface Group {
+
+    /**
+     * Names of the fields of the group.
+     */
+    String[] value();
+
+    /**
+     * Number of the records in the interleaved block, a power of two. 1 stores the fields of each record together.
+     */
+    int block() default 1;
+
+    @Target(ElementType.TYPE) @Retention(RetentionPolicy.CLASS)
+    @interface Groups {
+        Group[] value();
+    }
+}
@@ -0,0 +1,204 @@
+package com.aivean.recarr;
+
+import java.util.Arrays;
+
+/**
+ * {@link RecordIndex} over the open-addressing hash table of the distinct keys (linear probing),
+ * each key refers to the first record of the doubly-linked list of the records with that key.
+ * <p>
+ * The lists are stored in the `next` and `prev` arrays of the size of the array, so the updates
+ * of the record don't allocate, and the removal of the record is O(1). The table keeps the load factor
+ * below 3/4, and the removed keys are deleted by the backward shift, without tombstones.
+ */
+final class HashIndex implements RecordIndex {
+
+    private static final int EMPTY = -1;
+
+    private long[] keys;
+    private int[] heads;
+    private int mask;
+    // 64 - log2(capacity), the high bits of the hash are the slot
+    private int shift;
+    private int count;
+
+    private final int[] next;
+    private final int[] prev;
+
+    // the largest power of two array length
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    HashIndex(int size) {
+        this(size, 16);
+    }
+
+    /**
+     * @param capacity initial number of the slots, power of two
+     */
+    HashIndex(int size, int capacity) {
+        next = new int[size];
+        prev = new int[size];
+        allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        heads = new int[capacity];
+        Arrays.fill(heads, EMPTY);
+        mask = capacity - 1;
+        shift = 64 - Integer.numberOfTrailingZeros(capacity);
+    }
+
+    /**
+     * Fibonacci hashing, spreads the sequential keys over all slots.
+     */
+    int slot(long key) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> shift);
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Returns the slot of the key, or the empty slot, where it would be inserted.
+     */
+    private int lookup(long key) {
+        int s = slot(key);
+        while (heads[s] != EMPTY && keys[s] != key) {
+            s = (s + 1) & mask;
+        }
+        return s;
+    }
+
+    @Override
+    public int find(long key) {
+        return heads[lookup(key)];
+    }
+
+    @Override
+    public int next(int index) {
+        return next[index];
+    }
+
+    @Override
+    public int keys() {
+        return count;
+    }
+
+    /**
+     * Adds the record with the key, as the first record of the key.
+     */
+    void add(long key, int index) {
+        int s = lookup(key);
+        int head = heads[s];
+        if (head == EMPTY) {
+            if (count + 1 > (mask + 1) - ((mask + 1) >>> 2)) {
+                if (mask + 1 == MAX_CAPACITY) {
+                    if (count + 1 == MAX_CAPACITY) {
+                        throw new IllegalStateException("Too many distinct keys: " + count);
+                    }
+                } else {
+                    grow();
+                    s = lookup(key);
+                }
+            }
+            keys[s] = key;
+            count++;
+        } else {
+            prev[head] = index;
+        }
+        heads[s] = index;
+        next[index] = head;
+        prev[index] = EMPTY;
+    }
+
+    /**
+     * Removes the record, that was added with the key.
+     */
+    void remove(long key, int index) {
+        int p = prev[index];
+        int n = next[index];
+        if (n != EMPTY) {
+            prev[n] = p;
+        }
+        if (p != EMPTY) {
+            next[p] = n;
+            return;
+        }
+        int s = lookup(key);
+        heads[s] = n;
+        if (n == EMPTY) {
+            delete(s);
+        }
+    }
+
+    void update(int index, long oldKey, long newKey) {
+        if (oldKey != newKey) {
+            remove(oldKey, index);
+            add(newKey, index);
+        }
+    }
+
+    void clear() {
+        Arrays.fill(heads, EMPTY);
+        count = 0;
+    }
+
+    /**
+     * Deletes the key in the slot, moving the following keys of the probe sequence back.
+     */
+    private void delete(int s) {
+        count--;
+        int gap = s;
+        for (int i = (s + 1) & mask; heads[i] != EMPTY; i = (i + 1) & mask) {
+            int home = slot(keys[i]);
+            // the key can't be moved before its home slot
+            if (((i - home) & mask) >= ((i - gap) & mask)) {
+                keys[gap] = keys[i];
+                heads[gap] = heads[i];
+                gap = i;
+            }
+        }
+        heads[gap] = EMPTY;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldHeads = heads;
+        allocate(oldKeys.length * 2);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldHeads[i] != EMPTY) {
+                int s = lookup(oldKeys[i]);
+                keys[s] = oldKeys[i];
+                heads[s] = oldHeads[i];
+            }
+        }
+    }
+
+    /**
+     * Builds the index of the `int` or `long` field of the array (not updated with the array).
+     */
+    static RecordIndex build(RecordArray<?> array, String field) {
+        HashIndex index = new HashIndex(array.size());
+        IntColumn ints;
+        try {
+            ints = array.intColumn(field);
+        } catch (IllegalArgumentException e) {
+            LongColumn longs;
+            try {
+                longs = array.longColumn(field);
+            } catch (IllegalArgumentException e2) {
+                throw new IllegalArgumentException("No int or long field " + field + " to index");
+            }
+            // backwards, so that the first record of the key is the first in the array
+            for (int i = longs.size() - 1; i >= 0; i--) {
+                index.add(longs.get(i), i);
+            }
+            return index;
+        }
+        for (int i = ints.size() - 1; i >= 0; i--) {
+            index.add(ints.get(i), i);
+        }
+        return index;
+    }
+}
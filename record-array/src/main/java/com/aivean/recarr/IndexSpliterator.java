@@ -0,0 +1,67 @@
+package com.aivean.recarr;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+/**
+ * SIZED and SUBSIZED spliterator over the index range of the RecordArray,
+ * see {@link RecordArray#spliterator()}.
+ * <p>
+ * Splits are aligned to {@link ParallelFor#ALIGNMENT} records, so that the different threads
+ * write to the different words of the bitset and packed columns. The spliterator over the indices that aren't
+ * the range of the array (e.g. strided views) is not split.
+ */
+final class IndexSpliterator<T> implements Spliterator<T> {
+
+    private final IntFunction<T> getter;
+    private int from;
+    private final int to;
+    private final boolean split;
+
+    IndexSpliterator(IntFunction<T> getter, int from, int to, boolean split) {
+        this.getter = getter;
+        this.from = from;
+        this.to = to;
+        this.split = split;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        if (from < to) {
+            action.accept(getter.apply(from++));
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super T> action) {
+        int i = from;
+        from = to;
+        for (; i < to; i++) {
+            action.accept(getter.apply(i));
+        }
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        int mid = ParallelFor.align(from + (to - from) / 2);
+        if (!split || mid <= from || mid >= to) {
+            return null;
+        }
+        Spliterator<T> prefix = new IndexSpliterator<>(getter, from, mid, true);
+        from = mid;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        return to - from;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | SIZED | SUBSIZED | NONNULL;
+    }
+}
@@ -0,0 +1,32 @@
+package com.aivean.recarr;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Maintains the hash index of the `int` or `long` field of the heap
+ * or off-heap {@link RecordArray}, that maps the values of the field to the records, see {@link RecordIndex}.
+ * <p>
+ * The annotation is placed on the getter of the field:
+ * <pre>{@code
+ * @Record
+ * interface Order {
+ *     @Indexed
+ *     long getId();
+ *     void setId(long id);
+ * }
+ *
+ * RecordIndex byId = orders.buildIndex("Id");
+ * int row = byId.find(42);
+ * }</pre>
+ * The index is updated by the setters, by the operations of the array (`set`, `fill`, `clear`, `copyRange`,
+ * `sortBy`, ...) and by the writes through the column views, which don't expose the backing arrays
+ * of the indexed fields. The updates are not thread-safe,
+ * the indexed field can't be {@link Atomic}. The index takes ~8 bytes per record,
+ * and ~24 bytes per distinct value. {@link RecordList} and frozen arrays don't maintain the index.
+ */
+@Target(ElementType.METHOD) @Retention(RetentionPolicy.CLASS)
+public @interface Indexed {
+}
@@ -0,0 +1,85 @@
+package com.aivean.recarr;
+
+/**
+ * Index mappings of the multidimensional arrays with the tiled layouts, see {@link Record.Layout}.
+ * <p>
+ * The array is split into the tiles of `2^shift` indices along each dimension, stored one after another
+ * in the row-major order of the tiles. The tiles at the upper edges are truncated to the array dimensions,
+ * so any dimensions are mapped to [0, size) without gaps. The generated accessors pass the constant shift,
+ * so that the masks are folded after inlining.
+ */
+final class Layouts {
+
+    private Layouts() {
+    }
+
+    /**
+     * Returns the 1d index of `(i0, i1, i2)`, the records of each tile are in the row-major order.
+     */
+    static int tiled(int i0, int i1, int i2, int d0, int d1, int d2, int shift) {
+        int t = 1 << shift;
+        int m = t - 1;
+        int t0 = i0 & ~m;
+        int t1 = i1 & ~m;
+        int t2 = i2 & ~m;
+        int h0 = Math.min(t, d0 - t0);
+        int h1 = Math.min(t, d1 - t1);
+        int h2 = Math.min(t, d2 - t2);
+        return t0 * d1 * d2 + t1 * h0 * d2 + t2 * h0 * h1 + ((i0 & m) * h1 + (i1 & m)) * h2 + (i2 & m);
+    }
+
+    /**
+     * Returns the 1d index of `(i0, i1, i2)`, the records of each tile are in the Z-order (Morton order):
+     * the bits of the indices within the tile are interleaved, so the records that are close
+     * in all dimensions are close in memory. The dimensions of size 1 don't take bits, e.g. the tiles
+     * of the 2d arrays are 2d Z-curves. The truncated edge tiles are in the row-major order.
+     */
+    static int morton(int i0, int i1, int i2, int d0, int d1, int d2, int shift) {
+        int t = 1 << shift;
+        int m = t - 1;
+        int t0 = i0 & ~m;
+        int t1 = i1 & ~m;
+        int t2 = i2 & ~m;
+        int h0 = Math.min(t, d0 - t0);
+        int h1 = Math.min(t, d1 - t1);
+        int h2 = Math.min(t, d2 - t2);
+        int base = t0 * d1 * d2 + t1 * h0 * d2 + t2 * h0 * h1;
+        int a = i0 & m;
+        int b = i1 & m;
+        int c = i2 & m;
+        // the indices along the dimensions of size 1 are 0
+        if ((h0 == t || h0 == 1) && (h1 == t || h1 == 1) && (h2 == t || h2 == 1)) {
+            if (h0 == t && h1 == t && h2 == t) {
+                return base + (spread3(a) << 2 | spread3(b) << 1 | spread3(c));
+            }
+            if (h0 == 1) {
+                return base + (h1 == t && h2 == t ? spread2(b) << 1 | spread2(c) : b | c);
+            }
+            if (h1 == 1) {
+                return base + (h2 == t ? spread2(a) << 1 | spread2(c) : a | c);
+            }
+            return base + (spread2(a) << 1 | spread2(b));
+        }
+        return base + (a * h1 + b) * h2 + c;
+    }
+
+    /**
+     * Inserts the zero bit after each of the lower 16 bits.
+     */
+    static int spread2(int x) {
+        x = (x | (x << 8)) & 0x00ff00ff;
+        x = (x | (x << 4)) & 0x0f0f0f0f;
+        x = (x | (x << 2)) & 0x33333333;
+        return (x | (x << 1)) & 0x55555555;
+    }
+
+    /**
+     * Inserts two zero bits after each of the lower 10 bits.
+     */
+    static int spread3(int x) {
+        x = (x | (x << 16)) & 0x030000ff;
+        x = (x | (x << 8)) & 0x0300f00f;
+        x = (x | (x << 4)) & 0x030c30c3;
+        return (x | (x << 2)) & 0x09249249;
+    }
+}
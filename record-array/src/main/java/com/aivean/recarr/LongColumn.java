@@ -0,0 +1,34 @@
+package com.aivean.recarr;
+
+/**
+ * View of the `long` column (field) of the {@link RecordArray}, see {@link RecordArray#longColumn(String)}.
+ * <p>
+ * Accesses the column directly, without creating the record "proxy" for each index.
+ * The view is backed by the array, changes are visible in both directions.
+ */
+public interface LongColumn {
+
+    /**
+     * Returns the number of elements in the column (same as {@link RecordArray#size()}).
+     */
+    int size();
+
+    long get(int index);
+
+    void set(int index, long value);
+
+    /**
+     * Returns true if the column is backed by the accessible Java array (i.e. not off-heap).
+     */
+    boolean hasArray();
+
+    /**
+     * Returns the Java array, backing the column (optional operation).
+     * Loops over the backing array compile to plain array loads and stores, that can be auto-vectorized by JIT.
+     * <p>
+     * Index of the record in the array is the same as the index in the RecordArray.
+     *
+     * @throws UnsupportedOperationException if the column is not backed by the Java array (see {@link #hasArray()})
+     */
+    long[] array();
+}
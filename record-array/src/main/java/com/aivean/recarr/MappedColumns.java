@@ -0,0 +1,159 @@
+package com.aivean.recarr;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Maps the columns of the off-heap RecordArray to the file (see {@link RecordArray#map}).
+ * <p>
+ * File layout (little-endian):
+ * <pre>
+ *  0: long  magic ("RECARRAY")
+ *  8: int   format version
+ * 12: int   number of columns
+ * 16: long  schema hash (names and types of the fields)
+ * 24: int   dimension 0
+ * 28: int   dimension 1
+ * 32: int   dimension 2
+ * 36: int   reserved
+ * 40: long  offset of each column
+ *     ...   columns, each aligned to 64 bytes
+ * </pre>
+ */
+final class MappedColumns {
+
+    static final long MAGIC = 0x5941525241434552L; // "RECARRAY" in little-endian
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 40;
+    static final int ALIGNMENT = 64;
+
+    final int[] dimensions;
+    final ByteBuffer[] buffers;
+
+    private MappedColumns(int[] dimensions, ByteBuffer[] buffers) {
+        this.dimensions = dimensions;
+        this.buffers = buffers;
+    }
+
+    /**
+     * Maps the columns to the file, creating and initializing the file if it's empty or doesn't exist.
+     *
+     * @param schemaHash hash of the names and types of the fields, to detect incompatible files
+     * @param shifts     log2 of the size of the element of each column
+     * @param dimensions dimensions of the array, may be empty to use the dimensions stored in the existing file
+     */
+    static MappedColumns map(Path path, long schemaHash, int[] shifts, int[] dimensions) throws IOException {
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE)) {
+
+            long headerSize = HEADER_SIZE + 8L * shifts.length;
+            long[] offsets = new long[shifts.length];
+            int[] dims;
+
+            if (ch.size() == 0) {
+                dims = validateDimensions(dimensions);
+                long length = (long) dims[0] * dims[1] * dims[2];
+
+                long offset = headerSize;
+                for (int c = 0; c < shifts.length; c++) {
+                    offset = (offset + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+                    offsets[c] = offset;
+                    if ((length << shifts[c]) > Integer.MAX_VALUE) {
+                        throw new IllegalArgumentException("Too many elements for the mapped column: " + length);
+                    }
+                    offset += length << shifts[c];
+                }
+
+                ByteBuffer header = ByteBuffer.allocate((int) headerSize).order(ByteOrder.LITTLE_ENDIAN);
+                header.putLong(MAGIC).putInt(VERSION).putInt(shifts.length).putLong(schemaHash)
+                        .putInt(dims[0]).putInt(dims[1]).putInt(dims[2]).putInt(0);
+                for (long o : offsets) {
+                    header.putLong(o);
+                }
+                header.flip();
+                while (header.hasRemaining()) {
+                    ch.write(header, header.position());
+                }
+                // extends the file, the new content is zeroed
+                ch.write(ByteBuffer.allocate(1), Math.max(offset, headerSize) - 1);
+            } else {
+                ByteBuffer header = ByteBuffer.allocate((int) headerSize).order(ByteOrder.LITTLE_ENDIAN);
+                while (header.hasRemaining()) {
+                    if (ch.read(header, header.position()) < 0) {
+                        throw new IOException("Not a RecordArray file (truncated header): " + path);
+                    }
+                }
+                header.flip();
+                if (header.getLong() != MAGIC) {
+                    throw new IOException("Not a RecordArray file: " + path);
+                }
+                int version = header.getInt();
+                if (version != VERSION) {
+                    throw new IOException("Unsupported RecordArray file version " + version + ": " + path);
+                }
+                if (header.getInt() != shifts.length || header.getLong() != schemaHash) {
+                    throw new IllegalArgumentException("The file " + path + " was written for a different record type");
+                }
+                dims = new int[]{header.getInt(), header.getInt(), header.getInt()};
+                header.getInt();
+                if (dims[0] <= 0 || dims[1] <= 0 || dims[2] <= 0
+                        || (long) dims[0] * dims[1] * dims[2] > Integer.MAX_VALUE) {
+                    throw new IOException("Corrupted RecordArray file (invalid dimensions " +
+                            Arrays.toString(dims) + "): " + path);
+                }
+                long length = (long) dims[0] * dims[1] * dims[2];
+                long fileSize = ch.size();
+                for (int c = 0; c < shifts.length; c++) {
+                    offsets[c] = header.getLong();
+                    // mapping beyond the end would silently extend the file
+                    if (offsets[c] < headerSize || (length << shifts[c]) > Integer.MAX_VALUE
+                            || offsets[c] > fileSize - (length << shifts[c])) {
+                        throw new IOException("Corrupted or truncated RecordArray file (" + fileSize +
+                                " bytes, column " + c + " at " + offsets[c] + " needs " + (length << shifts[c]) +
+                                " bytes): " + path);
+                    }
+                }
+                if (dimensions.length > 0 && !Arrays.equals(dims, validateDimensions(dimensions))) {
+                    throw new IllegalArgumentException("The dimensions of the file " + path + " " +
+                            Arrays.toString(dims) + " do not match " +
+                            Arrays.toString(dimensions));
+                }
+            }
+
+            long length = (long) dims[0] * dims[1] * dims[2];
+            ByteBuffer[] buffers = new ByteBuffer[shifts.length];
+            for (int c = 0; c < shifts.length; c++) {
+                // the mapping remains valid after the channel is closed
+                buffers[c] = ch.map(FileChannel.MapMode.READ_WRITE, offsets[c], length << shifts[c])
+                        .order(ByteOrder.LITTLE_ENDIAN);
+            }
+            return new MappedColumns(dims, buffers);
+        }
+    }
+
+    /**
+     * Returns the dimensions, padded with 1 to three dimensions.
+     */
+    private static int[] validateDimensions(int[] dimensions) {
+        if (dimensions.length == 0) {
+            throw new IllegalArgumentException("At least one dimension is required to create a new file.");
+        }
+        if (dimensions.length > 3) {
+            throw new IllegalArgumentException("Only up to three dimensions are supported.");
+        }
+        int[] dims = {1, 1, 1};
+        System.arraycopy(dimensions, 0, dims, 0, dimensions.length);
+        if (dims[0] <= 0 || dims[1] <= 0 || dims[2] <= 0) {
+            throw new IllegalArgumentException("dimensions must be positive");
+        }
+        if ((long) dims[0] * dims[1] * dims[2] > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many elements: " + Arrays.toString(dimensions));
+        }
+        return dims;
+    }
+}
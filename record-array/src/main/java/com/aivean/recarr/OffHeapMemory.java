@@ -0,0 +1,96 @@
+package com.aivean.recarr;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+
+/**
+ * Allocation and explicit release of the direct buffers, used by the off-heap (and memory-mapped) columns
+ * of the generated RecordArray implementations.
+ */
+final class OffHeapMemory {
+
+    // sun.misc.Unsafe.invokeCleaner (Java 9+), null if unavailable
+    private static final Object unsafe;
+    private static final Method invokeCleaner;
+
+    static {
+        Object u = null;
+        Method m = null;
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field f = unsafeClass.getDeclaredField("theUnsafe");
+            f.setAccessible(true);
+            u = f.get(null);
+            m = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+        } catch (Exception e) {
+            // the buffers will be released by GC
+            u = null;
+            m = null;
+        }
+        unsafe = u;
+        invokeCleaner = m;
+    }
+
+    private OffHeapMemory() {
+    }
+
+    /**
+     * Allocates zeroed buffer of `length` elements of size `1 << shift` bytes, in the little-endian byte order
+     * (the same as the mapped columns, so that the atomic operations use the same handles).
+     */
+    static ByteBuffer allocate(int length, int shift) {
+        if (length > (Integer.MAX_VALUE >> shift)) {
+            throw new IllegalArgumentException("Too many elements for the off-heap column: " + length);
+        }
+        return ByteBuffer.allocateDirect(length << shift).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static final ByteBuffer zeroes = ByteBuffer.allocateDirect(4096);
+
+    /**
+     * Copies `length` elements of size `1 << shift` bytes between the buffers.
+     * Overlapping ranges of the same buffer are copied correctly (direct buffers copy memory as `memmove`).
+     */
+    static void copy(ByteBuffer src, int srcPos, ByteBuffer dst, int dstPos, int length, int shift) {
+        ByteBuffer s = src.duplicate();
+        s.limit((srcPos + length) << shift).position(srcPos << shift);
+        ByteBuffer d = dst.duplicate();
+        d.position(dstPos << shift);
+        d.put(s);
+    }
+
+    /**
+     * Zeroes the elements [from, to) of size `1 << shift` bytes.
+     */
+    static void clear(ByteBuffer buffer, int from, int to, int shift) {
+        ByteBuffer d = buffer.duplicate();
+        d.limit(to << shift).position(from << shift);
+        while (d.hasRemaining()) {
+            ByteBuffer z = zeroes.duplicate();
+            z.limit(Math.min(z.capacity(), d.remaining()));
+            d.put(z);
+        }
+    }
+
+    /**
+     * Releases the memory of the buffer immediately (memory-mapped buffers are written to the file and unmapped).
+     * The buffer must not be accessed afterwards.
+     * Does nothing for null buffers.
+     */
+    static void free(ByteBuffer buffer) {
+        if (buffer instanceof MappedByteBuffer) {
+            ((MappedByteBuffer) buffer).force();
+        }
+        if (buffer == null || invokeCleaner == null) {
+            return;
+        }
+        try {
+            invokeCleaner.invoke(unsafe, buffer);
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to release off-heap memory", e);
+        }
+    }
+}
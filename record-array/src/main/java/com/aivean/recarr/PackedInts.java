@@ -0,0 +1,135 @@
+package com.aivean.recarr;
+
+/**
+ * Operations over the narrowed integral columns of the heap arrays, see {@link Range} and {@link Unsigned}.
+ * <p>
+ * The column stores `value - min` in `width` bits: the record `i` is at the bit position `i * width`
+ * of the `long[]` words, values may span two words. The generated accessors pass the constant width,
+ * so that the shifts and masks are folded after inlining.
+ * <p>
+ * As with {@link Bits}, writing the value rewrites the whole word, so the records that share the word
+ * must not be modified concurrently. Each 64 records occupy exactly `width` words, so the ranges
+ * split at the multiples of 64 records (as done by the parallel iteration) don't share the words.
+ */
+final class PackedInts {
+
+    private PackedInts() {
+    }
+
+    static int words(int size, int width) {
+        return (int) (((long) size * width + 63) >>> 6);
+    }
+
+    /**
+     * Returns the offset from the minimum, checking the index against the size of the array,
+     * as the words of the last records may have the spare bits, see {@link Bits#get(long[], int, int)}.
+     *
+     * @throws IndexOutOfBoundsException if the index is out of [0, size)
+     */
+    static long get(long[] words, int index, int size, int width) {
+        Bits.checkIndex(index, size);
+        long bitPos = (long) index * width;
+        int w = (int) (bitPos >> 6);
+        int off = (int) bitPos & 63;
+        long v = words[w] >>> off;
+        if (off + width > 64) {
+            v |= words[w + 1] << (64 - off);
+        }
+        return v & ((1L << width) - 1);
+    }
+
+    /**
+     * Writes the offset from the minimum (`0 <= value < 2^width`), see {@link #get(long[], int, int, int)}.
+     *
+     * @throws IndexOutOfBoundsException if the index is out of [0, size)
+     */
+    static void set(long[] words, int index, int size, int width, long value) {
+        Bits.checkIndex(index, size);
+        write(words, index, width, value);
+    }
+
+    /**
+     * Returns `value - min`, checking that the value is in [min, min + range].
+     *
+     * @throws IllegalArgumentException if the value is out of the range
+     */
+    static long offset(long value, long min, long range, String field) {
+        long v = value - min;
+        // unsigned comparison also rejects the values below min
+        if (Long.compareUnsigned(v, range) > 0) {
+            throw new IllegalArgumentException("Value " + value + " of " + field + " is out of range [" + min +
+                                               ", " + (min + range) + "]");
+        }
+        return v;
+    }
+
+    /**
+     * Copies `length` values, 64 bits at a time. Overlapping ranges of the same column are copied correctly.
+     */
+    static void copy(long[] src, int srcPos, long[] dst, int dstPos, int length, int width) {
+        long srcBit = (long) srcPos * width;
+        long dstBit = (long) dstPos * width;
+        long bits = (long) length * width;
+        if (src == dst && srcBit < dstBit && dstBit < srcBit + bits) {
+            // backwards, as memmove
+            for (long end = bits; end > 0; end -= 64) {
+                int n = (int) Math.min(64, end);
+                writeBits(dst, dstBit + end - n, readBits(src, srcBit + end - n, n), n);
+            }
+        } else {
+            for (long off = 0; off < bits; off += 64) {
+                int n = (int) Math.min(64, bits - off);
+                writeBits(dst, dstBit + off, readBits(src, srcBit + off, n), n);
+            }
+        }
+    }
+
+    /**
+     * Sets the values [from, to) to the offset from the minimum.
+     */
+    static void fill(long[] words, int from, int to, int width, long value) {
+        for (int i = from; i < to; i++) {
+            write(words, i, width, value);
+        }
+    }
+
+    private static void write(long[] words, int index, int width, long value) {
+        long mask = (1L << width) - 1;
+        long bitPos = (long) index * width;
+        int w = (int) (bitPos >> 6);
+        int off = (int) bitPos & 63;
+        // the second word first, so that the out of bounds write leaves the first one intact
+        if (off + width > 64) {
+            words[w + 1] = (words[w + 1] & ~(mask >>> (64 - off))) | (value >>> (64 - off));
+        }
+        words[w] = (words[w] & ~(mask << off)) | (value << off);
+    }
+
+    /**
+     * Reads `n` (1..64) bits, see {@link Bits#read(long[], int, int)}.
+     */
+    private static long readBits(long[] words, long bitPos, int n) {
+        int w = (int) (bitPos >>> 6);
+        int off = (int) bitPos & 63;
+        long v = words[w] >>> off;
+        if (off + n > 64) {
+            v |= words[w + 1] << (64 - off);
+        }
+        return n == 64 ? v : v & ((1L << n) - 1);
+    }
+
+    /**
+     * Writes the lower `n` (1..64) bits, see {@link Bits#write(long[], int, long, int)}.
+     */
+    private static void writeBits(long[] words, long bitPos, long value, int n) {
+        long mask = n == 64 ? -1L : (1L << n) - 1;
+        value &= mask;
+        int w = (int) (bitPos >>> 6);
+        int off = (int) bitPos & 63;
+        words[w] = (words[w] & ~(mask << off)) | (value << off);
+        if (off + n > 64) {
+            long highMask = (1L << (off + n - 64)) - 1;
+            words[w + 1] = (words[w + 1] & ~highMask) | (value >>> (64 - off));
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.aivean.recarr;
+
+/**
+ * {@link BigRecordArray} over the array of {@link RecordArray} pages.
+ */
+final class PagedRecordArray<T> implements BigRecordArray<T> {
+
+    private final RecordArray<T>[] pages;
+    private final long size;
+    private final int shift;
+    private final int mask;
+
+    @SuppressWarnings("unchecked")
+    PagedRecordArray(RecordFactory<T> factory, long size, int pageShift) {
+        if (size < 0) {
+            throw new IllegalArgumentException("size must be non-negative: " + size);
+        }
+        if (pageShift < 6 || pageShift > 30) {
+            throw new IllegalArgumentException("pageShift must be in 6..30: " + pageShift);
+        }
+        long count = (size + (1L << pageShift) - 1) >>> pageShift;
+        if (count > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Too many pages: " + count + ", increase pageShift");
+        }
+        this.size = size;
+        this.shift = pageShift;
+        this.mask = (1 << pageShift) - 1;
+        // the generic array can't be created directly, hence the unchecked cast
+        this.pages = (RecordArray<T>[]) new RecordArray<?>[(int) count];
+        try {
+            for (int p = 0; p < pages.length; p++) {
+                pages[p] = factory.create((int) Math.min(1L << pageShift, size - ((long) p << pageShift)));
+            }
+        } catch (RuntimeException | Error e) {
+            // releases the off-heap pages allocated so far
+            close();
+            throw e;
+        }
+    }
+
+    private void checkIndex(long index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    public T get(long index) {
+        checkIndex(index);
+        return pages[(int) (index >>> shift)].get((int) index & mask);
+    }
+
+    public void set(long index, T value) {
+        checkIndex(index);
+        pages[(int) (index >>> shift)].set((int) index & mask, value);
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public int pageShift() {
+        return shift;
+    }
+
+    public int pageCount() {
+        return pages.length;
+    }
+
+    public RecordArray<T> page(int page) {
+        return pages[page];
+    }
+
+    public void fill(long from, long to, T prototype) {
+        forEachPageRange(from, to, (page, f, t) -> page.fill(f, t, prototype));
+    }
+
+    public void clear(long from, long to) {
+        forEachPageRange(from, to, RecordArray::clear);
+    }
+
+    private interface PageRange<T> {
+        void apply(RecordArray<T> page, int from, int to);
+    }
+
+    /**
+     * Splits the range [from, to) into the ranges of the pages.
+     */
+    private void forEachPageRange(long from, long to, PageRange<T> action) {
+        if (from < 0 || from > to || to > size) {
+            throw new IndexOutOfBoundsException("Invalid range: [" + from + ", " + to + "), size: " + size);
+        }
+        for (long pos = from; pos < to; ) {
+            RecordArray<T> page = pages[(int) (pos >>> shift)];
+            int offset = (int) pos & mask;
+            int n = (int) Math.min(to - pos, page.size() - offset);
+            action.apply(page, offset, offset + n);
+            pos += n;
+        }
+    }
+
+    public void close() {
+        for (RecordArray<T> page : pages) {
+            if (page != null) {
+                page.close();
+            }
+        }
+    }
+}
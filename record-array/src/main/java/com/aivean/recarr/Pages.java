@@ -0,0 +1,160 @@
+package com.aivean.recarr;
+
+import java.lang.reflect.Array;
+import java.util.Arrays;
+
+/**
+ * Operations over the paged primitive columns, see {@link Record.Storage#PAGED}.
+ * <p>
+ * The column is the array of pages (e.g. `int[][]`) of {@link #SIZE} elements, the element `i` is
+ * `pages[i >>> SHIFT][i & MASK]`. The pages are allocated on the first write: until then, they refer
+ * to the shared zero page of the type, so that the reads don't check for the missing pages.
+ * The zero pages are private to this class and are never returned for writing, the methods accept
+ * the pages as `Object[]`.
+ * <p>
+ * The pages are replaced (allocated or released) only under the lock of the array of pages,
+ * so the concurrent writers of the same page get the same page, and the released page
+ * is not allocated again meanwhile.
+ */
+final class Pages {
+
+    /**
+     * 2^15 elements, so that the pages of 8-byte elements (256KB) are not humongous objects for G1
+     * even with the smallest (1MB) regions.
+     */
+    static final int SHIFT = 15;
+    static final int SIZE = 1 << SHIFT;
+    static final int MASK = SIZE - 1;
+
+    private static final byte[] ZERO_BYTE = new byte[SIZE];
+    private static final char[] ZERO_CHAR = new char[SIZE];
+    private static final short[] ZERO_SHORT = new short[SIZE];
+    private static final int[] ZERO_INT = new int[SIZE];
+    private static final long[] ZERO_LONG = new long[SIZE];
+    private static final float[] ZERO_FLOAT = new float[SIZE];
+    private static final double[] ZERO_DOUBLE = new double[SIZE];
+
+    private Pages() {
+    }
+
+    /**
+     * Returns the number of pages for the given number of elements.
+     */
+    static int count(int size) {
+        return (int) (((long) size + MASK) >>> SHIFT);
+    }
+
+    /**
+     * Returns the zero page for the array of pages of the primitive type.
+     */
+    private static Object zero(Object[] pages) {
+        Class<?> type = pages.getClass().getComponentType();
+        if (type == int[].class) {
+            return ZERO_INT;
+        } else if (type == long[].class) {
+            return ZERO_LONG;
+        } else if (type == double[].class) {
+            return ZERO_DOUBLE;
+        } else if (type == float[].class) {
+            return ZERO_FLOAT;
+        } else if (type == short[].class) {
+            return ZERO_SHORT;
+        } else if (type == byte[].class) {
+            return ZERO_BYTE;
+        } else if (type == char[].class) {
+            return ZERO_CHAR;
+        }
+        throw new IllegalArgumentException("Not the pages of a primitive type: " + pages.getClass());
+    }
+
+    /**
+     * Sets all pages of the new column to the zero page.
+     */
+    static void init(Object[] pages) {
+        Arrays.fill(pages, zero(pages));
+    }
+
+    /**
+     * Allocates the page, if it's still the zero page, and returns it.
+     * The check is repeated under the lock, so the concurrent writers of the same page get the same array.
+     */
+    private static Object allocate(Object[] pages, int page, Object zero) {
+        synchronized (pages) {
+            if (pages[page] == zero) {
+                pages[page] = Array.newInstance(zero.getClass().getComponentType(), SIZE);
+            }
+            return pages[page];
+        }
+    }
+
+    /**
+     * Returns the page to write the element to, never the zero page.
+     */
+    static Object writable(Object[] pages, int index) {
+        Object page = pages[index >>> SHIFT];
+        Object zero = zero(pages);
+        // the page read without the lock is either the zero page, or the page allocated for this slot
+        return page != zero ? page : allocate(pages, index >>> SHIFT, zero);
+    }
+
+    /**
+     * Copies `length` elements, page by page. Overlapping ranges of the same column are copied correctly.
+     */
+    static void copy(Object[] src, int srcPos, Object[] dst, int dstPos, int length) {
+        Object zero = zero(src);
+        if (src == dst && srcPos < dstPos && dstPos < srcPos + length) {
+            // backwards, as memmove
+            for (int end = length; end > 0; ) {
+                int s = srcPos + end - 1;
+                int d = dstPos + end - 1;
+                int n = Math.min(end, Math.min((s & MASK) + 1, (d & MASK) + 1));
+                System.arraycopy(src[s >>> SHIFT], (s & MASK) - n + 1, writable(dst, d), (d & MASK) - n + 1, n);
+                end -= n;
+            }
+        } else {
+            for (int off = 0; off < length; ) {
+                int s = srcPos + off;
+                int d = dstPos + off;
+                int n = Math.min(length - off, SIZE - Math.max(s & MASK, d & MASK));
+                if (src[s >>> SHIFT] != zero || dst[d >>> SHIFT] != zero) {
+                    System.arraycopy(src[s >>> SHIFT], s & MASK, writable(dst, d), d & MASK, n);
+                }
+                off += n;
+            }
+        }
+    }
+
+    /**
+     * Copies `length` elements of the pages into the flat array.
+     */
+    static void copyTo(Object[] src, int srcPos, Object dst, int dstPos, int length) {
+        for (int off = 0; off < length; ) {
+            int s = srcPos + off;
+            int n = Math.min(length - off, SIZE - (s & MASK));
+            System.arraycopy(src[s >>> SHIFT], s & MASK, dst, dstPos + off, n);
+            off += n;
+        }
+    }
+
+    /**
+     * Resets the elements [from, to) to zero. The whole pages are released (replaced with the zero page).
+     */
+    static void clear(Object[] pages, int from, int to) {
+        Object zero = zero(pages);
+        for (int pos = from; pos < to; ) {
+            int p = pos >>> SHIFT;
+            int n = Math.min(to - pos, SIZE - (pos & MASK));
+            if (n == SIZE) {
+                synchronized (pages) {
+                    pages[p] = zero;
+                }
+            } else {
+                Object page = pages[p];
+                if (page != zero) {
+                    System.arraycopy(zero, 0, page, pos & MASK, n);
+                }
+            }
+            pos += n;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.aivean.recarr;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Fork/join execution of {@link RecordArray.RangeKernel} over the index range,
+ * see {@link RecordArray#parallelFor(int, int, int, RecordArray.RangeKernel)}.
+ */
+final class ParallelFor extends RecursiveAction {
+
+    // the tasks are never serialized, but RecursiveAction is Serializable
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Split points are multiples of this number of records, so that the ranges processed by the different threads
+     * don't share the words of the bitset and packed columns, where the write rewrites the whole word.
+     * The elements of the other columns are shifted by the array header, so the adjacent ranges may still
+     * share one cache line of such column.
+     */
+    static final int ALIGNMENT = 64;
+
+    private final int from;
+    private final int to;
+    private final int grainSize;
+    private final RecordArray.RangeKernel kernel;
+
+    private ParallelFor(int from, int to, int grainSize, RecordArray.RangeKernel kernel) {
+        this.from = from;
+        this.to = to;
+        this.grainSize = grainSize;
+        this.kernel = kernel;
+    }
+
+    /**
+     * Rounds the index down to the multiple of {@link #ALIGNMENT}.
+     */
+    static int align(int index) {
+        return index & -ALIGNMENT;
+    }
+
+    /**
+     * Grain size that gives several tasks per worker thread of the common pool.
+     */
+    static int defaultGrainSize(int size) {
+        int tasks = ForkJoinPool.getCommonPoolParallelism() * 4;
+        return Math.max(ALIGNMENT, align(size / tasks));
+    }
+
+    static void run(int from, int to, int grainSize, RecordArray.RangeKernel kernel) {
+        if (from < 0 || from > to) {
+            throw new IndexOutOfBoundsException("Invalid range: [" + from + ", " + to + ")");
+        }
+        if (grainSize <= 0) {
+            throw new IllegalArgumentException("grainSize must be positive");
+        }
+        if (to - from <= grainSize) {
+            kernel.apply(from, to);
+        } else {
+            ForkJoinPool.commonPool().invoke(new ParallelFor(from, to, grainSize, kernel));
+        }
+    }
+
+    @Override
+    protected void compute() {
+        int mid = align(from + (to - from) / 2);
+        if (to - from <= grainSize || mid <= from) {
+            kernel.apply(from, to);
+        } else {
+            invokeAll(new ParallelFor(from, mid, grainSize, kernel), new ParallelFor(mid, to, grainSize, kernel));
+        }
+    }
+}
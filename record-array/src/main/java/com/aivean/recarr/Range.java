@@ -0,0 +1,34 @@
+package com.aivean.recarr;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Narrows the integral field (`byte`, `short`, `char`, `int` or `long`) of the heap {@link RecordArray}
+ * to the values in [min, max]. The field is stored as `value - min` in the smallest number of bits,
+ * packed into the shared `long` words. See also {@link Unsigned}.
+ * <p>
+ * The annotation is placed on the getter of the field:
+ * <pre>{@code
+ * @Record
+ * interface Sample {
+ *     @Range(min = -40, max = 85)
+ *     int getTemperature();
+ *     void setTemperature(int temperature);
+ * }
+ * }</pre>
+ * Setting the value outside of the range throws IllegalArgumentException.
+ * The default value of the field (e.g. of the new array, or after {@link RecordArray#clear(int, int)}) is `min`.
+ * <p>
+ * {@link RecordList} and {@link Record.Storage#OFF_HEAP} arrays are not narrowed (the annotation is ignored
+ * by the list, and is an error for the off-heap storage).
+ */
+@Target(ElementType.METHOD) @Retention(RetentionPolicy.CLASS)
+public @interface Range {
+
+    long min();
+
+    long max();
+}
@@ -7,4 +7,97 @@ import java.lang.annotation.Target;
 
 @Target(ElementType.TYPE) @Retention(RetentionPolicy.CLASS)
 public @interface Record {
-}
\ No newline at end of file
+
+    /**
+     * Storage of the primitive columns of the generated {@link RecordArray}.
+     */
+    Storage storage() default Storage.HEAP;
+
+    /**
+     * Order of the records of the multidimensional arrays, see {@link Layout}.
+     */
+    Layout layout() default Layout.ROW_MAJOR;
+
+    /**
+     * log2 of the tile size along each dimension for the tiled layouts (1..10), e.g. 8x8x8 tiles by default.
+     */
+    int tileShift() default 3;
+
+    /**
+     * Tracks the records, changed since the last {@link RecordArray#clearDirty()}, e.g. for the incremental
+     * replication or checkpoints, see {@link RecordArray#nextDirtyRow(int)}.
+     * <p>
+     * The records are marked by the setters and the {@link Atomic} operations of the records and the cursors,
+     * by `set`, `fill`, `clear` and `permute` (`sortBy`), by `copyRange` in the destination array, and by the writes
+     * through the column views, which don't expose the backing arrays of the tracked array. The changes
+     * of {@link RecordList} and of the frozen arrays are not tracked. The views of the tracked array
+     * (e.g. `slice`) mark the records of the array, but don't provide the tracking methods.
+     * <p>
+     * The marks are the bits shared by the aligned groups of 64 records, the same as the `boolean` fields
+     * (see {@link RecordArray#parallelFor(int, int, int, RecordArray.RangeKernel)}), except for the atomic
+     * operations, that mark the records atomically. The tracking methods must not run concurrently with the writes.
+     */
+    boolean trackChanges() default false;
+
+    enum Storage {
+        /**
+         * Each column is a Java array (e.g. `int[]`).
+         */
+        HEAP,
+
+        /**
+         * Each primitive column is a direct (off-heap) buffer, allocated outside the Java heap.
+         * This reduces heap size and GC pressure for large arrays.
+         * Object columns (e.g. `String`) remain Java arrays. The columns are little-endian,
+         * the same as the files of {@link RecordArray#map}.
+         * <p>
+         * The memory is released by {@link RecordArray#close()} (or eventually by GC, if `close()` isn't called).
+         * Accessing the array, its records or its column views after `close()` throws NullPointerException.
+         * <p>
+         * Each column is limited to 2GB, e.g. 268M records with `long` or `double` fields.
+         * {@link RecordList} always uses heap storage.
+         */
+        OFF_HEAP,
+
+        /**
+         * Each primitive column is an array of fixed-size pages (2^15 elements, e.g. `int[][]`),
+         * so that the large arrays don't need the contiguous memory, and aren't allocated by G1
+         * as humongous objects. Pages are allocated on the first write to the page,
+         * the pages that are never written don't take memory.
+         * <p>
+         * Boolean columns (bitsets), narrowed fields and field groups are not paged.
+         * {@link RecordList} always uses heap storage.
+         */
+        PAGED
+    }
+
+    /**
+     * Mapping of the indices `(i0, i1, i2)` of {@link RecordArray#get(int, int, int)} to the 1d index,
+     * which is also the order of the records in the columns, in the iteration and in the range operations.
+     * <p>
+     * The tiled layouts keep the records that are close in all dimensions close in memory,
+     * which improves the locality of the stencil and neighborhood access along the slow dimensions.
+     * The 1d index of the element is returned by {@link RecordArray#index(int...)}.
+     * The views ({@link RecordArray#subArray(int)} etc.) use the logical indices, regardless of the layout.
+     */
+    enum Layout {
+        /**
+         * `(i0 * dim1 + i1) * dim2 + i2`
+         */
+        ROW_MAJOR,
+
+        /**
+         * The array is split into the tiles of `2^tileShift` records along each dimension,
+         * stored in the row-major order of the tiles, each tile is stored in the row-major order.
+         * The tiles at the upper edges are truncated, so any dimensions are supported without padding.
+         */
+        TILED,
+
+        /**
+         * Same tiles as {@link #TILED}, each tile is stored in the Z-order (Morton order),
+         * the bits of the indices within the tile are interleaved.
+         * The truncated edge tiles are stored in the row-major order.
+         */
+        MORTON
+    }
+}
@@ -14,6 +14,7 @@ import java.io.PrintWriter;
 import java.util.*;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 public class RecordAnnotationProcessor extends AbstractProcessor {
@@ -26,6 +27,7 @@ public class RecordAnnotationProcessor extends AbstractProcessor {
 
     @Override
     public synchronized void init(ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
         filer = processingEnv.getFiler();
     }
 
@@ -128,6 +130,107 @@ public class RecordAnnotationProcessor extends AbstractProcessor {
                 .replace("${compare_fields}", pad(compareFieldsStr));
     }
 
+    /**
+     * Returns {min, max} of the field, narrowed with {@link Range} or {@link Unsigned} on the getter,
+     * or null if the field is not narrowed.
+     */
+    private static long[] fieldRange(ExecutableElement getter, String type) {
+        Range range = getter.getAnnotation(Range.class);
+        Unsigned unsigned = getter.getAnnotation(Unsigned.class);
+        if (range == null && unsigned == null) {
+            return null;
+        }
+        String name = getter.getEnclosingElement().getSimpleName() + "." + getter.getSimpleName();
+        int typeBits;
+        long typeMin;
+        switch (type) {
+            case "byte":
+                typeBits = 8;
+                typeMin = Byte.MIN_VALUE;
+                break;
+            case "short":
+                typeBits = 16;
+                typeMin = Short.MIN_VALUE;
+                break;
+            case "char":
+                typeBits = 16;
+                typeMin = 0;
+                break;
+            case "int":
+                typeBits = 32;
+                typeMin = Integer.MIN_VALUE;
+                break;
+            case "long":
+                typeBits = 64;
+                typeMin = Long.MIN_VALUE;
+                break;
+            default:
+                throw new IllegalStateException("Only byte, short, char, int and long fields can be narrowed: " + name);
+        }
+        if (range != null && unsigned != null) {
+            throw new IllegalStateException("Both @Range and @Unsigned are specified: " + name);
+        }
+        long min;
+        long max;
+        if (unsigned != null) {
+            if (unsigned.value() < 1 || unsigned.value() >= typeBits) {
+                throw new IllegalStateException("Invalid @Unsigned(" + unsigned.value() + "), expected 1.." +
+                                                (typeBits - 1) + " bits: " + name);
+            }
+            min = 0;
+            max = (1L << unsigned.value()) - 1;
+        } else {
+            min = range.min();
+            max = range.max();
+            long typeMax = type.equals("char") ? Character.MAX_VALUE : -(typeMin + 1);
+            if (min > max || min < typeMin || max > typeMax) {
+                throw new IllegalStateException("Invalid @Range(" + min + ", " + max + ") of " + type + ": " + name);
+            }
+            if (64 - Long.numberOfLeadingZeros(max - min) >= typeBits) {
+                throw new IllegalStateException("@Range(" + min + ", " + max + ") doesn't narrow " + type + ": " + name);
+            }
+        }
+        return new long[]{min, max};
+    }
+
+    /**
+     * Creates the columns of the fields, grouped with {@link Group} annotations of the record type.
+     */
+    private static Map<String, GroupColumn> groupColumns(Element el, Map<String, String> fieldsToTypes,
+                                                         Set<String> narrowedFields) {
+        Map<String, GroupColumn> columns = new LinkedHashMap<>();
+        for (Group group : el.getAnnotationsByType(Group.class)) {
+            String name = el.getSimpleName() + " @Group" + Arrays.toString(group.value());
+            if (el.getAnnotation(Record.class).storage() == Record.Storage.OFF_HEAP) {
+                throw new IllegalStateException("Groups are not supported by the off-heap storage: " + name);
+            }
+            if (group.value().length < 2) {
+                throw new IllegalStateException("Group must have at least two fields: " + name);
+            }
+            if (group.block() < 1 || Integer.bitCount(group.block()) != 1) {
+                throw new IllegalStateException("Group block must be a power of two: " + name);
+            }
+            String type = fieldsToTypes.get(group.value()[0]);
+            for (String field : group.value()) {
+                if (!fieldsToTypes.containsKey(field)) {
+                    throw new IllegalStateException("Unknown field " + field + ": " + name);
+                }
+                if (!fieldsToTypes.get(field).equals(type) || !primitiveTypes.contains(type) || type.equals("boolean")) {
+                    throw new IllegalStateException("Grouped fields must have the same primitive type " +
+                                                    "(except boolean): " + name);
+                }
+                if (columns.containsKey(field) || narrowedFields.contains(field)) {
+                    throw new IllegalStateException("Field " + field + " is already grouped or narrowed: " + name);
+                }
+            }
+            for (int i = 0; i < group.value().length; i++) {
+                columns.put(group.value()[i], new GroupColumn(group.value()[i], type, "g$" + group.value()[0],
+                        group.value().length, i, Integer.numberOfTrailingZeros(group.block())));
+            }
+        }
+        return columns;
+    }
+
     static String generateFieldInitializer(String type, String fieldName) {
         if (type.endsWith("[]")) {
             String newType = type;
@@ -159,64 +262,53 @@ public class RecordAnnotationProcessor extends AbstractProcessor {
         // Generated code, implementing each RecordArray<T> for each interface T, marked with @Record
         List<String> internalClassesImpls = new ArrayList<>(els.size());
 
-        // map of simple type name -> mangled type name (since simple type names are not unique)
-        Map<String, String> simpleNamesToMangled = new HashMap<>();
+        // map of qualified type name -> mangled type name (simple type names are not unique)
+        Map<String, String> classNamesToMangled = new HashMap<>();
         for (Element el : els) {
-            String className = el.getSimpleName().toString();
-            String mangledName = className + "Impl$" + simpleNamesToMangled.size() + "$" + (int) (Math.random() * 10000);
-            simpleNamesToMangled.put(className, mangledName);
+            String mangledName = el.getSimpleName() + "Impl$" + classNamesToMangled.size() + "$" +
+                                 (int) (Math.random() * 10000);
+            classNamesToMangled.put(el.asType().toString(), mangledName);
         }
 
         for (Element el : els) {
-            internalClassesImpls.add(getInternalClassImplStr(el, simpleNamesToMangled));
+            internalClassesImpls.add(getInternalClassImplStr(el, classNamesToMangled));
         }
 
-        final String factoryInitStr =
+        // the record class is matched by name, so that only the implementation of the requested type is loaded
+        final String factoryCasesStr =
                 els.stream().map(el ->
-                        "factories.put(" +
-                        el.asType().toString() + ".class, " +
-                        "RecordArrayFactoryImpl." + simpleNamesToMangled.get(el.getSimpleName().toString()) +
-                        ".class.getDeclaredConstructor(int [].class));"
+                        ("case \"${binary_name}\":\n" +
+                         "    return clazz == ${record_type}.class ? new ${arr_impl_name}.$$Factory() : null;")
+                                .replace("${binary_name}",
+                                        processingEnv.getElementUtils().getBinaryName((TypeElement) el))
+                                .replace("${record_type}", el.asType().toString())
+                                .replace("${arr_impl_name}", classNamesToMangled.get(el.asType().toString()))
                 ).collect(Collectors.joining("\n"));
 
-
         final String recordArrayFactoryStr = (
                 "package com.aivean.recarr;\n" +
                 "\n" +
-                "import java.lang.reflect.Constructor;\n" +
-                "import java.lang.reflect.InvocationTargetException;\n" +
-                "import java.util.HashMap;\n" +
-                "import java.util.Map;\n" +
+                "import java.io.IOException;\n" +
+                "import java.util.Arrays;\n" +
+                "import java.util.Collection;\n" +
+                "import java.util.NoSuchElementException;\n" +
                 "import com.aivean.recarr.RecordArray;\n" +
                 "import java.util.Objects;\n" +
                 "\n" +
-                "class RecordArrayFactoryImpl {\n" +
-                "    private static final Map<Class, Constructor> factories = new HashMap<>();\n" +
-                "\n" +
-                "    static {\n" +
-                "        try {\n" +
-                "${factory_init}\n" +
-                "        } catch (Exception e) {\n" +
-                "            throw new RuntimeException(\"Failed to find constructor\", e);\n" +
-                "        }\n" +
-                "    }\n" +
+                "class RecordArrayFactoryImpl implements java.util.function.Function<Class<?>, RecordFactory<?>> {\n" +
                 "\n" +
-                "    public static Object create(Class clazz, int... dimensions) {\n" +
-                "        Constructor c = factories.get(clazz);\n" +
-                "        if (c == null) {\n" +
-                "            return null;\n" +
-                "        }\n" +
-                "        try {\n" +
-                "            return c.newInstance(dimensions);\n" +
-                "        } catch (Exception e) {\n" +
-                "            throw new IllegalStateException(\"Failed to create instance record for \" + clazz, e);\n" +
+                "    public RecordFactory<?> apply(Class<?> clazz) {\n" +
+                "        switch (clazz.getName()) {\n" +
+                "${factory_cases}\n" +
+                "            default:\n" +
+                "                return null;\n" +
                 "        }\n" +
                 "    }\n" +
                 "\n" +
                 "${internal_classes}\n" +
                 "\n" +
                 "}\n")
-                .replace("${factory_init}", pad(factoryInitStr, 12))
+                .replace("${factory_cases}", pad(factoryCasesStr, 12))
                 .replace("${internal_classes}", pad(String.join("\n", internalClassesImpls)));
 
         try {
@@ -238,21 +330,116 @@ public class RecordAnnotationProcessor extends AbstractProcessor {
         // field name -> getter name
         LinkedHashMap<String, String> fieldsToGetters = new LinkedHashMap<>();
 
-        // generated methods for {Type}Imp.$$Record
-        List<String> arrRecordMethods = new ArrayList<>();
+        // field name -> setter name
+        LinkedHashMap<String, String> fieldsToSetters = new LinkedHashMap<>();
+
+        // narrowed fields (name -> {min, max}), see Range and Unsigned
+        LinkedHashMap<String, long[]> fieldsToRanges = new LinkedHashMap<>();
+
+        // generated methods for {Type}Imp.$$Record (depend on the storage of the columns)
+        List<Function<Map<String, Column>, String>> arrRecordMethods = new ArrayList<>();
 
         // generated methods for {Type}Imp.$$DetachedRecord
         List<String> detachedRecordMethods = new ArrayList<>();
 
         boolean hasCopyMethod = false;
 
-        String mangledClassName = classNamesToMangled.get(el.getSimpleName().toString());
+        String mangledClassName = classNamesToMangled.get(el.asType().toString());
+
+        Record.Storage storage = el.getAnnotation(Record.class).storage();
+        Record.Layout layout = el.getAnnotation(Record.class).layout();
+        int tileShift = el.getAnnotation(Record.class).tileShift();
+        boolean trackChanges = el.getAnnotation(Record.class).trackChanges();
+        if (layout != Record.Layout.ROW_MAJOR && (tileShift < 1 || tileShift > 10)) {
+            throw new IllegalStateException("tileShift must be in 1..10: " + el.getSimpleName());
+        }
+
+        // atomic fields (name -> type), see Atomic
+        LinkedHashMap<String, String> atomicFields = new LinkedHashMap<>();
+        for (Element m : el.getEnclosedElements()) {
+            if (m.getKind() == ElementKind.METHOD && m.getAnnotation(Atomic.class) != null) {
+                ExecutableElement me = (ExecutableElement) m;
+                String name = el.getSimpleName() + "." + m.getSimpleName();
+                String type = me.getReturnType().toString();
+                if (!m.getSimpleName().toString().startsWith("get") || !me.getParameters().isEmpty()) {
+                    throw new IllegalStateException("@Atomic must be placed on the getter: " + name);
+                }
+                if (!atomicTypes.contains(type)) {
+                    throw new IllegalStateException("Only int, long, float and double fields can be atomic: " + name);
+                }
+                if (fieldRange(me, type) != null) {
+                    throw new IllegalStateException("Narrowed fields can't be atomic: " + name);
+                }
+                atomicFields.put(m.getSimpleName().toString().substring(3), type);
+            }
+        }
+
+        // indexed fields, see Indexed
+        LinkedHashSet<String> indexedFields = new LinkedHashSet<>();
+        for (Element m : el.getEnclosedElements()) {
+            if (m.getKind() == ElementKind.METHOD && m.getAnnotation(Indexed.class) != null) {
+                ExecutableElement me = (ExecutableElement) m;
+                String name = el.getSimpleName() + "." + m.getSimpleName();
+                String type = me.getReturnType().toString();
+                if (!m.getSimpleName().toString().startsWith("get") || !me.getParameters().isEmpty()) {
+                    throw new IllegalStateException("@Indexed must be placed on the getter: " + name);
+                }
+                if (!type.equals("int") && !type.equals("long")) {
+                    throw new IllegalStateException("Only int and long fields can be indexed: " + name);
+                }
+                if (m.getAnnotation(Atomic.class) != null) {
+                    throw new IllegalStateException("Atomic fields can't be indexed: " + name);
+                }
+                indexedFields.add(m.getSimpleName().toString().substring(3));
+            }
+        }
 
         for (Element m : el.getEnclosedElements()) {
             if (m.getKind() == ElementKind.METHOD && !m.getModifiers().contains(Modifier.DEFAULT)) {
                 ExecutableElement me = (ExecutableElement) m;
                 final String name = m.getSimpleName().toString();
 
+                String[] atomic = atomicOperation(name, atomicFields.keySet());
+                if (atomic != null) {
+                    String fname = atomic[0];
+                    String mode = atomic[1];
+                    String type = atomicFields.get(fname);
+                    String returnType = atomicReturnType(mode, type);
+                    String[] params = atomicParameters(mode);
+                    if (me.getParameters().size() != params.length ||
+                        me.getParameters().stream().anyMatch(p -> !p.asType().toString().equals(type)) ||
+                        !me.getReturnType().toString().equals(returnType)) {
+                        throw new IllegalStateException("Invalid atomic operation " + el.getSimpleName() + "." + name +
+                                                        "; Expected " + returnType + " " + name + "(" +
+                                                        Arrays.stream(params).map(p -> type + " " + p)
+                                                                .collect(Collectors.joining(", ")) + ")");
+                    }
+                    String signature = ("public ${return_type} ${name}(${params})")
+                            .replace("${return_type}", returnType)
+                            .replace("${name}", name)
+                            .replace("${params}", Arrays.stream(params).map(p -> type + " " + p)
+                                    .collect(Collectors.joining(", ")));
+                    arrRecordMethods.add(columns -> {
+                        Column c = columns.get(fname);
+                        String access = c.atomic(mode, "__index", params);
+                        if (c.tracked && !(mode.startsWith("get") && params.length == 0)) {
+                            // marked after the update
+                            access = "try {\n" +
+                                     pad(access) + "\n" +
+                                     "} finally {\n" +
+                                     "    __dirty.markAtomic(__index);\n" +
+                                     "}";
+                        }
+                        return signature + " {\n" +
+                               pad(access) + "\n" +
+                               "}\n";
+                    });
+                    detachedRecordMethods.add(signature.replace("public ", "public synchronized ") + " {\n" +
+                                              pad(detachedAtomic(mode, fname, type)) + "\n" +
+                                              "}\n");
+                    continue;
+                }
+
                 BiConsumer<String, String> validateField = (String fname, String type) -> {
                     if (fname.length() == 0) {
                         throw new IllegalStateException("Invalid getter name: " + el.getSimpleName() + "." + name);
@@ -268,11 +455,19 @@ public class RecordAnnotationProcessor extends AbstractProcessor {
                     validateField.accept(fname, type);
                     fieldsToTypes.put(fname, type);
                     fieldsToGetters.put(fname, name);
-                    arrRecordMethods.add(
-                            "public ${type} ${getter_name}() { return ${field_name}[__index]; }\n"
+                    long[] range = fieldRange(me, type);
+                    if (range != null) {
+                        if (storage == Record.Storage.OFF_HEAP) {
+                            throw new IllegalStateException("Narrowed fields are not supported by the off-heap storage: " +
+                                                            el.getSimpleName() + "." + name);
+                        }
+                        fieldsToRanges.put(fname, range);
+                    }
+                    arrRecordMethods.add(columns ->
+                            "public ${type} ${getter_name}() { return ${read}; }\n"
                                     .replace("${type}", me.getReturnType().toString())
                                     .replace("${getter_name}", name)
-                                    .replace("${field_name}", fname)
+                                    .replace("${read}", columns.get(fname).read("__index"))
                     );
                     detachedRecordMethods.add("public ${type} ${getter_name}() { return ${field_name}; }\n"
                             .replace("${type}", me.getReturnType().toString())
@@ -298,13 +493,19 @@ public class RecordAnnotationProcessor extends AbstractProcessor {
                     String type = me.getParameters().get(0).asType().toString();
                     validateField.accept(fname, type);
                     fieldsToTypes.put(fname, me.getParameters().get(0).asType().toString());
-                    arrRecordMethods.add(("public void ${setter_name}(${type} value) {\n" +
-                                          "    ${impl_type}.this.${field_name}[__index] = value;\n" +
-                                          "}\n")
+                    fieldsToSetters.put(fname, name);
+                    arrRecordMethods.add(columns -> ("public void ${setter_name}(${type} value) {\n" +
+                                                     "    ${save_key}${write}${mark_dirty}${update_index}\n" +
+                                                     "}\n")
                             .replace("${setter_name}", name)
                             .replace("${type}", type)
-                            .replace("${field_name}", fname)
-                            .replace("${impl_type}", mangledClassName)
+                            .replace("${save_key}", columns.get(fname).indexed ?
+                                    "long __key = " + columns.get(fname).read("__index") + ";\n    " : "")
+                            .replace("${write}", columns.get(fname).write("__index", "value"))
+                            .replace("${mark_dirty}", columns.get(fname).tracked ? "\n    __dirty.mark(__index);" : "")
+                            .replace("${update_index}", !columns.get(fname).indexed ? "" :
+                                    "\n    __idx$" + fname + ".update(__index, __key, " +
+                                    columns.get(fname).read("__index") + ");")
                     );
                     detachedRecordMethods.add(("public void ${setter_name}(${type} value) {\n" +
                                                "    this.${field_name} = value;\n" +
@@ -323,11 +524,11 @@ public class RecordAnnotationProcessor extends AbstractProcessor {
                                                         "; Expected a return type of " + el.asType());
                     }
                     hasCopyMethod = true;
-                    arrRecordMethods.add(("public ${type} copy() {\n" +
-                                          "    return new $$DetachedRecord(this);\n" +
-                                          "}\n")
-                            .replace("${type}", el.asType().toString())
-                    );
+                    String copyStr = ("public ${type} copy() {\n" +
+                                      "    return new $$DetachedRecord(this);\n" +
+                                      "}\n")
+                            .replace("${type}", el.asType().toString());
+                    arrRecordMethods.add(columns -> copyStr);
                     detachedRecordMethods.add(("public ${type} copy() {\n" +
                                                "    return new $$DetachedRecord(this);\n" +
                                                "}\n")
@@ -341,14 +542,50 @@ public class RecordAnnotationProcessor extends AbstractProcessor {
             String equalsStr = generateEquals(el.asType().toString(), fieldsToTypes, fieldsToGetters);
             String hashCodeStr = generateHashCode(fieldsToTypes, fieldsToGetters);
 
-            arrRecordMethods.add(equalsStr);
-            arrRecordMethods.add(hashCodeStr);
+            arrRecordMethods.add(columns -> equalsStr);
+            arrRecordMethods.add(columns -> hashCodeStr);
             detachedRecordMethods.add(equalsStr);
             detachedRecordMethods.add(hashCodeStr);
         }
 
-        // $$Record implementation
-        final String recordImplStr = (
+        final Map<String, GroupColumn> groupColumns = groupColumns(el, fieldsToTypes, fieldsToRanges.keySet());
+
+        // columns of the array implementation, and heap columns of the list implementation
+        final Map<String, Column> columns = new LinkedHashMap<>();
+        final Map<String, Column> heapColumns = new LinkedHashMap<>();
+        fieldsToTypes.forEach((fname, type) -> {
+            heapColumns.put(fname, new Column(fname, type));
+            if (groupColumns.containsKey(fname)) {
+                columns.put(fname, groupColumns.get(fname));
+            } else if (storage == Record.Storage.OFF_HEAP && primitiveTypes.contains(type)) {
+                columns.put(fname, new OffHeapColumn(fname, type,
+                        (int) columns.values().stream().filter(c -> c instanceof OffHeapColumn).count()));
+            } else if (type.equals("boolean")) {
+                columns.put(fname, new BitsetColumn(fname));
+            } else if (fieldsToRanges.containsKey(fname)) {
+                long[] range = fieldsToRanges.get(fname);
+                columns.put(fname, new PackedColumn(fname, type, range[0], range[1],
+                        el.getSimpleName() + "." + fname));
+            } else if (storage == Record.Storage.PAGED && primitiveTypes.contains(type)) {
+                columns.put(fname, new PagedColumn(fname, type));
+            } else {
+                columns.put(fname, new Column(fname, type));
+            }
+        });
+        final boolean hasOffHeapColumns = columns.values().stream().anyMatch(c -> c instanceof OffHeapColumn);
+        columns.values().forEach(c -> c.tracked = trackChanges);
+        columns.values().forEach(c -> c.indexed = indexedFields.contains(c.name));
+        for (String fname : indexedFields) {
+            if (!fieldsToSetters.containsKey(fname)) {
+                throw new IllegalStateException("Indexed field without a setter: " + el.getSimpleName() + "." + fname);
+            }
+        }
+
+        final Function<Map<String, Column>, String> recordMethodsStr = cols ->
+                arrRecordMethods.stream().map(f -> f.apply(cols)).collect(Collectors.joining("\n"));
+
+        // $$Record implementation, accessing the columns of the enclosing class
+        final Function<Map<String, Column>, String> recordImplStr = cols -> (
                 "final class $$Record implements ${record_type} {\n" +
                 "    private final int __index;\n" +
                 "\n" +
@@ -359,7 +596,39 @@ public class RecordAnnotationProcessor extends AbstractProcessor {
                 "${methods}\n" +
                 "}\n")
                 .replace("${record_type}", el.asType().toString())
-                .replace("${methods}", pad(String.join("\n", arrRecordMethods)));
+                .replace("${methods}", pad(recordMethodsStr.apply(cols)));
+
+        // $$Cursor implementation, the same accessors over the mutable index
+        final Function<Map<String, Column>, String> cursorImplStr = cols -> (
+                "final class $$Cursor implements ${record_type}, RecordCursor<${record_type}> {\n" +
+                "    private int __index = -1;\n" +
+                "\n" +
+                "    public ${record_type} record() {\n" +
+                "        return this;\n" +
+                "    }\n" +
+                "\n" +
+                "    public ${record_type} moveTo(int index) {\n" +
+                "        this.__index = index;\n" +
+                "        return this;\n" +
+                "    }\n" +
+                "\n" +
+                "    public boolean next() {\n" +
+                "        if (__index < size() - 1) {\n" +
+                "            __index++;\n" +
+                "            return true;\n" +
+                "        }\n" +
+                "        __index = size();\n" +
+                "        return false;\n" +
+                "    }\n" +
+                "\n" +
+                "    public int index() {\n" +
+                "        return __index;\n" +
+                "    }\n" +
+                "\n" +
+                "${methods}\n" +
+                "}\n")
+                .replace("${record_type}", el.asType().toString())
+                .replace("${methods}", pad(recordMethodsStr.apply(cols)));
 
         final String detachedRecordImplFieldsStr = fieldsToTypes.entrySet().stream().map(e ->
                 "private " + e.getValue() + " " + e.getKey() + ";"
@@ -371,7 +640,7 @@ public class RecordAnnotationProcessor extends AbstractProcessor {
 
         // Detached $$DetachedRecord implementation
         final String detachedRecordImplStr = !hasCopyMethod ? "" : ((
-                "final class $$DetachedRecord implements ${record_type} {\n" +
+                "static final class $$DetachedRecord implements ${record_type} {\n" +
                 "${detached_record_fields}\n" +
                 "\n" +
                 "    // Constructor\n" +
@@ -386,31 +655,193 @@ public class RecordAnnotationProcessor extends AbstractProcessor {
                 .replace("${detached_record_fields_assignments}", pad(detachedRecordFieldAssignmentsStr, 8))
                 .replace("${detached_record_methods}", pad(String.join("\n", detachedRecordMethods))));
 
-        final String arrayImplFieldsStr = fieldsToTypes.entrySet().stream().map(e ->
-                "private final " + e.getValue() + "[] " + e.getKey() + ";"
-        ).collect(Collectors.joining("\n"));
+        final String arrayImplFieldsStr = columns.values().stream().map(Column::declaration)
+                .filter(s -> !s.isEmpty())
+                .collect(Collectors.joining("\n")) + (trackChanges ? "\nfinal DirtyRows __dirty;" : "") +
+                indexedFields.stream().map(f -> "\nfinal HashIndex __idx$" + f + ";").collect(Collectors.joining());
 
-        final String arrayImplFieldsInitStr = fieldsToTypes.entrySet().stream().map(e ->
-                generateFieldInitializer(e.getValue(), e.getKey())
-        ).collect(Collectors.joining("\n"));
+        final String arrayImplFieldsInitStr = columns.values().stream().map(Column::initializer)
+                .filter(s -> !s.isEmpty())
+                .collect(Collectors.joining("\n")) + (trackChanges ? "\n__dirty = new DirtyRows(__l);" : "") +
+                indexedFields.stream().map(f -> "\n__idx$" + f + " = new HashIndex(__l);").collect(Collectors.joining()) +
+                (indexedFields.isEmpty() ? "" : "\n__reindex(0, __l);");
+
+        // hash indices of the fields, see Indexed
+        final String arrayImplIndexStr = indexedFields.isEmpty() ? "" : (
+                "public RecordIndex buildIndex(String field) {\n" +
+                "    switch (field) {\n" +
+                "${cases}\n" +
+                "        default:\n" +
+                "            return RecordArray.super.buildIndex(field);\n" +
+                "    }\n" +
+                "}\n" +
+                "\n" +
+                "void __unindex(int from, int to) {\n" +
+                "    for (int i = from; i < to; i++) {\n" +
+                "${remove}\n" +
+                "    }\n" +
+                "}\n" +
+                "\n" +
+                "// backwards, so that the first record of the key is the first in the range\n" +
+                "void __reindex(int from, int to) {\n" +
+                "    for (int i = to - 1; i >= from; i--) {\n" +
+                "${add}\n" +
+                "    }\n" +
+                "}\n" +
+                "\n" +
+                "void __rebuildIndexes() {\n" +
+                "${clear}\n" +
+                "    __reindex(0, size());\n" +
+                "}\n")
+                .replace("${cases}", pad(indexedFields.stream()
+                        .map(f -> "case \"" + f + "\":\n    return __idx$" + f + ";")
+                        .collect(Collectors.joining("\n")), 8))
+                .replace("${remove}", pad(indexedFields.stream()
+                        .map(f -> "__idx$" + f + ".remove(" + columns.get(f).read("i") + ", i);")
+                        .collect(Collectors.joining("\n")), 8))
+                .replace("${add}", pad(indexedFields.stream()
+                        .map(f -> "__idx$" + f + ".add(" + columns.get(f).read("i") + ", i);")
+                        .collect(Collectors.joining("\n")), 8))
+                .replace("${clear}", pad(indexedFields.stream()
+                        .map(f -> "__idx$" + f + ".clear();")
+                        .collect(Collectors.joining("\n"))));
+
+        // changed records, see Record.trackChanges()
+        final String arrayImplTrackingStr = !trackChanges ? "" : (
+                "public int nextDirtyRow(int from) {\n" +
+                "    return __dirty.next(from);\n" +
+                "}\n" +
+                "\n" +
+                "public int dirtyCount() {\n" +
+                "    return __dirty.count();\n" +
+                "}\n" +
+                "\n" +
+                "public void clearDirty() {\n" +
+                "    __dirty.clear();\n" +
+                "}\n");
 
         final String arrayImplSetter0 =
                 "public void set(int i, " + el.asType().toString() + " value) {\n" +
-                pad(fieldsToGetters.entrySet().stream()
-                        .map(e -> "this." + e.getKey() + "[i] = value." + e.getValue() + "();")
-                        .collect(Collectors.joining("\n"))) +
+                pad(indexedFields.stream()
+                        .map(f -> "long __key$" + f + " = " + columns.get(f).read("i") + ";\n")
+                        .collect(Collectors.joining()) +
+                    fieldsToGetters.entrySet().stream()
+                        .map(e -> columns.get(e.getKey()).write("i", "value." + e.getValue() + "()"))
+                        .collect(Collectors.joining("\n")) + (trackChanges ? "\n__dirty.mark(i);" : "") +
+                    indexedFields.stream()
+                        .map(f -> "\n__idx$" + f + ".update(i, __key$" + f + ", " + columns.get(f).read("i") + ");")
+                        .collect(Collectors.joining())) +
                 "\n}";
 
-        return ("static class ${arr_impl_name} implements RecordArray<${record_type}>{\n" +
+        // 2d and 3d indices of the accessors, see Record.Layout
+        final String layoutStr = generateLayout(layout, tileShift);
+        final String index2Str = layout == Record.Layout.ROW_MAJOR ? "i0 * __dim1 + i1" : "__index(i0, i1, 0)";
+        final String index3Str = layout == Record.Layout.ROW_MAJOR ? "(i0 * __dim1 + i1) * __dim2 + i2" :
+                "__index(i0, i1, i2)";
+
+        // off-heap columns are released explicitly, heap arrays rely on the no-op RecordArray.close()
+        final String arrayImplCloseStr = !hasOffHeapColumns ? "" : (
+                "public void close() {\n" +
+                pad(columns.values().stream().filter(c -> c instanceof OffHeapColumn)
+                        .map(c -> ((OffHeapColumn) c).release())
+                        .collect(Collectors.joining("\n"))) +
+                "\n}\n");
+
+        // off-heap arrays can be constructed over the given buffers (e.g. memory-mapped),
+        // arrays of only off-heap columns can be mapped to the file
+        final String arrayImplConstructorParams = !hasOffHeapColumns ? "int... dimensions" :
+                "java.nio.ByteBuffer[] __buffers, int... dimensions";
+        final String arrayImplConstructorDelegate = !hasOffHeapColumns ? "" : (
+                "${arr_impl_name}(int... dimensions) {\n" +
+                "    this(null, dimensions);\n" +
+                "}\n");
+        final boolean mappable = hasOffHeapColumns &&
+                                 columns.values().stream().allMatch(c -> c instanceof OffHeapColumn);
+        final String arrayImplMapStr = !mappable ? "" : (
+                "static ${arr_impl_name} map(java.nio.file.Path path, int... dimensions) throws java.io.IOException {\n" +
+                "    MappedColumns m = MappedColumns.map(path, ${schema_hash}L, new int[]{${shifts}}, dimensions);\n" +
+                "    return new ${arr_impl_name}(m.buffers, m.dimensions);\n" +
+                "}\n")
+                .replace("${schema_hash}", Long.toString(generateSchemaHash(fieldsToTypes, layout, tileShift)))
+                .replace("${shifts}", columns.values().stream().map(c -> String.valueOf(((OffHeapColumn) c).shift()))
+                        .collect(Collectors.joining(", ")));
+
+        // the factory of the record type, see RecordArray.factory(Class)
+        final String factoryImplStr = (
+                "static final class $$Factory implements RecordFactory<${record_type}> {\n" +
+                "    public Class<${record_type}> recordClass() {\n" +
+                "        return ${record_type}.class;\n" +
+                "    }\n" +
+                "\n" +
+                "    public ${arr_impl_name} create(int... dimensions) {\n" +
+                "        return new ${arr_impl_name}(dimensions);\n" +
+                "    }\n" +
+                "\n" +
+                "    public $$List createList(int initialCapacity) {\n" +
+                "        return new $$List(initialCapacity);\n" +
+                "    }\n" +
+                "\n" +
+                "    public ${arr_impl_name} map(java.nio.file.Path path, int... dimensions) throws IOException {\n" +
+                "${map}\n" +
+                "    }\n" +
+                "}\n")
+                .replace("${map}", mappable ? "        return ${arr_impl_name}.map(path, dimensions);" : (
+                        "        throw new IllegalArgumentException(\"Unsupported record class for memory mapping: \" +\n" +
+                        "                ${record_type}.class + \"\\nOnly @Record(storage = Record.Storage.OFF_HEAP) \" +\n" +
+                        "                \"interfaces with primitive fields are supported.\");"));
+
+        final String listImplStr = generateListImpl(el.asType().toString(), mangledClassName, fieldsToTypes,
+                fieldsToGetters, recordImplStr.apply(heapColumns), columns)
+                .replace("${read_into}", pad(generateReadInto(el.asType().toString(), heapColumns, fieldsToSetters,
+                        "__checkIndex(i);")));
+
+        // compressed read-only copy, see RecordArray.freeze()
+        final Map<String, Column> frozenColumns = new LinkedHashMap<>();
+        fieldsToTypes.forEach((fname, type) -> frozenColumns.put(fname, new FrozenColumn(fname, type)));
+
+        final String arrayImplFreezeStr = generateFreeze(el.asType().toString(), columns);
+        final String frozenImplStr = generateFrozenImpl(el.asType().toString(), mangledClassName, frozenColumns,
+                recordImplStr.apply(frozenColumns), cursorImplStr.apply(frozenColumns))
+                .replace("${read_into}", pad(generateReadInto(el.asType().toString(), frozenColumns, fieldsToSetters,
+                        "")))
+                .replace("${layout}", pad(layoutStr))
+                .replace("${index2}", index2Str)
+                .replace("${index3}", index3Str);
+
+        // columnar serialization, see ColumnarFormat
+        final String arrayImplSerializationStr = (
+                "public void writeTo(java.nio.channels.WritableByteChannel channel) throws IOException {\n" +
+                "    ColumnarFormat.Writer w = new ColumnarFormat.Writer(channel, ${schema_hash}L, ${columns_count}, " +
+                "__dim0, __dim1, __dim2);\n" +
+                "${write}\n" +
+                "    w.flush();\n" +
+                "}\n" +
+                "\n" +
+                "public void readColumns(ColumnarFormat.Reader r) throws IOException {\n" +
+                "    r.checkSchema(${schema_hash}L, ${columns_count});\n" +
+                "${read}${rebuild_indexes}\n" +
+                "}\n")
+                .replace("${rebuild_indexes}", indexedFields.isEmpty() ? "" : "\n    __rebuildIndexes();")
+                .replace("${schema_hash}", Long.toString(generateSchemaHash(fieldsToTypes, layout, tileShift)))
+                .replace("${columns_count}", String.valueOf(columns.size()))
+                .replace("${write}", pad(columns.values().stream().map(c -> c.serialize("w"))
+                        .collect(Collectors.joining("\n"))))
+                .replace("${read}", pad(columns.values().stream().map(c -> c.deserialize("r"))
+                        .collect(Collectors.joining("\n"))));
+
+        return ("static class ${arr_impl_name} implements RecordArray<${record_type}>, ColumnarFormat.Columns,\n" +
+                "        RecordArrayView.Source<${record_type}> {\n" +
                 "    final int __dim0;\n" +
                 "    final int __dim1;\n" +
                 "    final int __dim2;\n" +
+                "    final int __size;\n" +
                 "\n" +
                 "    // generated fields\n" +
                 "${fields}\n" +
                 "\n" +
                 "    // constructor\n" +
-                "    ${arr_impl_name}(int... dimensions) {\n" +
+                "${constructor_delegate}\n" +
+                "    ${arr_impl_name}(${constructor_params}) {\n" +
                 "        if (dimensions.length == 0) {\n" +
                 "            throw new IllegalArgumentException(\"At least one dimension is required.\");\n" +
                 "        }\n" +
@@ -424,7 +855,13 @@ public class RecordAnnotationProcessor extends AbstractProcessor {
                 "        if (__dim0 <= 0 || __dim1 <= 0 || __dim2 <= 0) {\n" +
                 "            throw new IllegalArgumentException(\"dimensions must be positive\");\n" +
                 "        }\n" +
+                "        if ((long) __dim0 * __dim1 > Integer.MAX_VALUE ||\n" +
+                "            (long) __dim0 * __dim1 * __dim2 > Integer.MAX_VALUE) {\n" +
+                "            throw new IllegalArgumentException(\"Too many records: \" + Arrays.toString(dimensions) +\n" +
+                "                    \", use BigRecordArray for more than 2^31 - 1 records\");\n" +
+                "        }\n" +
                 "        int __l = __dim0 * __dim1 * __dim2;\n" +
+                "        __size = __l;\n" +
                 "\n" +
                 "        // initialize generated fields\n" +
                 "${field_init}\n" +
@@ -432,40 +869,1577 @@ public class RecordAnnotationProcessor extends AbstractProcessor {
                 "\n" +
                 "    // methods\n" +
                 "    public int size() {\n" +
-                "        return __dim0 * __dim1 * __dim2;\n" +
+                "        return __size;\n" +
+                "    }\n" +
+                "\n" +
+                "    public int[] dimensions() {\n" +
+                "        return RecordArrayView.dimensions(__dim0, __dim1, __dim2);\n" +
+                "    }\n" +
+                "\n" +
+                "    public RecordArray<${record_type}> allocate(int... dimensions) {\n" +
+                "        return new ${arr_impl_name}(dimensions);\n" +
                 "    }\n" +
                 "\n" +
                 "    public $$Record get(int i) {\n" +
                 "        return new $$Record(i);\n" +
                 "    }\n" +
                 "    public $$Record get(int i0, int i1) {\n" +
-                "        return new $$Record(i0 * __dim1 + i1);\n" +
+                "        return new $$Record(${index2});\n" +
                 "    }\n" +
                 "    public $$Record get(int i0, int i1, int i2) {\n" +
-                "        return new $$Record( (i0 * __dim1 + i1) * __dim2 + i2);\n" +
+                "        return new $$Record(${index3});\n" +
+                "    }\n" +
+                "\n" +
+                "${layout}\n" +
+                "    public $$Cursor cursor() {\n" +
+                "        return new $$Cursor();\n" +
                 "    }\n" +
                 "\n" +
                 "${setter_0}\n" +
                 "\n" +
+                "${read_into}\n" +
+                "\n" +
                 "    public void set(int i0, int i1, ${record_type} value) {\n" +
-                "        set(i0 * __dim1 + i1, value);\n" +
+                "        set(${index2}, value);\n" +
                 "    }\n" +
                 "\n" +
                 "    public void set(int i0, int i1, int i2, ${record_type} value) {\n" +
-                "        set((i0 * __dim1 + i1) * __dim2 + i2, value);\n" +
+                "        set(${index3}, value);\n" +
                 "    }\n" +
                 "\n" +
+                "${bulk_ops}\n" +
+                "\n" +
+                "${sort}\n" +
+                "\n" +
+                "${column_views}\n" +
+                "${serialization}\n" +
+                "\n" +
+                "${freeze}\n" +
+                "\n" +
+                "${close}\n" +
+                "${tracking}\n" +
+                "${index}\n" +
+                "${map}\n" +
                 "${record_impl}\n" +
                 "\n" +
+                "${cursor_impl}\n" +
+                "\n" +
                 "${detached_record_impl}\n" +
+                "\n" +
+                "${list_impl}\n" +
+                "\n" +
+                "${frozen_impl}\n" +
+                "\n" +
+                "${factory_impl}\n" +
                 "}\n")
+                .replace("${constructor_delegate}", pad(arrayImplConstructorDelegate))
+                .replace("${constructor_params}", arrayImplConstructorParams)
+                .replace("${map}", pad(arrayImplMapStr))
+                .replace("${factory_impl}", pad(factoryImplStr))
                 .replace("${arr_impl_name}", mangledClassName)
                 .replace("${record_type}", el.asType().toString())
                 .replace("${fields}", pad(arrayImplFieldsStr))
                 .replace("${field_init}", pad(arrayImplFieldsInitStr, 8))
                 .replace("${setter_0}", pad(arrayImplSetter0))
+                .replace("${read_into}", pad(generateReadInto(el.asType().toString(), columns, fieldsToSetters, "")))
+                .replace("${bulk_ops}", pad(generateBulkOps(el.asType().toString(), mangledClassName, columns, trackChanges,
+                        !indexedFields.isEmpty(), fieldsToGetters)))
+                .replace("${sort}", pad(generateSort(el.asType().toString(), columns, trackChanges,
+                        !indexedFields.isEmpty())))
+                .replace("${column_views}", pad(generateColumnViews(el.asType().toString(), columns)))
+                .replace("${serialization}", pad(arrayImplSerializationStr))
+                .replace("${freeze}", pad(arrayImplFreezeStr))
+                .replace("${close}", pad(arrayImplCloseStr))
+                .replace("${tracking}", pad(arrayImplTrackingStr))
+                .replace("${index}", pad(arrayImplIndexStr))
+                .replace("${record_impl}", pad(recordImplStr.apply(columns)))
+                .replace("${cursor_impl}", pad(cursorImplStr.apply(columns)))
+                .replace("${detached_record_impl}", pad(detachedRecordImplStr))
+                .replace("${list_impl}", pad(listImplStr))
+                .replace("${frozen_impl}", pad(frozenImplStr))
+                .replace("${layout}", pad(layoutStr))
+                .replace("${index2}", index2Str)
+                .replace("${index3}", index3Str);
+    }
+
+    /**
+     * Generates range operations of the array (copyRange, moveRange, fill, clear), that process
+     * the whole range of each column at once (e.g. with System.arraycopy), instead of the record by record.
+     */
+    static String generateBulkOps(String recordType, String arrImplName, Map<String, Column> columns,
+                                  boolean trackChanges, boolean indexed, Map<String, String> fieldsToGetters) {
+
+        final String copyStr = columns.values().stream()
+                .map(c -> c.copy("d", "srcPos", "dstPos", "length"))
+                .filter(s -> !s.isEmpty())
+                .collect(Collectors.joining("\n"));
+
+        // prototype getters are called once, fields without getters are not changed (same as in set())
+        final String fillStr = fieldsToGetters.entrySet().stream()
+                .map(e -> {
+                    Column c = columns.get(e.getKey());
+                    return "{\n" +
+                           "    " + c.type + " v = prototype." + e.getValue() + "();\n" +
+                           pad(c.fill("from", "to", "v")) + "\n" +
+                           "}";
+                })
+                .collect(Collectors.joining("\n"));
+
+        final String clearStr = columns.values().stream()
+                .map(c -> c.clear("from", "to"))
+                .filter(s -> !s.isEmpty())
+                .collect(Collectors.joining("\n"));
+
+        return ("private void __checkRange(int from, int to) {\n" +
+                "    if (from < 0 || from > to || to > size()) {\n" +
+                "        throw new IndexOutOfBoundsException(\"Invalid range: [\" + from + \", \" + to + \"), size: \" + size());\n" +
+                "    }\n" +
+                "}\n" +
+                "\n" +
+                "public void copyRange(int srcPos, RecordArray<${record_type}> dst, int dstPos, int length) {\n" +
+                "    if (length < 0) {\n" +
+                "        throw new IndexOutOfBoundsException(\"Negative length: \" + length);\n" +
+                "    }\n" +
+                "    __checkRange(srcPos, srcPos + length);\n" +
+                "    if (dstPos < 0 || dstPos > dst.size() - length) {\n" +
+                "        throw new IndexOutOfBoundsException(\"Invalid destination range: [\" + dstPos + \", \" +\n" +
+                "                (dstPos + length) + \"), size: \" + dst.size());\n" +
+                "    }\n" +
+                "    if (dst instanceof ${arr_impl_name}) {\n" +
+                "        ${arr_impl_name} d = (${arr_impl_name}) dst;${unindex_copied}\n" +
+                "${copy}${mark_copied}${reindex_copied}\n" +
+                "    } else {\n" +
+                "        // other record arrays and the views\n" +
+                "        RecordArrayView.copy(this, srcPos, dst, dstPos, length);\n" +
+                "    }\n" +
+                "}\n" +
+                "\n" +
+                "public void moveRange(int srcPos, int dstPos, int length) {\n" +
+                "    copyRange(srcPos, this, dstPos, length);\n" +
+                "}\n" +
+                "\n" +
+                "public void fill(int from, int to, ${record_type} prototype) {\n" +
+                "    __checkRange(from, to);${unindex_range}\n" +
+                "${fill}${mark_range}${reindex_range}\n" +
+                "}\n" +
+                "\n" +
+                "public void clear(int from, int to) {\n" +
+                "    __checkRange(from, to);${unindex_range}\n" +
+                "${clear}${mark_range}${reindex_range}\n" +
+                "}\n")
+                .replace("${record_type}", recordType)
+                .replace("${arr_impl_name}", arrImplName)
+                .replace("${copy}", pad(copyStr, 8))
+                .replace("${mark_copied}", trackChanges ? "\n        d.__dirty.mark(dstPos, dstPos + length);" : "")
+                .replace("${mark_range}", trackChanges ? "\n    __dirty.mark(from, to);" : "")
+                .replace("${unindex_copied}", indexed ? "\n        d.__unindex(dstPos, dstPos + length);" : "")
+                .replace("${reindex_copied}", indexed ? "\n        d.__reindex(dstPos, dstPos + length);" : "")
+                .replace("${unindex_range}", indexed ? "\n    __unindex(from, to);" : "")
+                .replace("${reindex_range}", indexed ? "\n    __reindex(from, to);" : "")
+                .replace("${fill}", pad(fillStr))
+                .replace("${clear}", pad(clearStr));
+    }
+
+    /**
+     * Generates sorting by the key fields (sortBy, sortPermutation) and in-place application
+     * of the permutation to all columns (permute), see {@link RecordSort}.
+     */
+    static String generateSort(String recordType, Map<String, Column> columns, boolean trackChanges,
+                               boolean indexed) {
+
+        final String saveStr = columns.values().stream()
+                .map(c -> c.type + " t$" + c.name + " = " + c.read("start") + ";")
+                .collect(Collectors.joining("\n"));
+        final String moveStr = columns.values().stream()
+                .map(c -> c.write("j", c.read("k")))
+                .collect(Collectors.joining("\n"));
+        final String restoreStr = columns.values().stream()
+                .map(c -> c.write("j", "t$" + c.name))
+                .collect(Collectors.joining("\n"));
+
+        return ("${sort_permutation}\n" +
+                "\n" +
+                "public void sortBy(String... fields) {\n" +
+                "    permute(sortPermutation(fields));\n" +
+                "}\n" +
+                "\n" +
+                "public void permute(int[] permutation) {\n" +
+                "    long[] done = RecordSort.checkPermutation(permutation, size());\n" +
+                "    // each cycle of the permutation is rotated, all columns at once\n" +
+                "    for (int start = 0; start < permutation.length; start++) {\n" +
+                "        if (permutation[start] == start || (done[start >>> 6] & (1L << start)) != 0) {\n" +
+                "            continue;\n" +
+                "        }\n" +
+                "${save}\n" +
+                "        int j = start;\n" +
+                "        while (true) {\n" +
+                "            done[j >>> 6] |= 1L << j;${mark_moved}\n" +
+                "            int k = permutation[j];\n" +
+                "            if (k == start) {\n" +
+                "                break;\n" +
+                "            }\n" +
+                "${move}\n" +
+                "            j = k;\n" +
+                "        }\n" +
+                "${restore}\n" +
+                "    }${rebuild_indexes}\n" +
+                "}\n")
+                .replace("${rebuild_indexes}", indexed ? "\n    __rebuildIndexes();" : "")
+                .replace("${sort_permutation}", generateSortPermutation(recordType, columns))
+                .replace("${save}", pad(saveStr, 8))
+                .replace("${mark_moved}", trackChanges ? "\n            __dirty.mark(j);" : "")
+                .replace("${move}", pad(moveStr, 12))
+                .replace("${restore}", pad(restoreStr, 8));
+    }
+
+    /**
+     * Generates sortPermutation, that reads the keys with {@link Column#read(String)} only.
+     */
+    static String generateSortPermutation(String recordType, Map<String, Column> columns) {
+
+        final String keyCases = columns.values().stream().map(c -> {
+            String key = "(" + c.read("perm[i]") + ")";
+            String keysType;
+            String sort;
+            switch (c.type) {
+                case "long":
+                case "double":
+                    keysType = "long";
+                    key = c.type.equals("double") ? "RecordSort.doubleKey" + key : key;
+                    sort = "RecordSort.radixSort(keys, perm, 8)";
+                    break;
+                case "boolean":
+                    keysType = "long";
+                    key = key + " ? 1 : 0";
+                    sort = "RecordSort.radixSort(keys, perm, 4)";
+                    break;
+                case "float":
+                case "int":
+                case "short":
+                case "char":
+                case "byte":
+                    keysType = "long";
+                    key = c.type.equals("float") ? "RecordSort.floatKey" + key : key;
+                    sort = "RecordSort.radixSort(keys, perm, 4)";
+                    break;
+                default:
+                    keysType = "Object";
+                    sort = "RecordSort.sortObjects(keys, perm)";
+            }
+            return "case \"" + c.name + "\": {\n" +
+                   "    " + keysType + "[] keys = new " + keysType + "[perm.length];\n" +
+                   "    for (int i = 0; i < perm.length; i++) {\n" +
+                   "        keys[i] = " + key + ";\n" +
+                   "    }\n" +
+                   "    perm = " + sort + ";\n" +
+                   "    break;\n" +
+                   "}";
+        }).collect(Collectors.joining("\n"));
+
+        return ("public int[] sortPermutation(String... fields) {\n" +
+                "    if (fields.length == 0) {\n" +
+                "        throw new IllegalArgumentException(\"At least one sort field is required\");\n" +
+                "    }\n" +
+                "    int[] perm = RecordSort.identity(size());\n" +
+                "    // stable sorts from the least significant field\n" +
+                "    for (int f = fields.length - 1; f >= 0; f--) {\n" +
+                "        switch (fields[f]) {\n" +
+                "${key_cases}\n" +
+                "            default:\n" +
+                "                throw new IllegalArgumentException(\"No field \" + fields[f] + \" in ${record_type}\");\n" +
+                "        }\n" +
+                "    }\n" +
+                "    return perm;\n" +
+                "}\n")
+                .replace("${record_type}", recordType)
+                .replace("${key_cases}", pad(keyCases, 12));
+    }
+
+    /**
+     * Generates freeze(), that compresses each column of the array into the {@link FrozenColumn}.
+     * Primitive values are converted to longs in the temporary array, shared by all columns.
+     */
+    static String generateFreeze(String recordType, Map<String, Column> columns) {
+        final boolean hasPrimitives = columns.values().stream().anyMatch(c -> primitiveTypes.contains(c.type));
+
+        final String compressStr = columns.values().stream().map(c -> {
+            if (!primitiveTypes.contains(c.type)) {
+                return "CompressedObjects<" + c.type + "> f$" + c.name + " = CompressedObjects.compress(" +
+                       c.name + ");";
+            }
+            return "for (int i = 0; i < __l; i++) {\n" +
+                   "    __v[i] = " + FrozenColumn.toLong(c.type, c.read("i")) + ";\n" +
+                   "}\n" +
+                   "CompressedColumn f$" + c.name + " = CompressedColumn.compress(__v);";
+        }).collect(Collectors.joining("\n"));
+
+        return ("public RecordArray<${record_type}> freeze() {\n" +
+                "    int __l = size();\n" +
+                "${values}" +
+                "${compress}\n" +
+                "    return new $$Frozen(__dim0, __dim1, __dim2${args});\n" +
+                "}\n")
+                .replace("${record_type}", recordType)
+                .replace("${values}", hasPrimitives ? "    long[] __v = new long[__l];\n" : "")
+                .replace("${compress}", pad(compressStr))
+                .replace("${args}", columns.values().stream().map(c -> ", f$" + c.name)
+                        .collect(Collectors.joining()));
+    }
+
+    /**
+     * Generates the read-only RecordArray implementation over the compressed columns, returned by freeze().
+     * Mutating methods throw UnsupportedOperationException.
+     */
+    static String generateFrozenImpl(String recordType, String arrImplName, Map<String, Column> frozenColumns,
+                                     String recordImplStr, String cursorImplStr) {
+
+        final String fieldsStr = frozenColumns.values().stream().map(Column::declaration)
+                .collect(Collectors.joining("\n"));
+        final String paramsStr = frozenColumns.values().stream()
+                .map(c -> ", " + ((FrozenColumn) c).fieldType() + " " + c.name)
+                .collect(Collectors.joining());
+        final String fieldsInitStr = frozenColumns.values().stream()
+                .map(c -> "this." + c.name + " = " + c.name + ";")
+                .collect(Collectors.joining("\n"));
+
+        return ("static final class $$Frozen implements RecordArray<${record_type}>, " +
+                "RecordArrayView.Source<${record_type}> {\n" +
+                "    final int __dim0;\n" +
+                "    final int __dim1;\n" +
+                "    final int __dim2;\n" +
+                "\n" +
+                "${fields}\n" +
+                "\n" +
+                "    $$Frozen(int dim0, int dim1, int dim2${params}) {\n" +
+                "        __dim0 = dim0;\n" +
+                "        __dim1 = dim1;\n" +
+                "        __dim2 = dim2;\n" +
+                "${fields_init}\n" +
+                "    }\n" +
+                "\n" +
+                "    static UnsupportedOperationException frozen() {\n" +
+                "        return new UnsupportedOperationException(\"The array is frozen (read-only)\");\n" +
+                "    }\n" +
+                "\n" +
+                "    public int size() {\n" +
+                "        return __dim0 * __dim1 * __dim2;\n" +
+                "    }\n" +
+                "\n" +
+                "    public int[] dimensions() {\n" +
+                "        return RecordArrayView.dimensions(__dim0, __dim1, __dim2);\n" +
+                "    }\n" +
+                "\n" +
+                "    public RecordArray<${record_type}> allocate(int... dimensions) {\n" +
+                "        return new ${arr_impl_name}(dimensions);\n" +
+                "    }\n" +
+                "\n" +
+                "    public $$Record get(int i) {\n" +
+                "        return new $$Record(i);\n" +
+                "    }\n" +
+                "    public $$Record get(int i0, int i1) {\n" +
+                "        return new $$Record(${index2});\n" +
+                "    }\n" +
+                "    public $$Record get(int i0, int i1, int i2) {\n" +
+                "        return new $$Record(${index3});\n" +
+                "    }\n" +
+                "\n" +
+                "${layout}\n" +
+                "    public $$Cursor cursor() {\n" +
+                "        return new $$Cursor();\n" +
+                "    }\n" +
+                "\n" +
+                "    public void set(int i, ${record_type} value) {\n" +
+                "        throw frozen();\n" +
+                "    }\n" +
+                "\n" +
+                "${read_into}\n" +
+                "\n" +
+                "    public void set(int i0, int i1, ${record_type} value) {\n" +
+                "        throw frozen();\n" +
+                "    }\n" +
+                "\n" +
+                "    public void set(int i0, int i1, int i2, ${record_type} value) {\n" +
+                "        throw frozen();\n" +
+                "    }\n" +
+                "\n" +
+                "    public void copyRange(int srcPos, RecordArray<${record_type}> dst, int dstPos, int length) {\n" +
+                "        if (length < 0 || srcPos < 0 || srcPos > size() - length || dstPos < 0 ||\n" +
+                "            dstPos > dst.size() - length) {\n" +
+                "            throw new IndexOutOfBoundsException(\"Invalid range: \" + srcPos + \", \" + dstPos + \", \" + length);\n" +
+                "        }\n" +
+                "        for (int i = 0; i < length; i++) {\n" +
+                "            dst.set(dstPos + i, get(srcPos + i));\n" +
+                "        }\n" +
+                "    }\n" +
+                "\n" +
+                "    public void moveRange(int srcPos, int dstPos, int length) {\n" +
+                "        throw frozen();\n" +
+                "    }\n" +
+                "\n" +
+                "    public void fill(int from, int to, ${record_type} prototype) {\n" +
+                "        throw frozen();\n" +
+                "    }\n" +
+                "\n" +
+                "    public void clear(int from, int to) {\n" +
+                "        throw frozen();\n" +
+                "    }\n" +
+                "\n" +
+                "${sort_permutation}\n" +
+                "\n" +
+                "    public void sortBy(String... fields) {\n" +
+                "        throw frozen();\n" +
+                "    }\n" +
+                "\n" +
+                "    public void permute(int[] permutation) {\n" +
+                "        throw frozen();\n" +
+                "    }\n" +
+                "\n" +
+                "${column_views}\n" +
+                "\n" +
+                "    public void writeTo(java.nio.channels.WritableByteChannel channel) throws IOException {\n" +
+                "        // decompressed into the temporary array\n" +
+                "        try (RecordArray<${record_type}> a = new ${arr_impl_name}(__dim0, __dim1, __dim2)) {\n" +
+                "            copyRange(0, a, 0, size());\n" +
+                "            a.writeTo(channel);\n" +
+                "        }\n" +
+                "    }\n" +
+                "\n" +
+                "    public RecordArray<${record_type}> freeze() {\n" +
+                "        return this;\n" +
+                "    }\n" +
+                "\n" +
+                "${record_impl}\n" +
+                "\n" +
+                "${cursor_impl}\n" +
+                "}\n")
+                .replace("${fields}", pad(fieldsStr))
+                .replace("${params}", paramsStr)
+                .replace("${fields_init}", pad(fieldsInitStr, 8))
+                .replace("${sort_permutation}", pad(generateSortPermutation(recordType, frozenColumns)))
+                .replace("${column_views}", pad(generateColumnViews(recordType, frozenColumns)))
                 .replace("${record_impl}", pad(recordImplStr))
-                .replace("${detached_record_impl}", pad(detachedRecordImplStr));
+                .replace("${cursor_impl}", pad(cursorImplStr))
+                .replace("${arr_impl_name}", arrImplName)
+                .replace("${record_type}", recordType);
+    }
+
+    /**
+     * Returns the default value literal of the given type (the value of a freshly allocated array element).
+     */
+    static String generateDefaultValue(String type) {
+        switch (type) {
+            case "boolean":
+                return "false";
+            case "byte":
+            case "char":
+            case "short":
+                return "(" + type + ") 0";
+            case "int":
+            case "long":
+            case "float":
+            case "double":
+                return "0";
+            default:
+                return "null";
+        }
+    }
+
+    private static final List<String> viewTypes = Arrays.asList("boolean", "int", "long", "float", "double");
+
+    /**
+     * Prefix of the column view class for the given primitive type, e.g. "Int" for {@link IntColumn}.
+     */
+    static String viewPrefix(String type) {
+        return Character.toUpperCase(type.charAt(0)) + type.substring(1);
+    }
+
+    private static final List<String> atomicTypes = Arrays.asList("int", "long", "float", "double");
+
+    /**
+     * Operations of the {@link Atomic} fields: {method prefix, method suffix, VarHandle access mode},
+     * the field name is between the prefix and the suffix, e.g. `getHitsVolatile`.
+     */
+    private static final String[][] atomicOperations = {
+            {"compareAndSet", "", "compareAndSet"},
+            {"getAndAdd", "", "getAndAdd"},
+            {"getAndSet", "", "getAndSet"},
+            {"get", "Volatile", "getVolatile"},
+            {"set", "Volatile", "setVolatile"},
+            {"get", "Acquire", "getAcquire"},
+            {"set", "Release", "setRelease"}
+    };
+
+    /**
+     * Returns {field name, access mode} if the method is the operation of the atomic field, otherwise null.
+     */
+    private static String[] atomicOperation(String methodName, Set<String> atomicFields) {
+        for (String[] op : atomicOperations) {
+            if (methodName.length() > op[0].length() + op[1].length() &&
+                methodName.startsWith(op[0]) && methodName.endsWith(op[1])) {
+                String fname = methodName.substring(op[0].length(), methodName.length() - op[1].length());
+                if (atomicFields.contains(fname)) {
+                    return new String[]{fname, op[2]};
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Parameter names of the atomic operation.
+     */
+    private static String[] atomicParameters(String mode) {
+        switch (mode) {
+            case "compareAndSet":
+                return new String[]{"expected", "value"};
+            case "getAndAdd":
+                return new String[]{"delta"};
+            case "getAndSet":
+            case "setVolatile":
+            case "setRelease":
+                return new String[]{"value"};
+            default:
+                return new String[0];
+        }
+    }
+
+    /**
+     * Return type of the atomic operation over the field of the given type.
+     */
+    private static String atomicReturnType(String mode, String type) {
+        return mode.equals("compareAndSet") ? "boolean" : mode.startsWith("set") ? "void" : type;
+    }
+
+    /**
+     * The call of the {@link java.lang.invoke.VarHandle} access mode, returning its result, if any.
+     * The result is cast to the exact type, so that the invocation of the handle isn't generic.
+     */
+    static String atomicAccess(String handle, String mode, String type, String target, String index,
+                               String... args) {
+        String call = handle + "." + mode + "(" + target + ", " + index +
+                      Arrays.stream(args).map(a -> ", " + a).collect(Collectors.joining()) + ")";
+        String returnType = atomicReturnType(mode, type);
+        return returnType.equals("void") ? call + ";" :
+               returnType.equals("boolean") ? "return " + call + ";" :
+               "return (" + returnType + ") " + call + ";";
+    }
+
+    /**
+     * Statement of the atomic operation over the field of the detached record (the method is synchronized).
+     */
+    private static String detachedAtomic(String mode, String field, String type) {
+        switch (mode) {
+            case "compareAndSet":
+                return "if (" + FrozenColumn.toLong(type, field) + " != " + FrozenColumn.toLong(type, "expected") +
+                       ") {\n" +
+                       "    return false;\n" +
+                       "}\n" +
+                       field + " = value;\n" +
+                       "return true;";
+            case "getAndAdd":
+                return type + " v = " + field + ";\n" +
+                       field + " = v + delta;\n" +
+                       "return v;";
+            case "getAndSet":
+                return type + " v = " + field + ";\n" +
+                       field + " = value;\n" +
+                       "return v;";
+            case "getVolatile":
+            case "getAcquire":
+                return "return " + field + ";";
+            default:
+                return field + " = value;";
+        }
+    }
+
+    /**
+     * Generates `read(int i, T into)`, that copies the fields of the record `i` into `into` through its setters
+     * (see {@link RecordArray#read(int, Object)}), after the optional index check.
+     */
+    static String generateReadInto(String recordType, Map<String, Column> columns, Map<String, String> fieldsToSetters,
+                                   String checkIndex) {
+        String body = fieldsToSetters.entrySet().stream()
+                .map(e -> "into." + e.getValue() + "(" + columns.get(e.getKey()).read("i") + ");")
+                .collect(Collectors.joining("\n"));
+        return ("public void read(int i, ${record_type} into) {\n" +
+                "${body}\n" +
+                "}\n")
+                .replace("${record_type}", recordType)
+                .replace("${body}", pad(checkIndex.isEmpty() ? body : checkIndex + "\n" + body));
+    }
+
+    /**
+     * Generates the methods, returning views of the columns, e.g. `IntColumn intColumn(String field)`.
+     */
+    static String generateColumnViews(String recordType, Map<String, Column> columns) {
+        return viewTypes.stream().map(viewType -> {
+            String cases = columns.values().stream().filter(c -> c.type.equals(viewType))
+                    .map(c -> "case \"" + c.name + "\":\n    return " + columnView(c) + ";")
+                    .collect(Collectors.joining("\n"));
+            return ("public ${prefix}Column ${type}Column(String field) {\n" +
+                    "    switch (field) {\n" +
+                    "${cases}\n" +
+                    "        default:\n" +
+                    "            throw new IllegalArgumentException(\"No ${type} field \" + field + \" in ${record_type}\");\n" +
+                    "    }\n" +
+                    "}\n")
+                    .replace("${prefix}", viewPrefix(viewType))
+                    .replace("${type}", viewType)
+                    .replace("${record_type}", recordType)
+                    .replace("${cases}", pad(cases, 8));
+        }).collect(Collectors.joining("\n"));
+    }
+
+    /**
+     * Returns the view of the column, that marks the written records of the tracked array
+     * (see {@link Record#trackChanges()}) and updates the index of the indexed field (see {@link Indexed}).
+     */
+    private static String columnView(Column c) {
+        String view = c.view();
+        if (c.tracked) {
+            view = "new ColumnViews." + viewPrefix(c.type) + "Tracked(" + view + ", __dirty)";
+        }
+        if (c.indexed) {
+            view = "new ColumnViews." + viewPrefix(c.type) + "Indexed(" + view + ", __idx$" + c.name + ")";
+        }
+        return view;
+    }
+
+    /**
+     * 64-bit FNV-1a hash of the names and types of the fields, used to detect incompatible persisted arrays.
+     */
+    static long generateSchemaHash(Map<String, String> fieldsToTypes, Record.Layout layout, int tileShift) {
+        StringBuilder schema = new StringBuilder();
+        fieldsToTypes.forEach((name, type) -> schema.append(name).append(':').append(type).append(';'));
+        // the default layout doesn't change the hash of the existing files
+        if (layout != Record.Layout.ROW_MAJOR) {
+            schema.append("layout:").append(layout).append('/').append(tileShift).append(';');
+        }
+        long hash = 0xcbf29ce484222325L;
+        for (char c : schema.toString().toCharArray()) {
+            hash ^= c;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * Generates the index mapping of the tiled layouts (nothing for the row-major layout), see {@link Layouts}.
+     * The views ({@link RecordArrayView}) translate the row-major indices with `storageIndex`.
+     */
+    static String generateLayout(Record.Layout layout, int tileShift) {
+        if (layout == Record.Layout.ROW_MAJOR) {
+            return "";
+        }
+        return ("private int __index(int i0, int i1, int i2) {\n" +
+                "    return Layouts.${method}(i0, i1, i2, __dim0, __dim1, __dim2, ${shift});\n" +
+                "}\n" +
+                "\n" +
+                "public int index(int... indices) {\n" +
+                "    return storageIndex(RecordArrayView.index(dimensions(), indices));\n" +
+                "}\n" +
+                "\n" +
+                "public boolean rowMajor() {\n" +
+                "    return false;\n" +
+                "}\n" +
+                "\n" +
+                "public int storageIndex(int index) {\n" +
+                "    int i2 = index % __dim2;\n" +
+                "    index /= __dim2;\n" +
+                "    return __index(index / __dim1, index % __dim1, i2);\n" +
+                "}\n")
+                .replace("${method}", layout == Record.Layout.TILED ? "tiled" : "morton")
+                .replace("${shift}", String.valueOf(tileShift));
+    }
+
+    /**
+     * Generates the growable {@link RecordList} implementation, nested into the array implementation
+     * (so that it can reuse the `$$DetachedRecord` and bulk copy the columns of the array).
+     */
+    static String generateListImpl(String recordType, String arrImplName, Map<String, String> fieldsToTypes,
+                                   Map<String, String> fieldsToGetters, String recordImplStr,
+                                   Map<String, Column> arrayColumns) {
+
+        final String fieldsStr = fieldsToTypes.entrySet().stream().map(e ->
+                "private " + e.getValue() + "[] " + e.getKey() + ";"
+        ).collect(Collectors.joining("\n"));
+
+        final String fieldsInitStr = fieldsToTypes.entrySet().stream().map(e ->
+                generateFieldInitializer(e.getValue(), e.getKey())
+        ).collect(Collectors.joining("\n"));
+
+        final String setterStr = fieldsToGetters.entrySet().stream()
+                .map(e -> "this." + e.getKey() + "[i] = value." + e.getValue() + "();")
+                .collect(Collectors.joining("\n"));
+
+        final String resizeStr = fieldsToTypes.keySet().stream()
+                .map(f -> f + " = Arrays.copyOf(" + f + ", newCapacity);")
+                .collect(Collectors.joining("\n"));
+
+        final String copyFromStr = fieldsToTypes.keySet().stream()
+                .map(f -> "System.arraycopy(o." + f + ", 0, " + f + ", __size, n);")
+                .collect(Collectors.joining("\n"));
+
+        final String copyFromArrayStr = arrayColumns.values().stream()
+                .map(c -> c.copyToArray("o", c.name, "__size", "n"))
+                .collect(Collectors.joining("\n"));
+
+        final String resetLastStr = fieldsToTypes.entrySet().stream()
+                .map(e -> e.getKey() + "[__size] = " + generateDefaultValue(e.getValue()) + ";")
+                .collect(Collectors.joining("\n"));
+
+        final String resetAllStr = fieldsToTypes.entrySet().stream()
+                .map(e -> "Arrays.fill(" + e.getKey() + ", 0, __size, " + generateDefaultValue(e.getValue()) + ");")
+                .collect(Collectors.joining("\n"));
+
+        // columns of the array can be copied in bulk only when they are heap arrays as well
+        final boolean arrayHasHeapColumns = arrayColumns.values().stream().noneMatch(c -> c instanceof OffHeapColumn);
+        final String addAllArrayStr = ((!arrayHasHeapColumns ? "" : (
+                "if (other instanceof ${arr_impl_name}) {\n" +
+                "    ${arr_impl_name} o = (${arr_impl_name}) other;\n" +
+                "${copy_from}\n" +
+                "    __size += n;\n" +
+                "    return;\n" +
+                "}\n")) +
+                "for (int i = 0; i < n; i++) {\n" +
+                "    add(other.get(i));\n" +
+                "}")
+                .replace("${arr_impl_name}", arrImplName)
+                .replace("${copy_from}", pad(copyFromArrayStr));
+
+        return ("static final class $$List implements RecordList<${record_type}> {\n" +
+                "    private int __size;\n" +
+                "    private int __capacity;\n" +
+                "\n" +
+                "    // generated fields\n" +
+                "${fields}\n" +
+                "\n" +
+                "    // constructor\n" +
+                "    $$List(int initialCapacity) {\n" +
+                "        if (initialCapacity < 0) {\n" +
+                "            throw new IllegalArgumentException(\"initialCapacity must be non-negative\");\n" +
+                "        }\n" +
+                "        int __l = initialCapacity;\n" +
+                "        __capacity = __l;\n" +
+                "\n" +
+                "        // initialize generated fields\n" +
+                "${field_init}\n" +
+                "    }\n" +
+                "\n" +
+                "    // methods\n" +
+                "    public int size() {\n" +
+                "        return __size;\n" +
+                "    }\n" +
+                "\n" +
+                "    public int capacity() {\n" +
+                "        return __capacity;\n" +
+                "    }\n" +
+                "\n" +
+                "    private void __checkIndex(int i) {\n" +
+                "        if (i < 0 || i >= __size) {\n" +
+                "            throw new IndexOutOfBoundsException(\"Index: \" + i + \", Size: \" + __size);\n" +
+                "        }\n" +
+                "    }\n" +
+                "\n" +
+                "    public $$Record get(int i) {\n" +
+                "        __checkIndex(i);\n" +
+                "        return new $$Record(i);\n" +
+                "    }\n" +
+                "\n" +
+                "    public void set(int i, ${record_type} value) {\n" +
+                "        __checkIndex(i);\n" +
+                "        __set(i, value);\n" +
+                "    }\n" +
+                "\n" +
+                "    private void __set(int i, ${record_type} value) {\n" +
+                "${setter}\n" +
+                "    }\n" +
+                "\n" +
+                "${read_into}\n" +
+                "\n" +
+                "    public $$Record add() {\n" +
+                "        ensureCapacity(__size + 1);\n" +
+                "        return new $$Record(__size++);\n" +
+                "    }\n" +
+                "\n" +
+                "    public void add(${record_type} value) {\n" +
+                "        ensureCapacity(__size + 1);\n" +
+                "        __set(__size, value);\n" +
+                "        __size++;\n" +
+                "    }\n" +
+                "\n" +
+                "    public void addAll(RecordArray<${record_type}> other) {\n" +
+                "        int n = other.size();\n" +
+                "        ensureCapacity(__size + n);\n" +
+                "${add_all_array}\n" +
+                "    }\n" +
+                "\n" +
+                "    public void addAll(RecordList<${record_type}> other) {\n" +
+                "        int n = other.size();\n" +
+                "        ensureCapacity(__size + n);\n" +
+                "        if (other instanceof $$List) {\n" +
+                "            $$List o = ($$List) other;\n" +
+                "${copy_from}\n" +
+                "            __size += n;\n" +
+                "        } else {\n" +
+                "            for (int i = 0; i < n; i++) {\n" +
+                "                add(other.get(i));\n" +
+                "            }\n" +
+                "        }\n" +
+                "    }\n" +
+                "\n" +
+                "    public void addAll(Collection<? extends ${record_type}> other) {\n" +
+                "        ensureCapacity(__size + other.size());\n" +
+                "        for (${record_type} value : other) {\n" +
+                "            add(value);\n" +
+                "        }\n" +
+                "    }\n" +
+                "\n" +
+                "    public void removeLast() {\n" +
+                "        if (__size == 0) {\n" +
+                "            throw new NoSuchElementException(\"RecordList is empty\");\n" +
+                "        }\n" +
+                "        __size--;\n" +
+                "${reset_last}\n" +
+                "    }\n" +
+                "\n" +
+                "    public void clear() {\n" +
+                "${reset_all}\n" +
+                "        __size = 0;\n" +
+                "    }\n" +
+                "\n" +
+                "    public void ensureCapacity(int minCapacity) {\n" +
+                "        if (minCapacity > __capacity) {\n" +
+                "            // amortized doubling; overflow of __capacity * 2 falls back to minCapacity\n" +
+                "            int newCapacity = __capacity * 2;\n" +
+                "            if (newCapacity < minCapacity) {\n" +
+                "                newCapacity = minCapacity;\n" +
+                "            }\n" +
+                "            __resize(newCapacity);\n" +
+                "        }\n" +
+                "    }\n" +
+                "\n" +
+                "    public void trimToSize() {\n" +
+                "        if (__size < __capacity) {\n" +
+                "            __resize(__size);\n" +
+                "        }\n" +
+                "    }\n" +
+                "\n" +
+                "    private void __resize(int newCapacity) {\n" +
+                "${resize}\n" +
+                "        __capacity = newCapacity;\n" +
+                "    }\n" +
+                "\n" +
+                "${record_impl}\n" +
+                "}\n")
+                .replace("${record_type}", recordType)
+                .replace("${arr_impl_name}", arrImplName)
+                .replace("${add_all_array}", pad(addAllArrayStr, 8))
+                .replace("${fields}", pad(fieldsStr))
+                .replace("${field_init}", pad(fieldsInitStr, 8))
+                .replace("${setter}", pad(setterStr, 8))
+                .replace("${copy_from}", pad(copyFromStr, 12))
+                .replace("${reset_last}", pad(resetLastStr, 8))
+                .replace("${reset_all}", pad(resetAllStr, 8))
+                .replace("${resize}", pad(resizeStr, 8))
+                .replace("${record_impl}", pad(recordImplStr));
+    }
+
+    /**
+     * Generates the code that declares, allocates and accesses a single column (field) of the array.
+     * By default, a column is a Java heap array.
+     * <p>
+     * `index` arguments are expected to be simple variable names (e.g. `__index`).
+     */
+    static class Column {
+        final String name;
+        final String type;
+
+        /**
+         * the writes of the column mark the records as changed, see {@link Record#trackChanges()}
+         */
+        boolean tracked;
+
+        /**
+         * the writes of the column update the hash index of the field, see {@link Indexed}
+         */
+        boolean indexed;
+
+        Column(String name, String type) {
+            this.name = name;
+            this.type = type;
+        }
+
+        String declaration() {
+            return "private final " + type + "[] " + name + ";";
+        }
+
+        /**
+         * Allocates the column of `__l` elements.
+         */
+        String initializer() {
+            return generateFieldInitializer(type, name);
+        }
+
+        String read(String index) {
+            return name + "[" + index + "]";
+        }
+
+        String write(String index, String value) {
+            return name + "[" + index + "] = " + value + ";";
+        }
+
+        /**
+         * Statement, that accesses the element of the {@link Atomic} field with the {@link java.lang.invoke.VarHandle}
+         * access mode (e.g. `getAndAdd`) and the arguments, and returns the result of the access, if any.
+         */
+        String atomic(String mode, String index, String... args) {
+            return atomicAccess("Atomics." + type.toUpperCase() + "_ARRAY", mode, type, name, index, args);
+        }
+
+        /**
+         * Copies `length` elements of the column into the same column of the `dst` array
+         * (overlapping ranges of the same array are handled correctly).
+         */
+        String copy(String dst, String srcPos, String dstPos, String length) {
+            return "System.arraycopy(" + name + ", " + srcPos + ", " + dst + "." + name + ", " + dstPos + ", " +
+                   length + ");";
+        }
+
+        /**
+         * Copies the first `length` elements of the column of the array `src` into the Java array `dst`
+         * of the column type (used by {@link RecordList#addAll(RecordArray)}).
+         */
+        String copyToArray(String src, String dst, String dstPos, String length) {
+            return "System.arraycopy(" + src + "." + name + ", 0, " + dst + ", " + dstPos + ", " + length + ");";
+        }
+
+        /**
+         * Sets the elements [from, to) to the value (simple variable name).
+         */
+        String fill(String from, String to, String value) {
+            return "Arrays.fill(" + name + ", " + from + ", " + to + ", " + value + ");";
+        }
+
+        /**
+         * Resets the elements [from, to) to the default value.
+         */
+        String clear(String from, String to) {
+            return fill(from, to, generateDefaultValue(type));
+        }
+
+        /**
+         * Writes the column with the {@link ColumnarFormat.Writer}.
+         */
+        String serialize(String writer) {
+            if (primitiveTypes.contains(type)) {
+                return writer + ".write(" + name + ");";
+            }
+            return writer + (type.equals("java.lang.String") ? ".writeStrings(" : ".writeObjects(") + name + ");";
+        }
+
+        /**
+         * Reads the column with the {@link ColumnarFormat.Reader}.
+         */
+        String deserialize(String reader) {
+            if (primitiveTypes.contains(type)) {
+                return reader + ".read(" + name + ");";
+            }
+            return reader + (type.equals("java.lang.String") ? ".readStrings(" : ".readObjects(") + name + ");";
+        }
+
+        /**
+         * Creates the view of the column, see {@link IntColumn} (only for int, long, float and double columns).
+         */
+        String view() {
+            return "new ColumnViews." + viewPrefix(type) + "Array(" + name + ")";
+        }
+
+        /**
+         * Writes the primitive column through the temporary array, for the columns that are not stored
+         * in the array of their type. The format is the same as for the array columns.
+         */
+        String serializeByElement(String writer) {
+            return "{\n" +
+                   "    " + type + "[] t = new " + type + "[size()];\n" +
+                   "    for (int i = 0; i < t.length; i++) {\n" +
+                   "        t[i] = " + read("i") + ";\n" +
+                   "    }\n" +
+                   "    " + writer + ".write(t);\n" +
+                   "}";
+        }
+
+        String deserializeByElement(String reader) {
+            return "{\n" +
+                   "    " + type + "[] t = new " + type + "[size()];\n" +
+                   "    " + reader + ".read(t);\n" +
+                   "    for (int i = 0; i < t.length; i++) {\n" +
+                   "        " + write("i", "t[i]") + "\n" +
+                   "    }\n" +
+                   "}";
+        }
+    }
+
+    /**
+     * Boolean column of the heap array, packed into the `long[]` bitset, see {@link Bits}.
+     */
+    static class BitsetColumn extends Column {
+
+        BitsetColumn(String name) {
+            super(name, "boolean");
+        }
+
+        @Override
+        String declaration() {
+            return "private final long[] " + name + ";";
+        }
+
+        @Override
+        String initializer() {
+            return name + " = new long[Bits.words(__l)];";
+        }
+
+        @Override
+        String read(String index) {
+            // the last word has the bits beyond the size, so the index is checked explicitly
+            return "Bits.get(" + name + ", " + index + ", __size)";
+        }
+
+        @Override
+        String write(String index, String value) {
+            return "Bits.set(" + name + ", " + index + ", __size, " + value + ");";
+        }
+
+        @Override
+        String copy(String dst, String srcPos, String dstPos, String length) {
+            return "Bits.copy(" + name + ", " + srcPos + ", " + dst + "." + name + ", " + dstPos + ", " + length + ");";
+        }
+
+        @Override
+        String copyToArray(String src, String dst, String dstPos, String length) {
+            return "Bits.unpack(" + src + "." + name + ", 0, " + dst + ", " + dstPos + ", " + length + ");";
+        }
+
+        @Override
+        String fill(String from, String to, String value) {
+            return "Bits.fill(" + name + ", " + from + ", " + to + ", " + value + ");";
+        }
+
+        @Override
+        String serialize(String writer) {
+            return writer + ".writeBits(" + name + ", size());";
+        }
+
+        @Override
+        String deserialize(String reader) {
+            return reader + ".readBits(" + name + ", size());";
+        }
+
+        @Override
+        String view() {
+            return "new ColumnViews.BooleanBits(" + name + ", size())";
+        }
+    }
+
+    /**
+     * Narrowed integral column of the heap array: `value - min` in the fixed number of bits,
+     * packed into the `long[]` words, see {@link PackedInts}, {@link Range} and {@link Unsigned}.
+     * Writes check the range of the value.
+     */
+    static class PackedColumn extends Column {
+        final long min;
+        final long range;
+        final int width;
+
+        /**
+         * name of the field in the error messages, e.g. `Sample.Level`
+         */
+        final String label;
+
+        PackedColumn(String name, String type, long min, long max, String label) {
+            super(name, type);
+            this.min = min;
+            this.range = max - min;
+            this.width = Math.max(1, 64 - Long.numberOfLeadingZeros(range));
+            this.label = label;
+        }
+
+        /**
+         * Checks the range of the value and returns the offset from the minimum.
+         */
+        private String offset(String value) {
+            return "PackedInts.offset(" + value + ", " + min + "L, " + range + "L, \"" + label + "\")";
+        }
+
+        @Override
+        String declaration() {
+            return "private final long[] " + name + ";";
+        }
+
+        @Override
+        String initializer() {
+            return name + " = new long[PackedInts.words(__l, " + width + ")];";
+        }
+
+        private String read(String owner, String index) {
+            String read = "PackedInts.get(" + owner + name + ", " + index + ", " + owner + "__size, " + width + ")";
+            String value = min == 0 ? read : "(" + read + " + " + min + "L)";
+            // the offset is long, the narrower types are cast back
+            return type.equals("long") ? value : "((" + type + ") " + value + ")";
+        }
+
+        @Override
+        String read(String index) {
+            return read("", index);
+        }
+
+        @Override
+        String write(String index, String value) {
+            return "PackedInts.set(" + name + ", " + index + ", __size, " + width + ", " + offset(value) + ");";
+        }
+
+        @Override
+        String copy(String dst, String srcPos, String dstPos, String length) {
+            return "PackedInts.copy(" + name + ", " + srcPos + ", " + dst + "." + name + ", " + dstPos + ", " +
+                   length + ", " + width + ");";
+        }
+
+        @Override
+        String copyToArray(String src, String dst, String dstPos, String length) {
+            return "for (int i = 0; i < " + length + "; i++) {\n" +
+                   "    " + dst + "[" + dstPos + " + i] = " + read(src + ".", "i") + ";\n" +
+                   "}";
+        }
+
+        @Override
+        String fill(String from, String to, String value) {
+            return "PackedInts.fill(" + name + ", " + from + ", " + to + ", " + width + ", " + offset(value) + ");";
+        }
+
+        @Override
+        String clear(String from, String to) {
+            // zero offset, i.e. min
+            return "PackedInts.fill(" + name + ", " + from + ", " + to + ", " + width + ", 0L);";
+        }
+
+        /**
+         * The format stores the values in full width, as the other heap and off-heap columns.
+         */
+        @Override
+        String serialize(String writer) {
+            return serializeByElement(writer);
+        }
+
+        @Override
+        String deserialize(String reader) {
+            return deserializeByElement(reader);
+        }
+
+        @Override
+        String view() {
+            return "new ColumnViews." + viewPrefix(type) + "Packed(" + name + ", size(), " + width + ", " + min + "L, " +
+                   range + "L, \"" + label + "\")";
+        }
+    }
+
+    /**
+     * Column of the field group, see {@link Group}. All columns of the group share the primitive array `g${first}`,
+     * where the field `field` of the record `i` is at
+     * `(i >>> blockShift) * (fields << blockShift) + (field << blockShift) + (i & (block - 1))`.
+     * Operations over the whole group (allocation, and copying of the interleaved records) are generated
+     * by the first column of the group.
+     */
+    static class GroupColumn extends Column {
+        final String array;
+        final int fields;
+        final int field;
+        final int blockShift;
+
+        GroupColumn(String name, String type, String array, int fields, int field, int blockShift) {
+            super(name, type);
+            this.array = array;
+            this.fields = fields;
+            this.field = field;
+            this.blockShift = blockShift;
+        }
+
+        private boolean first() {
+            return field == 0;
+        }
+
+        /**
+         * Position of the field of the record in the shared array.
+         */
+        private String position(String index) {
+            if (blockShift == 0) {
+                return "(" + index + ") * " + fields + (field == 0 ? "" : " + " + field);
+            }
+            return "((" + index + ") >>> " + blockShift + ") * " + (fields << blockShift) +
+                   (field == 0 ? "" : " + " + (field << blockShift)) +
+                   " + ((" + index + ") & " + ((1 << blockShift) - 1) + ")";
+        }
+
+        private String element(String array, String index) {
+            return array + "[" + position(index) + "]";
+        }
+
+        @Override
+        String declaration() {
+            return first() ? "private final " + type + "[] " + array + ";" : "";
+        }
+
+        @Override
+        String initializer() {
+            if (!first()) {
+                return "";
+            }
+            String records = blockShift == 0 ? "__l" : "(((__l - 1) >>> " + blockShift + ") + 1) << " + blockShift;
+            return array + " = new " + type + "[Math.multiplyExact(" + records + ", " + fields + ")];";
+        }
+
+        @Override
+        String read(String index) {
+            return element(array, index);
+        }
+
+        @Override
+        String write(String index, String value) {
+            return element(array, index) + " = " + value + ";";
+        }
+
+        @Override
+        String atomic(String mode, String index, String... args) {
+            return atomicAccess("Atomics." + type.toUpperCase() + "_ARRAY", mode, type, array, position(index), args);
+        }
+
+        @Override
+        String copy(String dst, String srcPos, String dstPos, String length) {
+            if (blockShift == 0) {
+                // the records are contiguous, the whole group is copied at once
+                return !first() ? "" : "System.arraycopy(" + array + ", " + srcPos + " * " + fields + ", " + dst +
+                                       "." + array + ", " + dstPos + " * " + fields + ", " + length + " * " +
+                                       fields + ");";
+            }
+            String move = element(dst + "." + array, dstPos + " + i") + " = " + element(array, srcPos + " + i") + ";";
+            return "if (" + dst + " == this && " + srcPos + " < " + dstPos + ") {\n" +
+                   "    for (int i = " + length + " - 1; i >= 0; i--) {\n" +
+                   "        " + move + "\n" +
+                   "    }\n" +
+                   "} else {\n" +
+                   "    for (int i = 0; i < " + length + "; i++) {\n" +
+                   "        " + move + "\n" +
+                   "    }\n" +
+                   "}";
+        }
+
+        @Override
+        String copyToArray(String src, String dst, String dstPos, String length) {
+            return "for (int i = 0; i < " + length + "; i++) {\n" +
+                   "    " + dst + "[" + dstPos + " + i] = " + element(src + "." + array, "i") + ";\n" +
+                   "}";
+        }
+
+        @Override
+        String fill(String from, String to, String value) {
+            return "for (int i = " + from + "; i < " + to + "; i++) {\n" +
+                   "    " + write("i", value) + "\n" +
+                   "}";
+        }
+
+        @Override
+        String clear(String from, String to) {
+            if (blockShift == 0) {
+                return !first() ? "" : "Arrays.fill(" + array + ", " + from + " * " + fields + ", " + to + " * " +
+                                       fields + ", " + generateDefaultValue(type) + ");";
+            }
+            return fill(from, to, generateDefaultValue(type));
+        }
+
+        @Override
+        String serialize(String writer) {
+            return serializeByElement(writer);
+        }
+
+        @Override
+        String deserialize(String reader) {
+            return deserializeByElement(reader);
+        }
+
+        @Override
+        String view() {
+            return "new ColumnViews." + viewPrefix(type) + "Grouped(" + array + ", size(), " + fields + ", " + field +
+                   ", " + blockShift + ")";
+        }
+    }
+
+    /**
+     * Read-only compressed column of the frozen array: {@link CompressedColumn} for the primitive types
+     * (values are stored as longs), {@link CompressedObjects} for the others.
+     * Writes throw UnsupportedOperationException.
+     */
+    static class FrozenColumn extends Column {
+
+        FrozenColumn(String name, String type) {
+            super(name, type);
+        }
+
+        String fieldType() {
+            return primitiveTypes.contains(type) ? "CompressedColumn" : "CompressedObjects<" + type + ">";
+        }
+
+        /**
+         * Converts the value of the primitive type to the long, stored in {@link CompressedColumn}.
+         */
+        static String toLong(String type, String value) {
+            switch (type) {
+                case "boolean":
+                    return "((" + value + ") ? 1L : 0L)";
+                case "float":
+                    return "Float.floatToRawIntBits(" + value + ")";
+                case "double":
+                    return "Double.doubleToRawLongBits(" + value + ")";
+                default:
+                    return value;
+            }
+        }
+
+        @Override
+        String declaration() {
+            return "private final " + fieldType() + " " + name + ";";
+        }
+
+        @Override
+        String read(String index) {
+            String read = name + ".get(" + index + ")";
+            switch (type) {
+                case "boolean":
+                    return "(" + read + " != 0)";
+                case "float":
+                    return "Float.intBitsToFloat((int) " + read + ")";
+                case "double":
+                    return "Double.longBitsToDouble(" + read + ")";
+                case "long":
+                    return read;
+                default:
+                    return primitiveTypes.contains(type) ? "((" + type + ") " + read + ")" : read;
+            }
+        }
+
+        @Override
+        String write(String index, String value) {
+            return "throw frozen();";
+        }
+
+        @Override
+        String atomic(String mode, String index, String... args) {
+            return mode.startsWith("get") && args.length == 0 ? "return " + read(index) + ";" : "throw frozen();";
+        }
+
+        @Override
+        String view() {
+            return "new ColumnViews." + viewPrefix(type) + "Compressed(" + name + ")";
+        }
+    }
+
+    /**
+     * Column of the primitive type, stored in the pages of {@link Pages#SIZE} elements,
+     * see {@link Record.Storage#PAGED}.
+     */
+    static class PagedColumn extends Column {
+
+        PagedColumn(String name, String type) {
+            super(name, type);
+        }
+
+        @Override
+        String declaration() {
+            return "private final " + type + "[][] " + name + ";";
+        }
+
+        @Override
+        String initializer() {
+            return name + " = new " + type + "[Pages.count(__l)][];\n" +
+                   "Pages.init(" + name + ");";
+        }
+
+        @Override
+        String read(String index) {
+            return name + "[" + index + " >>> " + Pages.SHIFT + "][" + index + " & " + Pages.MASK + "]";
+        }
+
+        @Override
+        String write(String index, String value) {
+            return "((" + type + "[]) Pages.writable(" + name + ", " + index + "))[" + index + " & " +
+                   Pages.MASK + "] = " + value + ";";
+        }
+
+        @Override
+        String atomic(String mode, String index, String... args) {
+            // the reads allocate the page as well, so that they can't miss the page allocated by a concurrent write
+            return atomicAccess("Atomics." + type.toUpperCase() + "_ARRAY", mode, type,
+                    "(" + type + "[]) Pages.writable(" + name + ", " + index + ")",
+                    index + " & " + Pages.MASK, args);
+        }
+
+        @Override
+        String copy(String dst, String srcPos, String dstPos, String length) {
+            return "Pages.copy(" + name + ", " + srcPos + ", " + dst + "." + name + ", " + dstPos + ", " +
+                   length + ");";
+        }
+
+        @Override
+        String copyToArray(String src, String dst, String dstPos, String length) {
+            return "Pages.copyTo(" + src + "." + name + ", 0, " + dst + ", " + dstPos + ", " + length + ");";
+        }
+
+        @Override
+        String fill(String from, String to, String value) {
+            return "for (int i = " + from + "; i < " + to + "; i++) {\n" +
+                   "    " + write("i", value) + "\n" +
+                   "}";
+        }
+
+        @Override
+        String clear(String from, String to) {
+            return "Pages.clear(" + name + ", " + from + ", " + to + ");";
+        }
+
+        @Override
+        String serialize(String writer) {
+            return serializeByElement(writer);
+        }
+
+        @Override
+        String deserialize(String reader) {
+            return deserializeByElement(reader);
+        }
+
+        @Override
+        String view() {
+            return "new ColumnViews." + viewPrefix(type) + "Paged(" + name + ", size())";
+        }
+    }
+
+    /**
+     * Column of the primitive type, stored off-heap in the direct {@link java.nio.ByteBuffer}
+     * (little-endian), see {@link Record.Storage#OFF_HEAP}.
+     */
+    static class OffHeapColumn extends Column {
+
+        /**
+         * position of the column in the `__buffers` constructor parameter
+         */
+        final int bufferIndex;
+
+        OffHeapColumn(String name, String type, int bufferIndex) {
+            super(name, type);
+            this.bufferIndex = bufferIndex;
+        }
+
+        /**
+         * log2 of the size of the element in bytes
+         */
+        int shift() {
+            switch (type) {
+                case "boolean":
+                case "byte":
+                    return 0;
+                case "char":
+                case "short":
+                    return 1;
+                case "int":
+                case "float":
+                    return 2;
+                default:
+                    return 3;
+            }
+        }
+
+        /**
+         * Suffix of the typed ByteBuffer accessors (e.g. `getInt`), empty for byte-sized elements.
+         */
+        private String accessor() {
+            if (shift() == 0) {
+                return "";
+            }
+            return Character.toUpperCase(type.charAt(0)) + type.substring(1);
+        }
+
+        private String offset(String index) {
+            return shift() == 0 ? index : index + " << " + shift();
+        }
+
+        @Override
+        String declaration() {
+            // not final, the buffer is dropped on close(), so that access after close fails with NPE
+            return "private java.nio.ByteBuffer " + name + ";";
+        }
+
+        @Override
+        String initializer() {
+            return name + " = __buffers != null ? __buffers[" + bufferIndex + "] : " +
+                   "OffHeapMemory.allocate(__l, " + shift() + ");";
+        }
+
+        @Override
+        String read(String index) {
+            String read = name + ".get" + accessor() + "(" + offset(index) + ")";
+            return type.equals("boolean") ? read + " != 0" : read;
+        }
+
+        @Override
+        String write(String index, String value) {
+            if (type.equals("boolean")) {
+                value = "(byte) (" + value + " ? 1 : 0)";
+            }
+            return name + ".put" + accessor() + "(" + offset(index) + ", " + value + ");";
+        }
+
+        @Override
+        String atomic(String mode, String index, String... args) {
+            if (mode.equals("getAndAdd") && (type.equals("float") || type.equals("double"))) {
+                return "return Atomics.getAndAdd(" + name + ", " + offset(index) + ", " + args[0] + ");";
+            }
+            return atomicAccess("Atomics." + type.toUpperCase() + "_BUFFER", mode, type, name, offset(index), args);
+        }
+
+        String release() {
+            return "OffHeapMemory.free(" + name + ");\n" + name + " = null;";
+        }
+
+        @Override
+        String copy(String dst, String srcPos, String dstPos, String length) {
+            return "OffHeapMemory.copy(" + name + ", " + srcPos + ", " + dst + "." + name + ", " + dstPos + ", " +
+                   length + ", " + shift() + ");";
+        }
+
+        @Override
+        String fill(String from, String to, String value) {
+            return "for (int i = " + from + "; i < " + to + "; i++) {\n" +
+                   "    " + write("i", value) + "\n" +
+                   "}";
+        }
+
+        @Override
+        String clear(String from, String to) {
+            return "OffHeapMemory.clear(" + name + ", " + from + ", " + to + ", " + shift() + ");";
+        }
+
+        @Override
+        String serialize(String writer) {
+            return writer + ".write(" + name + ", " + shift() + ");";
+        }
+
+        @Override
+        String deserialize(String reader) {
+            return reader + ".read(" + name + ", " + shift() + ");";
+        }
+
+        @Override
+        String view() {
+            // the buffer is read on each access, it's null after close()
+            return "new ColumnViews." + viewPrefix(type) + "Buffer(() -> " + name + ", size())";
+        }
     }
 
     @Override
@@ -1,10 +1,26 @@
 package com.aivean.recarr;
 
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
 /**
  * RecordArray is a multidimensional array of "records" (up to 3 dimensions).
  * It represents the SoA (Struct of Arrays) data structure.
+ * <p>
+ * Slices, sub-arrays, strided and transposed views and reshaped (N-dimensional) views of the array share
+ * its columns without copying, see {@link #slice(int, int)}.
  */
-public interface RecordArray<T> {
+public interface RecordArray<T> extends AutoCloseable {
 
     /**
      * Return the "proxy" to the record at the given index (1d).
@@ -14,17 +30,51 @@ public interface RecordArray<T> {
     /**
      * Return the "proxy" to the record at the given index (2d).
      * This is equivalent of get(i * dimensions[1] + j),
-     * where `dimensions` is the dimensions array used passed to RecordArray.create().
+     * where `dimensions` is the dimensions array used passed to RecordArray.create()
+     * (unless the record type has the tiled {@link Record.Layout}).
      */
     T get(int i, int j);
 
     /**
      * Return the "proxy" to the record at the given index (3d).
      * This is equivalent of get( (i * dimensions[1] + j) * dimensions[2] + k),
-     * where `dimensions` is the dimensions array used passed to RecordArray.create().
+     * where `dimensions` is the dimensions array used passed to RecordArray.create()
+     * (unless the record type has the tiled {@link Record.Layout}).
      */
     T get(int i, int j, int k);
 
+    /**
+     * Return the "proxy" to the record at the given N-dimensional index, see {@link #index(int...)}.
+     */
+    default T get(int... indices) {
+        return get(index(indices));
+    }
+
+    /**
+     * Returns the dimensions of the array. For the arrays created with {@link #create(Class, int...)},
+     * the trailing dimensions of size 1 are omitted, e.g. `[4, 5]` for `create(Point.class, 4, 5, 1)`.
+     */
+    int[] dimensions();
+
+    /**
+     * Returns the 1d index of the element with the given N-dimensional index, in the row-major order:
+     * `(i0 * dimensions[1] + i1) * dimensions[2] + i2 ...`, or as defined by the {@link Record.Layout}
+     * of the record type.
+     *
+     * @throws IllegalArgumentException  if the number of indices differs from the number of dimensions
+     * @throws IndexOutOfBoundsException if an index is out of its dimension
+     */
+    default int index(int... indices) {
+        return RecordArrayView.index(dimensions(), indices);
+    }
+
+    /**
+     * Return the new {@link RecordCursor}, positioned before the first record.
+     * The cursor is a reusable record "proxy" with the mutable index, that allows to iterate
+     * over the array without allocations, regardless of JIT optimizations.
+     */
+    RecordCursor<T> cursor();
+
     /**
      * Sets the fields of the record at the given index (1d).
      * Note: as RecordArray is doesn't hold the actual objects, the identity of `value` is not preserved,
@@ -46,12 +96,393 @@ public interface RecordArray<T> {
      */
     void set(int i, int j, int k, T value);
 
+    /**
+     * Sets the fields of the record at the given N-dimensional index, see {@link #index(int...)}.
+     * See {@link #set(int, Object)} for details of how the identity of `value` is not preserved.
+     */
+    default void set(int[] indices, T value) {
+        set(index(indices), value);
+    }
+
+    /**
+     * Copies the fields of the record at the given index (1d) into `into` through its setters
+     * (the fields without setters are skipped), the reverse of {@link #set(int, Object)}.
+     * `into` is usually a record of another array, or the detached copy returned by `copy()` of the record,
+     * reused between the reads.
+     */
+    void read(int index, T into);
+
+    /**
+     * Returns the 1d index of the first record at or after `from`, changed since the last {@link #clearDirty()},
+     * or -1 if there is no such record. Only for the arrays of the records with {@link Record#trackChanges()}.
+     * <p>
+     * To iterate over the changed records:
+     * <pre>{@code
+     * for (int i = arr.nextDirtyRow(0); i >= 0; i = arr.nextDirtyRow(i + 1)) {
+     *     ...
+     * }
+     * arr.clearDirty();
+     * }</pre>
+     * The unchanged blocks of records are skipped by the summary bitset, so the iteration takes the time
+     * proportional to the number of the changed records, rather than the size of the array.
+     *
+     * @throws UnsupportedOperationException if the changes are not tracked
+     */
+    default int nextDirtyRow(int from) {
+        throw new UnsupportedOperationException("Changes are not tracked, see Record.trackChanges()");
+    }
+
+    /**
+     * Returns the ascending 1d indices of the records changed since the last {@link #clearDirty()},
+     * see {@link #nextDirtyRow(int)}.
+     *
+     * @throws UnsupportedOperationException if the changes are not tracked
+     */
+    default IntStream dirtyRows() {
+        return IntStream.iterate(nextDirtyRow(0), i -> i >= 0, i -> nextDirtyRow(i + 1));
+    }
+
+    /**
+     * Returns the number of the records changed since the last {@link #clearDirty()}.
+     *
+     * @throws UnsupportedOperationException if the changes are not tracked
+     */
+    default int dirtyCount() {
+        throw new UnsupportedOperationException("Changes are not tracked, see Record.trackChanges()");
+    }
+
+    /**
+     * Marks all records as not changed, see {@link #nextDirtyRow(int)}.
+     *
+     * @throws UnsupportedOperationException if the changes are not tracked
+     */
+    default void clearDirty() {
+        throw new UnsupportedOperationException("Changes are not tracked, see Record.trackChanges()");
+    }
+
+    /**
+     * Copies `length` records, starting at `srcPos` of this array, to the array `dst` starting at `dstPos`
+     * (1d indices), similarly to {@link System#arraycopy}.
+     * <p>
+     * When `dst` is the array of the same record type, each column is copied at once.
+     * `dst` may be this array, overlapping ranges are copied correctly (see {@link #moveRange(int, int, int)}).
+     *
+     * @throws IndexOutOfBoundsException if the ranges are outside the arrays, nothing is copied in this case
+     */
+    void copyRange(int srcPos, RecordArray<T> dst, int dstPos, int length);
+
+    /**
+     * Moves `length` records within the array from `srcPos` to `dstPos` (1d indices),
+     * the ranges may overlap. The source records that are not overwritten keep their values.
+     *
+     * @throws IndexOutOfBoundsException if the ranges are outside the array, nothing is moved in this case
+     */
+    void moveRange(int srcPos, int dstPos, int length);
+
+    /**
+     * Sets the fields of the records [from, to) (1d indices) to the values of `prototype`.
+     * Each getter of the prototype is called once, and each column is filled at once.
+     * See {@link #set(int, Object)} for details of how the identity of `prototype` is not preserved.
+     *
+     * @throws IndexOutOfBoundsException if the range is outside the array
+     */
+    void fill(int from, int to, T prototype);
+
+    /**
+     * Resets the fields of the records [from, to) (1d indices) to the default values (0, false or null).
+     *
+     * @throws IndexOutOfBoundsException if the range is outside the array
+     */
+    void clear(int from, int to);
+
+    /**
+     * Sorts the records in place by the given fields (names of the getters without the `get`/`is` prefix),
+     * the first field is the most significant one. The sort is stable, indices are 1d.
+     * <p>
+     * Primitive keys are sorted with the radix sort (floating point keys in the order of {@link Double#compare}),
+     * object keys must be {@link Comparable} (nulls go first). Then the records are moved
+     * in all columns at once, without creating the record objects.
+     *
+     * @throws IllegalArgumentException if the field doesn't exist or its values are not Comparable
+     * @see #sortPermutation(String...)
+     */
+    void sortBy(String... fields);
+
+    /**
+     * Returns the permutation that sorts the records by the given fields, without changing the array:
+     * `permutation[i]` is the index of the record that is i-th in the sorted order.
+     * See {@link #sortBy(String...)} for the order of the fields and keys.
+     * <p>
+     * The permutation can be applied to this or other arrays of the same size with {@link #permute(int[])}.
+     */
+    int[] sortPermutation(String... fields);
+
+    /**
+     * Reorders the records in place, so that the record at the index `permutation[i]` moves to the index `i`.
+     *
+     * @throws IllegalArgumentException if `permutation` is not a permutation of [0, size()),
+     *                                  nothing is changed in this case
+     */
+    void permute(int[] permutation);
+
+    /**
+     * Writes the array to the channel in the compact columnar format: the header with the dimensions
+     * and the hash of the record fields, followed by each column as a contiguous block.
+     * Primitive columns are written in bulk (little-endian), String columns as length-prefixed UTF-8,
+     * other object columns with Java serialization (so their values must be {@link java.io.Serializable}).
+     * <p>
+     * The channel is not closed.
+     *
+     * @see #readFrom(Class, ReadableByteChannel)
+     */
+    void writeTo(WritableByteChannel channel) throws IOException;
+
+    /**
+     * Writes the array to the file, replacing its content, see {@link #writeTo(WritableByteChannel)}.
+     */
+    default void writeTo(Path path) throws IOException {
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeTo(ch);
+        }
+    }
+
+    /**
+     * Returns the compressed read-only copy of the array, to reduce the memory of the rarely modified data.
+     * <p>
+     * Each primitive column is compressed with the codec chosen from its data (frame of reference bit-packing,
+     * dictionary, run-length or delta varint encoding), String columns with repeated values are dictionary encoded.
+     * Getters decode the values with random access, without decompressing the whole column.
+     * <p>
+     * Methods that modify the frozen array, or its records, throw {@link UnsupportedOperationException}.
+     * To modify the data, copy it to the new array with {@link #copyRange}. Freezing the frozen array returns itself.
+     */
+    RecordArray<T> freeze();
+
     /**
      * Returns the number of records in the array.
      * This is equivalent of the product of the dimensions.
      */
     int size();
 
+    /**
+     * Performs the action for each record "proxy" in the index order.
+     */
+    default void forEach(Consumer<? super T> action) {
+        for (int i = 0, n = size(); i < n; i++) {
+            action.accept(get(i));
+        }
+    }
+
+    /**
+     * Performs the action for each index (1d) of the array in order.
+     */
+    default void forEachIndex(IntConsumer action) {
+        for (int i = 0, n = size(); i < n; i++) {
+            action.accept(i);
+        }
+    }
+
+    /**
+     * Performs the action for each record "proxy" in parallel, see {@link #parallelFor(int, int, int, RangeKernel)}.
+     * The action must be safe to run concurrently for the different records.
+     */
+    default void parallelForEach(Consumer<? super T> action) {
+        int n = size();
+        parallelFor(0, n, ParallelFor.defaultGrainSize(n), (from, to) -> {
+            for (int i = from; i < to; i++) {
+                action.accept(get(i));
+            }
+        });
+    }
+
+    /**
+     * Performs the action for each index (1d) of the array in parallel,
+     * see {@link #parallelFor(int, int, int, RangeKernel)}.
+     */
+    default void parallelForEachIndex(IntConsumer action) {
+        int n = size();
+        parallelFor(0, n, ParallelFor.defaultGrainSize(n), (from, to) -> {
+            for (int i = from; i < to; i++) {
+                action.accept(i);
+            }
+        });
+    }
+
+    /**
+     * Processes the index range [from, to) in parallel, in the {@link java.util.concurrent.ForkJoinPool#commonPool()}.
+     * <p>
+     * The range is recursively split in halves, until the chunks are not larger than `grainSize`, then
+     * `kernel` is applied to each chunk. The split points are multiples of 64, so that the chunks processed by
+     * the different threads don't write to the same words of the boolean and narrowed columns
+     * (see {@link Unsigned} and {@link Range}).
+     * The method returns when all chunks are processed.
+     *
+     * @param grainSize maximum number of records processed by a single kernel invocation, must be positive
+     * @throws IndexOutOfBoundsException if from < 0 or from > to
+     */
+    default void parallelFor(int from, int to, int grainSize, RangeKernel kernel) {
+        if (to > size()) {
+            throw new IndexOutOfBoundsException("Invalid range: [" + from + ", " + to + "), size: " + size());
+        }
+        ParallelFor.run(from, to, grainSize, kernel);
+    }
+
+    /**
+     * Returns the SIZED and SUBSIZED spliterator over the record "proxies" of the array.
+     * It splits on multiples of 64 records, see {@link #parallelFor(int, int, int, RangeKernel)}.
+     */
+    default Spliterator<T> spliterator() {
+        return new IndexSpliterator<>(this::get, 0, size(), true);
+    }
+
+    /**
+     * Returns the sequential stream of the record "proxies" of the array.
+     */
+    default Stream<T> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    /**
+     * Returns the parallel stream of the record "proxies" of the array.
+     */
+    default Stream<T> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
+    }
+
+    /**
+     * Chunk of work for {@link #parallelFor(int, int, int, RangeKernel)}.
+     */
+    @FunctionalInterface
+    interface RangeKernel {
+        /**
+         * Processes the records with indices [from, to).
+         */
+        void apply(int from, int to);
+    }
+
+    /**
+     * Returns the view of the `boolean` column (field) of the array, with the bulk bitset operations.
+     * The column is addressed by the 1d index, see {@link #get(int)}.
+     * <p>
+     * The field name is the name of getter without the `get`/`is` prefix, e.g. "Male" for `isMale()`.
+     *
+     * @throws IllegalArgumentException if there is no `boolean` field with the given name
+     */
+    BooleanColumn booleanColumn(String field);
+
+    /**
+     * Returns the view of the `int` column (field) of the array.
+     * The column is addressed by the 1d index, see {@link #get(int)}.
+     * <p>
+     * The field name is the name of getter without the `get`/`is` prefix, e.g. "Age" for `getAge()`.
+     *
+     * @throws IllegalArgumentException if there is no `int` field with the given name
+     */
+    IntColumn intColumn(String field);
+
+    /**
+     * Returns the view of the `long` column (field) of the array, see {@link #intColumn(String)}.
+     */
+    LongColumn longColumn(String field);
+
+    /**
+     * Returns the view of the `float` column (field) of the array, see {@link #intColumn(String)}.
+     */
+    FloatColumn floatColumn(String field);
+
+    /**
+     * Returns the view of the `double` column (field) of the array, see {@link #intColumn(String)}.
+     */
+    DoubleColumn doubleColumn(String field);
+
+    /**
+     * Returns the hash index of the `int` or `long` field of the array, that finds the records
+     * by the value of the field in O(1), see {@link RecordIndex}.
+     * <p>
+     * For the fields annotated with {@link Indexed} it's the index, that is maintained by the array.
+     * Otherwise the index is built from the current values (O(n)), and is not updated with the array.
+     *
+     * @throws IllegalArgumentException if there is no `int` or `long` field with the given name
+     */
+    default RecordIndex buildIndex(String field) {
+        return HashIndex.build(this, field);
+    }
+
+    /**
+     * Returns the one-dimensional view of the records [from, to) (1d indices), without copying.
+     * <p>
+     * The views share the columns with the array: records of the view are the records of the array,
+     * and changes are visible in both directions. The views support all operations of the array,
+     * and can be viewed further. The range operations of the views that are contiguous ranges of the array
+     * (e.g. slices and sub-arrays) process each column at once; other views are processed record by record,
+     * along the last dimension. Sorting, permuting, serialization and freezing of the view go through
+     * its temporary compact copy. Closing the view does nothing, the views of the off-heap array
+     * must not be used after the array is closed.
+     *
+     * @throws IndexOutOfBoundsException if the range is empty or outside the array
+     * @throws IllegalArgumentException  if this is the multidimensional view that is not contiguous
+     */
+    default RecordArray<T> slice(int from, int to) {
+        return RecordArrayView.of(this).slice(from, to);
+    }
+
+    /**
+     * Returns the view of every `step`-th index [from, to) along the dimension `axis`, without copying.
+     * Other dimensions are not changed, e.g. `grid.slice(1, 0, width, 2)` is the view of the even columns
+     * of the 2d grid. See {@link #slice(int, int)} for details of the views.
+     *
+     * @throws IllegalArgumentException  if the axis is out of dimensions or the step is not positive
+     * @throws IndexOutOfBoundsException if the range is empty or outside the dimension
+     */
+    default RecordArray<T> slice(int axis, int from, int to, int step) {
+        return RecordArrayView.of(this).slice(axis, from, to, step);
+    }
+
+    /**
+     * Returns the view of the records with the first index `i`, without copying:
+     * the row of the 2d array, or the plane of the 3d array. See {@link #slice(int, int)} for details of the views.
+     *
+     * @throws IllegalArgumentException  if the array has less than two dimensions
+     * @throws IndexOutOfBoundsException if the index is out of the first dimension
+     */
+    default RecordArray<T> subArray(int i) {
+        return RecordArrayView.of(this).subArray(i);
+    }
+
+    /**
+     * Returns the view with the permuted dimensions, without copying: the dimension `k` of the view
+     * is the dimension `axes[k]` of this array. Without arguments, the order of the dimensions is reversed
+     * (e.g. the transposed matrix). See {@link #slice(int, int)} for details of the views.
+     *
+     * @throws IllegalArgumentException if the axes are not the permutation of the dimensions
+     */
+    default RecordArray<T> transpose(int... axes) {
+        return RecordArrayView.of(this).transpose(axes);
+    }
+
+    /**
+     * Returns the view with the given dimensions (any number of them) and the same records
+     * in the same 1d order, without copying. See {@link #slice(int, int)} for details of the views.
+     *
+     * @throws IllegalArgumentException if the product of the dimensions differs from the size,
+     *                                  or the array is the view that is not contiguous
+     */
+    default RecordArray<T> reshape(int... dimensions) {
+        return RecordArrayView.of(this).reshape(dimensions);
+    }
+
+    /**
+     * Releases the off-heap memory of the array (see {@link Record.Storage#OFF_HEAP}).
+     * The array and its records must not be used after that.
+     * <p>
+     * Does nothing for the heap arrays, so it's not necessary to close them
+     * (similarly to {@link java.util.stream.Stream}).
+     */
+    @Override
+    default void close() {
+    }
+
     /**
      * Create a new RecordArray with given dimensions (size is the product of dimensions).
      * If less than 3 dimensions are given, the remaining dimensions are filled with 1.
@@ -66,11 +497,70 @@ public interface RecordArray<T> {
      * @return new RecordArray with given dimensions
      */
     static <T> RecordArray<T> create(Class<T> recordClass, int... dimensions) {
-        RecordArray<T> res = RecordArrayFactory.create(recordClass, dimensions);
+        return factory(recordClass).create(dimensions);
+    }
+
+    /**
+     * Returns the factory of the arrays and lists of the record type. The factory is looked up once per class,
+     * and creates the instances without reflection.
+     *
+     * @param recordClass Class of the records. Must be an interface marked with @Record.
+     *                    If not, an IllegalArgumentException exception is thrown.
+     */
+    static <T> RecordFactory<T> factory(Class<T> recordClass) {
+        RecordFactory<T> res = RecordArrayFactory.factory(recordClass);
         if (res == null) {
             throw new IllegalArgumentException("Unsupported record class: " + recordClass +
                     "\nIs annotation processing enabled? Perhaps, project rebuild is needed.");
         }
         return res;
     }
+
+    /**
+     * Create or open the RecordArray, persisted in the memory-mapped file.
+     * Reads and writes of the records go directly through the mapping, so reopening
+     * the existing file doesn't read the data upfront, and the data may be larger than RAM.
+     * <p>
+     * If the file doesn't exist or is empty, it's created with the given dimensions (zero-filled).
+     * Otherwise, the file is opened and its dimensions are used; if `dimensions` are given,
+     * they must match the dimensions of the file.
+     * <p>
+     * Only record types with primitive fields and {@link Record.Storage#OFF_HEAP} storage can be mapped.
+     * The changes are written to the file by the OS, and forced by {@link #close()}, which also unmaps the file.
+     *
+     * @param recordClass Class of the records. Must be an interface marked with
+     *                    `@Record(storage = Record.Storage.OFF_HEAP)`, with only primitive fields.
+     *                    If not, an IllegalArgumentException exception is thrown.
+     * @param path        file to map
+     * @param dimensions  dimensions of the array, optional when the file exists
+     * @param <T>         type of the records
+     * @return RecordArray, backed by the file
+     * @throws IOException              if the file can't be created, read, is not a RecordArray file or is truncated
+     * @throws IllegalArgumentException if the file was written for a different record type or dimensions
+     */
+    static <T> RecordArray<T> map(Class<T> recordClass, Path path, int... dimensions) throws IOException {
+        return factory(recordClass).map(path, dimensions);
+    }
+
+    /**
+     * Reads the new RecordArray from the channel, written by {@link #writeTo(WritableByteChannel)}.
+     * The dimensions are restored, the storage is defined by the record class (the same stream can be
+     * read into the heap or off-heap array).
+     *
+     * @param recordClass Class of the records, must have the same fields as the class the array was written for
+     * @throws IOException              if the stream can't be read or is not a RecordArray stream
+     * @throws IllegalArgumentException if the stream was written for a different record type
+     */
+    static <T> RecordArray<T> readFrom(Class<T> recordClass, ReadableByteChannel channel) throws IOException {
+        return ColumnarFormat.read(recordClass, channel);
+    }
+
+    /**
+     * Reads the new RecordArray from the file, see {@link #readFrom(Class, ReadableByteChannel)}.
+     */
+    static <T> RecordArray<T> readFrom(Class<T> recordClass, Path path) throws IOException {
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            return readFrom(recordClass, ch);
+        }
+    }
 }
\ No newline at end of file
@@ -1,35 +1,44 @@
 package com.aivean.recarr;
 
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
+import java.util.function.Function;
 
 /**
+ * Links {@link RecordArray#factory(Class)} with the factories, generated for each record type.
+ * <p>
+ * The generated `RecordArrayFactoryImpl` only maps the record class to its factory, so the implementation
+ * of each record type is loaded on the first use. The factories are cached per class with {@link ClassValue}.
+ *
  * @author <a href="mailto:aiveeen@gmail.com">Ivan Zaitsev</a>
  * 2021-11-02
  */
 final class RecordArrayFactory {
 
-    static final Method factory;
+    private static final Function<Class<?>, RecordFactory<?>> lookup;
+
+    private static final ClassValue<RecordFactory<?>> factories = new ClassValue<RecordFactory<?>>() {
+        @Override
+        protected RecordFactory<?> computeValue(Class<?> type) {
+            return lookup.apply(type);
+        }
+    };
 
     static {
-        Method f;
         try {
-            f = Class.forName("com.aivean.recarr.RecordArrayFactoryImpl").getDeclaredMethod("create",
-                    Class.class, int[].class);
-        } catch (NoSuchMethodException | ClassNotFoundException e) {
+            @SuppressWarnings("unchecked")
+            Function<Class<?>, RecordFactory<?>> l = (Function<Class<?>, RecordFactory<?>>)
+                    Class.forName("com.aivean.recarr.RecordArrayFactoryImpl").getDeclaredConstructor().newInstance();
+            lookup = l;
+        } catch (ReflectiveOperationException e) {
             throw new RuntimeException("Cannot initialize RecordArrayFactory; " +
                     "Is annotation processing enabled?", e);
         }
-        factory = f;
     }
 
+    /**
+     * Returns the factory of the record type, or null if the type is not a @Record interface.
+     */
     @SuppressWarnings("unchecked")
-    static <T> RecordArray<T> create(Class<T> clazz, int ... dimensions) {
-        try {
-            return (RecordArray<T>) factory.invoke(null, clazz, dimensions);
-        } catch (IllegalAccessException | InvocationTargetException e) {
-            throw new RuntimeException("Cannot create RecordArray<" + clazz.getSimpleName() + ">; " +
-                    "Is annotation processing enabled?", e);
-        }
+    static <T> RecordFactory<T> factory(Class<T> clazz) {
+        return (RecordFactory<T>) factories.get(clazz);
     }
 }
@@ -0,0 +1,566 @@
+package com.aivean.recarr;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Zero-copy view of the {@link RecordArray}, see {@link RecordArray#slice(int, int)}, {@link RecordArray#subArray(int)},
+ * {@link RecordArray#transpose(int...)} and {@link RecordArray#reshape(int...)}.
+ * <p>
+ * The view has N dimensions, the element `(i0, ..., iN-1)` is the record
+ * `offset + i0 * strides[0] + ... + iN-1 * strides[N-1]` of the base array (1d index).
+ * The views of the views are composed, so the base is always the generated array.
+ * Records returned by the view are the records of the base array.
+ * <p>
+ * When the view is contiguous (its elements are the range of the base array in the same order),
+ * the range operations are delegated to the base array, otherwise they are done record by record
+ * (along the last dimension, if possible). The operations that need the whole array
+ * (sorting, serialization, freezing) go through the temporary compact copy.
+ * <p>
+ * The indices of the view are the logical (row-major) indices of the base array. For the arrays
+ * with the tiled {@link Record.Layout}, they are translated with {@link Source#storageIndex(int)},
+ * and the views are never contiguous.
+ */
+final class RecordArrayView<T> implements RecordArray<T> {
+
+    /**
+     * Implemented by the generated arrays, to create the temporary arrays of the same record type.
+     */
+    interface Source<T> {
+        /**
+         * Creates the new heap (or off-heap, depending on the record type) array, see {@link RecordArray#create}.
+         */
+        RecordArray<T> allocate(int... dimensions);
+
+        /**
+         * Returns false if the array has the tiled {@link Record.Layout}.
+         */
+        default boolean rowMajor() {
+            return true;
+        }
+
+        /**
+         * Returns the 1d index of the record with the given row-major 1d index, see {@link Record.Layout}.
+         */
+        default int storageIndex(int index) {
+            return index;
+        }
+    }
+
+    private final RecordArray<T> base;
+    /**
+     * the base array with the tiled layout, null for the row-major arrays
+     */
+    private final Source<T> layout;
+    private final int offset;
+    private final int[] dims;
+    private final int[] strides;
+    private final int size;
+    /**
+     * the elements are the range of the row-major indices of the base array, in the same order
+     */
+    private final boolean dense;
+    /**
+     * the elements are the range of the base array (dense view of the row-major array)
+     */
+    private final boolean contiguous;
+
+    private RecordArrayView(RecordArray<T> base, Source<T> layout, int offset, int[] dims, int[] strides) {
+        this.base = base;
+        this.layout = layout;
+        this.offset = offset;
+        this.dims = dims;
+        this.strides = strides;
+        int size = 1;
+        boolean dense = true;
+        for (int d = dims.length - 1; d >= 0; d--) {
+            dense &= dims[d] == 1 || strides[d] == size;
+            size *= dims[d];
+        }
+        this.size = size;
+        this.dense = dense;
+        this.contiguous = dense && layout == null;
+    }
+
+    /**
+     * Returns the view of the whole array (or the array itself, if it's a view).
+     */
+    static <T> RecordArrayView<T> of(RecordArray<T> array) {
+        if (array instanceof RecordArrayView) {
+            return (RecordArrayView<T>) array;
+        }
+        int[] dims = array.dimensions();
+        Source<T> layout = array instanceof Source && !source(array).rowMajor() ? source(array) : null;
+        return new RecordArrayView<>(array, layout, 0, dims, rowMajorStrides(dims));
+    }
+
+    /**
+     * Casts the generated array to its {@link Source}.
+     */
+    @SuppressWarnings("unchecked") // the generated arrays are the sources of their own record type
+    private static <T> Source<T> source(RecordArray<T> array) {
+        return (Source<T>) array;
+    }
+
+    /**
+     * Returns the dimensions of the generated array, without the trailing dimensions of size 1.
+     */
+    static int[] dimensions(int dim0, int dim1, int dim2) {
+        return dim2 != 1 ? new int[]{dim0, dim1, dim2} : dim1 != 1 ? new int[]{dim0, dim1} : new int[]{dim0};
+    }
+
+    private static int[] rowMajorStrides(int[] dims) {
+        int[] strides = new int[dims.length];
+        int stride = 1;
+        for (int d = dims.length - 1; d >= 0; d--) {
+            strides[d] = stride;
+            stride *= dims[d];
+        }
+        return strides;
+    }
+
+    /**
+     * Returns the 1d index of the element of the array with the given dimensions (row-major order).
+     *
+     * @throws IllegalArgumentException  if the number of indices differs from the number of dimensions
+     * @throws IndexOutOfBoundsException if an index is out of its dimension
+     */
+    static int index(int[] dims, int... indices) {
+        if (indices.length != dims.length) {
+            throw new IllegalArgumentException(indices.length + " indices for " + dims.length + " dimensions");
+        }
+        int index = 0;
+        for (int d = 0; d < dims.length; d++) {
+            checkIndex(indices[d], dims[d]);
+            index = index * dims[d] + indices[d];
+        }
+        return index;
+    }
+
+    private static void checkIndex(int index, int size) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    private void checkRank(int rank) {
+        if (dims.length != rank) {
+            throw new IllegalArgumentException(rank + " indices for " + dims.length + " dimensions");
+        }
+    }
+
+    /**
+     * Returns the index of the base array for the row-major 1d index of the base array.
+     */
+    private int storage(int index) {
+        return layout == null ? index : layout.storageIndex(index);
+    }
+
+    /**
+     * Returns the index of the base array for the 1d index of the view.
+     */
+    int map(int index) {
+        checkIndex(index, size);
+        if (dense) {
+            return storage(offset + index);
+        }
+        int res = offset;
+        for (int d = dims.length - 1; d > 0; d--) {
+            int q = index / dims[d];
+            res += (index - q * dims[d]) * strides[d];
+            index = q;
+        }
+        return storage(res + index * strides[0]);
+    }
+
+    private int map(int i0, int i1) {
+        checkRank(2);
+        checkIndex(i0, dims[0]);
+        checkIndex(i1, dims[1]);
+        return storage(offset + i0 * strides[0] + i1 * strides[1]);
+    }
+
+    private int map(int i0, int i1, int i2) {
+        checkRank(3);
+        checkIndex(i0, dims[0]);
+        checkIndex(i1, dims[1]);
+        checkIndex(i2, dims[2]);
+        return storage(offset + i0 * strides[0] + i1 * strides[1] + i2 * strides[2]);
+    }
+
+    private void checkRange(int from, int to) {
+        if (from < 0 || from > to || to > size) {
+            throw new IndexOutOfBoundsException("Invalid range: [" + from + ", " + to + "), size: " + size);
+        }
+    }
+
+    /**
+     * Splits the range [from, to) of the view into the ranges of the base array.
+     */
+    private void forEachRun(int from, int to, RangeKernel action) {
+        if (from == to) {
+            return;
+        }
+        if (contiguous) {
+            action.apply(offset + from, offset + to);
+            return;
+        }
+        int last = dims.length - 1;
+        int n = strides[last] == 1 && layout == null ? dims[last] : 1;
+        for (int i = from; i < to; ) {
+            int run = Math.min(to - i, n - i % n);
+            int b = map(i);
+            action.apply(b, b + run);
+            i += run;
+        }
+    }
+
+    /**
+     * Returns true if the view is the range of the base array, starting at the multiple of {@link ParallelFor#ALIGNMENT},
+     * so that its aligned ranges don't share the words of the bitset and packed columns with the other ranges.
+     */
+    boolean aligned() {
+        return contiguous && offset % ParallelFor.ALIGNMENT == 0;
+    }
+
+    private static <T> RecordArray<T> base(RecordArray<T> array) {
+        return array instanceof RecordArrayView ? ((RecordArrayView<T>) array).base : array;
+    }
+
+    /**
+     * Copies the records of the validated ranges, for the arrays that are not the same generated array type.
+     * The contiguous views are copied as the ranges of their base arrays, the overlapping views
+     * of the same base array are copied through the temporary array.
+     */
+    static <T> void copy(RecordArray<T> src, int srcPos, RecordArray<T> dst, int dstPos, int length) {
+        if (src instanceof RecordArrayView && ((RecordArrayView<T>) src).contiguous) {
+            srcPos += ((RecordArrayView<T>) src).offset;
+            src = ((RecordArrayView<T>) src).base;
+        }
+        if (dst instanceof RecordArrayView && ((RecordArrayView<T>) dst).contiguous) {
+            dstPos += ((RecordArrayView<T>) dst).offset;
+            dst = ((RecordArrayView<T>) dst).base;
+        }
+        if (length == 0) {
+            return;
+        }
+        if (src.getClass() == dst.getClass() && !(src instanceof RecordArrayView)) {
+            // columns are copied at once
+            src.copyRange(srcPos, dst, dstPos, length);
+        } else if (base(src) == base(dst) && base(src) instanceof Source) {
+            try (RecordArray<T> tmp = source(base(src)).allocate(length)) {
+                for (int i = 0; i < length; i++) {
+                    tmp.set(i, src.get(srcPos + i));
+                }
+                for (int i = 0; i < length; i++) {
+                    dst.set(dstPos + i, tmp.get(i));
+                }
+            }
+        } else {
+            for (int i = 0; i < length; i++) {
+                dst.set(dstPos + i, src.get(srcPos + i));
+            }
+        }
+    }
+
+    /**
+     * Returns the compact copy of the view, with the same dimensions (or 1d, for more than 3 dimensions).
+     */
+    private RecordArray<T> compactCopy() {
+        if (!(base instanceof Source)) {
+            throw new UnsupportedOperationException("Unsupported base array: " + base.getClass());
+        }
+        RecordArray<T> res = source(base).allocate(dims.length <= 3 ? dims : new int[]{size});
+        if (source(res).rowMajor()) {
+            copy(this, 0, res, 0, size);
+        } else {
+            // keeps the N-dimensional indices of the records
+            for (int i = 0; i < size; i++) {
+                res.set(source(res).storageIndex(i), get(i));
+            }
+        }
+        return res;
+    }
+
+    public int[] dimensions() {
+        return dims.clone();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public T get(int index) {
+        return base.get(map(index));
+    }
+
+    public T get(int i, int j) {
+        return base.get(map(i, j));
+    }
+
+    public T get(int i, int j, int k) {
+        return base.get(map(i, j, k));
+    }
+
+    public RecordCursor<T> cursor() {
+        RecordCursor<T> cursor = base.cursor();
+        return new RecordCursor<T>() {
+            int index = -1;
+
+            public T record() {
+                return cursor.record();
+            }
+
+            public T moveTo(int index) {
+                T res = cursor.moveTo(map(index));
+                this.index = index;
+                return res;
+            }
+
+            public boolean next() {
+                if (index + 1 >= size) {
+                    return false;
+                }
+                moveTo(index + 1);
+                return true;
+            }
+
+            public int index() {
+                return index;
+            }
+        };
+    }
+
+    public void set(int index, T value) {
+        base.set(map(index), value);
+    }
+
+    public void read(int index, T into) {
+        base.read(map(index), into);
+    }
+
+    public void set(int i, int j, T value) {
+        base.set(map(i, j), value);
+    }
+
+    public void set(int i, int j, int k, T value) {
+        base.set(map(i, j, k), value);
+    }
+
+    /**
+     * Aligned parallel processing needs the ranges of the view to be the ranges of the base array:
+     * the split points are aligned by the base index, so that the chunks don't share the words
+     * of the bitset and packed columns. The chunks of the other views are processed sequentially,
+     * in the calling thread.
+     */
+    public void parallelFor(int from, int to, int grainSize, RangeKernel kernel) {
+        checkRange(from, to);
+        if (contiguous) {
+            ParallelFor.run(offset + from, offset + to, grainSize,
+                    (start, end) -> kernel.apply(start - offset, end - offset));
+        } else {
+            if (grainSize <= 0) {
+                throw new IllegalArgumentException("grainSize must be positive");
+            }
+            for (int i = from; i < to; i += Math.min(grainSize, to - i)) {
+                kernel.apply(i, i + Math.min(grainSize, to - i));
+            }
+        }
+    }
+
+    public void parallelForEach(Consumer<? super T> action) {
+        if (contiguous) {
+            ParallelFor.run(offset, offset + size, ParallelFor.defaultGrainSize(size), (from, to) -> {
+                for (int i = from; i < to; i++) {
+                    action.accept(base.get(i));
+                }
+            });
+        } else {
+            forEach(action);
+        }
+    }
+
+    /**
+     * Splits on the multiples of 64 records of the base array, the other views are not split,
+     * see {@link #parallelFor(int, int, int, RangeKernel)}.
+     */
+    public Spliterator<T> spliterator() {
+        return contiguous
+                ? new IndexSpliterator<>(base::get, offset, offset + size, true)
+                : new IndexSpliterator<>(this::get, 0, size, false);
+    }
+
+    public void copyRange(int srcPos, RecordArray<T> dst, int dstPos, int length) {
+        if (length < 0) {
+            throw new IndexOutOfBoundsException("Negative length: " + length);
+        }
+        checkRange(srcPos, srcPos + length);
+        if (dstPos < 0 || dstPos > dst.size() - length) {
+            throw new IndexOutOfBoundsException("Invalid destination range: [" + dstPos + ", " +
+                                                (dstPos + length) + "), size: " + dst.size());
+        }
+        copy(this, srcPos, dst, dstPos, length);
+    }
+
+    public void moveRange(int srcPos, int dstPos, int length) {
+        copyRange(srcPos, this, dstPos, length);
+    }
+
+    public void fill(int from, int to, T prototype) {
+        checkRange(from, to);
+        forEachRun(from, to, (f, t) -> base.fill(f, t, prototype));
+    }
+
+    public void clear(int from, int to) {
+        checkRange(from, to);
+        forEachRun(from, to, base::clear);
+    }
+
+    public void sortBy(String... fields) {
+        try (RecordArray<T> tmp = compactCopy()) {
+            tmp.sortBy(fields);
+            copy(tmp, 0, this, 0, size);
+        }
+    }
+
+    public int[] sortPermutation(String... fields) {
+        try (RecordArray<T> tmp = compactCopy()) {
+            return tmp.sortPermutation(fields);
+        }
+    }
+
+    public void permute(int[] permutation) {
+        try (RecordArray<T> tmp = compactCopy()) {
+            tmp.permute(permutation);
+            copy(tmp, 0, this, 0, size);
+        }
+    }
+
+    public void writeTo(WritableByteChannel channel) throws IOException {
+        try (RecordArray<T> tmp = compactCopy()) {
+            tmp.writeTo(channel);
+        }
+    }
+
+    public RecordArray<T> freeze() {
+        try (RecordArray<T> tmp = compactCopy()) {
+            return tmp.freeze();
+        }
+    }
+
+    public BooleanColumn booleanColumn(String field) {
+        return new ColumnViews.BooleanMapped(base.booleanColumn(field), this::map, size);
+    }
+
+    public IntColumn intColumn(String field) {
+        return new ColumnViews.IntMapped(base.intColumn(field), this::map, size);
+    }
+
+    public LongColumn longColumn(String field) {
+        return new ColumnViews.LongMapped(base.longColumn(field), this::map, size);
+    }
+
+    public FloatColumn floatColumn(String field) {
+        return new ColumnViews.FloatMapped(base.floatColumn(field), this::map, size);
+    }
+
+    public DoubleColumn doubleColumn(String field) {
+        return new ColumnViews.DoubleMapped(base.doubleColumn(field), this::map, size);
+    }
+
+    public RecordArray<T> slice(int from, int to) {
+        if (from < 0 || from >= to || to > size) {
+            throw new IndexOutOfBoundsException("Invalid slice: [" + from + ", " + to + "), size: " + size);
+        }
+        if (dims.length == 1) {
+            return slice(0, from, to, 1);
+        }
+        if (!dense) {
+            throw new IllegalArgumentException("Only contiguous arrays can be sliced by the 1d range, " +
+                                               "use slice(axis, from, to, step): " + this);
+        }
+        return new RecordArrayView<>(base, layout, offset + from, new int[]{to - from}, new int[]{1});
+    }
+
+    public RecordArray<T> slice(int axis, int from, int to, int step) {
+        if (axis < 0 || axis >= dims.length) {
+            throw new IllegalArgumentException("Invalid axis: " + axis + ", dimensions: " + dims.length);
+        }
+        if (step <= 0) {
+            throw new IllegalArgumentException("step must be positive: " + step);
+        }
+        if (from < 0 || from >= to || to > dims[axis]) {
+            throw new IndexOutOfBoundsException("Invalid slice: [" + from + ", " + to + "), size: " + dims[axis]);
+        }
+        int[] d = dims.clone();
+        int[] s = strides.clone();
+        d[axis] = (to - from + step - 1) / step;
+        s[axis] *= step;
+        return new RecordArrayView<>(base, layout, offset + from * strides[axis], d, s);
+    }
+
+    public RecordArray<T> subArray(int i) {
+        if (dims.length < 2) {
+            throw new IllegalArgumentException("subArray requires at least two dimensions, use slice(from, to)");
+        }
+        checkIndex(i, dims[0]);
+        return new RecordArrayView<>(base, layout, offset + i * strides[0], Arrays.copyOfRange(dims, 1, dims.length),
+                Arrays.copyOfRange(strides, 1, strides.length));
+    }
+
+    public RecordArray<T> transpose(int... axes) {
+        int n = dims.length;
+        if (axes.length == 0) {
+            axes = new int[n];
+            for (int d = 0; d < n; d++) {
+                axes[d] = n - 1 - d;
+            }
+        }
+        if (axes.length != n) {
+            throw new IllegalArgumentException("Invalid axes: " + Arrays.toString(axes) + ", dimensions: " + n);
+        }
+        int[] d = new int[n];
+        int[] s = new int[n];
+        boolean[] seen = new boolean[n];
+        for (int k = 0; k < n; k++) {
+            int a = axes[k];
+            if (a < 0 || a >= n || seen[a]) {
+                throw new IllegalArgumentException("Invalid axes: " + Arrays.toString(axes) + ", dimensions: " + n);
+            }
+            seen[a] = true;
+            d[k] = dims[a];
+            s[k] = strides[a];
+        }
+        return new RecordArrayView<>(base, layout, offset, d, s);
+    }
+
+    public RecordArray<T> reshape(int... dimensions) {
+        long product = 1;
+        for (int d : dimensions) {
+            if (d <= 0) {
+                throw new IllegalArgumentException("dimensions must be positive: " + Arrays.toString(dimensions));
+            }
+            product *= d;
+            if (product > size) {
+                break;
+            }
+        }
+        if (dimensions.length == 0 || product != size) {
+            throw new IllegalArgumentException("Can't reshape " + Arrays.toString(dims) + " to " +
+                                               Arrays.toString(dimensions));
+        }
+        if (!dense) {
+            throw new IllegalArgumentException("Only contiguous arrays can be reshaped: " + this);
+        }
+        return new RecordArrayView<>(base, layout, offset, dimensions.clone(), rowMajorStrides(dimensions));
+    }
+
+    @Override
+    public String toString() {
+        return "RecordArrayView{offset=" + offset + ", dimensions=" + Arrays.toString(dims) + ", strides=" +
+               Arrays.toString(strides) + "}";
+    }
+}
@@ -0,0 +1,46 @@
+package com.aivean.recarr;
+
+/**
+ * Reusable mutable "pointer" into the {@link RecordArray}, see {@link RecordArray#cursor()}.
+ * <p>
+ * Unlike {@link RecordArray#get(int)}, which creates a new record "proxy" for every index
+ * (and relies on JIT to eliminate the allocation), the cursor is allocated once
+ * and moved between the indices, so that the iteration never allocates.
+ * <p>
+ * The cursor itself implements the record interface (returned by {@link #record()}),
+ * its getters and setters access the record at the current index.
+ * <pre>
+ * RecordCursor&lt;Point&gt; c = points.cursor();
+ * Point p = c.record();
+ * while (c.next()) {
+ *     p.setX(p.getX() + 1);
+ * }
+ * </pre>
+ */
+public interface RecordCursor<T> {
+
+    /**
+     * Returns the cursor itself, as the record interface. The returned object always
+     * accesses the record at the current index of the cursor.
+     */
+    T record();
+
+    /**
+     * Moves the cursor to the given index (1d) and returns {@link #record()}.
+     * The index is validated on access, in the same way as for {@link RecordArray#get(int)}.
+     */
+    T moveTo(int index);
+
+    /**
+     * Moves the cursor to the next index. Returns false, if there are no more records
+     * (the cursor is positioned after the last record).
+     * <p>
+     * New cursor is positioned before the first record, so the first call moves it to the index 0.
+     */
+    boolean next();
+
+    /**
+     * Returns the current index (1d) of the cursor, -1 before the first record.
+     */
+    int index();
+}
@@ -0,0 +1,37 @@
+package com.aivean.recarr;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Factory of the arrays and lists of the single record type, generated by the annotation processor,
+ * see {@link RecordArray#factory(Class)}.
+ * <p>
+ * The factory creates the instances directly (without reflection), so keeping the factory
+ * is the fastest way to create many small arrays:
+ * <pre>{@code
+ * RecordFactory<Point> points = RecordArray.factory(Point.class);
+ * RecordArray<Point> a = points.create(16);
+ * }</pre>
+ */
+public interface RecordFactory<T> {
+
+    Class<T> recordClass();
+
+    /**
+     * See {@link RecordArray#create(Class, int...)}.
+     */
+    RecordArray<T> create(int... dimensions);
+
+    /**
+     * See {@link RecordList#create(Class, int)}.
+     */
+    RecordList<T> createList(int initialCapacity);
+
+    /**
+     * See {@link RecordArray#map(Class, Path, int...)}.
+     *
+     * @throws IllegalArgumentException if the record type can't be mapped
+     */
+    RecordArray<T> map(Path path, int... dimensions) throws IOException;
+}
@@ -0,0 +1,48 @@
+package com.aivean.recarr;
+
+/**
+ * Hash index of the integral field of the {@link RecordArray}: maps the values of the field (keys)
+ * to the 1d indices of the records, without boxing. Returned by {@link RecordArray#buildIndex(String)}.
+ * <p>
+ * Several records may have the same key, to iterate over them:
+ * <pre>{@code
+ * for (int i = index.find(key); i >= 0; i = index.next(i)) {
+ *     ...
+ * }
+ * }</pre>
+ * The `int` keys are widened to `long`.
+ */
+public interface RecordIndex {
+
+    /**
+     * Returns the index of a record with the key, or -1 if there is no such record.
+     * For the index built over the unchanged array, it's the first record with the key.
+     */
+    int find(long key);
+
+    /**
+     * Returns the index of the next record with the same key as the record `index`, or -1
+     * if there are no more such records (the record `index` must be returned by {@link #find} or this method).
+     */
+    int next(int index);
+
+    /**
+     * Returns the number of the records with the key.
+     */
+    default int count(long key) {
+        int c = 0;
+        for (int i = find(key); i >= 0; i = next(i)) {
+            c++;
+        }
+        return c;
+    }
+
+    default boolean contains(long key) {
+        return find(key) >= 0;
+    }
+
+    /**
+     * Returns the number of distinct keys.
+     */
+    int keys();
+}
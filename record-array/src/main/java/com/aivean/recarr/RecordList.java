@@ -0,0 +1,118 @@
+package com.aivean.recarr;
+
+import java.util.Collection;
+
+/**
+ * RecordList is a growable one-dimensional list of "records", backed by the same
+ * SoA (Struct of Arrays) layout as {@link RecordArray}.
+ * <p>
+ * All columns share the same capacity and grow together (the capacity is doubled when exhausted),
+ * so appending is amortized O(1).
+ * <p>
+ * "Proxies" returned by {@link #get(int)} and {@link #add()} stay valid when the list grows,
+ * as they hold only the index into the list.
+ */
+public interface RecordList<T> {
+
+    /**
+     * Return the "proxy" to the record at the given index.
+     *
+     * @throws IndexOutOfBoundsException if index is out of range [0, size())
+     */
+    T get(int index);
+
+    /**
+     * Sets the fields of the record at the given index.
+     * See {@link RecordArray#set(int, Object)} for details of how the identity of `value` is not preserved.
+     *
+     * @throws IndexOutOfBoundsException if index is out of range [0, size())
+     */
+    void set(int index, T value);
+
+    /**
+     * Appends a new record with all fields set to their default values (0, false or null)
+     * and returns the "proxy" to it.
+     */
+    T add();
+
+    /**
+     * Appends a new record with the fields copied from `value`.
+     */
+    void add(T value);
+
+    /**
+     * Appends all records of the given array. When `other` is generated for the same record type,
+     * the columns are copied in bulk.
+     */
+    void addAll(RecordArray<T> other);
+
+    /**
+     * Appends all records of the given list. When `other` is generated for the same record type,
+     * the columns are copied in bulk.
+     */
+    void addAll(RecordList<T> other);
+
+    /**
+     * Appends all records of the given collection, one by one.
+     */
+    void addAll(Collection<? extends T> other);
+
+    /**
+     * Removes the last record. The freed slot is reset to the default values,
+     * so that object references can be garbage collected.
+     *
+     * @throws java.util.NoSuchElementException if the list is empty
+     */
+    void removeLast();
+
+    /**
+     * Removes all records. The capacity is not changed.
+     */
+    void clear();
+
+    /**
+     * Grows the capacity of all columns, if necessary, so that the list can hold
+     * at least `minCapacity` records without further reallocation.
+     */
+    void ensureCapacity(int minCapacity);
+
+    /**
+     * Shrinks the capacity of all columns to the current size of the list.
+     */
+    void trimToSize();
+
+    /**
+     * Returns the number of records in the list.
+     */
+    int size();
+
+    /**
+     * Returns the number of records the list can hold without reallocating its columns.
+     */
+    int capacity();
+
+    /**
+     * Create a new empty RecordList with the default initial capacity.
+     *
+     * @see #create(Class, int)
+     */
+    static <T> RecordList<T> create(Class<T> recordClass) {
+        return create(recordClass, 10);
+    }
+
+    /**
+     * Create a new empty RecordList with the given initial capacity.
+     * <p>
+     * If annotation processing is not set up correctly of parameters fail the validation,
+     * an IllegalArgumentException is thrown.
+     *
+     * @param recordClass     Class of the records. Must be an interface marked with @Record.
+     *                        If not, an IllegalArgumentException exception is thrown.
+     * @param initialCapacity initial capacity of the columns, must be >= 0.
+     * @param <T>             type of the records
+     * @return new empty RecordList
+     */
+    static <T> RecordList<T> create(Class<T> recordClass, int initialCapacity) {
+        return RecordArray.factory(recordClass).createList(initialCapacity);
+    }
+}
@@ -0,0 +1,169 @@
+package com.aivean.recarr;
+
+import java.util.Arrays;
+
+/**
+ * Sorting of the record indices by the key columns, see {@link RecordArray#sortBy(String...)}.
+ * <p>
+ * The generated code extracts the keys of the column in the current order of the permutation
+ * and calls one of the sort methods, that reorder the permutation stably.
+ * Sorting by several fields is done from the last field to the first one.
+ */
+final class RecordSort {
+
+    private static final int RADIX_BITS = 8;
+    private static final int RADIX = 1 << RADIX_BITS;
+
+    private RecordSort() {
+    }
+
+    static int[] identity(int size) {
+        int[] perm = new int[size];
+        for (int i = 0; i < size; i++) {
+            perm[i] = i;
+        }
+        return perm;
+    }
+
+    /**
+     * Converts the float to the int, that has the same order (as in {@link Float#compare}).
+     */
+    static int floatKey(float value) {
+        int bits = Float.floatToIntBits(value);
+        return bits ^ ((bits >> 31) & 0x7fffffff);
+    }
+
+    /**
+     * Converts the double to the long, that has the same order (as in {@link Double#compare}).
+     */
+    static long doubleKey(double value) {
+        long bits = Double.doubleToLongBits(value);
+        return bits ^ ((bits >> 63) & 0x7fffffffffffffffL);
+    }
+
+    /**
+     * Stable LSD radix sort of `perm` by the signed `keys` (keys[i] is the key of perm[i]).
+     * The passes for the bytes that are the same for all keys are skipped, so small ranges of keys
+     * are sorted in one or two passes.
+     *
+     * @param bytes number of the lower bytes that hold the key (4 for int keys, 8 for long keys)
+     * @return sorted permutation, may be one of the arguments (both are used as the scratch space)
+     */
+    static int[] radixSort(long[] keys, int[] perm, int bytes) {
+        final int n = keys.length;
+        if (n < 2) {
+            return perm;
+        }
+        final long flip = 1L << (bytes * 8 - 1);
+
+        // histograms of all passes at once, with the sign bit flipped, so that keys compare as unsigned
+        int[][] counts = new int[bytes][RADIX];
+        for (int i = 0; i < n; i++) {
+            long k = keys[i] ^ flip;
+            keys[i] = k;
+            for (int b = 0; b < bytes; b++) {
+                counts[b][(int) (k >>> (b * RADIX_BITS)) & (RADIX - 1)]++;
+            }
+        }
+
+        long[] keysTmp = null;
+        int[] permTmp = null;
+        for (int b = 0; b < bytes; b++) {
+            int[] offsets = counts[b];
+            int shift = b * RADIX_BITS;
+            if (offsets[(int) (keys[0] >>> shift) & (RADIX - 1)] == n) {
+                continue;
+            }
+            for (int d = 0, sum = 0; d < RADIX; d++) {
+                int c = offsets[d];
+                offsets[d] = sum;
+                sum += c;
+            }
+            if (keysTmp == null) {
+                keysTmp = new long[n];
+                permTmp = new int[n];
+            }
+            for (int i = 0; i < n; i++) {
+                long k = keys[i];
+                int pos = offsets[(int) (k >>> shift) & (RADIX - 1)]++;
+                keysTmp[pos] = k;
+                permTmp[pos] = perm[i];
+            }
+            long[] kt = keys;
+            keys = keysTmp;
+            keysTmp = kt;
+            int[] pt = perm;
+            perm = permTmp;
+            permTmp = pt;
+        }
+        return perm;
+    }
+
+    /**
+     * Stable merge sort of `perm` by the object `keys` (keys[i] is the key of perm[i]),
+     * in the natural order, nulls first.
+     *
+     * @throws IllegalArgumentException if the keys are not {@link Comparable}
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static int[] sortObjects(Object[] keys, int[] perm) {
+        for (Object k : keys) {
+            if (k != null && !(k instanceof Comparable)) {
+                throw new IllegalArgumentException("Sort key is not Comparable: " + k.getClass());
+            }
+        }
+        int n = keys.length;
+        int[] idx = identity(n);
+        int[] tmp = new int[n];
+        for (int width = 1; width < n; width *= 2) {
+            for (int from = 0; from < n; from += 2 * width) {
+                int mid = Math.min(from + width, n);
+                int to = Math.min(from + 2 * width, n);
+                int i = from;
+                int j = mid;
+                int o = from;
+                while (i < mid && j < to) {
+                    Comparable a = (Comparable) keys[idx[i]];
+                    Comparable b = (Comparable) keys[idx[j]];
+                    boolean takeRight = a != null && (b == null || a.compareTo(b) > 0);
+                    tmp[o++] = takeRight ? idx[j++] : idx[i++];
+                }
+                while (i < mid) {
+                    tmp[o++] = idx[i++];
+                }
+                while (j < to) {
+                    tmp[o++] = idx[j++];
+                }
+            }
+            int[] t = idx;
+            idx = tmp;
+            tmp = t;
+        }
+        int[] res = new int[n];
+        for (int i = 0; i < n; i++) {
+            res[i] = perm[idx[i]];
+        }
+        return res;
+    }
+
+    /**
+     * Validates that `perm` is a permutation of [0, size).
+     *
+     * @return bitset of `size` bits, all zero, to mark the visited indices while the permutation is applied
+     * @throws IllegalArgumentException if `perm` is not a permutation
+     */
+    static long[] checkPermutation(int[] perm, int size) {
+        if (perm.length != size) {
+            throw new IllegalArgumentException("Permutation length " + perm.length + " != size " + size);
+        }
+        long[] seen = new long[(size + 63) >>> 6];
+        for (int p : perm) {
+            if (p < 0 || p >= size || (seen[p >>> 6] & (1L << p)) != 0) {
+                throw new IllegalArgumentException("Not a permutation: " + p + " is out of range or repeated");
+            }
+            seen[p >>> 6] |= 1L << p;
+        }
+        Arrays.fill(seen, 0);
+        return seen;
+    }
+}
@@ -0,0 +1,159 @@
+package com.aivean.recarr;
+
+import java.lang.invoke.VarHandle;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * {@link ConcurrentRecordArray} with the striped sequence locks.
+ * <p>
+ * The sequence of the stripe is even when the stripe is not written. The writer changes it to odd with CAS,
+ * writes the fields and releases the stripe with the next even value. The reader reads the even sequence,
+ * then the fields, and accepts them only if the sequence hasn't changed.
+ */
+final class SeqLockRecordArray<T> implements ConcurrentRecordArray<T> {
+
+    /**
+     * The sequences are 8 longs (64 bytes) apart, so that the stripes don't share the cache lines.
+     */
+    private static final int PAD_SHIFT = 3;
+
+    private final RecordArray<T> array;
+    private final int shift;
+    private final long[] sequences;
+
+    SeqLockRecordArray(RecordArray<T> array, int stripeShift) {
+        // the stripes must not share the words of the bitset and packed columns
+        if (stripeShift < 6 || stripeShift > 30) {
+            throw new IllegalArgumentException("stripeShift must be in 6..30: " + stripeShift);
+        }
+        if (array.size() > 1 << stripeShift && !RecordArrayView.of(array).aligned()) {
+            throw new IllegalArgumentException("The view must be the range of the array, starting at the multiple of "
+                    + ParallelFor.ALIGNMENT + " records, or a single stripe");
+        }
+        long stripes = ((long) array.size() + (1L << stripeShift) - 1) >>> stripeShift;
+        this.array = array;
+        this.shift = stripeShift;
+        // the first slot is padding as well
+        this.sequences = new long[Math.toIntExact((stripes + 1) << PAD_SHIFT)];
+    }
+
+    /**
+     * Index of the sequence of the record in `sequences`.
+     */
+    private int slot(int index) {
+        Objects.checkIndex(index, array.size());
+        return ((index >>> shift) + 1) << PAD_SHIFT;
+    }
+
+    /**
+     * Acquires the stripe for writing, returns its (even) sequence before the write.
+     */
+    private long lock(int slot) {
+        while (true) {
+            long s = (long) Atomics.LONG_ARRAY.getVolatile(sequences, slot);
+            if ((s & 1) == 0 && Atomics.LONG_ARRAY.compareAndSet(sequences, slot, s, s + 1)) {
+                // the fields are not written before the sequence is odd
+                VarHandle.storeStoreFence();
+                return s;
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    private void unlock(int slot, long s) {
+        Atomics.LONG_ARRAY.setRelease(sequences, slot, s + 2);
+    }
+
+    /**
+     * Returns true if the sequence is still `s` after the optimistic reads.
+     */
+    private boolean validate(int slot, long s) {
+        // the fields are read before the sequence
+        VarHandle.loadLoadFence();
+        return (long) Atomics.LONG_ARRAY.get(sequences, slot) == s;
+    }
+
+    @Override
+    public RecordArray<T> array() {
+        return array;
+    }
+
+    @Override
+    public int size() {
+        return array.size();
+    }
+
+    @Override
+    public int stripeShift() {
+        return shift;
+    }
+
+    @Override
+    public void write(int index, T value) {
+        int slot = slot(index);
+        long s = lock(slot);
+        try {
+            array.set(index, value);
+        } finally {
+            unlock(slot, s);
+        }
+    }
+
+    @Override
+    public void update(int index, Consumer<? super T> update) {
+        int slot = slot(index);
+        long s = lock(slot);
+        try {
+            update.accept(array.get(index));
+        } finally {
+            unlock(slot, s);
+        }
+    }
+
+    @Override
+    public void readConsistent(int index, T into) {
+        int slot = slot(index);
+        while (true) {
+            long s = (long) Atomics.LONG_ARRAY.getAcquire(sequences, slot);
+            if ((s & 1) == 0) {
+                array.read(index, into);
+                if (validate(slot, s)) {
+                    return;
+                }
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    @Override
+    public <R> R readConsistent(int index, Function<? super T, ? extends R> reader) {
+        int slot = slot(index);
+        T record = array.get(index);
+        while (true) {
+            long s = (long) Atomics.LONG_ARRAY.getAcquire(sequences, slot);
+            if ((s & 1) == 0) {
+                R result;
+                try {
+                    result = reader.apply(record);
+                } catch (RuntimeException e) {
+                    if (validate(slot, s)) {
+                        // thrown for the consistent record
+                        throw e;
+                    }
+                    continue;
+                }
+                if (validate(slot, s)) {
+                    return result;
+                }
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    @Override
+    public void close() {
+        array.close();
+    }
+}
@@ -0,0 +1,371 @@
+package com.aivean.recarr;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Uniform 2d grid of the records of the {@link RecordArray} by their coordinates (`float` or `double` columns),
+ * that finds the pairs of the close records without comparing all pairs.
+ * <p>
+ * The grid is rebuilt from the columns (e.g. on each step of the simulation) by the counting sort:
+ * the indices of the records are sorted by the cell, and the records of the cell `c` are
+ * `indices()[offsets()[c]]` ... `indices()[offsets()[c + 1] - 1]`, in ascending order.
+ * The arrays are reused by the following builds, so the rebuild doesn't allocate, unless the array grows.
+ * <pre>{@code
+ * SpatialGrid grid = new SpatialGrid(2 * radius, -1, -1, 1, 1);
+ * grid.build(points, "X", "Y");
+ * grid.forEachPair((i, j) -> {
+ *     // i and j are in the same or adjacent cells, the distance is checked by the caller
+ * });
+ * }</pre>
+ * Any two records, that are closer than the cell size along both axes, are in the same or adjacent cells.
+ * The coordinates outside of the bounds are clamped to the border cells (NaN to the first cell),
+ * so such records are still found, but the border cells may become crowded.
+ * <p>
+ * The grid is not thread-safe, but {@link #parallelBuild} uses the common fork/join pool.
+ */
+public final class SpatialGrid {
+
+    /**
+     * Receives the pair of the 1d indices of the records, see {@link #forEachPair(PairConsumer)}.
+     */
+    @FunctionalInterface
+    public interface PairConsumer {
+        void accept(int i, int j);
+    }
+
+    private final float cellSize;
+    private final double minX;
+    private final double minY;
+    private final double scale;
+    private final int columns;
+    private final int rows;
+
+    // cell -> first position in indices, offsets[cells] is the number of records
+    private final int[] offsets;
+    // the next free position of each cell, used by the scatter
+    private final int[] cursors;
+
+    // record -> cell
+    private int[] recordCells = new int[0];
+    // records, sorted by the cell
+    private int[] indices = new int[0];
+    private int size;
+
+    /**
+     * Creates the grid of the square cells over the bounds [minX, maxX] x [minY, maxY].
+     *
+     * @param cellSize the size of the cell, usually the maximum interaction distance
+     * @throws IllegalArgumentException if the cell size is not positive, the bounds are empty,
+     *                                  or there are more than 2^31 - 2 cells
+     */
+    public SpatialGrid(float cellSize, double minX, double minY, double maxX, double maxY) {
+        if (!(cellSize > 0) || Float.isInfinite(cellSize)) {
+            throw new IllegalArgumentException("cellSize must be positive: " + cellSize);
+        }
+        if (!(maxX > minX) || !(maxY > minY) || Double.isInfinite(maxX - minX) || Double.isInfinite(maxY - minY)) {
+            throw new IllegalArgumentException("Invalid bounds: [" + minX + ", " + maxX + "] x [" +
+                                               minY + ", " + maxY + "]");
+        }
+        double c = Math.max(1, Math.ceil((maxX - minX) / cellSize));
+        double r = Math.max(1, Math.ceil((maxY - minY) / cellSize));
+        if (c * r > Integer.MAX_VALUE - 2) {
+            throw new IllegalArgumentException("Too many cells: " + (long) c + " x " + (long) r);
+        }
+        this.cellSize = cellSize;
+        this.minX = minX;
+        this.minY = minY;
+        this.scale = 1.0 / cellSize;
+        this.columns = (int) c;
+        this.rows = (int) r;
+        this.offsets = new int[columns * rows + 1];
+        this.cursors = new int[columns * rows];
+    }
+
+    public float cellSize() {
+        return cellSize;
+    }
+
+    /**
+     * Returns the number of the cells along the x axis.
+     */
+    public int columns() {
+        return columns;
+    }
+
+    /**
+     * Returns the number of the cells along the y axis.
+     */
+    public int rows() {
+        return rows;
+    }
+
+    /**
+     * Returns the number of the records of the last build.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the cell of the point, `row * columns() + column`.
+     */
+    public int cell(double x, double y) {
+        return cellY(y) * columns + cellX(x);
+    }
+
+    private int cellX(double x) {
+        // NaN is converted to 0
+        return Math.min(Math.max((int) ((x - minX) * scale), 0), columns - 1);
+    }
+
+    private int cellY(double y) {
+        return Math.min(Math.max((int) ((y - minY) * scale), 0), rows - 1);
+    }
+
+    /**
+     * Returns the positions of the cells in {@link #indices()}, of `columns() * rows() + 1` elements
+     * (not copied, valid until the next build).
+     */
+    public int[] offsets() {
+        return offsets;
+    }
+
+    /**
+     * Returns the 1d indices of the records, sorted by the cell, see {@link #offsets()}
+     * (not copied, valid until the next build, the elements after {@link #size()} are unused).
+     */
+    public int[] indices() {
+        return indices;
+    }
+
+    /**
+     * Rebuilds the grid from the `float` or `double` coordinate fields of the array.
+     *
+     * @throws IllegalArgumentException if there are no `float` or `double` fields with the given names
+     */
+    public void build(RecordArray<?> array, String xField, String yField) {
+        build(array, xField, yField, false);
+    }
+
+    /**
+     * Rebuilds the grid, computing the cells and sorting the records in parallel, see {@link #build(RecordArray, String, String)}.
+     * The result is the same as of the sequential build.
+     */
+    public void parallelBuild(RecordArray<?> array, String xField, String yField) {
+        build(array, xField, yField, true);
+    }
+
+    private void build(RecordArray<?> array, String xField, String yField, boolean parallel) {
+        FloatColumn fx;
+        FloatColumn fy;
+        try {
+            fx = array.floatColumn(xField);
+            fy = array.floatColumn(yField);
+        } catch (IllegalArgumentException e) {
+            try {
+                build(array.doubleColumn(xField), array.doubleColumn(yField), parallel);
+            } catch (IllegalArgumentException e2) {
+                throw new IllegalArgumentException("No float or double fields " + xField + ", " + yField);
+            }
+            return;
+        }
+        build(fx, fy, parallel);
+    }
+
+    /**
+     * Rebuilds the grid from the coordinate columns of the same size.
+     */
+    public void build(FloatColumn x, FloatColumn y) {
+        build(x, y, false);
+    }
+
+    public void parallelBuild(FloatColumn x, FloatColumn y) {
+        build(x, y, true);
+    }
+
+    public void build(DoubleColumn x, DoubleColumn y) {
+        build(x, y, false);
+    }
+
+    public void parallelBuild(DoubleColumn x, DoubleColumn y) {
+        build(x, y, true);
+    }
+
+    private void build(FloatColumn x, FloatColumn y, boolean parallel) {
+        int n = prepare(x.size(), y.size());
+        int[] cells = recordCells;
+        RecordArray.RangeKernel kernel;
+        if (x.hasArray() && y.hasArray()) {
+            float[] xs = x.array();
+            float[] ys = y.array();
+            kernel = (from, to) -> {
+                for (int i = from; i < to; i++) {
+                    cells[i] = cell(xs[i], ys[i]);
+                }
+            };
+        } else {
+            kernel = (from, to) -> {
+                for (int i = from; i < to; i++) {
+                    cells[i] = cell(x.get(i), y.get(i));
+                }
+            };
+        }
+        sort(n, kernel, parallel);
+    }
+
+    private void build(DoubleColumn x, DoubleColumn y, boolean parallel) {
+        int n = prepare(x.size(), y.size());
+        int[] cells = recordCells;
+        RecordArray.RangeKernel kernel;
+        if (x.hasArray() && y.hasArray()) {
+            double[] xs = x.array();
+            double[] ys = y.array();
+            kernel = (from, to) -> {
+                for (int i = from; i < to; i++) {
+                    cells[i] = cell(xs[i], ys[i]);
+                }
+            };
+        } else {
+            kernel = (from, to) -> {
+                for (int i = from; i < to; i++) {
+                    cells[i] = cell(x.get(i), y.get(i));
+                }
+            };
+        }
+        sort(n, kernel, parallel);
+    }
+
+    private int prepare(int xSize, int ySize) {
+        if (xSize != ySize) {
+            throw new IllegalArgumentException("Column sizes differ: " + xSize + " != " + ySize);
+        }
+        if (recordCells.length < xSize) {
+            recordCells = new int[xSize];
+            indices = new int[xSize];
+        }
+        size = xSize;
+        return xSize;
+    }
+
+    /**
+     * Counting sort of the records by the cells, computed by the kernel.
+     */
+    private void sort(int n, RecordArray.RangeKernel cellsKernel, boolean parallel) {
+        int[] cells = recordCells;
+        int cellCount = cursors.length;
+        if (!parallel || n <= ParallelFor.ALIGNMENT) {
+            cellsKernel.apply(0, n);
+            Arrays.fill(cursors, 0);
+            for (int i = 0; i < n; i++) {
+                cursors[cells[i]]++;
+            }
+            prefixSum(cellCount);
+            for (int i = 0; i < n; i++) {
+                indices[cursors[cells[i]]++] = i;
+            }
+            return;
+        }
+
+        // the counts and the positions are updated atomically, then each cell is sorted,
+        // so that the order doesn't depend on the scheduling
+        ParallelFor.run(0, cellCount, ParallelFor.defaultGrainSize(cellCount), (from, to) ->
+                Arrays.fill(cursors, from, to, 0));
+        ParallelFor.run(0, n, ParallelFor.defaultGrainSize(n), (from, to) -> {
+            cellsKernel.apply(from, to);
+            for (int i = from; i < to; i++) {
+                Atomics.INT_ARRAY.getAndAdd(cursors, cells[i], 1);
+            }
+        });
+        prefixSum(cellCount);
+        ParallelFor.run(0, n, ParallelFor.defaultGrainSize(n), (from, to) -> {
+            for (int i = from; i < to; i++) {
+                indices[(int) Atomics.INT_ARRAY.getAndAdd(cursors, cells[i], 1)] = i;
+            }
+        });
+        ParallelFor.run(0, cellCount, ParallelFor.defaultGrainSize(cellCount), (from, to) -> {
+            for (int c = from; c < to; c++) {
+                // O(k log k) for the crowded cells, the small ones are insertion-sorted by Arrays.sort
+                Arrays.sort(indices, offsets[c], offsets[c + 1]);
+            }
+        });
+    }
+
+    /**
+     * Converts the counts of the cells in `cursors` to the offsets, and sets the cursors to the offsets.
+     */
+    private void prefixSum(int cellCount) {
+        int sum = 0;
+        for (int c = 0; c < cellCount; c++) {
+            offsets[c] = sum;
+            sum += cursors[c];
+            cursors[c] = offsets[c];
+        }
+        offsets[cellCount] = sum;
+    }
+
+    /**
+     * Calls the action once for each unordered pair of the records in the same or adjacent cells
+     * (including the diagonal ones), the candidates for the interaction closer than the cell size.
+     * The pairs of the cell are visited together, for the locality of the accesses.
+     */
+    public void forEachPair(PairConsumer action) {
+        for (int cy = 0; cy < rows; cy++) {
+            for (int cx = 0; cx < columns; cx++) {
+                int c = cy * columns + cx;
+                int from = offsets[c];
+                int to = offsets[c + 1];
+                if (from == to) {
+                    continue;
+                }
+                for (int a = from; a < to; a++) {
+                    int i = indices[a];
+                    for (int b = a + 1; b < to; b++) {
+                        action.accept(i, indices[b]);
+                    }
+                }
+                // half of the neighbors, so that each pair of the cells is visited once
+                if (cx + 1 < columns) {
+                    pairs(from, to, c + 1, action);
+                }
+                if (cy + 1 < rows) {
+                    if (cx > 0) {
+                        pairs(from, to, c + columns - 1, action);
+                    }
+                    pairs(from, to, c + columns, action);
+                    if (cx + 1 < columns) {
+                        pairs(from, to, c + columns + 1, action);
+                    }
+                }
+            }
+        }
+    }
+
+    private void pairs(int from, int to, int cell, PairConsumer action) {
+        int nFrom = offsets[cell];
+        int nTo = offsets[cell + 1];
+        for (int a = from; a < to; a++) {
+            int i = indices[a];
+            for (int b = nFrom; b < nTo; b++) {
+                action.accept(i, indices[b]);
+            }
+        }
+    }
+
+    /**
+     * Calls the action for each record in the cell of the point and in the adjacent cells,
+     * the candidates for the records closer to the point than the cell size.
+     */
+    public void forEachNeighbor(double x, double y, IntConsumer action) {
+        int cx = cellX(x);
+        int cy = cellY(y);
+        for (int ny = Math.max(cy - 1, 0); ny <= Math.min(cy + 1, rows - 1); ny++) {
+            int from = offsets[ny * columns + Math.max(cx - 1, 0)];
+            int to = offsets[ny * columns + Math.min(cx + 1, columns - 1) + 1];
+            // adjacent cells of the row are contiguous
+            for (int a = from; a < to; a++) {
+                action.accept(indices[a]);
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.aivean.recarr;
+
+/**
+ * {@link DoubleBufferedRecordArray} over two arrays of the same dimensions.
+ */
+final class SwappedRecordArray<T> implements DoubleBufferedRecordArray<T> {
+
+    private RecordArray<T> front;
+    private RecordArray<T> back;
+    private long generation;
+
+    SwappedRecordArray(RecordArray<T> front, RecordArray<T> back) {
+        this.front = front;
+        this.back = back;
+    }
+
+    @Override
+    public RecordArray<T> front() {
+        return front;
+    }
+
+    @Override
+    public RecordArray<T> back() {
+        return back;
+    }
+
+    @Override
+    public void swap() {
+        RecordArray<T> t = front;
+        front = back;
+        back = t;
+        generation++;
+    }
+
+    @Override
+    public long generation() {
+        return generation;
+    }
+
+    @Override
+    public void close() {
+        try {
+            front.close();
+        } finally {
+            back.close();
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.aivean.recarr;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Narrows the integral field of the heap {@link RecordArray} to the unsigned values of the given number of bits,
+ * e.g. `@Unsigned(5)` stores 0..31 in 5 bits. Same as `@Range(min = 0, max = (1 << bits) - 1)`, see {@link Range}.
+ */
+@Target(ElementType.METHOD) @Retention(RetentionPolicy.CLASS)
+public @interface Unsigned {
+
+    /**
+     * Number of bits, less than the size of the field type (e.g. 1..31 for `int`).
+     */
+    int value();
+}
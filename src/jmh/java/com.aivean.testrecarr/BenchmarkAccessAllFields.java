@@ -70,6 +70,7 @@ public class BenchmarkAccessAllFields {
     }
 
     RecordArray<PointRecord> recArr;
+    RecordArray<GroupedPointRecord> groupedRecArr;
     Point[] classArr;
     int[] intArrX;
     int[] intArrY;
@@ -80,6 +81,7 @@ public class BenchmarkAccessAllFields {
     @Setup
     public void setup() {
         recArr = RecordArray.create(PointRecord.class, n);
+        groupedRecArr = RecordArray.create(GroupedPointRecord.class, n);
         classArr = new Point[n];
         for (int i = 0; i < n; i++) {
             classArr[i] = new Point();
@@ -115,6 +117,20 @@ public class BenchmarkAccessAllFields {
         }
     }
 
+    @Benchmark
+    public void groupedRecArrSet() {
+        for (int i = 0; i < n; i++) {
+            groupedRecArr.get(indexer.getIndex(i)).setAll(i);
+        }
+    }
+
+    @Benchmark
+    public void groupedRecArrGet(Blackhole bh) {
+        for (int i = 0; i < n; i++) {
+            bh.consume(groupedRecArr.get(indexer.getIndex(i)).getAll());
+        }
+    }
+
     @Benchmark
     public void classArrSet() {
         for (int i = 0; i < n; i++) {
@@ -0,0 +1,72 @@
+package com.aivean.testrecarr;
+
+import com.aivean.recarr.ColumnKernels;
+import com.aivean.recarr.FloatColumn;
+import com.aivean.recarr.RecordArray;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the motion and wall clamping steps of `PointGameSimulator`, and the reduction over the field,
+ * implemented through the record "proxies" and through {@link ColumnKernels}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 5, time = 2/* seconds */)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Measurement(iterations = 5, time = 4/* seconds */)
+public class BenchmarkColumnKernels {
+
+    @Param({"10000", "1000000"})
+    public int n;
+
+    RecordArray<PointGameSimulator.Point2D> points;
+    FloatColumn x, y, vx, vy;
+
+    @Setup
+    public void setup() {
+        points = RecordArray.create(PointGameSimulator.Point2D.class, n);
+        for (int i = 0; i < n; i++) {
+            PointGameSimulator.Point2D p = points.get(i);
+            p.setVx((i % 100) * 0.0001f);
+            p.setVy(-(i % 100) * 0.0001f);
+        }
+        x = points.floatColumn("X");
+        y = points.floatColumn("Y");
+        vx = points.floatColumn("Vx");
+        vy = points.floatColumn("Vy");
+    }
+
+    @Benchmark
+    public void motionRecords() {
+        for (int i = 0; i < n; i++) {
+            PointGameSimulator.Point2D p = points.get(i);
+            p.setX(Math.min(Math.max(p.getX() + p.getVx(), -1), 1));
+            p.setY(Math.min(Math.max(p.getY() + p.getVy(), -1), 1));
+        }
+    }
+
+    @Benchmark
+    public void motionKernels() {
+        ColumnKernels.add(x, vx);
+        ColumnKernels.clamp(x, -1, 1);
+        ColumnKernels.add(y, vy);
+        ColumnKernels.clamp(y, -1, 1);
+    }
+
+    @Benchmark
+    public double sumRecords() {
+        double s = 0;
+        for (int i = 0; i < n; i++) {
+            s += points.get(i).getVx();
+        }
+        return s;
+    }
+
+    @Benchmark
+    public double sumKernels() {
+        return ColumnKernels.sum(vx);
+    }
+}
@@ -0,0 +1,70 @@
+package com.aivean.testrecarr;
+
+import com.aivean.recarr.FloatColumn;
+import com.aivean.recarr.RecordArray;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the ways to implement `PointGameSimulator.simulateMotion` over the RecordArray:
+ * through the record "proxies", through the column views, and through the arrays backing the columns.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 5, time = 2/* seconds */)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Measurement(iterations = 5, time = 4/* seconds */)
+public class BenchmarkColumnViews {
+
+    @Param({"10000", "1000000"})
+    public int n;
+
+    RecordArray<PointGameSimulator.Point2D> points;
+
+    @Setup
+    public void setup() {
+        points = RecordArray.create(PointGameSimulator.Point2D.class, n);
+        for (int i = 0; i < n; i++) {
+            PointGameSimulator.Point2D p = points.get(i);
+            p.setVx(i * 0.001f);
+            p.setVy(-i * 0.001f);
+        }
+    }
+
+    @Benchmark
+    public void motionRecords() {
+        for (int i = 0; i < n; i++) {
+            PointGameSimulator.Point2D p = points.get(i);
+            p.setX(p.getX() + p.getVx());
+            p.setY(p.getY() + p.getVy());
+        }
+    }
+
+    @Benchmark
+    public void motionColumns() {
+        FloatColumn x = points.floatColumn("X");
+        FloatColumn y = points.floatColumn("Y");
+        FloatColumn vx = points.floatColumn("Vx");
+        FloatColumn vy = points.floatColumn("Vy");
+        for (int i = 0; i < n; i++) {
+            x.set(i, x.get(i) + vx.get(i));
+            y.set(i, y.get(i) + vy.get(i));
+        }
+    }
+
+    @Benchmark
+    public void motionArrays() {
+        float[] x = points.floatColumn("X").array();
+        float[] y = points.floatColumn("Y").array();
+        float[] vx = points.floatColumn("Vx").array();
+        float[] vy = points.floatColumn("Vy").array();
+        for (int i = 0; i < n; i++) {
+            x[i] += vx[i];
+        }
+        for (int i = 0; i < n; i++) {
+            y[i] += vy[i];
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.aivean.testrecarr;
+
+import com.aivean.recarr.DoubleBufferedRecordArray;
+import com.aivean.recarr.RecordArray;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Step of the simulation that reads the neighbors of the record (1d smoothing of the positions):
+ * in place, carrying the old value of the previous record (which forces the sequential order),
+ * versus the parallel step over `DoubleBufferedRecordArray`.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 5, time = 2/* seconds */)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 4/* seconds */)
+public class BenchmarkDoubleBuffer {
+
+    @Param({"10000000"})
+    public int n;
+
+    RecordArray<PointGameSimulator.Point2D> points;
+    DoubleBufferedRecordArray<PointGameSimulator.Point2D> buffered;
+
+    @Setup
+    public void setup() {
+        points = RecordArray.create(PointGameSimulator.Point2D.class, n);
+        buffered = DoubleBufferedRecordArray.create(PointGameSimulator.Point2D.class, n);
+        for (int i = 0; i < n; i++) {
+            points.get(i).setX(i % 7);
+            buffered.front().get(i).setX(i % 7);
+        }
+    }
+
+    @Benchmark
+    public void inPlace() {
+        float prev = points.get(0).getX();
+        for (int i = 0; i < n; i++) {
+            PointGameSimulator.Point2D p = points.get(i);
+            float x = p.getX();
+            p.setX((prev + x + points.get(Math.min(i + 1, n - 1)).getX()) / 3);
+            prev = x;
+        }
+    }
+
+    @Benchmark
+    public void doubleBuffered() {
+        buffered.parallelStep((front, back, from, to) -> {
+            for (int i = from; i < to; i++) {
+                back.get(i).setX((front.get(Math.max(i - 1, 0)).getX() + front.get(i).getX() +
+                                  front.get(Math.min(i + 1, n - 1)).getX()) / 3);
+            }
+        });
+    }
+}
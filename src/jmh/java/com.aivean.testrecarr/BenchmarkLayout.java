@@ -0,0 +1,95 @@
+package com.aivean.testrecarr;
+
+import com.aivean.recarr.Record;
+import com.aivean.recarr.RecordArray;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 7-point stencil over the 3d grid with the different layouts (see {@link Record.Layout}):
+ * the neighbors along the slow dimensions are far apart in the row-major layout, and close in the tiles.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 5, time = 2/* seconds */)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 4/* seconds */)
+public class BenchmarkLayout {
+
+    @Record
+    public interface Cell {
+        float getValue();
+
+        void setValue(float value);
+    }
+
+    @Record(layout = Record.Layout.TILED)
+    public interface TiledCell {
+        float getValue();
+
+        void setValue(float value);
+    }
+
+    @Record(layout = Record.Layout.MORTON)
+    public interface MortonCell {
+        float getValue();
+
+        void setValue(float value);
+    }
+
+    interface Grid {
+        float value(int i, int j, int k);
+    }
+
+    @Param({"64", "256"})
+    public int n;
+
+    RecordArray<Cell> rowMajor;
+    RecordArray<TiledCell> tiled;
+    RecordArray<MortonCell> morton;
+
+    @Setup
+    public void setup() {
+        rowMajor = RecordArray.create(Cell.class, n, n, n);
+        tiled = RecordArray.create(TiledCell.class, n, n, n);
+        morton = RecordArray.create(MortonCell.class, n, n, n);
+        for (int i = 0; i < rowMajor.size(); i++) {
+            rowMajor.get(i).setValue(i % 7);
+            tiled.get(i).setValue(i % 7);
+            morton.get(i).setValue(i % 7);
+        }
+    }
+
+    // each benchmark runs in its own fork, so the grid accessor is inlined
+    private static float stencil(Grid grid, int n) {
+        float sum = 0;
+        for (int i = 1; i < n - 1; i++) {
+            for (int j = 1; j < n - 1; j++) {
+                for (int k = 1; k < n - 1; k++) {
+                    sum += 6 * grid.value(i, j, k) -
+                           grid.value(i - 1, j, k) - grid.value(i + 1, j, k) -
+                           grid.value(i, j - 1, k) - grid.value(i, j + 1, k) -
+                           grid.value(i, j, k - 1) - grid.value(i, j, k + 1);
+                }
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public float stencilRowMajor() {
+        return stencil((i, j, k) -> rowMajor.get(i, j, k).getValue(), n);
+    }
+
+    @Benchmark
+    public float stencilTiled() {
+        return stencil((i, j, k) -> tiled.get(i, j, k).getValue(), n);
+    }
+
+    @Benchmark
+    public float stencilMorton() {
+        return stencil((i, j, k) -> morton.get(i, j, k).getValue(), n);
+    }
+}
@@ -0,0 +1,62 @@
+package com.aivean.testrecarr;
+
+import com.aivean.recarr.RecordArray;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the serial and parallel (`RecordArray.parallelFor`) motion and wall collision steps
+ * of `PointGameSimulator` on a large number of points.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 5, time = 2/* seconds */)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 4/* seconds */)
+public class BenchmarkParallelFor {
+
+    @Param({"10000000"})
+    public int n;
+
+    @Param({"false", "true"})
+    public boolean parallel;
+
+    RecordArray<PointGameSimulator.Point2D> points;
+
+    @Setup
+    public void setup() {
+        points = RecordArray.create(PointGameSimulator.Point2D.class, n);
+        points.forEachIndex(i -> {
+            PointGameSimulator.Point2D p = points.get(i);
+            p.setVx((i % 100) * 0.0001f);
+            p.setVy(-(i % 100) * 0.0001f);
+        });
+    }
+
+    void step(int from, int to) {
+        for (int i = from; i < to; i++) {
+            PointGameSimulator.Point2D p = points.get(i);
+            p.setX(p.getX() + p.getVx());
+            p.setY(p.getY() + p.getVy());
+            if (p.getX() < -1 || p.getX() > 1) {
+                p.setX(Math.max(-1, Math.min(1, p.getX())));
+                p.setVx(-p.getVx());
+            }
+            if (p.getY() < -1 || p.getY() > 1) {
+                p.setY(Math.max(-1, Math.min(1, p.getY())));
+                p.setVy(-p.getVy());
+            }
+        }
+    }
+
+    @Benchmark
+    public void simulate() {
+        if (parallel) {
+            points.parallelFor(0, n, 64 * 1024, this::step);
+        } else {
+            step(0, n);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.aivean.testrecarr;
+
+import com.aivean.recarr.RecordArray;
+import com.aivean.recarr.SpatialGrid;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link BenchmarkBrownianMotion} with the point-to-point collisions found by `SpatialGrid`,
+ * rebuilt on each step, instead of comparing all pairs.
+ * The radius of the points is scaled with `n`, so that the density is the same as with 10000 points.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 5, time = 2/* seconds */)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 4/* seconds */)
+public class BenchmarkSpatialGrid {
+
+    @Param({"10000", "1000000"})
+    public int n;
+
+    @Param({"false", "true"})
+    public boolean parallelBuild;
+
+    RecordArray<PointGameSimulator.Point2D> points;
+    SpatialGrid grid;
+    PointGameSimulator simulator;
+
+    @Setup
+    public void setup() {
+        float radius = PointGameSimulator.POINT_RADIUS * (float) Math.sqrt(10000.0 / n);
+        points = RecordArray.create(PointGameSimulator.Point2D.class, n);
+        grid = new SpatialGrid(2 * radius, -1, -1, 1, 1);
+        simulator = new PointGameSimulator() {
+            @Override
+            int getNumPoints() {
+                return n;
+            }
+
+            @Override
+            Point2D getPoint(int index) {
+                return points.get(index);
+            }
+
+            @Override
+            float pointRadius() {
+                return radius;
+            }
+
+            @Override
+            void simulatePointToPointCollisions() {
+                if (parallelBuild) {
+                    grid.parallelBuild(points, "X", "Y");
+                } else {
+                    grid.build(points, "X", "Y");
+                }
+                // most candidates are rejected by the distance over the backing arrays
+                float[] xs = points.floatColumn("X").array();
+                float[] ys = points.floatColumn("Y").array();
+                grid.forEachPair((i, j) -> {
+                    float dx = xs[i] - xs[j];
+                    float dy = ys[i] - ys[j];
+                    if (dx * dx + dy * dy < radius * radius * 4) {
+                        collide(points.get(i), points.get(j));
+                    }
+                });
+            }
+        };
+        simulator.init();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.out.println("Point collisions: " + simulator.pointCollisions);
+        System.out.println("Wall collisions: " + simulator.wallCollisions);
+    }
+
+    @Benchmark
+    public void simulate() {
+        simulator.simulate();
+    }
+
+    @Benchmark
+    public int build() {
+        if (parallelBuild) {
+            grid.parallelBuild(points, "X", "Y");
+        } else {
+            grid.build(points, "X", "Y");
+        }
+        return grid.size();
+    }
+}
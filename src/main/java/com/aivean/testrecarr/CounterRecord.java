@@ -0,0 +1,63 @@
+package com.aivean.testrecarr;
+
+import com.aivean.recarr.Atomic;
+import com.aivean.recarr.Group;
+import com.aivean.recarr.Record;
+
+/**
+ * Record with the {@link Atomic} fields, updated concurrently.
+ */
+@Record
+@Group({"Hits", "Misses"})
+public interface CounterRecord {
+
+    CounterRecord copy();
+
+    String getName();
+
+    void setName(String name);
+
+    @Atomic
+    int getHits();
+
+    void setHits(int hits);
+
+    int getAndAddHits(int delta);
+
+    int getAndSetHits(int value);
+
+    boolean compareAndSetHits(int expected, int value);
+
+    int getHitsVolatile();
+
+    int getHitsAcquire();
+
+    void setHitsRelease(int value);
+
+    @Atomic
+    int getMisses();
+
+    void setMisses(int misses);
+
+    int getAndAddMisses(int delta);
+
+    @Atomic
+    long getTotal();
+
+    void setTotal(long total);
+
+    long getAndAddTotal(long delta);
+
+    boolean compareAndSetTotal(long expected, long value);
+
+    void setTotalVolatile(long value);
+
+    @Atomic
+    double getSum();
+
+    void setSum(double sum);
+
+    double getAndAddSum(double delta);
+
+    boolean compareAndSetSum(double expected, double value);
+}
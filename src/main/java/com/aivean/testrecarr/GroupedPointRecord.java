@@ -0,0 +1,34 @@
+package com.aivean.testrecarr;
+
+import com.aivean.recarr.Group;
+import com.aivean.recarr.Record;
+
+/**
+ * {@link PointRecord} with the fields stored together, see {@link Group}.
+ */
+@Record
+@Group({"X", "Y", "Z"})
+public interface GroupedPointRecord {
+
+    int getX();
+
+    int getY();
+
+    int getZ();
+
+    void setX(int x);
+
+    void setY(int y);
+
+    void setZ(int z);
+
+    default void setAll(int i) {
+        setX(i);
+        setY(i);
+        setZ(i);
+    }
+
+    default int getAll() {
+        return getX() ^ getY() ^ getZ();
+    }
+}
@@ -0,0 +1,29 @@
+package com.aivean.testrecarr;
+
+import com.aivean.recarr.Indexed;
+import com.aivean.recarr.Range;
+import com.aivean.recarr.Record;
+
+/**
+ * Record with the hash indices of the fields, see {@link Indexed}.
+ */
+@Record
+public interface IndexedRecord {
+
+    @Indexed
+    long getId();
+
+    void setId(long id);
+
+    @Indexed
+    @Range(min = 0, max = 1000)
+    int getGroup();
+
+    void setGroup(int group);
+
+    String getName();
+
+    void setName(String name);
+
+    IndexedRecord copy();
+}
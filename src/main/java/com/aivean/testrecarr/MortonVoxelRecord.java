@@ -0,0 +1,14 @@
+package com.aivean.testrecarr;
+
+import com.aivean.recarr.Record;
+
+@Record(layout = Record.Layout.MORTON, tileShift = 2)
+public interface MortonVoxelRecord {
+    int getId();
+
+    void setId(int id);
+
+    float getDensity();
+
+    void setDensity(float density);
+}
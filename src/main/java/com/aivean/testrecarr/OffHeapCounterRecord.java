@@ -0,0 +1,39 @@
+package com.aivean.testrecarr;
+
+import com.aivean.recarr.Atomic;
+import com.aivean.recarr.Record;
+
+/**
+ * {@link CounterRecord} of the off-heap array.
+ */
+@Record(storage = Record.Storage.OFF_HEAP)
+public interface OffHeapCounterRecord {
+
+    @Atomic
+    int getHits();
+
+    void setHits(int hits);
+
+    int getAndAddHits(int delta);
+
+    boolean compareAndSetHits(int expected, int value);
+
+    @Atomic
+    long getTotal();
+
+    long getAndAddTotal(long delta);
+
+    long getTotalVolatile();
+
+    @Atomic
+    float getWeight();
+
+    float getAndAddWeight(float delta);
+
+    boolean compareAndSetWeight(float expected, float value);
+
+    @Atomic
+    double getSum();
+
+    double getAndAddSum(double delta);
+}
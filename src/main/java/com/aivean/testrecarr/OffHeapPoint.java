@@ -0,0 +1,22 @@
+package com.aivean.testrecarr;
+
+import com.aivean.recarr.Record;
+
+@Record(storage = Record.Storage.OFF_HEAP)
+public interface OffHeapPoint {
+    long getId();
+
+    double getX();
+
+    double getY();
+
+    boolean isVisible();
+
+    void setId(long id);
+
+    void setX(double x);
+
+    void setY(double y);
+
+    void setVisible(boolean visible);
+}
@@ -0,0 +1,29 @@
+package com.aivean.testrecarr;
+
+import com.aivean.recarr.Record;
+
+@Record(storage = Record.Storage.OFF_HEAP)
+public interface OffHeapRecord {
+
+    OffHeapRecord copy();
+
+    int getIntField();
+    boolean getBoolField();
+    char getCharField();
+    byte getByteField();
+    short getShortField();
+    long getLongField();
+    float getFloatField();
+    double getDoubleField();
+    String getStringField();
+
+    void setIntField(int value);
+    void setBoolField(boolean value);
+    void setCharField(char value);
+    void setByteField(byte value);
+    void setShortField(short value);
+    void setLongField(long value);
+    void setFloatField(float value);
+    void setDoubleField(double value);
+    void setStringField(String value);
+}
@@ -0,0 +1,22 @@
+package com.aivean.testrecarr;
+
+import com.aivean.recarr.Atomic;
+import com.aivean.recarr.Record;
+
+/**
+ * {@link CounterRecord} of the paged array.
+ */
+@Record(storage = Record.Storage.PAGED)
+public interface PagedCounterRecord {
+
+    @Atomic
+    long getTotal();
+
+    void setTotal(long total);
+
+    long getAndAddTotal(long delta);
+
+    long getTotalAcquire();
+
+    void setTotalRelease(long value);
+}
@@ -0,0 +1,29 @@
+package com.aivean.testrecarr;
+
+import com.aivean.recarr.Record;
+
+@Record(storage = Record.Storage.PAGED)
+public interface PagedRecord {
+
+    PagedRecord copy();
+
+    int getId();
+    boolean getFlag();
+    char getCode();
+    byte getSmall();
+    short getShort();
+    long getTimestamp();
+    float getWeight();
+    double getValue();
+    String getName();
+
+    void setId(int value);
+    void setFlag(boolean value);
+    void setCode(char value);
+    void setSmall(byte value);
+    void setShort(short value);
+    void setTimestamp(long value);
+    void setWeight(float value);
+    void setValue(double value);
+    void setName(String value);
+}
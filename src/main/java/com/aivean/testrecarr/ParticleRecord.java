@@ -0,0 +1,44 @@
+package com.aivean.testrecarr;
+
+import com.aivean.recarr.Group;
+import com.aivean.recarr.Record;
+
+@Record
+@Group({"X", "Y", "Vx", "Vy"})
+@Group(value = {"Id", "Mass"}, block = 4)
+public interface ParticleRecord {
+    float getX();
+
+    void setX(float x);
+
+    float getY();
+
+    void setY(float y);
+
+    float getVx();
+
+    void setVx(float vx);
+
+    float getVy();
+
+    void setVy(float vy);
+
+    long getId();
+
+    void setId(long id);
+
+    long getMass();
+
+    void setMass(long mass);
+
+    String getName();
+
+    void setName(String name);
+
+    ParticleRecord copy();
+
+    default void move(float dt) {
+        setX(getX() + getVx() * dt);
+        setY(getY() + getVy() * dt);
+    }
+}
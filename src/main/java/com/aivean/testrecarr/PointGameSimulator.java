@@ -63,48 +63,60 @@ public abstract class PointGameSimulator {
         simulatePointToPointCollisions();
     }
 
+    /**
+     * Radius of the points, the points closer than two radii collide.
+     */
+    float pointRadius() {
+        return POINT_RADIUS;
+    }
+
     void simulatePointToPointCollisions() {
         // collision detection
         for (int i = 0; i < getNumPoints(); i++) {
             Point2D p = getPoint(i);
-            float px = p.getX();
-            float py = p.getY();
             for (int j = i + 1; j < getNumPoints(); j++) {
-                Point2D q = getPoint(j);
-                float dx = px - q.getX();
-                float dy = py - q.getY();
-                float d2 = dx * dx + dy * dy;
-
-                // collision
-                if (d2 < POINT_RADIUS * POINT_RADIUS * 4) {
-                    // check if d2 is 0 to avoid division by zero
-                    float d; // distance
-                    if (Float.compare(d2, 0f) == 0) {
-                        d = 0.00001f;
-                    } else {
-                        d = (float) Math.sqrt(d2);
-                    }
-
-                    float tx = -dy / d; // tangent vector of the impact (normalized)
-                    float ty = dx / d;
-                    float vix = p.getVx() - q.getVx(); // impact velocity (relative velocity)
-                    float viy = p.getVy() - q.getVy();
-                    float vt = vix * tx + viy * ty; // impact velocity along the tangent vector
-                    float vpx = vt * tx; // vector component parallel to the tangent
-                    float vpy = vt * ty;
-                    float vnx = vix - vpx; // vector component perpendicular to the tangent
-                    float vny = viy - vpy;
-                    p.setVx(p.getVx() - vnx);
-                    p.setVy(p.getVy() - vny);
-                    q.setVx(q.getVx() + vnx);
-                    q.setVy(q.getVy() + vny);
-
-                    pointCollisions++;
-                }
+                collide(p, getPoint(j));
             }
         }
     }
 
+    /**
+     * Exchanges the normal components of the velocities of the points, if they collide.
+     */
+    void collide(Point2D p, Point2D q) {
+        float dx = p.getX() - q.getX();
+        float dy = p.getY() - q.getY();
+        float d2 = dx * dx + dy * dy;
+        float r = pointRadius();
+
+        // collision
+        if (d2 < r * r * 4) {
+            // check if d2 is 0 to avoid division by zero
+            float d; // distance
+            if (Float.compare(d2, 0f) == 0) {
+                d = 0.00001f;
+            } else {
+                d = (float) Math.sqrt(d2);
+            }
+
+            float tx = -dy / d; // tangent vector of the impact (normalized)
+            float ty = dx / d;
+            float vix = p.getVx() - q.getVx(); // impact velocity (relative velocity)
+            float viy = p.getVy() - q.getVy();
+            float vt = vix * tx + viy * ty; // impact velocity along the tangent vector
+            float vpx = vt * tx; // vector component parallel to the tangent
+            float vpy = vt * ty;
+            float vnx = vix - vpx; // vector component perpendicular to the tangent
+            float vny = viy - vpy;
+            p.setVx(p.getVx() - vnx);
+            p.setVy(p.getVy() - vny);
+            q.setVx(q.getVx() + vnx);
+            q.setVy(q.getVy() + vny);
+
+            pointCollisions++;
+        }
+    }
+
     private void simulateWallCollisions() {
         // collision with walls
         for (int i = 0; i < getNumPoints(); i++) {
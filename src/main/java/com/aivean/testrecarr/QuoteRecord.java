@@ -0,0 +1,36 @@
+package com.aivean.testrecarr;
+
+import com.aivean.recarr.Record;
+
+/**
+ * Market data record, read concurrently with the writes.
+ */
+@Record
+public interface QuoteRecord {
+
+    QuoteRecord copy();
+
+    String getSymbol();
+
+    void setSymbol(String symbol);
+
+    long getSequence();
+
+    void setSequence(long sequence);
+
+    double getBid();
+
+    void setBid(double bid);
+
+    double getAsk();
+
+    void setAsk(double ask);
+
+    int getBidSize();
+
+    void setBidSize(int bidSize);
+
+    int getAskSize();
+
+    void setAskSize(int askSize);
+}
@@ -0,0 +1,34 @@
+package com.aivean.testrecarr;
+
+import com.aivean.recarr.Range;
+import com.aivean.recarr.Record;
+import com.aivean.recarr.Unsigned;
+
+@Record
+public interface TelemetryRecord {
+    @Unsigned(5)
+    int getLevel();
+
+    void setLevel(int level);
+
+    @Range(min = -400, max = 1250)
+    short getTemperature();
+
+    void setTemperature(short temperature);
+
+    @Range(min = 1_500_000_000_000L, max = 2_500_000_000_000L)
+    long getTimestamp();
+
+    void setTimestamp(long timestamp);
+
+    @Unsigned(7)
+    char getCode();
+
+    void setCode(char code);
+
+    double getValue();
+
+    void setValue(double value);
+
+    TelemetryRecord copy();
+}
@@ -0,0 +1,36 @@
+package com.aivean.testrecarr;
+
+import com.aivean.recarr.Atomic;
+import com.aivean.recarr.Record;
+
+/**
+ * Record with the change tracking, see {@link Record#trackChanges()}.
+ */
+@Record(trackChanges = true)
+public interface TrackedRecord {
+
+    int getId();
+
+    void setId(int id);
+
+    boolean isActive();
+
+    void setActive(boolean active);
+
+    double getScore();
+
+    void setScore(double score);
+
+    String getName();
+
+    void setName(String name);
+
+    @Atomic
+    long getHits();
+
+    void setHits(long hits);
+
+    long getAndAddHits(long delta);
+
+    long getHitsVolatile();
+}
@@ -0,0 +1,14 @@
+package com.aivean.testrecarr;
+
+import com.aivean.recarr.Record;
+
+@Record(layout = Record.Layout.TILED)
+public interface VoxelRecord {
+    int getId();
+
+    void setId(int id);
+
+    float getDensity();
+
+    void setDensity(float density);
+}
@@ -0,0 +1,18 @@
+package com.aivean.testrecarr.other;
+
+import com.aivean.recarr.Record;
+
+/**
+ * Has the same simple name as {@link com.aivean.testrecarr.PointRecord}, but different fields.
+ */
+@Record
+public interface PointRecord {
+
+    double getLatitude();
+
+    void setLatitude(double latitude);
+
+    double getLongitude();
+
+    void setLongitude(double longitude);
+}
@@ -0,0 +1,60 @@
+package com.aivean.recarr;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.BitSet;
+import java.util.Random;
+
+/**
+ * Tests of the package-private {@link HashIndex}, that don't fit the default test heap when done through the array.
+ */
+public class HashIndexTest {
+
+    @Test
+    public void testSlotSpread() {
+        // more than 2^24 slots, all of them must be reachable
+        int capacity = 1 << 26;
+        HashIndex index = new HashIndex(1, capacity);
+        Assert.assertEquals(index.capacity(), capacity);
+
+        int keys = 1 << 20;
+        BitSet sequential = new BitSet(capacity);
+        BitSet random = new BitSet(capacity);
+        Random rnd = new Random(42);
+        int maxSlot = 0;
+        for (int i = 0; i < keys; i++) {
+            int s = index.slot(i);
+            int r = index.slot(rnd.nextLong());
+            Assert.assertTrue(s >= 0 && s < capacity && r >= 0 && r < capacity);
+            sequential.set(s);
+            random.set(r);
+            maxSlot = Math.max(maxSlot, Math.max(s, r));
+        }
+        Assert.assertTrue(maxSlot >= capacity - capacity / 16, "max slot: " + maxSlot);
+        // ~1/64 load, almost no collisions
+        Assert.assertTrue(sequential.cardinality() > keys * 0.95, "sequential: " + sequential.cardinality());
+        Assert.assertTrue(random.cardinality() > keys * 0.95, "random: " + random.cardinality());
+        // the slots of the upper half of the table are used as well
+        Assert.assertTrue(random.nextSetBit(capacity / 2) >= 0);
+    }
+
+    @Test
+    public void testGrowth() {
+        HashIndex index = new HashIndex(1 << 20);
+        for (int i = 0; i < 1 << 20; i++) {
+            index.add((long) i << 32, i);
+        }
+        Assert.assertEquals(index.keys(), 1 << 20);
+        Assert.assertEquals(index.capacity(), 1 << 21);
+        for (int i = 0; i < 1 << 20; i++) {
+            Assert.assertEquals(index.find((long) i << 32), i);
+        }
+        for (int i = 0; i < 1 << 20; i += 2) {
+            index.remove((long) i << 32, i);
+        }
+        Assert.assertEquals(index.keys(), 1 << 19);
+        Assert.assertEquals(index.find(0), -1);
+        Assert.assertEquals(index.find(1L << 32), 1);
+    }
+}
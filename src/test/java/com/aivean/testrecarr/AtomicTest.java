@@ -0,0 +1,190 @@
+package com.aivean.testrecarr;
+
+import com.aivean.recarr.RecordArray;
+import com.aivean.recarr.RecordList;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.IntStream;
+
+public class AtomicTest {
+
+    private static final int RECORDS = 16;
+    private static final int UPDATES = 400_000;
+
+    @Test
+    public void testOperations() {
+        RecordArray<CounterRecord> arr = RecordArray.create(CounterRecord.class, 4);
+        CounterRecord r = arr.get(1);
+        Assert.assertEquals(r.getAndAddHits(5), 0);
+        Assert.assertEquals(r.getAndAddHits(-2), 5);
+        Assert.assertEquals(r.getHits(), 3);
+        Assert.assertFalse(r.compareAndSetHits(2, 10));
+        Assert.assertTrue(r.compareAndSetHits(3, 10));
+        Assert.assertEquals(r.getAndSetHits(7), 10);
+        Assert.assertEquals(r.getHitsVolatile(), 7);
+        r.setHitsRelease(8);
+        Assert.assertEquals(r.getHitsAcquire(), 8);
+
+        // grouped with Hits
+        Assert.assertEquals(r.getAndAddMisses(2), 0);
+        Assert.assertEquals(r.getMisses(), 2);
+        Assert.assertEquals(r.getHits(), 8);
+        Assert.assertEquals(arr.get(0).getHits(), 0);
+        Assert.assertEquals(arr.get(2).getMisses(), 0);
+
+        Assert.assertEquals(r.getAndAddTotal(1L << 40), 0L);
+        Assert.assertTrue(r.compareAndSetTotal(1L << 40, 1));
+        r.setTotalVolatile(3);
+        Assert.assertEquals(r.getTotal(), 3L);
+
+        Assert.assertEquals(r.getAndAddSum(0.5), 0.0);
+        Assert.assertEquals(r.getSum(), 0.5);
+        // the bits are compared
+        r.setSum(Double.NaN);
+        Assert.assertTrue(r.compareAndSetSum(Double.NaN, 1.0));
+        r.setSum(-0.0);
+        Assert.assertFalse(r.compareAndSetSum(0.0, 2.0));
+
+        // the cursor has the same operations
+        arr.cursor().moveTo(1).getAndAddHits(1);
+        Assert.assertEquals(r.getHits(), 9);
+
+        // detached copy
+        CounterRecord copy = r.copy();
+        Assert.assertEquals(copy.getAndAddHits(1), 9);
+        Assert.assertTrue(copy.compareAndSetHits(10, 20));
+        Assert.assertFalse(copy.compareAndSetSum(0.0, 2.0));
+        Assert.assertEquals(copy.getHitsVolatile(), 20);
+        Assert.assertEquals(r.getHits(), 9);
+
+        // frozen arrays support the reads only
+        RecordArray<CounterRecord> frozen = arr.freeze();
+        Assert.assertEquals(frozen.get(1).getHitsAcquire(), 9);
+        try {
+            frozen.get(1).getAndAddHits(1);
+            Assert.fail("Expected UnsupportedOperationException");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+
+        RecordList<CounterRecord> list = RecordList.create(CounterRecord.class);
+        list.add(r);
+        Assert.assertEquals(list.get(0).getAndAddTotal(2), 3L);
+        Assert.assertEquals(list.get(0).getTotal(), 5L);
+    }
+
+    @Test
+    public void testConcurrentUpdates() {
+        RecordArray<CounterRecord> arr = RecordArray.create(CounterRecord.class, RECORDS);
+        IntStream.range(0, UPDATES).parallel().forEach(i -> {
+            CounterRecord r = arr.get(i % RECORDS);
+            r.getAndAddHits(1);
+            r.getAndAddMisses(2);
+            r.getAndAddTotal(i);
+            r.getAndAddSum(1.0);
+        });
+        long total = 0;
+        for (int i = 0; i < RECORDS; i++) {
+            CounterRecord r = arr.get(i);
+            Assert.assertEquals(r.getHits(), UPDATES / RECORDS);
+            Assert.assertEquals(r.getMisses(), 2 * UPDATES / RECORDS);
+            Assert.assertEquals(r.getSum(), (double) (UPDATES / RECORDS));
+            total += r.getTotal();
+        }
+        Assert.assertEquals(total, (long) UPDATES * (UPDATES - 1) / 2);
+    }
+
+    @Test
+    public void testConcurrentCompareAndSet() {
+        // increments with the CAS loop
+        RecordArray<CounterRecord> arr = RecordArray.create(CounterRecord.class, 1);
+        IntStream.range(0, UPDATES).parallel().forEach(i -> {
+            CounterRecord r = arr.get(0);
+            int v;
+            do {
+                v = r.getHitsVolatile();
+            } while (!r.compareAndSetHits(v, v + 1));
+        });
+        Assert.assertEquals(arr.get(0).getHits(), UPDATES);
+    }
+
+    @Test
+    public void testOffHeap() {
+        try (RecordArray<OffHeapCounterRecord> arr = RecordArray.create(OffHeapCounterRecord.class, RECORDS)) {
+            IntStream.range(0, UPDATES).parallel().forEach(i -> {
+                OffHeapCounterRecord r = arr.get(i % RECORDS);
+                r.getAndAddHits(1);
+                r.getAndAddTotal(i);
+                r.getAndAddWeight(1f);
+                r.getAndAddSum(0.5);
+            });
+            long total = 0;
+            for (int i = 0; i < RECORDS; i++) {
+                OffHeapCounterRecord r = arr.get(i);
+                Assert.assertEquals(r.getHits(), UPDATES / RECORDS);
+                Assert.assertEquals(r.getWeight(), (float) (UPDATES / RECORDS));
+                Assert.assertEquals(r.getSum(), UPDATES / RECORDS / 2.0);
+                total += r.getTotalVolatile();
+            }
+            Assert.assertEquals(total, (long) UPDATES * (UPDATES - 1) / 2);
+
+            OffHeapCounterRecord r = arr.get(3);
+            Assert.assertTrue(r.compareAndSetHits(UPDATES / RECORDS, -1));
+            Assert.assertEquals(r.getHits(), -1);
+            Assert.assertFalse(r.compareAndSetWeight(0f, 1f));
+        }
+    }
+
+    @Test
+    public void testMappedAndBounds() throws IOException {
+        // the mapped columns are little-endian, the atomic and the plain accesses must agree
+        Path file = Files.createTempFile("recarr", ".bin");
+        try {
+            try (RecordArray<OffHeapCounterRecord> arr = RecordArray.map(OffHeapCounterRecord.class, file, RECORDS)) {
+                OffHeapCounterRecord r = arr.get(5);
+                r.setHits(0x01020304);
+                Assert.assertEquals(r.getAndAddHits(1), 0x01020304);
+                Assert.assertEquals(r.getHits(), 0x01020305);
+                Assert.assertEquals(r.getAndAddTotal(1L << 40), 0);
+                Assert.assertEquals(r.getTotal(), 1L << 40);
+                Assert.assertEquals(r.getTotalVolatile(), 1L << 40);
+                Assert.assertEquals(r.getAndAddWeight(1.5f), 0f);
+                Assert.assertTrue(r.compareAndSetWeight(1.5f, 2.5f));
+                Assert.assertEquals(r.getWeight(), 2.5f);
+                Assert.assertEquals(r.getAndAddSum(0.25), 0.0);
+                Assert.assertEquals(r.getSum(), 0.25);
+
+                try {
+                    arr.get(RECORDS).getAndAddHits(1);
+                    Assert.fail("Expected IndexOutOfBoundsException");
+                } catch (IndexOutOfBoundsException e) {
+                    // expected
+                }
+            }
+            try (RecordArray<OffHeapCounterRecord> arr = RecordArray.map(OffHeapCounterRecord.class, file)) {
+                Assert.assertEquals(arr.get(5).getHits(), 0x01020305);
+                Assert.assertEquals(arr.get(5).getTotal(), 1L << 40);
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testPaged() {
+        // the records are on different pages, most pages are never written
+        int n = 1 << 20;
+        RecordArray<PagedCounterRecord> arr = RecordArray.create(PagedCounterRecord.class, n);
+        IntStream.range(0, UPDATES).parallel().forEach(i -> arr.get((i % RECORDS) * 40_000).getAndAddTotal(1));
+        for (int i = 0; i < RECORDS; i++) {
+            Assert.assertEquals(arr.get(i * 40_000).getTotalAcquire(), (long) (UPDATES / RECORDS));
+        }
+        arr.get(n - 1).setTotalRelease(7);
+        Assert.assertEquals(arr.get(n - 1).getTotal(), 7L);
+        Assert.assertEquals(arr.get(n - 2).getTotalAcquire(), 0L);
+    }
+}
@@ -0,0 +1,82 @@
+package com.aivean.testrecarr;
+
+import com.aivean.recarr.BigRecordArray;
+import com.aivean.recarr.RecordArray;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+public class BigRecordArrayTest {
+
+    @Test
+    public void testPages() {
+        // small pages to cover the paging without allocating 2^31 records
+        long n = 1000;
+        BigRecordArray<SimpleRecord> arr = BigRecordArray.create(SimpleRecord.class, n, 6);
+        Assert.assertEquals(arr.size(), n);
+        Assert.assertEquals(arr.pageCount(), 16);
+        Assert.assertEquals(arr.page(0).size(), 64);
+        Assert.assertEquals(arr.page(15).size(), 1000 - 15 * 64);
+
+        for (long i = 0; i < n; i++) {
+            arr.get(i).setAge((int) i);
+        }
+        for (long i = 0; i < n; i++) {
+            Assert.assertEquals(arr.get(i).getAge(), i);
+        }
+        Assert.assertEquals(arr.page(2).get(5).getAge(), 2 * 64 + 5);
+
+        arr.set(999, arr.get(1));
+        Assert.assertEquals(arr.get(999).getAge(), 1);
+
+        AtomicLong sum = new AtomicLong();
+        arr.parallelForEach(r -> sum.addAndGet(r.getAge()));
+        long seqSum = 0;
+        for (long i = 0; i < n; i++) {
+            seqSum += arr.get(i).getAge();
+        }
+        Assert.assertEquals(sum.get(), seqSum);
+    }
+
+    @Test
+    public void testFillAndClearAcrossPages() {
+        BigRecordArray<SimpleRecord> arr = BigRecordArray.create(SimpleRecord.class, 300, 6);
+        SimpleRecord prototype = RecordArray.create(SimpleRecord.class, 1).get(0);
+        prototype.setName("x");
+        prototype.setAge(7);
+        arr.fill(10, 250, prototype);
+        arr.clear(100, 130);
+        for (long i = 0; i < arr.size(); i++) {
+            boolean filled = i >= 10 && i < 250 && !(i >= 100 && i < 130);
+            Assert.assertEquals(arr.get(i).getAge(), filled ? 7 : 0);
+            Assert.assertEquals(arr.get(i).getName(), filled ? "x" : null);
+        }
+    }
+
+    @Test
+    public void testIndexValidation() {
+        BigRecordArray<SimpleRecord> arr = BigRecordArray.create(SimpleRecord.class, 100, 6);
+        for (long index : new long[]{-1, 100, 1L << 38, Long.MIN_VALUE}) {
+            try {
+                arr.get(index);
+                Assert.fail("Expected IndexOutOfBoundsException for " + index);
+            } catch (IndexOutOfBoundsException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void testOffHeapPages() {
+        try (BigRecordArray<OffHeapPoint> arr = BigRecordArray.create(OffHeapPoint.class, 200, 7)) {
+            arr.get(150).setX(3);
+            Assert.assertEquals(arr.page(1).get(22).getX(), 3.0);
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testDimensionsOverflow() {
+        RecordArray.create(SimpleRecord.class, 65536, 65536);
+    }
+}
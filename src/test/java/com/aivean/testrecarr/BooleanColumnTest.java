@@ -0,0 +1,161 @@
+package com.aivean.testrecarr;
+
+import com.aivean.recarr.BooleanColumn;
+import com.aivean.recarr.RecordArray;
+import com.aivean.recarr.RecordList;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+public class BooleanColumnTest {
+
+    private static RecordArray<SimpleRecord> randomArray(int size, long seed, boolean[] expected) {
+        Random rnd = new Random(seed);
+        RecordArray<SimpleRecord> arr = RecordArray.create(SimpleRecord.class, size);
+        for (int i = 0; i < size; i++) {
+            expected[i] = rnd.nextBoolean();
+            arr.get(i).setMale(expected[i]);
+        }
+        return arr;
+    }
+
+    @Test
+    public void testBitOperations() {
+        int n = 1000;
+        boolean[] a = new boolean[n];
+        boolean[] b = new boolean[n];
+        RecordArray<SimpleRecord> arrA = randomArray(n, 1, a);
+        RecordArray<SimpleRecord> arrB = randomArray(n, 2, b);
+        BooleanColumn colA = arrA.booleanColumn("Male");
+        BooleanColumn colB = arrB.booleanColumn("Male");
+
+        int expectedCount = 0;
+        for (boolean v : a) {
+            expectedCount += v ? 1 : 0;
+        }
+        Assert.assertEquals(colA.cardinality(), expectedCount);
+
+        int count = 0;
+        for (int i = colA.nextSetBit(0); i >= 0; i = colA.nextSetBit(i + 1)) {
+            Assert.assertTrue(a[i]);
+            Assert.assertTrue(arrA.get(i).isMale());
+            count++;
+        }
+        Assert.assertEquals(count, expectedCount);
+
+        colA.and(colB);
+        for (int i = 0; i < n; i++) {
+            Assert.assertEquals(arrA.get(i).isMale(), a[i] && b[i]);
+        }
+        colA.or(colB);
+        for (int i = 0; i < n; i++) {
+            Assert.assertEquals(colA.get(i), b[i]);
+        }
+        colA.andNot(colB);
+        Assert.assertEquals(colA.cardinality(), 0);
+        Assert.assertEquals(colA.nextSetBit(0), -1);
+    }
+
+    @Test
+    public void testOperationsAcrossStorages() {
+        try (RecordArray<OffHeapPoint> points = RecordArray.create(OffHeapPoint.class, 100)) {
+            RecordArray<SimpleRecord> arr = RecordArray.create(SimpleRecord.class, 100);
+            for (int i = 0; i < 100; i++) {
+                points.get(i).setVisible(i % 3 == 0);
+                arr.get(i).setMale(i % 2 == 0);
+            }
+            BooleanColumn visible = points.booleanColumn("Visible");
+            Assert.assertEquals(visible.cardinality(), 34);
+            visible.and(arr.booleanColumn("Male"));
+            Assert.assertEquals(visible.cardinality(), 17);
+            Assert.assertEquals(visible.nextSetBit(1), 6);
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testDifferentSizes() {
+        RecordArray.create(SimpleRecord.class, 10).booleanColumn("Male")
+                .or(RecordArray.create(SimpleRecord.class, 11).booleanColumn("Male"));
+    }
+
+    @Test
+    public void testOutOfBounds() {
+        // the bits beyond the size share the last word with the records
+        RecordArray<SimpleRecord> arr = RecordArray.create(SimpleRecord.class, 10);
+        SimpleRecord value = RecordArray.create(SimpleRecord.class, 1).get(0);
+        value.setMale(true);
+        BooleanColumn male = arr.booleanColumn("Male");
+        for (int i : new int[]{10, 20, 63, 64, -1}) {
+            List<Runnable> accesses = Arrays.asList(
+                    () -> arr.get(i).isMale(),
+                    () -> arr.get(i).setMale(true),
+                    () -> arr.set(i, value),
+                    () -> arr.read(i, value),
+                    () -> arr.cursor().moveTo(i).setMale(true),
+                    () -> male.get(i),
+                    () -> male.set(i, true));
+            for (Runnable access : accesses) {
+                try {
+                    access.run();
+                    Assert.fail("Expected IndexOutOfBoundsException for " + i);
+                } catch (IndexOutOfBoundsException e) {
+                    // expected
+                }
+            }
+        }
+        Assert.assertEquals(male.cardinality(), 0);
+        Assert.assertEquals(male.nextSetBit(0), -1);
+    }
+
+    @Test
+    public void testUnalignedRanges() {
+        int n = 300;
+        boolean[] expected = new boolean[n];
+        RecordArray<SimpleRecord> arr = randomArray(n, 3, expected);
+        RecordArray<SimpleRecord> dst = RecordArray.create(SimpleRecord.class, n);
+
+        arr.copyRange(3, dst, 70, 200);
+        arr.moveRange(5, 67, 150);
+        System.arraycopy(expected, 5, expected, 67, 150);
+        arr.fill(10, 140, dst.get(0));
+        java.util.Arrays.fill(expected, 10, 140, false);
+        for (int i = 0; i < n; i++) {
+            Assert.assertEquals(arr.get(i).isMale(), expected[i], "at " + i);
+        }
+
+        // bits beyond the copied ranges are not changed
+        Assert.assertFalse(dst.get(69).isMale());
+        Assert.assertFalse(dst.get(270).isMale());
+    }
+
+    @Test
+    public void testParallelWritesOfAdjacentRecords() {
+        // parallel chunks are aligned to 64 records, so the threads don't share the words of the bitset
+        RecordArray<SimpleRecord> arr = RecordArray.create(SimpleRecord.class, 100_003);
+        for (int round = 0; round < 5; round++) {
+            arr.parallelFor(0, arr.size(), 100, (from, to) -> {
+                for (int i = from; i < to; i++) {
+                    arr.get(i).setMale(true);
+                }
+            });
+            Assert.assertEquals(arr.booleanColumn("Male").cardinality(), arr.size());
+            arr.parallelForEach(r -> r.setMale(false));
+            Assert.assertEquals(arr.booleanColumn("Male").cardinality(), 0);
+        }
+    }
+
+    @Test
+    public void testListAddAllFromArray() {
+        boolean[] expected = new boolean[100];
+        RecordArray<SimpleRecord> arr = randomArray(100, 4, expected);
+        RecordList<SimpleRecord> lst = RecordList.create(SimpleRecord.class);
+        lst.add();
+        lst.addAll(arr);
+        for (int i = 0; i < 100; i++) {
+            Assert.assertEquals(lst.get(i + 1).isMale(), expected[i]);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.aivean.testrecarr;
+
+import com.aivean.recarr.ColumnKernels;
+import com.aivean.recarr.DoubleColumn;
+import com.aivean.recarr.FloatColumn;
+import com.aivean.recarr.RecordArray;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class ColumnKernelsTest {
+
+    @Test
+    public void testFloatKernels() {
+        RecordArray<PointGameSimulator.Point2D> arr = RecordArray.create(PointGameSimulator.Point2D.class, 11);
+        for (int i = 0; i < arr.size(); i++) {
+            arr.get(i).setX(i);
+            arr.get(i).setVx(1);
+        }
+        FloatColumn x = arr.floatColumn("X");
+        FloatColumn vx = arr.floatColumn("Vx");
+
+        ColumnKernels.add(x, vx);
+        ColumnKernels.addScaled(x, vx, 0.5f);
+        Assert.assertEquals(arr.get(10).getX(), 11.5f);
+
+        ColumnKernels.scale(x, 2);
+        Assert.assertEquals(arr.get(0).getX(), 3f);
+
+        Assert.assertEquals(ColumnKernels.sum(x), 2 * (55 + 11 * 1.5), 1e-6);
+        Assert.assertEquals(ColumnKernels.dot(x, vx), ColumnKernels.sum(x), 1e-6);
+        Assert.assertEquals(ColumnKernels.min(x), 3f);
+        Assert.assertEquals(ColumnKernels.max(x), 23f);
+
+        ColumnKernels.clamp(x, 5, 10);
+        Assert.assertEquals(ColumnKernels.min(x), 5f);
+        Assert.assertEquals(ColumnKernels.max(x), 10f);
+    }
+
+    @Test
+    public void testOffHeapDoubleKernels() {
+        try (RecordArray<OffHeapPoint> arr = RecordArray.create(OffHeapPoint.class, 5)) {
+            for (int i = 0; i < arr.size(); i++) {
+                arr.get(i).setX(i);
+                arr.get(i).setY(-1);
+            }
+            DoubleColumn x = arr.doubleColumn("X");
+            DoubleColumn y = arr.doubleColumn("Y");
+
+            ColumnKernels.addScaled(x, y, 2);
+            Assert.assertEquals(arr.get(4).getX(), 2.0);
+            Assert.assertEquals(ColumnKernels.sum(x), 0.0);
+            Assert.assertEquals(ColumnKernels.dot(x, y), 0.0);
+            Assert.assertEquals(ColumnKernels.min(x), -2.0);
+            Assert.assertEquals(ColumnKernels.max(y), -1.0);
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testSizeMismatch() {
+        RecordArray<PointGameSimulator.Point2D> a = RecordArray.create(PointGameSimulator.Point2D.class, 10);
+        RecordArray<PointGameSimulator.Point2D> b = RecordArray.create(PointGameSimulator.Point2D.class, 11);
+        ColumnKernels.add(a.floatColumn("X"), b.floatColumn("X"));
+    }
+}
@@ -0,0 +1,68 @@
+package com.aivean.testrecarr;
+
+import com.aivean.recarr.DoubleColumn;
+import com.aivean.recarr.FloatColumn;
+import com.aivean.recarr.IntColumn;
+import com.aivean.recarr.LongColumn;
+import com.aivean.recarr.RecordArray;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class ColumnViewsTest {
+
+    @Test
+    public void testHeapColumn() {
+        RecordArray<PointGameSimulator.Point2D> arr = RecordArray.create(PointGameSimulator.Point2D.class, 3, 4);
+        FloatColumn x = arr.floatColumn("X");
+        Assert.assertEquals(x.size(), 12);
+        Assert.assertTrue(x.hasArray());
+
+        x.set(5, 1.5f);
+        Assert.assertEquals(arr.get(1, 1).getX(), 1.5f);
+        arr.get(6).setX(2.5f);
+        Assert.assertEquals(x.get(6), 2.5f);
+
+        // backing array is shared with the RecordArray
+        float[] xs = x.array();
+        xs[7] = 3.5f;
+        Assert.assertEquals(arr.get(7).getX(), 3.5f);
+    }
+
+    @Test
+    public void testOffHeapColumn() {
+        try (RecordArray<OffHeapPoint> arr = RecordArray.create(OffHeapPoint.class, 10)) {
+            LongColumn id = arr.longColumn("Id");
+            DoubleColumn y = arr.doubleColumn("Y");
+            Assert.assertEquals(id.size(), 10);
+            Assert.assertFalse(id.hasArray());
+
+            id.set(9, 42L);
+            y.set(9, -1.0);
+            Assert.assertEquals(arr.get(9).getId(), 42L);
+            Assert.assertEquals(arr.get(9).getY(), -1.0);
+            arr.get(0).setY(7.0);
+            Assert.assertEquals(y.get(0), 7.0);
+        }
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void testOffHeapColumnArray() {
+        try (RecordArray<OffHeapPoint> arr = RecordArray.create(OffHeapPoint.class, 10)) {
+            arr.doubleColumn("X").array();
+        }
+    }
+
+    @Test
+    public void testWrongField() {
+        RecordArray<SimpleRecord> arr = RecordArray.create(SimpleRecord.class, 10);
+        IntColumn age = arr.intColumn("Age");
+        Assert.assertEquals(age.get(0), 0);
+
+        // no such field
+        Assert.assertThrows(IllegalArgumentException.class, () -> arr.intColumn("Height"));
+        // wrong type
+        Assert.assertThrows(IllegalArgumentException.class, () -> arr.longColumn("Age"));
+        // not a primitive field
+        Assert.assertThrows(IllegalArgumentException.class, () -> arr.intColumn("Name"));
+    }
+}
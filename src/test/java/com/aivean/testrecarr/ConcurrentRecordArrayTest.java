@@ -0,0 +1,188 @@
+package com.aivean.testrecarr;
+
+import com.aivean.recarr.ConcurrentRecordArray;
+import com.aivean.recarr.RecordArray;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class ConcurrentRecordArrayTest {
+
+    private static final int RECORDS = 8;
+    private static final int WRITES = 200_000;
+
+    /**
+     * All fields of the quote are derived from the sequence, so the torn reads are detected.
+     */
+    private static void quote(QuoteRecord q, long seq) {
+        q.setSequence(seq);
+        q.setSymbol("S" + seq);
+        q.setBid(seq);
+        q.setAsk(seq + 0.5);
+        q.setBidSize((int) seq);
+        q.setAskSize((int) -seq);
+    }
+
+    private static void check(QuoteRecord q) {
+        long seq = q.getSequence();
+        Assert.assertEquals(q.getSymbol(), "S" + seq);
+        Assert.assertEquals(q.getBid(), (double) seq);
+        Assert.assertEquals(q.getAsk(), seq + 0.5);
+        Assert.assertEquals(q.getBidSize(), (int) seq);
+        Assert.assertEquals(q.getAskSize(), (int) -seq);
+    }
+
+    @Test
+    public void testSingleThreaded() {
+        ConcurrentRecordArray<QuoteRecord> quotes = ConcurrentRecordArray.create(QuoteRecord.class, 100);
+        QuoteRecord value = RecordArray.create(QuoteRecord.class, 1).get(0);
+        quote(value, 7);
+        quotes.write(70, value);
+        quotes.update(71, q -> quote(q, 8));
+
+        QuoteRecord snapshot = RecordArray.create(QuoteRecord.class, 1).get(0);
+        quotes.readConsistent(70, snapshot);
+        Assert.assertEquals(snapshot.getSequence(), 7L);
+        check(snapshot);
+        Assert.assertEquals(quotes.readConsistent(71, QuoteRecord::getSymbol), "S8");
+        Assert.assertEquals(quotes.array().get(71).getBidSize(), 8);
+
+        // detached copy as the target
+        QuoteRecord copy = snapshot.copy();
+        quotes.readConsistent(71, copy);
+        check(copy);
+        Assert.assertEquals(copy.getSequence(), 8L);
+
+        // read() of the plain array
+        quotes.array().read(0, copy);
+        Assert.assertNull(copy.getSymbol());
+
+        // the exceptions of the consistent reads are thrown
+        try {
+            quotes.readConsistent(0, q -> q.getSymbol().length());
+            Assert.fail("Expected NullPointerException");
+        } catch (NullPointerException e) {
+            // expected
+        }
+        try {
+            quotes.readConsistent(100, snapshot);
+            Assert.fail("Expected IndexOutOfBoundsException");
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+        try {
+            ConcurrentRecordArray.wrap(quotes.array(), 31);
+            Assert.fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testViews() {
+        RecordArray<QuoteRecord> arr = RecordArray.create(QuoteRecord.class, 4, 5);
+        ConcurrentRecordArray<QuoteRecord> column = ConcurrentRecordArray.wrap(arr.transpose().subArray(2));
+        Assert.assertEquals(column.size(), 4);
+        column.update(3, q -> quote(q, 3));
+        check(arr.get(3, 2));
+        Assert.assertEquals(arr.get(3, 2).getSequence(), 3L);
+
+        QuoteRecord snapshot = RecordArray.create(QuoteRecord.class, 1).get(0);
+        column.readConsistent(3, snapshot);
+        Assert.assertEquals(snapshot.getSymbol(), "S3");
+
+        RecordArray<QuoteRecord> frozen = arr.freeze();
+        frozen.read(17, snapshot);
+        Assert.assertEquals(snapshot.getSymbol(), "S3");
+        arr.read(0, snapshot);
+        Assert.assertEquals(snapshot.getSequence(), 0L);
+
+        // the stripes larger than a view must not share the words of the columns
+        RecordArray<QuoteRecord> big = RecordArray.create(QuoteRecord.class, 10, 100);
+        Assert.assertEquals(ConcurrentRecordArray.wrap(big.slice(128, 1000)).size(), 872);
+        Assert.assertEquals(ConcurrentRecordArray.wrap(big.transpose().subArray(7)).size(), 10);
+        for (RecordArray<QuoteRecord> view : Arrays.asList(big.slice(100, 1000), big.transpose())) {
+            try {
+                ConcurrentRecordArray.wrap(view);
+                Assert.fail("Expected IllegalArgumentException");
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+        try {
+            ConcurrentRecordArray.wrap(big, 5);
+            Assert.fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testConcurrentReaders() throws Exception {
+        ConcurrentRecordArray<QuoteRecord> quotes = ConcurrentRecordArray.create(QuoteRecord.class, RECORDS);
+        for (int i = 0; i < RECORDS; i++) {
+            quote(quotes.array().get(i), i);
+        }
+        AtomicBoolean done = new AtomicBoolean();
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Long>> readers = new ArrayList<>();
+            for (int r = 0; r < 3; r++) {
+                int reader = r;
+                readers.add(pool.submit(() -> {
+                    QuoteRecord snapshot = RecordArray.create(QuoteRecord.class, 1).get(0);
+                    long reads = 0;
+                    long[] last = new long[RECORDS];
+                    while (!done.get()) {
+                        int i = (int) (reads++ % RECORDS);
+                        if (reader == 0) {
+                            String symbol = quotes.readConsistent(i, q ->
+                                    q.getSequence() == q.getBidSize() ? q.getSymbol() : "torn");
+                            Assert.assertNotEquals(symbol, "torn");
+                        } else {
+                            quotes.readConsistent(i, snapshot);
+                            check(snapshot);
+                            // the writes of the record are seen in order
+                            Assert.assertTrue(snapshot.getSequence() >= last[i]);
+                            last[i] = snapshot.getSequence();
+                        }
+                    }
+                    return reads;
+                }));
+            }
+            Future<?> writer = pool.submit(() -> {
+                QuoteRecord value = RecordArray.create(QuoteRecord.class, 1).get(0);
+                for (int seq = 1; seq <= WRITES; seq++) {
+                    int i = seq % RECORDS;
+                    if (seq % 2 == 0) {
+                        quote(value, seq);
+                        quotes.write(i, value);
+                    } else {
+                        long s = seq;
+                        quotes.update(i, q -> quote(q, s));
+                    }
+                }
+            });
+            writer.get();
+            done.set(true);
+            for (Future<Long> reader : readers) {
+                Assert.assertTrue(reader.get() > 0);
+            }
+        } finally {
+            pool.shutdown();
+            pool.awaitTermination(10, TimeUnit.SECONDS);
+        }
+        for (int i = 0; i < RECORDS; i++) {
+            check(quotes.array().get(i));
+            Assert.assertEquals(quotes.array().get(i).getSequence() % RECORDS, (long) i);
+        }
+    }
+}
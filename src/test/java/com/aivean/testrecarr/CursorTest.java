@@ -0,0 +1,77 @@
+package com.aivean.testrecarr;
+
+import com.aivean.recarr.RecordArray;
+import com.aivean.recarr.RecordCursor;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class CursorTest {
+
+    @Test
+    public void testIteration() {
+        RecordArray<SimpleRecord> arr = RecordArray.create(SimpleRecord.class, 5, 2);
+        RecordCursor<SimpleRecord> c = arr.cursor();
+        SimpleRecord r = c.record();
+        Assert.assertEquals(c.index(), -1);
+
+        int count = 0;
+        while (c.next()) {
+            Assert.assertEquals(c.index(), count);
+            r.setAge(count);
+            r.setName("n" + count);
+            count++;
+        }
+        Assert.assertEquals(count, 10);
+        Assert.assertEquals(c.index(), 10);
+        Assert.assertFalse(c.next());
+
+        for (int i = 0; i < arr.size(); i++) {
+            Assert.assertEquals(arr.get(i).getAge(), i);
+            Assert.assertEquals(arr.get(i).getNameAndAge(), "n" + i + " " + i);
+        }
+    }
+
+    @Test
+    public void testMoveTo() {
+        RecordArray<SimpleRecord> arr = RecordArray.create(SimpleRecord.class, 10);
+        arr.get(3).setAge(3);
+        arr.get(7).setAge(7);
+
+        RecordCursor<SimpleRecord> c = arr.cursor();
+        SimpleRecord r = c.record();
+        Assert.assertSame(c.moveTo(3), r);
+        Assert.assertEquals(r.getAge(), 3);
+        // the cursor reflects the current index
+        c.moveTo(7);
+        Assert.assertEquals(r.getAge(), 7);
+        Assert.assertEquals(r, arr.get(7));
+
+        // copy is detached from the cursor
+        SimpleRecord copy = r.copy();
+        c.moveTo(3);
+        Assert.assertEquals(copy.getAge(), 7);
+
+        Assert.assertTrue(c.next());
+        Assert.assertEquals(c.index(), 4);
+    }
+
+    @Test
+    public void testPairwiseAccess() {
+        RecordArray<PointGameSimulator.Point2D> arr = RecordArray.create(PointGameSimulator.Point2D.class, 4);
+        arr.forEachIndex(i -> arr.get(i).setX(i));
+
+        // two cursors, as in the pairwise collision loop
+        PointGameSimulator.Point2D p = arr.cursor().record();
+        RecordCursor<PointGameSimulator.Point2D> qc = arr.cursor();
+        PointGameSimulator.Point2D q = qc.record();
+        float sum = 0;
+        for (int i = 0; i < arr.size(); i++) {
+            ((RecordCursor<?>) p).moveTo(i);
+            for (int j = i + 1; j < arr.size(); j++) {
+                qc.moveTo(j);
+                sum += q.getX() - p.getX();
+            }
+        }
+        Assert.assertEquals(sum, 10f);
+    }
+}
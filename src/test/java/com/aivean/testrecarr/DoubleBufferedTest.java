@@ -0,0 +1,113 @@
+package com.aivean.testrecarr;
+
+import com.aivean.recarr.DoubleBufferedRecordArray;
+import com.aivean.recarr.RecordArray;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class DoubleBufferedTest {
+
+    private static final int N = 10_000;
+    private static final int STEPS = 20;
+
+    /**
+     * New X is the average of X of the record and its neighbors, Y is the step number.
+     */
+    private static void smooth(RecordArray<PointGameSimulator.Point2D> front,
+                               RecordArray<PointGameSimulator.Point2D> back, int from, int to) {
+        int n = front.size();
+        for (int i = from; i < to; i++) {
+            float left = front.get(Math.max(i - 1, 0)).getX();
+            float right = front.get(Math.min(i + 1, n - 1)).getX();
+            PointGameSimulator.Point2D p = back.get(i);
+            p.setX((left + front.get(i).getX() + right) / 3);
+            p.setY(front.get(i).getY() + 1);
+        }
+    }
+
+    private static DoubleBufferedRecordArray<PointGameSimulator.Point2D> points() {
+        DoubleBufferedRecordArray<PointGameSimulator.Point2D> points =
+                DoubleBufferedRecordArray.create(PointGameSimulator.Point2D.class, N);
+        for (int i = 0; i < N; i++) {
+            points.front().get(i).setX(i % 7 == 0 ? 100 : 0);
+            points.front().get(i).setVx(i);
+        }
+        points.copyFrontToBack();
+        return points;
+    }
+
+    @Test
+    public void testSwap() {
+        DoubleBufferedRecordArray<PointGameSimulator.Point2D> points =
+                DoubleBufferedRecordArray.create(PointGameSimulator.Point2D.class, 4, 5);
+        RecordArray<PointGameSimulator.Point2D> front = points.front();
+        RecordArray<PointGameSimulator.Point2D> back = points.back();
+        Assert.assertNotSame(front, back);
+        Assert.assertEquals(back.dimensions(), new int[]{4, 5});
+        Assert.assertEquals(points.generation(), 0L);
+
+        back.get(1, 2).setX(5);
+        points.swap();
+        Assert.assertSame(points.front(), back);
+        Assert.assertSame(points.back(), front);
+        Assert.assertEquals(points.front().get(1, 2).getX(), 5f);
+        Assert.assertEquals(points.back().get(1, 2).getX(), 0f);
+        Assert.assertEquals(points.generation(), 1L);
+
+        points.step((f, b, from, to) -> {
+            Assert.assertEquals(from, 0);
+            Assert.assertEquals(to, 20);
+            Assert.assertSame(f, back);
+            Assert.assertSame(b, front);
+        });
+        Assert.assertSame(points.front(), front);
+        Assert.assertEquals(points.generation(), 2L);
+        points.close();
+    }
+
+    @Test
+    public void testParallelStep() {
+        // reference: the same smoothing with the plain arrays
+        float[] x = new float[N];
+        for (int i = 0; i < N; i++) {
+            x[i] = i % 7 == 0 ? 100 : 0;
+        }
+        for (int t = 0; t < STEPS; t++) {
+            float[] next = new float[N];
+            for (int i = 0; i < N; i++) {
+                next[i] = (x[Math.max(i - 1, 0)] + x[i] + x[Math.min(i + 1, N - 1)]) / 3;
+            }
+            x = next;
+        }
+
+        DoubleBufferedRecordArray<PointGameSimulator.Point2D> sequential = points();
+        DoubleBufferedRecordArray<PointGameSimulator.Point2D> parallel = points();
+        for (int t = 0; t < STEPS; t++) {
+            sequential.step(DoubleBufferedTest::smooth);
+            parallel.parallelStep(DoubleBufferedTest::smooth);
+        }
+        Assert.assertEquals(parallel.generation(), (long) STEPS);
+        for (int i = 0; i < N; i++) {
+            PointGameSimulator.Point2D p = parallel.front().get(i);
+            Assert.assertEquals(p.getX(), x[i]);
+            Assert.assertEquals(sequential.front().get(i).getX(), x[i]);
+            Assert.assertEquals(p.getY(), (float) STEPS);
+            // not written by the step, copied once
+            Assert.assertEquals(p.getVx(), (float) i);
+            Assert.assertEquals(parallel.back().get(i).getVx(), (float) i);
+        }
+    }
+
+    @Test
+    public void testOffHeap() {
+        try (DoubleBufferedRecordArray<OffHeapRecord> arr = DoubleBufferedRecordArray.create(OffHeapRecord.class, 100)) {
+            for (int i = 0; i < 100; i++) {
+                OffHeapTest.fill(arr.front().get(i), i);
+            }
+            arr.parallelStep((front, back, from, to) -> front.copyRange(from, back, from, to - from));
+            for (int i = 0; i < 100; i++) {
+                OffHeapTest.check(arr.front().get(i), i);
+            }
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.aivean.testrecarr;
+
+import com.aivean.recarr.RecordArray;
+import com.aivean.recarr.RecordFactory;
+import com.aivean.recarr.RecordList;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+public class FactoryTest {
+
+    @Test
+    public void testFactory() {
+        RecordFactory<SimpleRecord> factory = RecordArray.factory(SimpleRecord.class);
+        Assert.assertSame(RecordArray.factory(SimpleRecord.class), factory);
+        Assert.assertEquals(factory.recordClass(), SimpleRecord.class);
+
+        RecordArray<SimpleRecord> arr = factory.create(2, 3);
+        Assert.assertEquals(arr.size(), 6);
+        arr.get(1, 2).setAge(5);
+        Assert.assertEquals(arr.get(5).getAge(), 5);
+        Assert.assertEquals(RecordArray.create(SimpleRecord.class, 6).getClass(), arr.getClass());
+
+        RecordList<SimpleRecord> list = factory.createList(0);
+        list.add(arr.get(5));
+        Assert.assertEquals(list.get(0).getAge(), 5);
+    }
+
+    @Test
+    public void testSameSimpleNames() {
+        RecordArray<PointRecord> points = RecordArray.create(PointRecord.class, 10);
+        RecordArray<com.aivean.testrecarr.other.PointRecord> geoPoints =
+                RecordArray.create(com.aivean.testrecarr.other.PointRecord.class, 10);
+        Assert.assertNotEquals(points.getClass(), geoPoints.getClass());
+        points.get(3).setX(1);
+        geoPoints.get(3).setLatitude(51.5);
+        Assert.assertEquals(points.get(3).getX(), 1);
+        Assert.assertEquals(geoPoints.get(3).getLatitude(), 51.5);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testUnsupportedClass() {
+        RecordArray.factory(Runnable.class);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testMapUnsupportedClass() throws IOException {
+        RecordArray.factory(SimpleRecord.class).map(Paths.get("unused.bin"), 10);
+    }
+}
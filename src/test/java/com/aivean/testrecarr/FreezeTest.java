@@ -0,0 +1,132 @@
+package com.aivean.testrecarr;
+
+import com.aivean.recarr.LongColumn;
+import com.aivean.recarr.RecordArray;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.Random;
+
+public class FreezeTest {
+
+    /**
+     * Fills the array with the data of different patterns, so that different codecs are chosen for the columns.
+     */
+    private static RecordArray<OffHeapRecord> patternArray(int size) {
+        Random rnd = new Random(7);
+        RecordArray<OffHeapRecord> arr = RecordArray.create(OffHeapRecord.class, size);
+        long timestamp = 1_600_000_000_000L;
+        for (int i = 0; i < size; i++) {
+            OffHeapRecord r = arr.get(i);
+            // frame of reference: small range
+            r.setIntField(1000 + rnd.nextInt(200) - (i % 2 == 0 ? 0 : 1 << 30));
+            // constant
+            r.setBoolField(true);
+            // runs
+            r.setCharField((char) ('a' + i / 1000));
+            // dictionary
+            r.setByteField((byte) (rnd.nextInt(3) * 100));
+            r.setShortField((short) rnd.nextInt());
+            // small deltas with the rare large jumps
+            timestamp += rnd.nextInt(64) + (i % 100 == 0 ? 1L << 40 : 0);
+            r.setLongField(timestamp);
+            r.setFloatField(i % 10 == 0 ? Float.NaN : i % 10 == 1 ? -0.0f : rnd.nextFloat());
+            r.setDoubleField(rnd.nextLong() * (double) Long.MAX_VALUE);
+            r.setStringField(i % 3 == 0 ? null : "category" + rnd.nextInt(5));
+        }
+        return arr;
+    }
+
+    @Test
+    public void testFrozenValues() {
+        try (RecordArray<OffHeapRecord> arr = patternArray(10_000)) {
+            RecordArray<OffHeapRecord> frozen = arr.freeze();
+            Assert.assertEquals(frozen.size(), arr.size());
+            for (int i = 0; i < arr.size(); i++) {
+                OffHeapRecord f = frozen.get(i);
+                OffHeapRecord r = arr.get(i);
+                Assert.assertEquals(f, r);
+                Assert.assertEquals(Float.floatToRawIntBits(f.getFloatField()),
+                        Float.floatToRawIntBits(r.getFloatField()));
+            }
+
+            // cursor and column views read the compressed columns
+            int n = 0;
+            for (OffHeapRecord f = frozen.cursor().record(); n < frozen.size(); n++) {
+                Assert.assertTrue(((com.aivean.recarr.RecordCursor<?>) f).next());
+                Assert.assertEquals(f.getLongField(), arr.get(n).getLongField());
+            }
+            LongColumn longs = frozen.longColumn("LongField");
+            Assert.assertFalse(longs.hasArray());
+            Assert.assertEquals(longs.get(9999), arr.get(9999).getLongField());
+        }
+    }
+
+    @Test
+    public void testFrozenMultidimensional() {
+        RecordArray<SimpleRecord> arr = RecordArray.create(SimpleRecord.class, 30, 40);
+        for (int i = 0; i < arr.size(); i++) {
+            arr.get(i).setAge(i % 50);
+            arr.get(i).setName("n" + i % 7);
+            arr.get(i).setMale(i % 200 < 100);
+        }
+        RecordArray<SimpleRecord> frozen = arr.freeze();
+        Assert.assertSame(frozen.freeze(), frozen);
+        Assert.assertEquals(frozen.get(29, 39), arr.get(29, 39));
+        Assert.assertEquals(frozen.get(12, 5).copy(), arr.get(12, 5));
+
+        // the frozen copy is independent of the source array
+        arr.get(0).setAge(-1);
+        Assert.assertEquals(frozen.get(0).getAge(), 0);
+
+        Assert.assertEquals(frozen.sortPermutation("Male", "Age", "Name"), arr.sortPermutation("Male", "Age", "Name"));
+
+        RecordArray<SimpleRecord> thawed = RecordArray.create(SimpleRecord.class, 30, 40);
+        frozen.copyRange(0, thawed, 0, frozen.size());
+        for (int i = 1; i < arr.size(); i++) {
+            Assert.assertEquals(thawed.get(i), arr.get(i));
+        }
+    }
+
+    @Test
+    public void testFrozenWriteTo() throws IOException {
+        try (RecordArray<OffHeapRecord> arr = patternArray(1000)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            arr.freeze().writeTo(Channels.newChannel(out));
+            try (RecordArray<OffHeapRecord> res = RecordArray.readFrom(OffHeapRecord.class,
+                    Channels.newChannel(new ByteArrayInputStream(out.toByteArray())))) {
+                for (int i = 0; i < arr.size(); i++) {
+                    Assert.assertEquals(res.get(i), arr.get(i));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testFrozenIsReadOnly() {
+        RecordArray<SimpleRecord> arr = RecordArray.create(SimpleRecord.class, 10);
+        RecordArray<SimpleRecord> frozen = arr.freeze();
+        Runnable[] mutations = {
+                () -> frozen.get(0).setAge(1),
+                () -> frozen.cursor().moveTo(0).setName("a"),
+                () -> frozen.set(0, arr.get(1)),
+                () -> frozen.fill(0, 10, arr.get(1)),
+                () -> frozen.clear(0, 10),
+                () -> frozen.moveRange(0, 1, 5),
+                () -> frozen.sortBy("Age"),
+                () -> frozen.intColumn("Age").set(0, 1),
+        };
+        for (Runnable m : mutations) {
+            try {
+                m.run();
+                Assert.fail("Expected UnsupportedOperationException");
+            } catch (UnsupportedOperationException e) {
+                // expected
+            }
+        }
+    }
+}
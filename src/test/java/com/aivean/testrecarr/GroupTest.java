@@ -0,0 +1,135 @@
+package com.aivean.testrecarr;
+
+import com.aivean.recarr.FloatColumn;
+import com.aivean.recarr.LongColumn;
+import com.aivean.recarr.RecordArray;
+import com.aivean.recarr.RecordList;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.Random;
+
+public class GroupTest {
+
+    private static RecordArray<ParticleRecord> randomArray(int size, long seed) {
+        Random rnd = new Random(seed);
+        RecordArray<ParticleRecord> arr = RecordArray.create(ParticleRecord.class, size);
+        for (int i = 0; i < size; i++) {
+            ParticleRecord p = arr.get(i);
+            p.setX(rnd.nextFloat());
+            p.setY(rnd.nextFloat());
+            p.setVx(rnd.nextFloat());
+            p.setVy(rnd.nextFloat());
+            p.setId(rnd.nextLong());
+            p.setMass(rnd.nextInt(100));
+            p.setName("p" + i);
+        }
+        return arr;
+    }
+
+    private static void assertEquals(RecordArray<ParticleRecord> actual, RecordArray<ParticleRecord> expected) {
+        Assert.assertEquals(actual.size(), expected.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Assert.assertEquals(actual.get(i), expected.get(i), "index " + i);
+        }
+    }
+
+    @Test
+    public void testFieldsAreIndependent() {
+        // the size is not a multiple of the block
+        int n = 103;
+        RecordArray<ParticleRecord> arr = randomArray(n, 1);
+        Random rnd = new Random(1);
+        for (int i = 0; i < n; i++) {
+            ParticleRecord p = arr.get(i);
+            Assert.assertEquals(p.getX(), rnd.nextFloat());
+            Assert.assertEquals(p.getY(), rnd.nextFloat());
+            Assert.assertEquals(p.getVx(), rnd.nextFloat());
+            Assert.assertEquals(p.getVy(), rnd.nextFloat());
+            Assert.assertEquals(p.getId(), rnd.nextLong());
+            Assert.assertEquals(p.getMass(), rnd.nextInt(100));
+            Assert.assertEquals(p.getName(), "p" + i);
+        }
+
+        ParticleRecord before = arr.get(50).copy();
+        ParticleRecord after = arr.get(52).copy();
+        ParticleRecord p = arr.get(51);
+        p.move(2);
+        p.setId(-1);
+        p.setMass(7);
+        Assert.assertEquals(arr.get(50), before);
+        Assert.assertEquals(arr.get(52), after);
+        Assert.assertEquals(p.getId(), -1);
+        Assert.assertEquals(p.getMass(), 7);
+    }
+
+    @Test
+    public void testRangeOpsAndSort() {
+        int n = 100;
+        RecordArray<ParticleRecord> arr = randomArray(n, 2);
+        RecordArray<ParticleRecord> expected = RecordArray.create(ParticleRecord.class, n);
+        for (int i = 0; i < n; i++) {
+            expected.set(i, arr.get(i));
+        }
+        assertEquals(arr, expected);
+
+        for (int[] move : new int[][]{{0, 3, 90}, {5, 1, 90}, {8, 16, 50}}) {
+            RecordArray<ParticleRecord> copy = RecordArray.create(ParticleRecord.class, n);
+            expected.copyRange(0, copy, 0, n);
+            for (int i = 0; i < move[2]; i++) {
+                expected.set(move[1] + i, copy.get(move[0] + i));
+            }
+            arr.moveRange(move[0], move[1], move[2]);
+            assertEquals(arr, expected);
+        }
+
+        arr.clear(10, 20);
+        for (int i = 10; i < 20; i++) {
+            Assert.assertEquals(arr.get(i).getX(), 0f);
+            Assert.assertEquals(arr.get(i).getMass(), 0);
+            Assert.assertNull(arr.get(i).getName());
+        }
+        Assert.assertEquals(arr.get(20), expected.get(20));
+
+        arr.sortBy("Mass", "Id");
+        for (int i = 1; i < n; i++) {
+            ParticleRecord a = arr.get(i - 1);
+            ParticleRecord b = arr.get(i);
+            Assert.assertTrue(a.getMass() < b.getMass() || a.getMass() == b.getMass() && a.getId() <= b.getId());
+        }
+    }
+
+    @Test
+    public void testViewsSerializationAndList() throws IOException {
+        int n = 70;
+        RecordArray<ParticleRecord> arr = randomArray(n, 3);
+
+        FloatColumn vy = arr.floatColumn("Vy");
+        LongColumn mass = arr.longColumn("Mass");
+        Assert.assertFalse(vy.hasArray());
+        for (int i = 0; i < n; i++) {
+            Assert.assertEquals(vy.get(i), arr.get(i).getVy());
+            Assert.assertEquals(mass.get(i), arr.get(i).getMass());
+        }
+        vy.set(69, 5f);
+        mass.set(69, 5);
+        Assert.assertEquals(arr.get(69).getVy(), 5f);
+        Assert.assertEquals(arr.get(69).getMass(), 5);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        arr.writeTo(Channels.newChannel(out));
+        assertEquals(RecordArray.readFrom(ParticleRecord.class,
+                Channels.newChannel(new ByteArrayInputStream(out.toByteArray()))), arr);
+        assertEquals(arr.freeze(), arr);
+
+        RecordList<ParticleRecord> list = RecordList.create(ParticleRecord.class);
+        list.addAll(arr);
+        for (int i = 0; i < n; i++) {
+            Assert.assertEquals(list.get(i), arr.get(i));
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.aivean.testrecarr;
+
+import com.aivean.recarr.IntColumn;
+import com.aivean.recarr.LongColumn;
+import com.aivean.recarr.RecordArray;
+import com.aivean.recarr.RecordIndex;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+public class IndexTest {
+
+    /**
+     * Compares the indices of the array with the values of the fields.
+     */
+    private static void check(RecordArray<IndexedRecord> arr) {
+        RecordIndex ids = arr.buildIndex("Id");
+        RecordIndex groups = arr.buildIndex("Group");
+        Map<Long, Integer> idCounts = new HashMap<>();
+        Map<Long, Integer> groupCounts = new HashMap<>();
+        for (int i = 0; i < arr.size(); i++) {
+            idCounts.merge(arr.get(i).getId(), 1, Integer::sum);
+            groupCounts.merge((long) arr.get(i).getGroup(), 1, Integer::sum);
+        }
+        Assert.assertEquals(ids.keys(), idCounts.size());
+        Assert.assertEquals(groups.keys(), groupCounts.size());
+        idCounts.forEach((key, count) -> {
+            Assert.assertEquals(ids.count(key), (int) count, "Id " + key);
+            for (int i = ids.find(key); i >= 0; i = ids.next(i)) {
+                Assert.assertEquals(arr.get(i).getId(), (long) key);
+            }
+        });
+        groupCounts.forEach((key, count) -> {
+            Assert.assertEquals(groups.count(key), (int) count, "Group " + key);
+            for (int i = groups.find(key); i >= 0; i = groups.next(i)) {
+                Assert.assertEquals(arr.get(i).getGroup(), (long) key);
+            }
+        });
+    }
+
+    @Test
+    public void testSetters() {
+        RecordArray<IndexedRecord> arr = RecordArray.create(IndexedRecord.class, 10);
+        RecordIndex ids = arr.buildIndex("Id");
+        Assert.assertSame(arr.buildIndex("Id"), ids);
+        Assert.assertEquals(ids.find(0), 0);
+        Assert.assertEquals(ids.count(0), 10);
+        Assert.assertEquals(ids.keys(), 1);
+
+        arr.get(3).setId(1L << 40);
+        arr.get(5).setId(7);
+        arr.get(8).setId(7);
+        Assert.assertEquals(ids.find(1L << 40), 3);
+        Assert.assertFalse(ids.contains(1));
+        Assert.assertEquals(ids.count(7), 2);
+        int first = ids.find(7);
+        Assert.assertEquals(first + ids.next(first), 5 + 8);
+        Assert.assertEquals(ids.next(ids.next(first)), -1);
+        Assert.assertEquals(ids.count(0), 7);
+
+        arr.get(5).setId(1L << 40);
+        arr.cursor().moveTo(8).setId(0);
+        Assert.assertFalse(ids.contains(7));
+        Assert.assertEquals(ids.count(1L << 40), 2);
+        Assert.assertEquals(ids.keys(), 2);
+
+        arr.get(2).setGroup(1000);
+        Assert.assertEquals(arr.buildIndex("Group").find(1000), 2);
+        // the failed write doesn't change the index
+        try {
+            arr.get(2).setGroup(5000);
+            Assert.fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        Assert.assertEquals(arr.buildIndex("Group").find(1000), 2);
+
+        IndexedRecord value = arr.get(3).copy();
+        arr.set(9, value);
+        Assert.assertEquals(ids.count(1L << 40), 3);
+        check(arr);
+    }
+
+    @Test
+    public void testBulkOps() throws IOException {
+        RecordArray<IndexedRecord> arr = RecordArray.create(IndexedRecord.class, 4, 50);
+        for (int i = 0; i < arr.size(); i++) {
+            arr.get(i).setId(i);
+            arr.get(i).setGroup(i % 7);
+        }
+        check(arr);
+
+        arr.fill(10, 20, arr.get(100));
+        check(arr);
+        arr.clear(150, 160);
+        check(arr);
+        arr.moveRange(0, 5, 100);
+        check(arr);
+        arr.subArray(2).fill(0, 10, arr.get(199));
+        arr.transpose().subArray(3).clear(0, 4);
+        check(arr);
+
+        RecordArray<IndexedRecord> dst = RecordArray.create(IndexedRecord.class, 300);
+        arr.copyRange(0, dst, 100, 200);
+        check(dst);
+
+        arr.sortBy("Group", "Id");
+        check(arr);
+        Assert.assertEquals(arr.get(arr.buildIndex("Group").find(3)).getGroup(), 3);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        arr.writeTo(Channels.newChannel(out));
+        RecordArray<IndexedRecord> read = RecordArray.readFrom(IndexedRecord.class,
+                Channels.newChannel(new ByteArrayInputStream(out.toByteArray())));
+        check(read);
+        Assert.assertEquals(read.buildIndex("Id").find(199), arr.buildIndex("Id").find(199));
+    }
+
+    @Test
+    public void testRandomUpdates() {
+        // many distinct keys, the table grows and the removed keys are shifted back
+        RecordArray<IndexedRecord> arr = RecordArray.create(IndexedRecord.class, 20_000);
+        Random rnd = new Random(42);
+        for (int step = 0; step < 5; step++) {
+            int bound = step % 2 == 0 ? 1 << 20 : 100;
+            for (int n = 0; n < 20_000; n++) {
+                int i = rnd.nextInt(arr.size());
+                arr.get(i).setId(rnd.nextInt(bound) - bound / 2);
+                arr.get(i).setGroup(rnd.nextInt(1000));
+            }
+            check(arr);
+        }
+    }
+
+    @Test
+    public void testColumnViews() {
+        RecordArray<IndexedRecord> arr = RecordArray.create(IndexedRecord.class, 100);
+        LongColumn ids = arr.longColumn("Id");
+        IntColumn groups = arr.intColumn("Group");
+        for (int i = 0; i < arr.size(); i++) {
+            ids.set(i, i * 3);
+            groups.set(i, i % 7);
+        }
+        check(arr);
+        Assert.assertEquals(arr.buildIndex("Id").find(30), 10);
+        Assert.assertEquals(arr.buildIndex("Group").count(6), 14);
+
+        // the writes through the arrays would bypass the index
+        Assert.assertFalse(ids.hasArray());
+        Assert.assertFalse(groups.hasArray());
+        try {
+            ids.array();
+            Assert.fail("Expected UnsupportedOperationException");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testSnapshots() {
+        RecordArray<SimpleRecord> arr = RecordArray.create(SimpleRecord.class, 100);
+        for (int i = 0; i < arr.size(); i++) {
+            arr.get(i).setAge(i / 10);
+        }
+        RecordIndex ages = arr.buildIndex("Age");
+        Assert.assertEquals(ages.find(3), 30);
+        Assert.assertEquals(ages.next(30), 31);
+        Assert.assertEquals(ages.count(3), 10);
+        Assert.assertEquals(ages.keys(), 10);
+
+        // not updated with the array
+        arr.get(30).setAge(100);
+        Assert.assertEquals(ages.count(3), 10);
+        Assert.assertEquals(arr.buildIndex("Age").count(3), 9);
+
+        RecordArray<IndexedRecord> indexed = RecordArray.create(IndexedRecord.class, 10);
+        indexed.get(4).setId(4);
+        Assert.assertEquals(indexed.freeze().buildIndex("Id").find(4), 4);
+        Assert.assertEquals(indexed.slice(2, 10).buildIndex("Id").find(4), 2);
+
+        try {
+            arr.buildIndex("Name");
+            Assert.fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            indexed.buildIndex("Unknown");
+            Assert.fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+}
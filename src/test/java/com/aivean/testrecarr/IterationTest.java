@@ -0,0 +1,80 @@
+package com.aivean.testrecarr;
+
+import com.aivean.recarr.RecordArray;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+public class IterationTest {
+
+    @Test
+    public void testForEach() {
+        RecordArray<PointRecord> arr = RecordArray.create(PointRecord.class, 10, 10);
+        arr.forEachIndex(i -> arr.get(i).setX(i));
+
+        AtomicInteger expected = new AtomicInteger();
+        arr.forEach(p -> Assert.assertEquals(p.getX(), expected.getAndIncrement()));
+        Assert.assertEquals(expected.get(), 100);
+    }
+
+    @Test
+    public void testParallelForEach() {
+        RecordArray<PointRecord> arr = RecordArray.create(PointRecord.class, 100_000);
+        arr.parallelForEachIndex(i -> arr.get(i).setX(i));
+        arr.parallelForEach(p -> p.setY(p.getX() * 2));
+
+        for (int i = 0; i < arr.size(); i++) {
+            Assert.assertEquals(arr.get(i).getY(), i * 2);
+        }
+    }
+
+    @Test
+    public void testParallelForChunks() {
+        RecordArray<PointRecord> arr = RecordArray.create(PointRecord.class, 10_000);
+        ConcurrentHashMap<Integer, Integer> chunks = new ConcurrentHashMap<>();
+        LongAdder processed = new LongAdder();
+
+        arr.parallelFor(10, 9_990, 500, (from, to) -> {
+            Assert.assertTrue(to - from <= 500);
+            chunks.put(from, to);
+            for (int i = from; i < to; i++) {
+                arr.get(i).setZ(1);
+            }
+            processed.add(to - from);
+        });
+
+        Assert.assertEquals(processed.sum(), 9_980);
+        // inner split points are aligned to 64 records
+        chunks.forEach((from, to) -> {
+            Assert.assertTrue(from == 10 || from % 64 == 0, "from: " + from);
+            Assert.assertTrue(to == 9_990 || to % 64 == 0, "to: " + to);
+        });
+        Assert.assertEquals(arr.get(9).getZ(), 0);
+        Assert.assertEquals(arr.get(9_990).getZ(), 0);
+    }
+
+    @Test(expectedExceptions = IndexOutOfBoundsException.class)
+    public void testParallelForOutOfRange() {
+        RecordArray<PointRecord> arr = RecordArray.create(PointRecord.class, 10);
+        arr.parallelFor(0, 11, 1, (from, to) -> {
+        });
+    }
+
+    @Test
+    public void testStreams() {
+        RecordArray<PointRecord> arr = RecordArray.create(PointRecord.class, 1000);
+        arr.forEachIndex(i -> arr.get(i).setX(i));
+
+        Spliterator<PointRecord> spliterator = arr.spliterator();
+        Assert.assertTrue(spliterator.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED));
+        Assert.assertEquals(spliterator.getExactSizeIfKnown(), 1000);
+
+        Assert.assertEquals(arr.stream().mapToLong(PointRecord::getX).sum(), 999 * 1000 / 2);
+        Assert.assertEquals(arr.parallelStream().mapToLong(PointRecord::getX).sum(), 999 * 1000 / 2);
+        Assert.assertEquals(arr.parallelStream().filter(p -> p.getX() % 2 == 0).count(), 500);
+    }
+}
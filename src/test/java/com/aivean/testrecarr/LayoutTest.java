@@ -0,0 +1,182 @@
+package com.aivean.testrecarr;
+
+import com.aivean.recarr.RecordArray;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.Arrays;
+
+public class LayoutTest {
+
+    private static final int[][] DIMENSIONS = {
+            {8, 8, 8}, {5, 7, 3}, {16, 9, 1}, {1, 12, 10}, {17, 1, 1}, {3, 1, 6}, {9, 10, 11}
+    };
+
+    private static int[] indices(RecordArray<?> arr, int i, int j, int k) {
+        return Arrays.copyOf(new int[]{i, j, k}, arr.dimensions().length);
+    }
+
+    @Test
+    public void testTiledBijection() {
+        for (int[] d : DIMENSIONS) {
+            RecordArray<VoxelRecord> arr = RecordArray.create(VoxelRecord.class, d);
+            int id = 0;
+            for (int i = 0; i < d[0]; i++) {
+                for (int j = 0; j < d[1]; j++) {
+                    for (int k = 0; k < d[2]; k++) {
+                        arr.get(i, j, k).setId(++id);
+                    }
+                }
+            }
+            // each 1d index is used once
+            boolean[] seen = new boolean[arr.size() + 1];
+            for (int i = 0; i < arr.size(); i++) {
+                int v = arr.get(i).getId();
+                Assert.assertTrue(v > 0 && !seen[v], Arrays.toString(d) + " " + i);
+                seen[v] = true;
+            }
+            id = 0;
+            for (int i = 0; i < d[0]; i++) {
+                for (int j = 0; j < d[1]; j++) {
+                    for (int k = 0; k < d[2]; k++) {
+                        id++;
+                        Assert.assertEquals(arr.get(i, j, k).getId(), id);
+                        Assert.assertEquals(arr.get(arr.index(indices(arr, i, j, k))).getId(), id);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testMortonBijection() {
+        for (int[] d : DIMENSIONS) {
+            RecordArray<MortonVoxelRecord> arr = RecordArray.create(MortonVoxelRecord.class, d);
+            int id = 0;
+            for (int i = 0; i < d[0]; i++) {
+                for (int j = 0; j < d[1]; j++) {
+                    for (int k = 0; k < d[2]; k++) {
+                        arr.get(i, j, k).setId(++id);
+                    }
+                }
+            }
+            boolean[] seen = new boolean[arr.size() + 1];
+            for (int i = 0; i < arr.size(); i++) {
+                int v = arr.get(i).getId();
+                Assert.assertTrue(v > 0 && !seen[v], Arrays.toString(d) + " " + i);
+                seen[v] = true;
+            }
+            id = 0;
+            for (int i = 0; i < d[0]; i++) {
+                for (int j = 0; j < d[1]; j++) {
+                    for (int k = 0; k < d[2]; k++) {
+                        id++;
+                        Assert.assertEquals(arr.get(i, j, k).getId(), id);
+                        Assert.assertEquals(arr.get(arr.index(indices(arr, i, j, k))).getId(), id);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testLocality() {
+        // 8x8x8 tiles are stored contiguously
+        RecordArray<VoxelRecord> tiled = RecordArray.create(VoxelRecord.class, 16, 16, 16);
+        for (int i = 0; i < 8; i++) {
+            for (int j = 0; j < 8; j++) {
+                for (int k = 0; k < 8; k++) {
+                    Assert.assertTrue(tiled.index(i, j, k) < 512);
+                }
+            }
+        }
+        Assert.assertEquals(tiled.index(0, 0, 8), 512);
+        Assert.assertEquals(tiled.index(0, 1, 0), 8);
+
+        // 4x4x4 tiles in the Z-order
+        RecordArray<MortonVoxelRecord> morton = RecordArray.create(MortonVoxelRecord.class, 8, 8, 8);
+        Assert.assertEquals(morton.index(0, 0, 1), 1);
+        Assert.assertEquals(morton.index(0, 1, 0), 2);
+        Assert.assertEquals(morton.index(1, 0, 0), 4);
+        Assert.assertEquals(morton.index(1, 1, 1), 7);
+        Assert.assertEquals(morton.index(0, 0, 2), 8);
+        Assert.assertEquals(morton.index(3, 3, 3), 63);
+        Assert.assertEquals(morton.index(0, 0, 4), 64);
+
+        // 2d arrays are 2d Z-curves
+        RecordArray<MortonVoxelRecord> plane = RecordArray.create(MortonVoxelRecord.class, 8, 8);
+        Assert.assertEquals(plane.index(0, 1), 1);
+        Assert.assertEquals(plane.index(1, 0), 2);
+        Assert.assertEquals(plane.index(1, 1), 3);
+        Assert.assertEquals(plane.get(1, 1).getId(), plane.get(3).getId());
+    }
+
+    @Test
+    public void testViews() {
+        RecordArray<VoxelRecord> arr = RecordArray.create(VoxelRecord.class, 9, 10, 11);
+        for (int i = 0; i < arr.size(); i++) {
+            arr.get(i).setId(i);
+        }
+        RecordArray<VoxelRecord> plane = arr.subArray(2);
+        RecordArray<VoxelRecord> t = arr.transpose();
+        RecordArray<VoxelRecord> flat = arr.reshape(90, 11);
+        for (int j = 0; j < 10; j++) {
+            for (int k = 0; k < 11; k++) {
+                Assert.assertEquals(plane.get(j, k).getId(), arr.get(2, j, k).getId());
+                Assert.assertEquals(t.get(k, j, 2).getId(), arr.get(2, j, k).getId());
+                Assert.assertEquals(flat.get(20 + j, k).getId(), arr.get(2, j, k).getId());
+            }
+        }
+
+        // row-major order of the view
+        RecordArray<VoxelRecord> row = plane.subArray(3);
+        row.clear(0, row.size());
+        for (int k = 0; k < 11; k++) {
+            Assert.assertEquals(arr.get(2, 3, k).getId(), 0);
+        }
+        Assert.assertEquals(arr.get(2, 4, 0).getId(), arr.index(2, 4, 0));
+    }
+
+    @Test
+    public void testSerializationAndFreeze() throws IOException {
+        RecordArray<MortonVoxelRecord> arr = RecordArray.create(MortonVoxelRecord.class, 6, 7, 5);
+        for (int i = 0; i < arr.size(); i++) {
+            arr.get(i).setId(i);
+            arr.get(i).setDensity(i / 2f);
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        arr.writeTo(Channels.newChannel(out));
+        RecordArray<MortonVoxelRecord> read = RecordArray.readFrom(MortonVoxelRecord.class,
+                Channels.newChannel(new ByteArrayInputStream(out.toByteArray())));
+        RecordArray<MortonVoxelRecord> frozen = arr.freeze();
+        for (int i = 0; i < 6; i++) {
+            for (int j = 0; j < 7; j++) {
+                for (int k = 0; k < 5; k++) {
+                    Assert.assertEquals(read.get(i, j, k).getId(), arr.get(i, j, k).getId());
+                    Assert.assertEquals(frozen.get(i, j, k).getDensity(), arr.get(i, j, k).getDensity());
+                }
+            }
+        }
+
+        // the written view keeps the N-dimensional indices
+        out = new ByteArrayOutputStream();
+        arr.transpose().writeTo(Channels.newChannel(out));
+        read = RecordArray.readFrom(MortonVoxelRecord.class,
+                Channels.newChannel(new ByteArrayInputStream(out.toByteArray())));
+        Assert.assertEquals(read.dimensions(), new int[]{5, 7, 6});
+        Assert.assertEquals(read.get(4, 3, 2).getId(), arr.get(2, 3, 4).getId());
+
+        // different layout, same fields
+        try {
+            RecordArray.readFrom(VoxelRecord.class, Channels.newChannel(new ByteArrayInputStream(out.toByteArray())));
+            Assert.fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.aivean.testrecarr;
+
+import com.aivean.recarr.RecordArray;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+public class MappedTest {
+
+    @Test
+    public void testPersistAndRemap() throws IOException {
+        Path file = Files.createTempFile("recarr", ".bin");
+        try {
+            // empty file is initialized with the given dimensions
+            try (RecordArray<OffHeapPoint> arr = RecordArray.map(OffHeapPoint.class, file, 10, 20)) {
+                Assert.assertEquals(arr.size(), 200);
+                Assert.assertEquals(arr.get(5).getX(), 0.0);
+                for (int i = 0; i < arr.size(); i++) {
+                    OffHeapPoint p = arr.get(i);
+                    p.setId(i * 1_000_000_000L);
+                    p.setX(i / 2.0);
+                    p.setY(-i);
+                    p.setVisible(i % 3 == 0);
+                }
+            }
+
+            // existing file is reopened with its own dimensions
+            try (RecordArray<OffHeapPoint> arr = RecordArray.map(OffHeapPoint.class, file)) {
+                Assert.assertEquals(arr.size(), 200);
+                for (int i = 0; i < arr.size(); i++) {
+                    OffHeapPoint p = arr.get(i);
+                    Assert.assertEquals(p.getId(), i * 1_000_000_000L);
+                    Assert.assertEquals(p.getX(), i / 2.0);
+                    Assert.assertEquals(p.getY(), (double) -i);
+                    Assert.assertEquals(p.isVisible(), i % 3 == 0);
+                }
+                Assert.assertEquals(arr.get(3, 4), arr.get(64));
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testDimensionsMismatch() throws IOException {
+        Path file = Files.createTempFile("recarr", ".bin");
+        try {
+            RecordArray.map(OffHeapPoint.class, file, 10).close();
+            RecordArray.map(OffHeapPoint.class, file, 11);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testNotRecordArrayFile() throws IOException {
+        Path file = Files.createTempFile("recarr", ".bin");
+        try {
+            Files.write(file, new byte[100]);
+            RecordArray.map(OffHeapPoint.class, file);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testTruncatedFile() throws IOException {
+        Path file = Files.createTempFile("recarr", ".bin");
+        try {
+            RecordArray.map(OffHeapPoint.class, file, 1000).close();
+            long size = Files.size(file);
+            try (FileChannel ch = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                ch.truncate(size - 1);
+            }
+            try {
+                RecordArray.map(OffHeapPoint.class, file);
+                Assert.fail("Expected IOException");
+            } catch (IOException e) {
+                // expected
+            }
+            // the file is not extended
+            Assert.assertEquals(Files.size(file), size - 1);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testHeapRecordCantBeMapped() throws IOException {
+        Path file = Files.createTempFile("recarr", ".bin");
+        try {
+            RecordArray.map(PointRecord.class, file, 10);
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
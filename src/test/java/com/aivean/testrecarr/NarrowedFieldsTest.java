@@ -0,0 +1,220 @@
+package com.aivean.testrecarr;
+
+import com.aivean.recarr.IntColumn;
+import com.aivean.recarr.LongColumn;
+import com.aivean.recarr.RecordArray;
+import com.aivean.recarr.RecordList;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.Random;
+
+public class NarrowedFieldsTest {
+
+    private static void fill(RecordArray<TelemetryRecord> arr, long seed) {
+        Random rnd = new Random(seed);
+        for (int i = 0; i < arr.size(); i++) {
+            TelemetryRecord r = arr.get(i);
+            r.setLevel(rnd.nextInt(32));
+            r.setTemperature((short) (rnd.nextInt(1651) - 400));
+            r.setTimestamp(1_500_000_000_000L + (long) (rnd.nextDouble() * 1_000_000_000_000L));
+            r.setCode((char) rnd.nextInt(128));
+            r.setValue(rnd.nextDouble());
+        }
+    }
+
+    private static void assertEquals(RecordArray<TelemetryRecord> actual, RecordArray<TelemetryRecord> expected) {
+        Assert.assertEquals(actual.size(), expected.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Assert.assertEquals(actual.get(i), expected.get(i), "index " + i);
+        }
+    }
+
+    @Test
+    public void testReadWrite() {
+        int n = 1000;
+        RecordArray<TelemetryRecord> arr = RecordArray.create(TelemetryRecord.class, n);
+        // the default value is the minimum of the range
+        Assert.assertEquals(arr.get(0).getLevel(), 0);
+        Assert.assertEquals(arr.get(0).getTemperature(), -400);
+        Assert.assertEquals(arr.get(0).getTimestamp(), 1_500_000_000_000L);
+
+        fill(arr, 1);
+        Random rnd = new Random(1);
+        for (int i = 0; i < n; i++) {
+            TelemetryRecord r = arr.get(i);
+            Assert.assertEquals(r.getLevel(), rnd.nextInt(32));
+            Assert.assertEquals(r.getTemperature(), (short) (rnd.nextInt(1651) - 400));
+            Assert.assertEquals(r.getTimestamp(), 1_500_000_000_000L + (long) (rnd.nextDouble() * 1_000_000_000_000L));
+            Assert.assertEquals(r.getCode(), (char) rnd.nextInt(128));
+            Assert.assertEquals(r.getValue(), rnd.nextDouble());
+        }
+
+        TelemetryRecord r = arr.get(500);
+        r.setLevel(31);
+        r.setTemperature((short) 1250);
+        r.setTemperature((short) -400);
+        Assert.assertEquals(arr.get(499).copy(), arr.get(499));
+        Assert.assertEquals(r.getLevel(), 31);
+        Assert.assertEquals(r.getTemperature(), -400);
+    }
+
+    @Test
+    public void testRangeValidation() {
+        RecordArray<TelemetryRecord> arr = RecordArray.create(TelemetryRecord.class, 10);
+        TelemetryRecord r = arr.get(3);
+        r.setLevel(7);
+        Runnable[] invalid = {
+                () -> r.setLevel(32),
+                () -> r.setLevel(-1),
+                () -> r.setTemperature((short) 1251),
+                () -> r.setTemperature((short) -401),
+                () -> r.setTimestamp(0),
+                () -> r.setTimestamp(Long.MAX_VALUE),
+                () -> r.setCode((char) 128),
+                () -> arr.intColumn("Level").set(3, 32),
+        };
+        for (Runnable write : invalid) {
+            try {
+                write.run();
+                Assert.fail("Expected IllegalArgumentException");
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+        // failed writes don't change the value
+        Assert.assertEquals(r.getLevel(), 7);
+        Assert.assertEquals(arr.get(2).getLevel(), 0);
+        Assert.assertEquals(arr.get(4).getLevel(), 0);
+    }
+
+    @Test
+    public void testOutOfBounds() {
+        RecordArray<TelemetryRecord> arr = RecordArray.create(TelemetryRecord.class, 10);
+        fill(arr, 1);
+        RecordArray<TelemetryRecord> expected = RecordArray.create(TelemetryRecord.class, 10);
+        fill(expected, 1);
+        IntColumn level = arr.intColumn("Level");
+        // 11 is in the spare bits of the last word, the value of 12 spans the word beyond the array
+        for (int i : new int[]{10, 11, 12, 100, -1}) {
+            Runnable[] invalid = {
+                    () -> arr.get(i).getLevel(),
+                    () -> arr.get(i).setLevel(7),
+                    () -> arr.get(i).setLevel(31),
+                    () -> arr.get(i).getTemperature(),
+                    () -> arr.get(i).setCode((char) 127),
+                    () -> level.get(i),
+                    () -> level.set(i, 31),
+            };
+            for (Runnable access : invalid) {
+                try {
+                    access.run();
+                    Assert.fail("Expected IndexOutOfBoundsException");
+                } catch (IndexOutOfBoundsException e) {
+                    // expected
+                }
+            }
+        }
+        // failed writes don't change the neighbouring records
+        assertEquals(arr, expected);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testFillOutOfRange() {
+        RecordArray<TelemetryRecord> arr = RecordArray.create(TelemetryRecord.class, 10);
+        RecordList<TelemetryRecord> list = RecordList.create(TelemetryRecord.class);
+        // the list is not narrowed
+        list.add().setLevel(100);
+        arr.fill(0, 10, list.get(0));
+    }
+
+    @Test
+    public void testRangeOps() {
+        int n = 777;
+        RecordArray<TelemetryRecord> arr = RecordArray.create(TelemetryRecord.class, n);
+        fill(arr, 2);
+        RecordArray<TelemetryRecord> expected = RecordArray.create(TelemetryRecord.class, n);
+        arr.copyRange(0, expected, 0, n);
+        assertEquals(expected, arr);
+
+        // overlapping moves, aligned and unaligned within the packed words
+        for (int[] move : new int[][]{{0, 12, 700}, {12, 0, 700}, {3, 17, 600}, {150, 5, 500}, {1, 2, 775}}) {
+            for (int i = move[2] - 1; i >= 0; i--) {
+                if (move[0] < move[1]) {
+                    expected.set(move[1] + i, expected.get(move[0] + i).copy());
+                }
+            }
+            for (int i = 0; i < move[2]; i++) {
+                if (move[0] > move[1]) {
+                    expected.set(move[1] + i, expected.get(move[0] + i).copy());
+                }
+            }
+            arr.moveRange(move[0], move[1], move[2]);
+            assertEquals(arr, expected);
+        }
+
+        TelemetryRecord prototype = arr.get(10).copy();
+        arr.fill(5, 700, prototype);
+        arr.clear(300, 400);
+        for (int i = 0; i < n; i++) {
+            TelemetryRecord r = arr.get(i);
+            if (i >= 300 && i < 400) {
+                Assert.assertEquals(r.getLevel(), 0);
+                Assert.assertEquals(r.getTemperature(), -400);
+                Assert.assertEquals(r.getTimestamp(), 1_500_000_000_000L);
+            } else if (i >= 5 && i < 700) {
+                Assert.assertEquals(r, prototype);
+            } else {
+                Assert.assertEquals(r, expected.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void testSortAndViews() {
+        int n = 500;
+        RecordArray<TelemetryRecord> arr = RecordArray.create(TelemetryRecord.class, n);
+        fill(arr, 3);
+        arr.sortBy("Temperature");
+        for (int i = 1; i < n; i++) {
+            Assert.assertTrue(arr.get(i - 1).getTemperature() <= arr.get(i).getTemperature());
+        }
+
+        IntColumn level = arr.intColumn("Level");
+        LongColumn timestamp = arr.longColumn("Timestamp");
+        Assert.assertEquals(level.size(), n);
+        Assert.assertFalse(level.hasArray());
+        for (int i = 0; i < n; i++) {
+            Assert.assertEquals(level.get(i), arr.get(i).getLevel());
+            Assert.assertEquals(timestamp.get(i), arr.get(i).getTimestamp());
+        }
+        timestamp.set(7, 2_000_000_000_000L);
+        Assert.assertEquals(arr.get(7).getTimestamp(), 2_000_000_000_000L);
+    }
+
+    @Test
+    public void testSerializationFreezeAndList() throws IOException {
+        int n = 300;
+        RecordArray<TelemetryRecord> arr = RecordArray.create(TelemetryRecord.class, n);
+        fill(arr, 4);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        arr.writeTo(Channels.newChannel(out));
+        RecordArray<TelemetryRecord> read = RecordArray.readFrom(TelemetryRecord.class,
+                Channels.newChannel(new ByteArrayInputStream(out.toByteArray())));
+        assertEquals(read, arr);
+
+        assertEquals(arr.freeze(), arr);
+
+        RecordList<TelemetryRecord> list = RecordList.create(TelemetryRecord.class);
+        list.addAll(arr);
+        Assert.assertEquals(list.size(), n);
+        for (int i = 0; i < n; i++) {
+            Assert.assertEquals(list.get(i), arr.get(i));
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.aivean.testrecarr;
+
+import com.aivean.recarr.DoubleColumn;
+import com.aivean.recarr.IntColumn;
+import com.aivean.recarr.RecordArray;
+import com.aivean.recarr.RecordList;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class OffHeapTest {
+
+    static void fill(OffHeapRecord r, int i) {
+        r.setIntField(i);
+        r.setBoolField(i % 2 == 0);
+        r.setCharField((char) ('a' + i));
+        r.setByteField((byte) -i);
+        r.setShortField((short) (i * 100));
+        r.setLongField(i * 10_000_000_000L);
+        r.setFloatField(i / 2f);
+        r.setDoubleField(i / 3.0);
+        r.setStringField("s" + i);
+    }
+
+    static void check(OffHeapRecord r, int i) {
+        Assert.assertEquals(r.getIntField(), i);
+        Assert.assertEquals(r.getBoolField(), i % 2 == 0);
+        Assert.assertEquals(r.getCharField(), (char) ('a' + i));
+        Assert.assertEquals(r.getByteField(), (byte) -i);
+        Assert.assertEquals(r.getShortField(), (short) (i * 100));
+        Assert.assertEquals(r.getLongField(), i * 10_000_000_000L);
+        Assert.assertEquals(r.getFloatField(), i / 2f);
+        Assert.assertEquals(r.getDoubleField(), i / 3.0);
+        Assert.assertEquals(r.getStringField(), "s" + i);
+    }
+
+    @Test
+    public void testGetSet() {
+        try (RecordArray<OffHeapRecord> arr = RecordArray.create(OffHeapRecord.class, 4, 5)) {
+            // off-heap memory is zeroed
+            Assert.assertEquals(arr.get(7).getLongField(), 0L);
+            Assert.assertFalse(arr.get(7).getBoolField());
+
+            for (int i = 0; i < arr.size(); i++) {
+                fill(arr.get(i), i);
+            }
+            for (int i = 0; i < arr.size(); i++) {
+                check(arr.get(i), i);
+            }
+            Assert.assertEquals(arr.get(1, 2), arr.get(7));
+        }
+    }
+
+    @Test
+    public void testSetCopyAndList() {
+        try (RecordArray<OffHeapRecord> arr = RecordArray.create(OffHeapRecord.class, 10)) {
+            fill(arr.get(0), 3);
+            arr.set(1, arr.get(0));
+            check(arr.get(1), 3);
+
+            OffHeapRecord copy = arr.get(0).copy();
+            check(copy, 3);
+            Assert.assertEquals(copy, arr.get(0));
+            Assert.assertEquals(copy.hashCode(), arr.get(0).hashCode());
+
+            RecordList<OffHeapRecord> lst = RecordList.create(OffHeapRecord.class);
+            lst.addAll(arr);
+            Assert.assertEquals(lst.size(), 10);
+            check(lst.get(1), 3);
+        }
+    }
+
+    @Test(expectedExceptions = IndexOutOfBoundsException.class)
+    public void testOutOfBounds() {
+        try (RecordArray<OffHeapRecord> arr = RecordArray.create(OffHeapRecord.class, 10)) {
+            arr.get(10).getIntField();
+        }
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testAccessAfterClose() {
+        RecordArray<OffHeapRecord> arr = RecordArray.create(OffHeapRecord.class, 10);
+        OffHeapRecord r = arr.get(0);
+        arr.close();
+        // closing twice is allowed
+        arr.close();
+        r.getIntField();
+    }
+
+    @Test
+    public void testColumnViewAfterClose() {
+        RecordArray<OffHeapRecord> arr = RecordArray.create(OffHeapRecord.class, 10);
+        IntColumn ints = arr.intColumn("IntField");
+        DoubleColumn doubles = arr.doubleColumn("DoubleField");
+        ints.set(3, 42);
+        Assert.assertEquals(ints.get(3), 42);
+        arr.close();
+
+        Assert.assertEquals(ints.size(), 10);
+        try {
+            ints.get(3);
+            Assert.fail("Expected NullPointerException");
+        } catch (NullPointerException e) {
+            // expected
+        }
+        try {
+            doubles.set(0, 1.0);
+            Assert.fail("Expected NullPointerException");
+        } catch (NullPointerException e) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.aivean.testrecarr;
+
+import com.aivean.recarr.DoubleColumn;
+import com.aivean.recarr.IntColumn;
+import com.aivean.recarr.RecordArray;
+import com.aivean.recarr.RecordList;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+
+public class PagedTest {
+
+    // spans several pages, the last one is incomplete
+    private static final int N = 100_000;
+
+    static void fill(PagedRecord r, int i) {
+        r.setId(i);
+        r.setFlag(i % 3 == 0);
+        r.setCode((char) ('a' + i % 26));
+        r.setSmall((byte) i);
+        r.setShort((short) (i * 7));
+        r.setTimestamp(i * 10_000_000_000L);
+        r.setWeight(i / 2f);
+        r.setValue(i / 3.0);
+        r.setName("s" + i);
+    }
+
+    static void check(PagedRecord r, int i) {
+        Assert.assertEquals(r.getId(), i);
+        Assert.assertEquals(r.getFlag(), i % 3 == 0);
+        Assert.assertEquals(r.getCode(), (char) ('a' + i % 26));
+        Assert.assertEquals(r.getSmall(), (byte) i);
+        Assert.assertEquals(r.getShort(), (short) (i * 7));
+        Assert.assertEquals(r.getTimestamp(), i * 10_000_000_000L);
+        Assert.assertEquals(r.getWeight(), i / 2f);
+        Assert.assertEquals(r.getValue(), i / 3.0);
+        Assert.assertEquals(r.getName(), "s" + i);
+    }
+
+    static void checkDefault(PagedRecord r) {
+        Assert.assertEquals(r.getId(), 0);
+        Assert.assertFalse(r.getFlag());
+        Assert.assertEquals(r.getTimestamp(), 0L);
+        Assert.assertEquals(r.getValue(), 0.0);
+        Assert.assertNull(r.getName());
+    }
+
+    private static RecordArray<PagedRecord> filled(int n) {
+        RecordArray<PagedRecord> arr = RecordArray.create(PagedRecord.class, n);
+        for (int i = 0; i < n; i++) {
+            fill(arr.get(i), i);
+        }
+        return arr;
+    }
+
+    @Test
+    public void testGetSet() {
+        RecordArray<PagedRecord> arr = RecordArray.create(PagedRecord.class, 10, N / 10);
+        // pages that were never written read as zeros
+        checkDefault(arr.get(N - 1));
+
+        fill(arr.get(N - 1), 5);
+        check(arr.get(N - 1), 5);
+        checkDefault(arr.get(0));
+
+        for (int i = 0; i < N; i++) {
+            fill(arr.get(i), i);
+        }
+        for (int i = 0; i < N; i++) {
+            check(arr.get(i), i);
+        }
+        Assert.assertEquals(arr.get(1, 2), arr.get(N / 10 + 2));
+
+        PagedRecord copy = arr.get(40_000).copy();
+        check(copy, 40_000);
+        Assert.assertEquals(copy, arr.get(40_000));
+        Assert.assertEquals(copy.hashCode(), arr.get(40_000).hashCode());
+        arr.set(0, copy);
+        check(arr.get(0), 40_000);
+    }
+
+    @Test
+    public void testCopyAndMove() {
+        RecordArray<PagedRecord> arr = filled(N);
+        RecordArray<PagedRecord> dst = RecordArray.create(PagedRecord.class, N);
+
+        // unaligned with the pages on both sides
+        arr.copyRange(1_000, dst, 30_000, 50_000);
+        for (int i = 0; i < 50_000; i++) {
+            check(dst.get(30_000 + i), 1_000 + i);
+        }
+        checkDefault(dst.get(29_999));
+        checkDefault(dst.get(80_000));
+
+        // overlapping, forwards and backwards
+        arr.moveRange(10, 40_010, 50_000);
+        for (int i = 0; i < 50_000; i++) {
+            check(arr.get(40_010 + i), 10 + i);
+        }
+        check(arr.get(40_009), 40_009);
+        arr.moveRange(40_010, 5, 50_000);
+        for (int i = 0; i < 50_000; i++) {
+            check(arr.get(5 + i), 10 + i);
+        }
+        check(arr.get(4), 4);
+    }
+
+    @Test
+    public void testFillAndClear() {
+        RecordArray<PagedRecord> arr = filled(N);
+        PagedRecord prototype = arr.get(3).copy();
+
+        arr.fill(20_000, 70_000, prototype);
+        check(arr.get(19_999), 19_999);
+        check(arr.get(20_000), 3);
+        check(arr.get(69_999), 3);
+        check(arr.get(70_000), 70_000);
+
+        // includes the whole page [32768, 65536)
+        arr.clear(10_000, 80_000);
+        check(arr.get(9_999), 9_999);
+        for (int i = 10_000; i < 80_000; i++) {
+            checkDefault(arr.get(i));
+        }
+        check(arr.get(80_000), 80_000);
+
+        // the released page is allocated again
+        fill(arr.get(40_000), 7);
+        check(arr.get(40_000), 7);
+        checkDefault(arr.get(40_001));
+    }
+
+    @Test
+    public void testConcurrentWritesAndClears() throws InterruptedException {
+        RecordArray<PagedRecord> arr = RecordArray.create(PagedRecord.class, N);
+        int threads = 4;
+        for (int round = 0; round < 20; round++) {
+            // the threads allocate the same pages, the pages [0, 32768) and [65536, 98304) are released meanwhile
+            Thread[] workers = new Thread[threads];
+            for (int t = 0; t < threads; t++) {
+                int first = t;
+                workers[t] = new Thread(() -> {
+                    for (int i = 32_768 + first; i < 65_536; i += threads) {
+                        arr.get(i).setTimestamp(i);
+                    }
+                    arr.clear(first * 8_192, (first + 1) * 8_192);
+                    arr.clear(65_536 + first * 8_192, 65_536 + (first + 1) * 8_192);
+                });
+                workers[t].start();
+            }
+            for (Thread worker : workers) {
+                worker.join();
+            }
+            for (int i = 32_768; i < 65_536; i++) {
+                Assert.assertEquals(arr.get(i).getTimestamp(), i);
+            }
+            arr.clear(32_768, 65_536);
+        }
+        // the zero pages are shared by the arrays, and are never written
+        RecordArray<PagedRecord> other = RecordArray.create(PagedRecord.class, N);
+        for (int i = 0; i < N; i++) {
+            Assert.assertEquals(arr.get(i).getTimestamp(), 0L);
+            Assert.assertEquals(other.get(i).getTimestamp(), 0L);
+        }
+    }
+
+    @Test
+    public void testSortViewsAndParallel() {
+        RecordArray<PagedRecord> arr = RecordArray.create(PagedRecord.class, N);
+        // concurrent writes allocate each page once
+        arr.parallelForEachIndex(i -> fill(arr.get(i), N - 1 - i));
+        for (int i = 0; i < N; i++) {
+            check(arr.get(i), N - 1 - i);
+        }
+
+        arr.sortBy("Id");
+        for (int i = 0; i < N; i++) {
+            check(arr.get(i), i);
+        }
+
+        IntColumn id = arr.intColumn("Id");
+        DoubleColumn value = arr.doubleColumn("Value");
+        Assert.assertEquals(id.size(), N);
+        Assert.assertFalse(id.hasArray());
+        Assert.assertEquals(id.get(70_000), 70_000);
+        Assert.assertEquals(value.get(70_000), 70_000 / 3.0);
+        id.set(70_000, -1);
+        Assert.assertEquals(arr.get(70_000).getId(), -1);
+    }
+
+    @Test
+    public void testSerializationFreezeAndList() throws IOException {
+        RecordArray<PagedRecord> arr = filled(N);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        arr.writeTo(Channels.newChannel(out));
+        RecordArray<PagedRecord> read = RecordArray.readFrom(PagedRecord.class,
+                Channels.newChannel(new ByteArrayInputStream(out.toByteArray())));
+        Assert.assertEquals(read.size(), N);
+        for (int i = 0; i < N; i++) {
+            check(read.get(i), i);
+        }
+
+        RecordArray<PagedRecord> frozen = arr.freeze();
+        for (int i = 0; i < N; i += 97) {
+            check(frozen.get(i), i);
+        }
+
+        RecordList<PagedRecord> list = RecordList.create(PagedRecord.class);
+        list.addAll(arr);
+        Assert.assertEquals(list.size(), N);
+        for (int i = 0; i < N; i++) {
+            check(list.get(i), i);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.aivean.testrecarr;
+
+import com.aivean.recarr.RecordArray;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class RangeOpsTest {
+
+    private static RecordArray<SimpleRecord> simpleArray(int size) {
+        RecordArray<SimpleRecord> arr = RecordArray.create(SimpleRecord.class, size);
+        for (int i = 0; i < size; i++) {
+            SimpleRecord r = arr.get(i);
+            r.setAge(i);
+            r.setName("name" + i);
+            r.setMale(i % 2 == 0);
+        }
+        return arr;
+    }
+
+    private static RecordArray<OffHeapPoint> pointArray(int size) {
+        RecordArray<OffHeapPoint> arr = RecordArray.create(OffHeapPoint.class, size);
+        for (int i = 0; i < size; i++) {
+            OffHeapPoint p = arr.get(i);
+            p.setId(i);
+            p.setX(i * 0.5);
+            p.setY(-i);
+            p.setVisible(i % 2 == 0);
+        }
+        return arr;
+    }
+
+    @Test
+    public void testCopyRange() {
+        RecordArray<SimpleRecord> src = simpleArray(10);
+        RecordArray<SimpleRecord> dst = RecordArray.create(SimpleRecord.class, 10);
+
+        src.copyRange(2, dst, 5, 4);
+        for (int i = 0; i < 10; i++) {
+            if (i >= 5 && i < 9) {
+                Assert.assertEquals(dst.get(i), src.get(i - 3));
+            } else {
+                Assert.assertEquals(dst.get(i).getAge(), 0);
+                Assert.assertNull(dst.get(i).getName());
+            }
+        }
+    }
+
+    @Test
+    public void testCopyRangeBetweenStorages() {
+        // 2d array of the same type is the same implementation
+        RecordArray<SimpleRecord> src = simpleArray(6);
+        RecordArray<SimpleRecord> dst = RecordArray.create(SimpleRecord.class, 2, 3);
+        src.copyRange(0, dst, 0, 6);
+        Assert.assertEquals(dst.get(1, 2), src.get(5));
+
+        try (RecordArray<OffHeapPoint> points = pointArray(8);
+             RecordArray<OffHeapPoint> points2 = RecordArray.create(OffHeapPoint.class, 8)) {
+            points.copyRange(1, points2, 0, 7);
+            for (int i = 0; i < 7; i++) {
+                Assert.assertEquals(points2.get(i).getId(), i + 1);
+                Assert.assertEquals(points2.get(i).getX(), (i + 1) * 0.5);
+                Assert.assertEquals(points2.get(i).isVisible(), (i + 1) % 2 == 0);
+            }
+            Assert.assertEquals(points2.get(7).getId(), 0);
+        }
+    }
+
+    @Test
+    public void testMoveRangeOverlapping() {
+        RecordArray<SimpleRecord> arr = simpleArray(10);
+        arr.moveRange(0, 2, 6);
+        int[] expected = {0, 1, 0, 1, 2, 3, 4, 5, 8, 9};
+        for (int i = 0; i < 10; i++) {
+            Assert.assertEquals(arr.get(i).getAge(), expected[i]);
+            Assert.assertEquals(arr.get(i).getName(), "name" + expected[i]);
+        }
+
+        arr.moveRange(4, 1, 6);
+        int[] expected2 = {0, 2, 3, 4, 5, 8, 9, 5, 8, 9};
+        for (int i = 0; i < 10; i++) {
+            Assert.assertEquals(arr.get(i).getAge(), expected2[i]);
+        }
+
+        try (RecordArray<OffHeapPoint> points = pointArray(10)) {
+            points.moveRange(0, 3, 7);
+            points.moveRange(5, 4, 5);
+            long[] expectedIds = {0, 1, 2, 0, 2, 3, 4, 5, 6, 6};
+            for (int i = 0; i < 10; i++) {
+                Assert.assertEquals(points.get(i).getId(), expectedIds[i]);
+                Assert.assertEquals(points.get(i).getY(), (double) -expectedIds[i]);
+            }
+        }
+    }
+
+    @Test
+    public void testFillAndClear() {
+        RecordArray<SimpleRecord> arr = simpleArray(10);
+        SimpleRecord prototype = arr.get(9).copy();
+
+        arr.fill(2, 5, prototype);
+        arr.clear(7, 10);
+        for (int i = 0; i < 10; i++) {
+            SimpleRecord r = arr.get(i);
+            if (i >= 2 && i < 5) {
+                Assert.assertEquals(r, prototype);
+            } else if (i >= 7) {
+                Assert.assertEquals(r.getAge(), 0);
+                Assert.assertNull(r.getName());
+                Assert.assertFalse(r.isMale());
+            } else {
+                Assert.assertEquals(r.getAge(), i);
+            }
+        }
+
+        try (RecordArray<OffHeapPoint> points = pointArray(100)) {
+            points.fill(0, 50, points.get(99));
+            points.clear(50, 99);
+            for (int i = 0; i < 100; i++) {
+                OffHeapPoint p = points.get(i);
+                long id = i < 50 ? 99 : i < 99 ? 0 : 99;
+                Assert.assertEquals(p.getId(), id);
+                Assert.assertEquals(p.getX(), id * 0.5);
+                Assert.assertEquals(p.isVisible(), false);
+            }
+        }
+    }
+
+    @Test
+    public void testInvalidRangesAreNotCopied() {
+        RecordArray<SimpleRecord> src = simpleArray(5);
+        RecordArray<SimpleRecord> dst = RecordArray.create(SimpleRecord.class, 5);
+
+        int[][] ranges = {{-1, 0, 1}, {0, -1, 1}, {4, 0, 2}, {0, 4, 2}, {0, 0, -1}};
+        for (int[] r : ranges) {
+            try {
+                src.copyRange(r[0], dst, r[1], r[2]);
+                Assert.fail("Expected IndexOutOfBoundsException for " + r[0] + ", " + r[1] + ", " + r[2]);
+            } catch (IndexOutOfBoundsException e) {
+                // expected
+            }
+        }
+        for (int i = 0; i < 5; i++) {
+            Assert.assertNull(dst.get(i).getName());
+        }
+    }
+
+    @Test(expectedExceptions = IndexOutOfBoundsException.class)
+    public void testFillInvalidRange() {
+        RecordArray<SimpleRecord> arr = simpleArray(5);
+        arr.fill(3, 2, arr.get(0));
+    }
+}
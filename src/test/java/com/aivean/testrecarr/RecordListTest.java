@@ -0,0 +1,125 @@
+package com.aivean.testrecarr;
+
+import com.aivean.recarr.RecordArray;
+import com.aivean.recarr.RecordList;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+public class RecordListTest {
+
+    @Test
+    public void testAddAndGrow() {
+        RecordList<SimpleRecord> lst = RecordList.create(SimpleRecord.class, 1);
+        Assert.assertEquals(lst.size(), 0);
+
+        // proxy obtained before the growth stays valid after it
+        SimpleRecord first = lst.add();
+        first.setName("name0");
+
+        for (int i = 1; i < 100; i++) {
+            SimpleRecord r = lst.add();
+            r.setAge(i);
+            r.setName("name" + i);
+        }
+        first.setAge(-1);
+
+        Assert.assertEquals(lst.size(), 100);
+        Assert.assertTrue(lst.capacity() >= 100);
+        Assert.assertEquals(lst.get(0).getAge(), -1);
+        for (int i = 1; i < 100; i++) {
+            Assert.assertEquals(lst.get(i).getAge(), i);
+            Assert.assertEquals(lst.get(i).getName(), "name" + i);
+        }
+    }
+
+    @Test
+    public void testAddCopiesFields() {
+        RecordList<SimpleRecord> lst = RecordList.create(SimpleRecord.class);
+        SimpleRecord r = lst.add();
+        r.setAge(1);
+        r.setName("a");
+        r.setMale(true);
+
+        // appending the element of the same list (may trigger the growth)
+        for (int i = 0; i < 20; i++) {
+            lst.add(lst.get(i));
+        }
+        Assert.assertEquals(lst.size(), 21);
+        Assert.assertEquals(lst.get(20), lst.get(0));
+    }
+
+    @Test
+    public void testAddAll() {
+        RecordArray<SimpleRecord> arr = RecordArray.create(SimpleRecord.class, 5);
+        for (int i = 0; i < 5; i++) {
+            arr.get(i).setAge(i);
+        }
+
+        RecordList<SimpleRecord> lst = RecordList.create(SimpleRecord.class, 0);
+        lst.addAll(arr);
+        lst.addAll(lst);
+        lst.addAll(Arrays.asList(arr.get(0).copy(), arr.get(1).copy()));
+
+        Assert.assertEquals(lst.size(), 12);
+        for (int i = 0; i < 10; i++) {
+            Assert.assertEquals(lst.get(i).getAge(), i % 5);
+        }
+        Assert.assertEquals(lst.get(10).getAge(), 0);
+        Assert.assertEquals(lst.get(11).getAge(), 1);
+    }
+
+    @Test
+    public void testRemoveLastResetsSlot() {
+        RecordList<SimpleRecord> lst = RecordList.create(SimpleRecord.class);
+        SimpleRecord r = lst.add();
+        r.setAge(1);
+        r.setName("a");
+        r.setMale(true);
+
+        lst.removeLast();
+        Assert.assertEquals(lst.size(), 0);
+
+        SimpleRecord fresh = lst.add();
+        Assert.assertEquals(fresh.getAge(), 0);
+        Assert.assertNull(fresh.getName());
+        Assert.assertFalse(fresh.isMale());
+    }
+
+    @Test(expectedExceptions = NoSuchElementException.class)
+    public void testRemoveLastEmpty() {
+        RecordList.create(SimpleRecord.class).removeLast();
+    }
+
+    @Test(expectedExceptions = IndexOutOfBoundsException.class)
+    public void testGetBeyondSize() {
+        RecordList<SimpleRecord> lst = RecordList.create(SimpleRecord.class, 10);
+        lst.add();
+        // index is within the capacity, but not within the size
+        lst.get(1);
+    }
+
+    @Test
+    public void testCapacity() {
+        RecordList<ComplexRecord> lst = RecordList.create(ComplexRecord.class, 4);
+        Assert.assertEquals(lst.capacity(), 4);
+
+        lst.ensureCapacity(5);
+        Assert.assertEquals(lst.capacity(), 8);
+
+        lst.ensureCapacity(100);
+        Assert.assertEquals(lst.capacity(), 100);
+
+        lst.add().setIntField(42);
+        lst.trimToSize();
+        Assert.assertEquals(lst.capacity(), 1);
+        Assert.assertEquals(lst.get(0).getIntField(), 42);
+
+        lst.clear();
+        Assert.assertEquals(lst.size(), 0);
+        Assert.assertEquals(lst.capacity(), 1);
+        Assert.assertEquals(lst.add().getIntField(), 0);
+    }
+}
@@ -0,0 +1,114 @@
+package com.aivean.testrecarr;
+
+import com.aivean.recarr.RecordArray;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class SerializationTest {
+
+    private static byte[] write(RecordArray<?> arr) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        arr.writeTo(Channels.newChannel(out));
+        return out.toByteArray();
+    }
+
+    private static <T> RecordArray<T> read(Class<T> recordClass, byte[] bytes) throws IOException {
+        return RecordArray.readFrom(recordClass, Channels.newChannel(new ByteArrayInputStream(bytes)));
+    }
+
+    @Test
+    public void testHeapRoundTrip() throws IOException {
+        // larger than the staging buffer
+        RecordArray<SimpleRecord> arr = RecordArray.create(SimpleRecord.class, 600, 500);
+        for (int i = 0; i < arr.size(); i++) {
+            SimpleRecord r = arr.get(i);
+            r.setAge(i * 31);
+            r.setMale(i % 3 == 0);
+            r.setName(i % 7 == 0 ? null : i % 5 == 0 ? "" : "\u0438\u043c\u044f " + i);
+        }
+
+        RecordArray<SimpleRecord> res = read(SimpleRecord.class, write(arr));
+        Assert.assertEquals(res.size(), arr.size());
+        Assert.assertEquals(res.get(599, 499), arr.get(599, 499));
+        for (int i = 0; i < arr.size(); i++) {
+            Assert.assertEquals(res.get(i), arr.get(i));
+        }
+    }
+
+    @Test
+    public void testOffHeapRoundTrip() throws IOException {
+        try (RecordArray<OffHeapRecord> arr = RecordArray.create(OffHeapRecord.class, 70, 80, 90)) {
+            for (int i = 0; i < arr.size(); i++) {
+                OffHeapRecord r = arr.get(i);
+                r.setIntField(i);
+                r.setBoolField(i % 2 == 0);
+                r.setCharField((char) i);
+                r.setByteField((byte) i);
+                r.setShortField((short) -i);
+                r.setLongField(i * 1_000_000_000_000L);
+                r.setFloatField(i / 3f);
+                r.setDoubleField(-i / 7.0);
+                r.setStringField(i % 1000 == 0 ? "s" + i : null);
+            }
+
+            Path file = Files.createTempFile("recarr", ".bin");
+            try {
+                arr.writeTo(file);
+                try (RecordArray<OffHeapRecord> res = RecordArray.readFrom(OffHeapRecord.class, file)) {
+                    Assert.assertEquals(res.size(), arr.size());
+                    Assert.assertEquals(res.get(69, 79, 89), arr.get(69, 79, 89));
+                    for (int i = 0; i < arr.size(); i++) {
+                        Assert.assertEquals(res.get(i), arr.get(i));
+                    }
+                }
+            } finally {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testObjectColumns() throws IOException {
+        RecordArray<ComplexRecord> arr = RecordArray.create(ComplexRecord.class, 3);
+        List<int[]>[][][] value = new List[1][1][1];
+        value[0][0][0] = new ArrayList<>(Arrays.asList(new int[]{1, 2}, new int[]{3}));
+        arr.get(1).setListArrayField(value);
+        arr.get(2).setStringField("str");
+
+        RecordArray<ComplexRecord> res = read(ComplexRecord.class, write(arr));
+        Assert.assertNull(res.get(0).getListArrayField());
+        List<int[]> lst = res.get(1).getListArrayField()[0][0][0];
+        Assert.assertEquals(lst.size(), 2);
+        Assert.assertEquals(lst.get(0), new int[]{1, 2});
+        Assert.assertEquals(lst.get(1), new int[]{3});
+        Assert.assertEquals(res.get(2).getStringField(), "str");
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testDifferentRecordType() throws IOException {
+        read(OffHeapPoint.class, write(RecordArray.create(SimpleRecord.class, 10)));
+    }
+
+    @Test(expectedExceptions = EOFException.class)
+    public void testTruncated() throws IOException {
+        byte[] bytes = write(RecordArray.create(SimpleRecord.class, 10));
+        read(SimpleRecord.class, Arrays.copyOf(bytes, bytes.length - 1));
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testNotRecordArrayStream() throws IOException {
+        read(SimpleRecord.class, new byte[100]);
+    }
+}
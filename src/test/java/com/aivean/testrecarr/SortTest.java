@@ -0,0 +1,123 @@
+package com.aivean.testrecarr;
+
+import com.aivean.recarr.RecordArray;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+public class SortTest {
+
+    private static RecordArray<OffHeapRecord> randomArray(int size, int range) {
+        Random rnd = new Random(42);
+        RecordArray<OffHeapRecord> arr = RecordArray.create(OffHeapRecord.class, size);
+        for (int i = 0; i < size; i++) {
+            OffHeapRecord r = arr.get(i);
+            r.setIntField(rnd.nextInt(range) - range / 2);
+            r.setBoolField(rnd.nextBoolean());
+            r.setCharField((char) rnd.nextInt(Character.MAX_VALUE + 1));
+            r.setByteField((byte) rnd.nextInt());
+            r.setShortField((short) rnd.nextInt());
+            r.setLongField(rnd.nextLong() >> rnd.nextInt(64));
+            r.setFloatField(i % 17 == 0 ? -0.0f : i % 19 == 0 ? Float.NaN : (float) rnd.nextGaussian());
+            r.setDoubleField(i % 23 == 0 ? Double.NEGATIVE_INFINITY : rnd.nextGaussian() * 1e10);
+            r.setStringField(i % 13 == 0 ? null : "s" + rnd.nextInt(range));
+        }
+        return arr;
+    }
+
+    private static void assertSortedPermutation(RecordArray<OffHeapRecord> arr, String field,
+                                                Comparator<OffHeapRecord> cmp) {
+        Integer[] expected = new Integer[arr.size()];
+        for (int i = 0; i < expected.length; i++) {
+            expected[i] = i;
+        }
+        // stable reference sort
+        Arrays.sort(expected, (a, b) -> cmp.compare(arr.get(a), arr.get(b)));
+
+        int[] perm = arr.sortPermutation(field);
+        for (int i = 0; i < expected.length; i++) {
+            Assert.assertEquals(perm[i], (int) expected[i], field + " at " + i);
+        }
+    }
+
+    @Test
+    public void testSortPermutationForEachType() {
+        try (RecordArray<OffHeapRecord> arr = randomArray(1000, 100)) {
+            assertSortedPermutation(arr, "IntField", Comparator.comparingInt(OffHeapRecord::getIntField));
+            assertSortedPermutation(arr, "BoolField", (a, b) -> Boolean.compare(a.getBoolField(), b.getBoolField()));
+            assertSortedPermutation(arr, "CharField", Comparator.comparingInt(OffHeapRecord::getCharField));
+            assertSortedPermutation(arr, "ByteField", Comparator.comparingInt(OffHeapRecord::getByteField));
+            assertSortedPermutation(arr, "ShortField", Comparator.comparingInt(OffHeapRecord::getShortField));
+            assertSortedPermutation(arr, "LongField", Comparator.comparingLong(OffHeapRecord::getLongField));
+            assertSortedPermutation(arr, "FloatField", (a, b) -> Float.compare(a.getFloatField(), b.getFloatField()));
+            assertSortedPermutation(arr, "DoubleField", Comparator.comparingDouble(OffHeapRecord::getDoubleField));
+            assertSortedPermutation(arr, "StringField",
+                    Comparator.comparing(OffHeapRecord::getStringField, Comparator.nullsFirst(Comparator.naturalOrder())));
+        }
+    }
+
+    @Test
+    public void testSortByMultipleFields() {
+        RecordArray<SimpleRecord> arr = RecordArray.create(SimpleRecord.class, 200);
+        Random rnd = new Random(1);
+        for (int i = 0; i < arr.size(); i++) {
+            SimpleRecord r = arr.get(i);
+            r.setAge(rnd.nextInt(10));
+            r.setMale(rnd.nextBoolean());
+            r.setName("n" + i);
+        }
+        SimpleRecord[] copies = new SimpleRecord[arr.size()];
+        for (int i = 0; i < copies.length; i++) {
+            copies[i] = arr.get(i).copy();
+        }
+        Arrays.sort(copies, Comparator.comparing(SimpleRecord::isMale).thenComparingInt(SimpleRecord::getAge));
+
+        arr.sortBy("Male", "Age");
+        for (int i = 0; i < copies.length; i++) {
+            Assert.assertEquals(arr.get(i), copies[i]);
+        }
+    }
+
+    @Test
+    public void testPermute() {
+        RecordArray<SimpleRecord> arr = RecordArray.create(SimpleRecord.class, 5);
+        for (int i = 0; i < 5; i++) {
+            arr.get(i).setAge(i);
+            arr.get(i).setName("n" + i);
+        }
+        int[] perm = {3, 4, 2, 0, 1};
+        arr.permute(perm);
+        for (int i = 0; i < 5; i++) {
+            Assert.assertEquals(arr.get(i).getAge(), perm[i]);
+            Assert.assertEquals(arr.get(i).getName(), "n" + perm[i]);
+        }
+    }
+
+    @Test
+    public void testInvalidPermutation() {
+        RecordArray<SimpleRecord> arr = RecordArray.create(SimpleRecord.class, 3);
+        for (int i = 0; i < 3; i++) {
+            arr.get(i).setAge(i);
+        }
+        int[][] invalid = {{0, 1}, {0, 1, 1}, {0, 1, 3}, {-1, 0, 1}};
+        for (int[] perm : invalid) {
+            try {
+                arr.permute(perm);
+                Assert.fail("Expected IllegalArgumentException for " + Arrays.toString(perm));
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+        for (int i = 0; i < 3; i++) {
+            Assert.assertEquals(arr.get(i).getAge(), i);
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testUnknownField() {
+        RecordArray.create(SimpleRecord.class, 3).sortBy("Height");
+    }
+}
@@ -0,0 +1,166 @@
+package com.aivean.testrecarr;
+
+import com.aivean.recarr.RecordArray;
+import com.aivean.recarr.SpatialGrid;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+public class SpatialGridTest {
+
+    private static RecordArray<PointGameSimulator.Point2D> points(int n, long seed) {
+        RecordArray<PointGameSimulator.Point2D> arr = RecordArray.create(PointGameSimulator.Point2D.class, n);
+        Random r = new Random(seed);
+        for (int i = 0; i < n; i++) {
+            arr.get(i).setX(r.nextFloat() * 2.2f - 1.1f);
+            arr.get(i).setY(r.nextFloat() * 2.2f - 1.1f);
+        }
+        return arr;
+    }
+
+    private static long pair(int i, int j) {
+        return ((long) Math.min(i, j) << 32) | Math.max(i, j);
+    }
+
+    @Test
+    public void testPairs() {
+        RecordArray<PointGameSimulator.Point2D> arr = points(3000, 1);
+        arr.get(7).setX(Float.NaN);
+        float cellSize = 0.05f;
+        SpatialGrid grid = new SpatialGrid(cellSize, -1, -1, 1, 1);
+        Assert.assertEquals(grid.columns(), 40);
+        Assert.assertEquals(grid.rows(), 40);
+        grid.build(arr, "X", "Y");
+        Assert.assertEquals(grid.size(), 3000);
+
+        // each pair is visited once
+        Set<Long> visited = new HashSet<>();
+        grid.forEachPair((i, j) -> {
+            Assert.assertNotEquals(i, j);
+            Assert.assertTrue(visited.add(pair(i, j)), i + " " + j);
+        });
+        Assert.assertTrue(visited.size() < 3000 * 2999 / 2 / 10);
+
+        // all close pairs are visited, including the clamped points
+        for (int i = 0; i < arr.size(); i++) {
+            for (int j = i + 1; j < arr.size(); j++) {
+                float dx = Math.abs(arr.get(i).getX() - arr.get(j).getX());
+                float dy = Math.abs(arr.get(i).getY() - arr.get(j).getY());
+                if (dx < cellSize && dy < cellSize) {
+                    Assert.assertTrue(visited.contains(pair(i, j)), i + " " + j);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testOffsets() {
+        RecordArray<PointGameSimulator.Point2D> arr = points(5000, 2);
+        SpatialGrid grid = new SpatialGrid(0.3f, -1, -1, 1, 1);
+        grid.build(arr, "X", "Y");
+        int[] offsets = grid.offsets();
+        int[] indices = grid.indices();
+        Assert.assertEquals(offsets.length, 7 * 7 + 1);
+        Assert.assertEquals(offsets[offsets.length - 1], 5000);
+        boolean[] seen = new boolean[5000];
+        for (int c = 0; c < 49; c++) {
+            for (int a = offsets[c]; a < offsets[c + 1]; a++) {
+                int i = indices[a];
+                Assert.assertFalse(seen[i]);
+                seen[i] = true;
+                Assert.assertEquals(grid.cell(arr.get(i).getX(), arr.get(i).getY()), c);
+                if (a > offsets[c]) {
+                    Assert.assertTrue(indices[a - 1] < i);
+                }
+            }
+        }
+
+        // rebuilt with fewer records
+        grid.build(arr.slice(0, 10), "X", "Y");
+        Assert.assertEquals(grid.size(), 10);
+        Assert.assertEquals(grid.offsets()[49], 10);
+    }
+
+    @Test
+    public void testParallelBuild() {
+        RecordArray<PointGameSimulator.Point2D> arr = points(200_000, 3);
+        SpatialGrid grid = new SpatialGrid(0.01f, -1, -1, 1, 1);
+        grid.build(arr, "X", "Y");
+        int[] offsets = grid.offsets().clone();
+        int[] indices = Arrays.copyOf(grid.indices(), grid.size());
+        grid.parallelBuild(arr, "X", "Y");
+        Assert.assertEquals(grid.offsets(), offsets);
+        Assert.assertEquals(Arrays.copyOf(grid.indices(), grid.size()), indices);
+
+        // columns without the backing arrays
+        RecordArray<ParticleRecord> particles = RecordArray.create(ParticleRecord.class, 200_000);
+        for (int i = 0; i < particles.size(); i++) {
+            particles.get(i).setX(arr.get(i).getX());
+            particles.get(i).setY(arr.get(i).getY());
+        }
+        grid.parallelBuild(particles.floatColumn("X"), particles.floatColumn("Y"));
+        Assert.assertEquals(grid.offsets(), offsets);
+        Assert.assertEquals(Arrays.copyOf(grid.indices(), grid.size()), indices);
+    }
+
+    @Test
+    public void testParallelBuildCrowdedCells() {
+        // 4 cells of ~50K records
+        RecordArray<PointGameSimulator.Point2D> arr = points(200_000, 4);
+        SpatialGrid grid = new SpatialGrid(1f, -1, -1, 1, 1);
+        grid.build(arr, "X", "Y");
+        int[] indices = Arrays.copyOf(grid.indices(), grid.size());
+        grid.parallelBuild(arr, "X", "Y");
+        Assert.assertEquals(Arrays.copyOf(grid.indices(), grid.size()), indices);
+    }
+
+    @Test
+    public void testNeighbors() {
+        try (RecordArray<OffHeapPoint> arr = RecordArray.create(OffHeapPoint.class, 100)) {
+            for (int i = 0; i < arr.size(); i++) {
+                arr.get(i).setX(i % 10);
+                arr.get(i).setY(i / 10);
+            }
+            SpatialGrid grid = new SpatialGrid(1, 0, 0, 10, 10);
+            grid.build(arr, "X", "Y");
+            Set<Integer> found = new HashSet<>();
+            grid.forEachNeighbor(4.5, 0.5, found::add);
+            Assert.assertEquals(found, new HashSet<>(Arrays.asList(3, 4, 5, 13, 14, 15)));
+            found.clear();
+            grid.forEachNeighbor(-5, 100, found::add);
+            Assert.assertEquals(found, new HashSet<>(Arrays.asList(80, 81, 90, 91)));
+        }
+    }
+
+    @Test
+    public void testInvalid() {
+        try {
+            new SpatialGrid(0, -1, -1, 1, 1);
+            Assert.fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            new SpatialGrid(1, 1, -1, 1, 1);
+            Assert.fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            new SpatialGrid(1e-6f, -1e6, -1e6, 1e6, 1e6);
+            Assert.fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            new SpatialGrid(1, -1, -1, 1, 1).build(RecordArray.create(SimpleRecord.class, 3), "Age", "Name");
+            Assert.fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+}
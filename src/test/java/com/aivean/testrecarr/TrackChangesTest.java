@@ -0,0 +1,189 @@
+package com.aivean.testrecarr;
+
+import com.aivean.recarr.BooleanColumn;
+import com.aivean.recarr.ColumnKernels;
+import com.aivean.recarr.IntColumn;
+import com.aivean.recarr.RecordArray;
+import com.aivean.recarr.RecordCursor;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.stream.IntStream;
+
+public class TrackChangesTest {
+
+    private static int[] dirty(RecordArray<?> arr) {
+        return arr.dirtyRows().toArray();
+    }
+
+    @Test
+    public void testSetters() {
+        RecordArray<TrackedRecord> arr = RecordArray.create(TrackedRecord.class, 200);
+        Assert.assertEquals(dirty(arr), new int[0]);
+        Assert.assertEquals(arr.nextDirtyRow(0), -1);
+
+        arr.get(130).setId(1);
+        arr.get(5).setActive(true);
+        arr.get(5).setName("five");
+        arr.get(64).getHits();
+        arr.get(64).getHitsVolatile();
+        Assert.assertEquals(dirty(arr), new int[]{5, 130});
+        Assert.assertEquals(arr.dirtyCount(), 2);
+        Assert.assertEquals(arr.nextDirtyRow(6), 130);
+        Assert.assertEquals(arr.nextDirtyRow(131), -1);
+        Assert.assertEquals(arr.nextDirtyRow(500), -1);
+
+        arr.clearDirty();
+        Assert.assertEquals(arr.dirtyCount(), 0);
+        Assert.assertEquals(arr.get(130).getId(), 1);
+
+        arr.get(64).getAndAddHits(3);
+        RecordCursor<TrackedRecord> c = arr.cursor();
+        c.moveTo(199).setHits(1);
+        TrackedRecord value = RecordArray.create(TrackedRecord.class, 1).get(0);
+        value.setId(7);
+        arr.set(3, value);
+        Assert.assertEquals(dirty(arr), new int[]{3, 64, 199});
+
+        try {
+            arr.nextDirtyRow(-1);
+            Assert.fail("Expected IndexOutOfBoundsException");
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testBulkOps() {
+        RecordArray<TrackedRecord> arr = RecordArray.create(TrackedRecord.class, 300);
+        RecordArray<TrackedRecord> dst = RecordArray.create(TrackedRecord.class, 300);
+        arr.fill(10, 20, arr.get(0));
+        arr.clear(250, 300);
+        Assert.assertEquals(dirty(arr), IntStream.concat(IntStream.range(10, 20), IntStream.range(250, 300)).toArray());
+
+        arr.clearDirty();
+        arr.copyRange(0, dst, 100, 70);
+        Assert.assertEquals(arr.dirtyCount(), 0);
+        Assert.assertEquals(dirty(dst), IntStream.range(100, 170).toArray());
+
+        // only the moved records
+        arr.get(1).setId(-1);
+        arr.get(2).setId(-2);
+        arr.clearDirty();
+        arr.sortBy("Id");
+        Assert.assertEquals(arr.get(0).getId(), -2);
+        Assert.assertEquals(arr.get(1).getId(), -1);
+        Assert.assertEquals(dirty(arr), new int[]{0, 2});
+
+        // the views write through the array
+        arr.clearDirty();
+        arr.slice(40, 60).get(5).setName("v");
+        arr.reshape(30, 10).subArray(7).set(0, arr.get(0));
+        Assert.assertEquals(dirty(arr), new int[]{45, 70});
+    }
+
+    @Test
+    public void testColumnViews() {
+        RecordArray<TrackedRecord> arr = RecordArray.create(TrackedRecord.class, 300);
+        IntColumn ids = arr.intColumn("Id");
+        ids.set(7, 1);
+        arr.longColumn("Hits").set(64, 2);
+        BooleanColumn active = arr.booleanColumn("Active");
+        active.set(130, true);
+        active.set(131, true);
+        Assert.assertEquals(dirty(arr), new int[]{7, 64, 130, 131});
+
+        // only the changed records
+        arr.clearDirty();
+        RecordArray<TrackedRecord> other = RecordArray.create(TrackedRecord.class, 300);
+        other.get(130).setActive(true);
+        other.get(250).setActive(true);
+        active.and(other.booleanColumn("Active"));
+        Assert.assertEquals(dirty(arr), new int[]{131});
+        active.or(other.booleanColumn("Active"));
+        Assert.assertEquals(dirty(arr), new int[]{131, 250});
+        Assert.assertEquals(active.cardinality(), 2);
+
+        arr.clearDirty();
+        ColumnKernels.scale(arr.slice(200, 210).doubleColumn("Score"), 2);
+        Assert.assertEquals(dirty(arr), IntStream.range(200, 210).toArray());
+
+        // the writes through the arrays wouldn't be marked
+        Assert.assertFalse(ids.hasArray());
+        try {
+            arr.doubleColumn("Score").array();
+            Assert.fail("Expected UnsupportedOperationException");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testSparse() {
+        int n = 1 << 20;
+        RecordArray<TrackedRecord> arr = RecordArray.create(TrackedRecord.class, n);
+        int[] changed = {0, 63, 64, 4095, 4096, 300_000, 300_001, n - 1};
+        for (int round = 0; round < 2; round++) {
+            for (int i = changed.length - 1; i >= 0; i--) {
+                arr.get(changed[i]).setId(round);
+            }
+            Assert.assertEquals(dirty(arr), changed);
+            arr.clearDirty();
+            Assert.assertEquals(arr.nextDirtyRow(0), -1);
+        }
+
+        // concurrent atomic updates of the records sharing the words
+        arr.parallelForEachIndex(i -> {
+            if (i % 3 == 0) {
+                arr.get(i % 4096).getAndAddHits(1);
+            }
+        });
+        Assert.assertEquals(arr.dirtyCount(), 4096);
+    }
+
+    @Test
+    public void testConcurrentMarks() throws InterruptedException {
+        int n = 1 << 20;
+        int threads = 4;
+        RecordArray<TrackedRecord> arr = RecordArray.create(TrackedRecord.class, n);
+        TrackedRecord prototype = RecordArray.create(TrackedRecord.class, 1).get(0);
+        for (int round = 0; round < 5; round++) {
+            arr.clearDirty();
+            // the records of the same words are marked by the different threads
+            Thread[] workers = new Thread[threads];
+            for (int t = 0; t < threads; t++) {
+                int first = t;
+                workers[t] = new Thread(() -> {
+                    for (int i = first; i < n / 2; i += threads) {
+                        arr.get(i).setId(i);
+                    }
+                    for (int from = n / 2 + first * 10; from < n; from += threads * 10) {
+                        arr.fill(from, Math.min(from + 10, n), prototype);
+                    }
+                });
+                workers[t].start();
+            }
+            for (Thread worker : workers) {
+                worker.join();
+            }
+            Assert.assertEquals(arr.dirtyCount(), n);
+        }
+    }
+
+    @Test
+    public void testNotTracked() {
+        RecordArray<SimpleRecord> arr = RecordArray.create(SimpleRecord.class, 10);
+        try {
+            arr.dirtyRows();
+            Assert.fail("Expected UnsupportedOperationException");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        try {
+            RecordArray.create(TrackedRecord.class, 10).slice(0, 5).clearDirty();
+            Assert.fail("Expected UnsupportedOperationException");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+    }
+}
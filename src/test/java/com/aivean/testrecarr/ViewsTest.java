@@ -0,0 +1,319 @@
+package com.aivean.testrecarr;
+
+import com.aivean.recarr.BooleanColumn;
+import com.aivean.recarr.IntColumn;
+import com.aivean.recarr.RecordArray;
+import com.aivean.recarr.RecordCursor;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class ViewsTest {
+
+    /**
+     * 3d array, the age of (i, j, k) is its 1d index.
+     */
+    private static RecordArray<SimpleRecord> grid(int d0, int d1, int d2) {
+        RecordArray<SimpleRecord> arr = RecordArray.create(SimpleRecord.class, d0, d1, d2);
+        for (int i = 0; i < arr.size(); i++) {
+            arr.get(i).setAge(i);
+            arr.get(i).setName("n" + i);
+            arr.get(i).setMale(i % 3 == 0);
+        }
+        return arr;
+    }
+
+    @Test
+    public void testDimensionsAndIndex() {
+        Assert.assertEquals(RecordArray.create(SimpleRecord.class, 4).dimensions(), new int[]{4});
+        Assert.assertEquals(RecordArray.create(SimpleRecord.class, 4, 5, 1).dimensions(), new int[]{4, 5});
+        Assert.assertEquals(RecordArray.create(SimpleRecord.class, 4, 1, 5).dimensions(), new int[]{4, 1, 5});
+
+        RecordArray<SimpleRecord> arr = grid(4, 5, 6);
+        Assert.assertEquals(arr.index(2, 3, 4), (2 * 5 + 3) * 6 + 4);
+        Assert.assertEquals(arr.get(new int[]{2, 3, 4}).getAge(), arr.get(2, 3, 4).getAge());
+
+        for (int[] indices : new int[][]{{1, 2}, {4, 0, 0}, {0, -1, 0}}) {
+            try {
+                arr.index(indices);
+                Assert.fail("Expected IllegalArgumentException or IndexOutOfBoundsException");
+            } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void testSlice() {
+        RecordArray<SimpleRecord> arr = grid(4, 5, 6);
+        RecordArray<SimpleRecord> slice = arr.slice(10, 30);
+        Assert.assertEquals(slice.size(), 20);
+        Assert.assertEquals(slice.dimensions(), new int[]{20});
+        for (int i = 0; i < 20; i++) {
+            Assert.assertEquals(slice.get(i).getAge(), 10 + i);
+        }
+
+        // shared, not copied
+        slice.get(0).setAge(-1);
+        Assert.assertEquals(arr.get(10).getAge(), -1);
+        arr.get(11).setAge(-2);
+        Assert.assertEquals(slice.get(1).getAge(), -2);
+
+        RecordArray<SimpleRecord> nested = slice.slice(5, 10);
+        Assert.assertEquals(nested.get(0).getAge(), 15);
+
+        try {
+            slice.get(20);
+            Assert.fail("Expected IndexOutOfBoundsException");
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+        try {
+            arr.slice(5, 5);
+            Assert.fail("Expected IndexOutOfBoundsException");
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testSubArray() {
+        RecordArray<SimpleRecord> arr = grid(4, 5, 6);
+        RecordArray<SimpleRecord> plane = arr.subArray(2);
+        Assert.assertEquals(plane.dimensions(), new int[]{5, 6});
+        RecordArray<SimpleRecord> row = plane.subArray(3);
+        Assert.assertEquals(row.dimensions(), new int[]{6});
+        for (int j = 0; j < 5; j++) {
+            for (int k = 0; k < 6; k++) {
+                Assert.assertSame(plane.get(j, k).getName(), arr.get(2, j, k).getName());
+            }
+        }
+        for (int k = 0; k < 6; k++) {
+            Assert.assertEquals(row.get(k).getAge(), arr.get(2, 3, k).getAge());
+        }
+
+        // the row is passed to a worker without copying
+        row.fill(0, row.size(), arr.get(0));
+        for (int k = 0; k < 6; k++) {
+            Assert.assertEquals(arr.get(2, 3, k).getAge(), 0);
+        }
+        Assert.assertEquals(arr.get(2, 4, 0).getAge(), arr.index(2, 4, 0));
+
+        try {
+            row.subArray(0);
+            Assert.fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testStridedAndTransposed() {
+        RecordArray<SimpleRecord> arr = grid(6, 8, 1);
+        RecordArray<SimpleRecord> even = arr.slice(1, 0, 8, 2);
+        Assert.assertEquals(even.dimensions(), new int[]{6, 4});
+        Assert.assertEquals(even.get(3, 2).getAge(), arr.get(3, 4).getAge());
+
+        RecordArray<SimpleRecord> t = arr.transpose();
+        Assert.assertEquals(t.dimensions(), new int[]{8, 6});
+        for (int i = 0; i < 6; i++) {
+            for (int j = 0; j < 8; j++) {
+                Assert.assertEquals(t.get(j, i).getAge(), arr.get(i, j).getAge());
+            }
+        }
+        // 1d order of the transposed view is column by column
+        Assert.assertEquals(t.get(1).getAge(), arr.get(1, 0).getAge());
+
+        RecordArray<SimpleRecord> column = t.subArray(5);
+        column.clear(0, column.size());
+        for (int i = 0; i < 6; i++) {
+            Assert.assertNull(arr.get(i, 5).getName());
+            Assert.assertNotNull(arr.get(i, 4).getName());
+        }
+
+        RecordArray<SimpleRecord> cube = grid(2, 3, 4);
+        RecordArray<SimpleRecord> p = cube.transpose(2, 0, 1);
+        Assert.assertEquals(p.dimensions(), new int[]{4, 2, 3});
+        Assert.assertEquals(p.get(3, 1, 2).getAge(), cube.get(1, 2, 3).getAge());
+
+        try {
+            cube.transpose(0, 0, 1);
+            Assert.fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testReshapeAndNDims() {
+        RecordArray<SimpleRecord> arr = grid(6, 10, 1);
+        RecordArray<SimpleRecord> nd = arr.reshape(2, 3, 2, 5);
+        Assert.assertEquals(nd.size(), 60);
+        Assert.assertEquals(nd.get(new int[]{1, 2, 1, 4}).getAge(), ((1 * 3 + 2) * 2 + 1) * 5 + 4);
+        nd.set(new int[]{0, 0, 0, 1}, arr.get(59));
+        Assert.assertEquals(arr.get(1).getAge(), 59);
+
+        // reshaped view can be viewed further
+        RecordArray<SimpleRecord> sub = nd.subArray(1).subArray(2);
+        Assert.assertEquals(sub.dimensions(), new int[]{2, 5});
+        Assert.assertEquals(sub.get(1, 4).getAge(), 59);
+
+        try {
+            arr.reshape(7, 9);
+            Assert.fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            arr.transpose().reshape(60);
+            Assert.fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testRangeOpsBetweenViews() {
+        RecordArray<SimpleRecord> arr = grid(4, 4, 1);
+        RecordArray<SimpleRecord> expected = grid(4, 4, 1);
+
+        // overlapping non-contiguous views of the same array
+        RecordArray<SimpleRecord> t = arr.transpose();
+        t.copyRange(0, arr, 1, 15);
+        for (int i = 0; i < 15; i++) {
+            int j = i / 4;
+            int k = i % 4;
+            Assert.assertEquals(arr.get(i + 1).getAge(), expected.get(k, j).getAge());
+        }
+
+        // contiguous views are copied as ranges of the array
+        RecordArray<SimpleRecord> dst = RecordArray.create(SimpleRecord.class, 4, 4);
+        expected.subArray(1).copyRange(0, dst.subArray(2), 0, 4);
+        for (int k = 0; k < 4; k++) {
+            Assert.assertEquals(dst.get(2, k).getName(), "n" + (4 + k));
+        }
+
+        RecordArray<SimpleRecord> row = expected.subArray(0);
+        row.moveRange(0, 1, 3);
+        Assert.assertEquals(row.get(3).getAge(), 2);
+        Assert.assertEquals(row.get(0).getAge(), 0);
+    }
+
+    @Test
+    public void testSortColumnsAndCursor() throws IOException {
+        RecordArray<SimpleRecord> arr = grid(4, 4, 1);
+        RecordArray<SimpleRecord> column = arr.transpose().subArray(1);
+        for (int i = 0; i < 4; i++) {
+            column.get(i).setAge(100 - i);
+        }
+        column.sortBy("Age");
+        for (int i = 0; i < 4; i++) {
+            Assert.assertEquals(arr.get(i, 1).getAge(), 97 + i);
+            Assert.assertEquals(arr.get(i, 1).getName(), "n" + ((3 - i) * 4 + 1));
+        }
+        Assert.assertEquals(arr.get(0, 0).getAge(), 0);
+
+        IntColumn age = column.intColumn("Age");
+        Assert.assertEquals(age.size(), 4);
+        Assert.assertFalse(age.hasArray());
+        age.set(2, 5);
+        Assert.assertEquals(arr.get(2, 1).getAge(), 5);
+
+        BooleanColumn male = arr.subArray(3).booleanColumn("Male");
+        Assert.assertEquals(male.cardinality(), 2);
+        Assert.assertEquals(male.nextSetBit(0), 0);
+
+        RecordCursor<SimpleRecord> c = column.cursor();
+        int n = 0;
+        while (c.next()) {
+            Assert.assertEquals(c.record().getAge(), arr.get(n, 1).getAge());
+            n++;
+        }
+        Assert.assertEquals(n, 4);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        arr.transpose().writeTo(Channels.newChannel(out));
+        RecordArray<SimpleRecord> read = RecordArray.readFrom(SimpleRecord.class,
+                Channels.newChannel(new ByteArrayInputStream(out.toByteArray())));
+        Assert.assertEquals(read.dimensions(), new int[]{4, 4});
+        Assert.assertEquals(read.get(1, 2).getName(), arr.get(2, 1).getName());
+
+        RecordArray<SimpleRecord> frozen = arr.slice(4, 8).freeze();
+        Assert.assertEquals(frozen.size(), 4);
+        Assert.assertEquals(frozen.get(0).getName(), "n4");
+        try {
+            frozen.subArray(0);
+            Assert.fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            frozen.slice(0, 2).get(0).setAge(1);
+            Assert.fail("Expected UnsupportedOperationException");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testOffHeapViews() {
+        try (RecordArray<OffHeapRecord> arr = RecordArray.create(OffHeapRecord.class, 3, 4)) {
+            for (int i = 0; i < arr.size(); i++) {
+                OffHeapTest.fill(arr.get(i), i);
+            }
+            RecordArray<OffHeapRecord> t = arr.transpose();
+            OffHeapTest.check(t.get(3, 2), 2 * 4 + 3);
+            t.subArray(0).copyRange(0, arr.subArray(1), 0, 3);
+            OffHeapTest.check(arr.get(1, 2), 2 * 4);
+        }
+    }
+
+    @Test
+    public void testParallelForAlignment() {
+        RecordArray<SimpleRecord> arr = RecordArray.create(SimpleRecord.class, 100_000);
+        int offset = 37;
+        RecordArray<SimpleRecord> view = arr.slice(offset, arr.size() - 5);
+
+        // split points are the multiples of 64 of the base array
+        List<int[]> chunks = Collections.synchronizedList(new ArrayList<>());
+        view.parallelFor(0, view.size(), 256, (from, to) -> {
+            chunks.add(new int[]{from, to});
+            for (int i = from; i < to; i++) {
+                view.get(i).setMale(true);
+            }
+        });
+        Assert.assertTrue(chunks.size() > 1);
+        for (int[] chunk : chunks) {
+            Assert.assertTrue(chunk[0] == 0 || (chunk[0] + offset) % 64 == 0, "split at " + chunk[0]);
+        }
+        Assert.assertEquals(view.stream().filter(SimpleRecord::isMale).count(), view.size());
+        Assert.assertFalse(arr.get(offset - 1).isMale());
+
+        view.parallelForEach(r -> r.setMale(false));
+        Assert.assertEquals(arr.stream().filter(SimpleRecord::isMale).count(), 0);
+
+        view.parallelStream().forEach(r -> r.setMale(true));
+        Assert.assertEquals(arr.stream().filter(SimpleRecord::isMale).count(), view.size());
+
+        // strided views are not split
+        RecordArray<SimpleRecord> strided = arr.slice(0, 1, arr.size(), 3);
+        Thread caller = Thread.currentThread();
+        strided.parallelFor(0, strided.size(), 64, (from, to) -> {
+            Assert.assertSame(Thread.currentThread(), caller);
+            for (int i = from; i < to; i++) {
+                strided.get(i).setMale(false);
+            }
+        });
+        Assert.assertNull(strided.spliterator().trySplit());
+        for (int i = 0; i < arr.size(); i++) {
+            Assert.assertEquals(arr.get(i).isMale(), i >= offset && i < arr.size() - 5 && (i - 1) % 3 != 0);
+        }
+    }
+}